@@ -0,0 +1,86 @@
+package gimpanel.tracker.benchmark;
+
+import gimpanel.tracker.models.EnhancedInventoryData;
+import net.runelite.api.Item;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Deterministic sample models shared by the benchmarks.
+ */
+public final class BenchmarkData
+{
+    private static final String[] CATEGORIES = {"Currency", "Food", "Potions", "Runes", "Weapons", "Armour", "Resources", "Other"};
+
+    private BenchmarkData()
+    {
+    }
+
+    public static EnhancedInventoryData bank(String playerName, int slots)
+    {
+        List<EnhancedInventoryData.EnhancedInventoryItem> items = new ArrayList<>(slots);
+        Map<String, EnhancedInventoryData.CategoryBreakdown> categories = new HashMap<>();
+        long totalValue = 0;
+        int totalItems = 0;
+
+        for (int slot = 0; slot < slots; slot++)
+        {
+            int itemId = 1000 + slot * 3;
+            int quantity = 1 + (slot * 37) % 5000;
+            int itemValue = 10 + (slot * 131) % 20000;
+            long value = (long) itemValue * quantity;
+            String category = CATEGORIES[slot % CATEGORIES.length];
+
+            items.add(new EnhancedInventoryData.EnhancedInventoryItem(itemId, "Item " + itemId, quantity, slot,
+                itemValue, value, category, slot % 11 == 0));
+            totalValue += value;
+            totalItems += quantity;
+
+            EnhancedInventoryData.CategoryBreakdown breakdown = categories.get(category);
+            categories.put(category, new EnhancedInventoryData.CategoryBreakdown(category,
+                (breakdown != null ? breakdown.getCount() : 0) + 1,
+                (breakdown != null ? breakdown.getValue() : 0) + value));
+        }
+
+        Map<String, EnhancedInventoryData.ValueRangeBreakdown> valueRanges = new HashMap<>();
+        valueRanges.put("high", new EnhancedInventoryData.ValueRangeBreakdown("high", slots / 4, totalValue / 2));
+        valueRanges.put("low", new EnhancedInventoryData.ValueRangeBreakdown("low", slots - slots / 4, totalValue / 2));
+
+        EnhancedInventoryData inventory = new EnhancedInventoryData(playerName, "Bank", items, totalValue, totalItems, slots);
+        inventory.setCategories(categories);
+        inventory.setValueRanges(valueRanges);
+        return inventory;
+    }
+
+    /**
+     * A container with every slot filled by a distinct item.
+     */
+    public static Item[] items(int slots)
+    {
+        Item[] items = new Item[slots];
+        for (int slot = 0; slot < slots; slot++)
+        {
+            items[slot] = new Item(1000 + slot * 3, 1 + (slot * 37) % 5000);
+        }
+        return items;
+    }
+
+    /**
+     * The same container after a deposit and withdrawal touched every tenth slot.
+     */
+    public static Item[] changed(Item[] items)
+    {
+        Item[] changed = items.clone();
+        for (int slot = 0; slot < changed.length; slot += 10)
+        {
+            Item item = changed[slot];
+            changed[slot] = slot % 20 == 0
+                ? new Item(item.getId(), item.getQuantity() + 5)
+                : new Item(-1, 0);
+        }
+        return changed;
+    }
+}
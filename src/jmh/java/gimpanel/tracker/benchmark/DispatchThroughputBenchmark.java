@@ -0,0 +1,73 @@
+package gimpanel.tracker.benchmark;
+
+import gimpanel.tracker.managers.DataManager;
+import gimpanel.tracker.managers.PlayerState;
+import gimpanel.tracker.models.DropData;
+import gimpanel.tracker.util.ApiClient;
+import gimpanel.tracker.util.MetricsRegistry;
+import net.runelite.api.Client;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end throughput from {@link DataManager} enqueue to the backend, against a
+ * local stand-in server. Each operation is one event delivered.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class DispatchThroughputBenchmark
+{
+    private static final int EVENTS_PER_INVOCATION = 1000;
+
+    @Param({"true", "false"})
+    private boolean batching;
+
+    private LocalWebhookServer server;
+    private DataManager dataManager;
+    private DropData drop;
+    private long expected;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        server = new LocalWebhookServer();
+        Client client = Stubs.client("Benchmark");
+        dataManager = new DataManager(client,
+            Stubs.config(server.getUrl(), Map.of("enableBatching", batching, "batchLingerMillis", 5)),
+            new ApiClient(), new MetricsRegistry(), new PlayerState(client));
+        dataManager.initialize();
+
+        drop = new DropData("Benchmark", "Dragon bones", 536, 1, "Green dragon");
+        drop.setRarity("common");
+        drop.setValue(2500);
+        drop.setLocation("Wilderness");
+
+        // Let the first response advertise batching before measuring
+        dataManager.queueDropUpdate(drop);
+        server.awaitReceived(1, 10, TimeUnit.SECONDS);
+        expected = server.getReceived();
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        dataManager.shutdown();
+        server.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS_PER_INVOCATION)
+    public void enqueueToDelivery()
+    {
+        for (int i = 0; i < EVENTS_PER_INVOCATION; i++)
+        {
+            dataManager.queueDropUpdate(drop);
+        }
+        expected += EVENTS_PER_INVOCATION;
+        server.awaitReceived(expected, 30, TimeUnit.SECONDS);
+    }
+}
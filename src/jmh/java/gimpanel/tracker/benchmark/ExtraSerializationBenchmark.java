@@ -0,0 +1,193 @@
+package gimpanel.tracker.benchmark;
+
+import gimpanel.tracker.models.DropData;
+import gimpanel.tracker.models.EnhancedInventoryData;
+import gimpanel.tracker.models.EnhancedSkillData;
+import gimpanel.tracker.models.WebhookPayload;
+import gimpanel.tracker.util.DataSerializer;
+import gimpanel.tracker.util.ExtraAdapters;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the old map-building extras against the hand-written extra adapters, and
+ * the adapters' JSON against the binary wire format.
+ *
+ * Both paths go through the same shared {@link DataSerializer}, so the difference is
+ * only the cost of building and reflectively walking the intermediate maps.
+ * Run with {@code ./gradlew jmh -Pjmh.includes=ExtraSerializationBenchmark -Pjmh.profilers=gc}
+ * to see allocation per operation as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ExtraSerializationBenchmark
+{
+    @Param({"28", "800"})
+    private int itemCount;
+
+    private DataSerializer serializer;
+    private DropData drop;
+    private EnhancedSkillData skill;
+    private EnhancedInventoryData inventory;
+    private String inventoryJson;
+
+    @Setup
+    public void setUp()
+    {
+        serializer = new DataSerializer();
+
+        drop = new DropData("Benchmark", "Dragon bones", 536, 1, "Green dragon");
+        drop.setRarity("common");
+        drop.setValue(2500);
+        drop.setLocation("Wilderness");
+
+        skill = new EnhancedSkillData("Benchmark", "Attack", 70, 737627, 1500, 90, 42000, 12345);
+        skill.setXpGained(120);
+
+        inventory = BenchmarkData.bank("Benchmark", itemCount);
+        inventoryJson = inventoryAdapter();
+    }
+
+    @Benchmark
+    public String dropMaps()
+    {
+        return serializer.toJson(payload("LOOT", LegacyExtras.drop(drop)));
+    }
+
+    @Benchmark
+    public String dropAdapter()
+    {
+        return serializer.toJson(new WebhookPayload("LOOT", "Benchmark"), ExtraAdapters.DROP, drop);
+    }
+
+    @Benchmark
+    public String enhancedSkillMaps()
+    {
+        return serializer.toJson(payload("ENHANCED_LEVEL", LegacyExtras.enhancedSkill(skill)));
+    }
+
+    @Benchmark
+    public String enhancedSkillAdapter()
+    {
+        return serializer.toJson(new WebhookPayload("ENHANCED_LEVEL", "Benchmark"), ExtraAdapters.ENHANCED_SKILL, skill);
+    }
+
+    @Benchmark
+    public String inventoryMaps()
+    {
+        return serializer.toJson(payload("ENHANCED_INVENTORY", LegacyExtras.enhancedInventory(inventory)));
+    }
+
+    @Benchmark
+    public String inventoryAdapter()
+    {
+        return serializer.toJson(new WebhookPayload("ENHANCED_INVENTORY", "Benchmark"), ExtraAdapters.ENHANCED_INVENTORY, inventory);
+    }
+
+    @Benchmark
+    public byte[] enhancedSkillBinary()
+    {
+        return serializer.toBinary(new WebhookPayload("ENHANCED_LEVEL", "Benchmark"), ExtraAdapters.ENHANCED_SKILL, skill);
+    }
+
+    @Benchmark
+    public byte[] inventoryBinary()
+    {
+        return serializer.toBinary(new WebhookPayload("ENHANCED_INVENTORY", "Benchmark"), ExtraAdapters.ENHANCED_INVENTORY, inventory);
+    }
+
+    @Benchmark
+    public byte[] inventoryTranscode()
+    {
+        // What the send path does: the JSON is already built for the outbox
+        return serializer.toBinary(inventoryJson);
+    }
+
+    private static WebhookPayload payload(String type, Map<String, Object> extra)
+    {
+        WebhookPayload payload = new WebhookPayload(type, "Benchmark");
+        payload.setExtra(extra);
+        return payload;
+    }
+
+    /**
+     * The map-based extras ApiClient built before the adapters, kept as the baseline.
+     */
+    static final class LegacyExtras
+    {
+        private LegacyExtras()
+        {
+        }
+
+        static Map<String, Object> drop(DropData dropData)
+        {
+            return Map.of(
+                "itemName", dropData.getItemName(),
+                "itemId", dropData.getItemId(),
+                "quantity", dropData.getQuantity(),
+                "source", dropData.getSource(),
+                "rarity", dropData.getRarity(),
+                "value", dropData.getValue(),
+                "location", dropData.getLocation()
+            );
+        }
+
+        static Map<String, Object> enhancedSkill(EnhancedSkillData skillData)
+        {
+            return Map.of(
+                "skill", skillData.getSkillName(),
+                "level", skillData.getLevel(),
+                "xp", skillData.getXp(),
+                "xpGained", skillData.getXpGained(),
+                "totalLevel", skillData.getTotalLevel(),
+                "combatLevel", skillData.getCombatLevel(),
+                "xpPerHour", skillData.getXpPerHour(),
+                "efficiency", skillData.getEfficiency(),
+                "rank", skillData.getRank()
+            );
+        }
+
+        static Map<String, Object> enhancedInventory(EnhancedInventoryData inventoryData)
+        {
+            return Map.of(
+                "containerName", inventoryData.getContainerName(),
+                "totalValue", inventoryData.getTotalValue(),
+                "totalItems", inventoryData.getTotalItems(),
+                "uniqueItems", inventoryData.getUniqueItems(),
+                "items", inventoryData.getItems().stream().map(item -> Map.of(
+                    "itemId", item.getItemId(),
+                    "itemName", item.getItemName(),
+                    "quantity", item.getQuantity(),
+                    "itemValue", item.getItemValue(),
+                    "totalValue", item.getTotalValue(),
+                    "category", item.getCategory(),
+                    "noted", item.isNoted()
+                )).collect(Collectors.toList()),
+                "categories", inventoryData.getCategories().entrySet().stream().collect(
+                    Collectors.toMap(
+                        Map.Entry::getKey,
+                        entry -> Map.of(
+                            "category", entry.getValue().getCategory(),
+                            "count", entry.getValue().getCount(),
+                            "value", entry.getValue().getValue()
+                        )
+                    )
+                ),
+                "valueRanges", inventoryData.getValueRanges().entrySet().stream().collect(
+                    Collectors.toMap(
+                        Map.Entry::getKey,
+                        entry -> Map.of(
+                            "range", entry.getValue().getRange(),
+                            "count", entry.getValue().getCount(),
+                            "value", entry.getValue().getValue()
+                        )
+                    )
+                )
+            );
+        }
+    }
+}
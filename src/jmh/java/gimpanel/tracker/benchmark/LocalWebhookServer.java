@@ -0,0 +1,79 @@
+package gimpanel.tracker.benchmark;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Minimal backend on localhost that accepts every webhook and counts the events it received.
+ *
+ * Advertises batching, so the batched send path is what gets measured.
+ */
+public final class LocalWebhookServer implements AutoCloseable
+{
+    private final HttpServer server;
+    private final AtomicLong received = new AtomicLong();
+
+    public LocalWebhookServer() throws IOException
+    {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/api/webhook", exchange -> {
+            try (InputStream body = exchange.getRequestBody())
+            {
+                body.transferTo(OutputStream.nullOutputStream());
+            }
+
+            String batch = exchange.getRequestHeaders().getFirst("X-GIMPanel-Batch");
+            received.addAndGet(batch != null ? Long.parseLong(batch) : 1);
+
+            exchange.getResponseHeaders().set("X-GIMPanel-Capabilities", "batch");
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.setExecutor(Executors.newFixedThreadPool(4, runnable -> {
+            Thread thread = new Thread(runnable, "benchmark-webhook-server");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        server.start();
+    }
+
+    public String getUrl()
+    {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    public long getReceived()
+    {
+        return received.get();
+    }
+
+    /**
+     * Waits until at least {@code count} events have arrived in total.
+     */
+    public void awaitReceived(long count, long timeout, TimeUnit unit)
+    {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (received.get() < count)
+        {
+            if (System.nanoTime() > deadline)
+            {
+                throw new IllegalStateException("Only " + received.get() + " of " + count + " events arrived");
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,146 @@
+package gimpanel.tracker.benchmark;
+
+import com.google.gson.TypeAdapter;
+import gimpanel.tracker.models.*;
+import gimpanel.tracker.util.DataSerializer;
+import gimpanel.tracker.util.ExtraAdapters;
+import gimpanel.tracker.util.FormEncodedJsonBody;
+import net.runelite.api.coords.WorldPoint;
+import okio.Buffer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Everything ApiClient does to one event before it hits the network: writing the
+ * extra, serializing the payload and form-encoding it into a request body.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PayloadEncodingBenchmark
+{
+    @Param({"LEVEL", "ENHANCED_LEVEL", "ENHANCED_XP_GAIN", "LOOT", "PLAYER_SYNC", "QUEST", "ENHANCED_QUEST",
+        "ENHANCED_INVENTORY", "ACHIEVEMENT_DIARY", "COLLECTION_LOG", "COMBAT_ACHIEVEMENT", "HEARTBEAT"})
+    private String type;
+
+    private DataSerializer serializer;
+    private Encoder<?> encoder;
+
+    @Setup
+    public void setUp()
+    {
+        serializer = new DataSerializer();
+        encoder = encoderFor(type);
+    }
+
+    @Benchmark
+    public String serialize()
+    {
+        return encoder.serialize(serializer, type);
+    }
+
+    @Benchmark
+    public long serializeAndEncode() throws IOException
+    {
+        Buffer sink = new Buffer();
+        new FormEncodedJsonBody("payload_json", encoder.serialize(serializer, type)).writeTo(sink);
+        return sink.size();
+    }
+
+    private static Encoder<?> encoderFor(String type)
+    {
+        switch (type)
+        {
+            case "LEVEL":
+                return new Encoder<>(ExtraAdapters.SKILL, new SkillData("Benchmark", "Attack", 70, 737627));
+            case "ENHANCED_LEVEL":
+                return new Encoder<>(ExtraAdapters.ENHANCED_SKILL, skill());
+            case "ENHANCED_XP_GAIN":
+                return new Encoder<>(ExtraAdapters.ENHANCED_XP, skill());
+            case "LOOT":
+                DropData drop = new DropData("Benchmark", "Dragon bones", 536, 1, "Green dragon");
+                drop.setRarity("common");
+                drop.setValue(2500);
+                drop.setLocation("Wilderness");
+                return new Encoder<>(ExtraAdapters.DROP, drop);
+            case "PLAYER_SYNC":
+                return new Encoder<>(ExtraAdapters.PLAYER_SYNC, player());
+            case "QUEST":
+                return new Encoder<>(ExtraAdapters.QUEST, new QuestData("Benchmark", "Dragon Slayer I", QuestData.QuestStatus.COMPLETED));
+            case "ENHANCED_QUEST":
+                EnhancedQuestData quest = new EnhancedQuestData("Benchmark", "Dragon Slayer I", QuestData.QuestStatus.IN_PROGRESS, 2,
+                    Map.of("questPoints", 32, "skills", Map.of("Attack", 1)),
+                    Map.of("xp", Map.of("Strength", 18650, "Defence", 18650)));
+                return new Encoder<>(ExtraAdapters.ENHANCED_QUEST, quest);
+            case "ENHANCED_INVENTORY":
+                return new Encoder<>(ExtraAdapters.ENHANCED_INVENTORY, BenchmarkData.bank("Benchmark", 800));
+            case "ACHIEVEMENT_DIARY":
+                AchievementDiaryData diary = new AchievementDiaryData("Benchmark", "Varrock", "Hard", 8, 10,
+                    List.of("Varrock armour 3", "Lamp"));
+                return new Encoder<>(ExtraAdapters.ACHIEVEMENT_DIARY, diary);
+            case "COLLECTION_LOG":
+                CollectionLogData log = new CollectionLogData("Benchmark", "Dragon pickaxe", "Bosses", 120, 1443);
+                log.setCategoryProgress(Map.of("Bosses", 120, "Raids", 14, "Clues", 300));
+                return new Encoder<>(ExtraAdapters.COLLECTION_LOG, log);
+            case "COMBAT_ACHIEVEMENT":
+                CombatAchievementData achievement = new CombatAchievementData("Benchmark", "Noxious Foe", "Easy", "Kill Count", true, 1);
+                achievement.setTierProgress(Map.of("Easy", 33, "Medium", 12));
+                return new Encoder<>(ExtraAdapters.COMBAT_ACHIEVEMENT, achievement);
+            case "HEARTBEAT":
+                return new Encoder<>(ExtraAdapters.HEARTBEAT, 1_700_000_000_000L);
+            default:
+                throw new IllegalArgumentException("No sample for webhook type " + type);
+        }
+    }
+
+    private static EnhancedSkillData skill()
+    {
+        EnhancedSkillData skill = new EnhancedSkillData("Benchmark", "Attack", 70, 737627, 1500, 90, 42000, 12345);
+        skill.setXpGained(120);
+        skill.setTimeSinceLastUpdate(600);
+        return skill;
+    }
+
+    private static PlayerData player()
+    {
+        PlayerData player = new PlayerData();
+        player.setUsername("Benchmark");
+        player.setTotalLevel(1500);
+        player.setCombatLevel(90);
+        player.setTotalXp(25_000_000L);
+        player.setOnline(true);
+        player.setCurrentWorld("302");
+        player.setCurrentActivity("Woodcutting");
+        player.setLocation(new WorldPoint(3222, 3218, 0));
+        PlayerData.ResourceState resources = new PlayerData.ResourceState();
+        resources.setHealth(70);
+        resources.setMaxHealth(70);
+        resources.setPrayer(43);
+        resources.setMaxPrayer(52);
+        resources.setEnergy(100);
+        resources.setSpecialAttack(100);
+        player.setResources(resources);
+        return player;
+    }
+
+    private static final class Encoder<T>
+    {
+        private final TypeAdapter<T> adapter;
+        private final T extra;
+
+        private Encoder(TypeAdapter<T> adapter, T extra)
+        {
+            this.adapter = adapter;
+            this.extra = extra;
+        }
+
+        private String serialize(DataSerializer serializer, String type)
+        {
+            return serializer.toJson(new WebhookPayload(type, "Benchmark"), adapter, extra);
+        }
+    }
+}
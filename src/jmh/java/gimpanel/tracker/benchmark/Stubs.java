@@ -0,0 +1,153 @@
+package gimpanel.tracker.benchmark;
+
+import gimpanel.tracker.config.GIMPanelConfig;
+import net.runelite.api.Client;
+import net.runelite.api.Item;
+import net.runelite.api.ItemComposition;
+import net.runelite.api.ItemContainer;
+import net.runelite.api.Player;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interface stand-ins built with {@link Proxy}, so benchmarks run without a game client.
+ *
+ * Methods that are not given an answer return the zero value of their return type.
+ */
+public final class Stubs
+{
+    private Stubs()
+    {
+    }
+
+    /**
+     * A logged-in client whose item definitions are named after their id.
+     */
+    public static Client client(String playerName)
+    {
+        Player player = stub(Player.class, Map.of("getName", playerName, "getCombatLevel", 100));
+        Map<Integer, ItemComposition> definitions = new ConcurrentHashMap<>();
+        return stub(Client.class, (method, args) -> {
+            switch (method)
+            {
+                case "getLocalPlayer":
+                    return player;
+                case "getItemDefinition":
+                    return definitions.computeIfAbsent((Integer) args[0], Stubs::itemDefinition);
+                default:
+                    return null;
+            }
+        });
+    }
+
+    /**
+     * Config with every feature on, sending to the given URL. Anything not listed uses
+     * the value the plugin ships with where it matters for the benchmark.
+     */
+    public static GIMPanelConfig config(String url, Map<String, Object> overrides)
+    {
+        return stub(GIMPanelConfig.class, (method, args) -> {
+            if (overrides.containsKey(method))
+            {
+                return overrides.get(method);
+            }
+            switch (method)
+            {
+                case "gimpanelUrl":
+                    return url;
+                case "authToken":
+                    return "benchmark";
+                case "shareInventory":
+                case "enableGroupStorageTracking":
+                case "enableBatching":
+                    return true;
+                case "batchMaxEvents":
+                    return 50;
+                case "batchLingerMillis":
+                    return 250;
+                case "updateInterval":
+                    return 60;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    public static ItemContainer container(Item[] items)
+    {
+        return stub(ItemContainer.class, Map.of("getItems", items));
+    }
+
+    private static ItemComposition itemDefinition(int itemId)
+    {
+        return stub(ItemComposition.class, Map.of("getName", "Item " + itemId));
+    }
+
+    private static <T> T stub(Class<T> type, Map<String, Object> answers)
+    {
+        return stub(type, (method, args) -> answers.get(method));
+    }
+
+    private static <T> T stub(Class<T> type, Answer answer)
+    {
+        Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (self, method, args) -> {
+            switch (method.getName())
+            {
+                case "hashCode":
+                    return System.identityHashCode(self);
+                case "equals":
+                    return self == args[0];
+                case "toString":
+                    return type.getSimpleName() + " stub";
+            }
+
+            Object value = answer.answer(method.getName(), args);
+            return value != null ? value : zeroValue(method.getReturnType());
+        });
+        return type.cast(proxy);
+    }
+
+    private static Object zeroValue(Class<?> type)
+    {
+        if (type == boolean.class)
+        {
+            return false;
+        }
+        if (type == int.class)
+        {
+            return 0;
+        }
+        if (type == long.class)
+        {
+            return 0L;
+        }
+        if (type == double.class)
+        {
+            return 0.0;
+        }
+        if (type == float.class)
+        {
+            return 0f;
+        }
+        if (type == short.class)
+        {
+            return (short) 0;
+        }
+        if (type == byte.class)
+        {
+            return (byte) 0;
+        }
+        if (type == char.class)
+        {
+            return '\0';
+        }
+        return null;
+    }
+
+    private interface Answer
+    {
+        Object answer(String method, Object[] args);
+    }
+}
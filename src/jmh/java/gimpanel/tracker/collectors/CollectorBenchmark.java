@@ -0,0 +1,94 @@
+package gimpanel.tracker.collectors;
+
+import gimpanel.tracker.benchmark.BenchmarkData;
+import gimpanel.tracker.benchmark.Stubs;
+import gimpanel.tracker.config.GIMPanelConfig;
+import gimpanel.tracker.managers.DataManager;
+import gimpanel.tracker.managers.PlayerState;
+import gimpanel.tracker.util.ApiClient;
+import gimpanel.tracker.util.EventTimings;
+import gimpanel.tracker.util.MetricsRegistry;
+import net.runelite.api.Client;
+import net.runelite.api.InventoryID;
+import net.runelite.api.Item;
+import net.runelite.api.events.ItemContainerChanged;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collector work for container changes, split into the capture that stays on the client
+ * thread and the processing the collector worker does with it.
+ *
+ * Lives in the collectors package so it can reach the package-private stages. The worker
+ * runs tasks inline and the data manager is never started, so nothing leaves the collector.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CollectorBenchmark
+{
+    // InventoryCollector only captures on every 100th container event
+    private static final int EVENTS_PER_REBUILD = 100;
+    private static final int BANK = InventoryID.BANK.getId();
+
+    @Param({"80", "800"})
+    private int slots;
+
+    private InventoryCollector inventoryCollector;
+    private GroupStorageCollector groupStorageCollector;
+    private ItemContainerChanged bankChanged;
+    private Item[] previous;
+    private ContainerSnapshot previousSnapshot;
+    private ContainerSnapshot currentSnapshot;
+
+    @Setup
+    public void setUp()
+    {
+        Client client = Stubs.client("Benchmark");
+        GIMPanelConfig config = Stubs.config("http://127.0.0.1:9", Map.of());
+        DataManager dataManager = new DataManager(client, config, new ApiClient(), new MetricsRegistry(), new PlayerState(client));
+
+        CollectorWorker inline = new CollectorWorker(new EventTimings(), Runnable::run);
+
+        inventoryCollector = new InventoryCollector(client, config, dataManager, inline);
+        groupStorageCollector = new GroupStorageCollector(client, config, dataManager, inline);
+
+        previous = BenchmarkData.items(slots);
+        previousSnapshot = new ContainerSnapshot().capture(BANK, "Benchmark", previous);
+        currentSnapshot = new ContainerSnapshot().capture(BANK, "Benchmark", BenchmarkData.changed(previous));
+        bankChanged = new ItemContainerChanged(BANK, Stubs.container(previous));
+    }
+
+    /**
+     * One full bank rebuild, including the throttled events leading up to it. With the worker
+     * running inline this is everything the client thread did before the handoff.
+     */
+    @Benchmark
+    public void inventoryBankRebuild()
+    {
+        // Without a resync an unchanged bank is an empty delta and nothing gets built
+        inventoryCollector.requestResync();
+        for (int i = 0; i < EVENTS_PER_REBUILD; i++)
+        {
+            inventoryCollector.onItemContainerChanged(bankChanged);
+        }
+    }
+
+    /**
+     * What stays on the client thread for a bank event: copying IDs and quantities.
+     */
+    @Benchmark
+    public void inventoryBankCapture()
+    {
+        ContainerSnapshot snapshot = inventoryCollector.capture(BANK, "Benchmark", previous);
+        inventoryCollector.release(snapshot);
+    }
+
+    @Benchmark
+    public Object groupStorageAnalyzeChange()
+    {
+        return groupStorageCollector.analyzeStorageChange(previousSnapshot, currentSnapshot);
+    }
+}
@@ -0,0 +1,83 @@
+package gimpanel.tracker;
+
+import gimpanel.tracker.config.GIMPanelConfig;
+import gimpanel.tracker.models.MetricsData;
+import gimpanel.tracker.util.MetricsRegistry;
+import net.runelite.client.ui.overlay.OverlayPanel;
+import net.runelite.client.ui.overlay.OverlayPosition;
+import net.runelite.client.ui.overlay.components.LineComponent;
+import net.runelite.client.ui.overlay.components.TitleComponent;
+
+import javax.inject.Inject;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.util.Map;
+
+/**
+ * Send counts and latencies per update type, for checking the pipeline in game.
+ */
+public class GIMPanelMetricsOverlay extends OverlayPanel
+{
+    // The registry is summarised at most this often rather than every frame
+    private static final long REFRESH_MILLIS = 1000;
+
+    private final GIMPanelConfig config;
+    private final MetricsRegistry metrics;
+
+    private MetricsData latest;
+    private long latestAt;
+
+    @Inject
+    public GIMPanelMetricsOverlay(GIMPanelConfig config, MetricsRegistry metrics)
+    {
+        this.config = config;
+        this.metrics = metrics;
+        setPosition(OverlayPosition.TOP_LEFT);
+    }
+
+    @Override
+    public Dimension render(Graphics2D graphics)
+    {
+        if (!config.showMetricsOverlay())
+        {
+            return null;
+        }
+
+        long now = System.currentTimeMillis();
+        if (latest == null || now - latestAt >= REFRESH_MILLIS)
+        {
+            latest = metrics.snapshot(null);
+            latestAt = now;
+        }
+
+        panelComponent.setPreferredSize(new Dimension(230, 0));
+        panelComponent.getChildren().add(TitleComponent.builder()
+            .text("GIMPanel pipeline")
+            .build());
+
+        for (Map.Entry<String, Long> gauge : latest.getGauges().entrySet())
+        {
+            panelComponent.getChildren().add(LineComponent.builder()
+                .left(gauge.getKey())
+                .right(String.valueOf(gauge.getValue()))
+                .build());
+        }
+
+        for (MetricsData.TypeMetrics type : latest.getTypes())
+        {
+            boolean failing = type.getFailed() > 0 || type.getDropped() > 0;
+            panelComponent.getChildren().add(LineComponent.builder()
+                .left(type.getType())
+                .right(type.getSent() + " ok / " + (type.getFailed() + type.getDropped()) + " lost")
+                .rightColor(failing ? Color.ORANGE : Color.WHITE)
+                .build());
+            panelComponent.getChildren().add(LineComponent.builder()
+                .left("  queue / send p99")
+                .right(String.format("%.0f / %.0f ms", type.getQueueLatency().getP99(), type.getSendLatency().getP99()))
+                .build());
+        }
+
+        return super.render(graphics);
+    }
+}
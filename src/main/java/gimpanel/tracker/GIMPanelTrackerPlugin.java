@@ -3,8 +3,10 @@ package gimpanel.tracker;
 import com.google.inject.Provides;
 import gimpanel.tracker.config.GIMPanelConfig;
 import gimpanel.tracker.managers.DataManager;
+import gimpanel.tracker.managers.PlayerState;
 import gimpanel.tracker.managers.StateTracker;
 import gimpanel.tracker.collectors.*;
+import gimpanel.tracker.util.EventTimings;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.*;
 import net.runelite.api.events.*;
@@ -12,6 +14,7 @@ import net.runelite.client.config.ConfigManager;
 import net.runelite.client.eventbus.Subscribe;
 import net.runelite.client.plugins.Plugin;
 import net.runelite.client.plugins.PluginDescriptor;
+import net.runelite.client.ui.overlay.OverlayManager;
 
 import javax.inject.Inject;
 
@@ -35,6 +38,9 @@ public class GIMPanelTrackerPlugin extends Plugin
     @Inject
     private StateTracker stateTracker;
 
+    @Inject
+    private PlayerState playerState;
+
     @Inject
     private SkillCollector skillCollector;
 
@@ -68,10 +74,23 @@ public class GIMPanelTrackerPlugin extends Plugin
     @Inject
     private CombatAchievementCollector combatAchievementCollector;
 
+    @Inject
+    private CollectorWorker collectorWorker;
+
+    @Inject
+    private EventTimings eventTimings;
+
+    @Inject
+    private OverlayManager overlayManager;
+
+    @Inject
+    private GIMPanelMetricsOverlay metricsOverlay;
+
     @Override
     protected void startUp() throws Exception
     {
         log.info("GIMPanel Tracker started!");
+        overlayManager.add(metricsOverlay);
         log.info("Config - URL: {}, Token: {}", config.gimpanelUrl(), config.authToken().isEmpty() ? "NOT SET" : "SET");
         
         if (config.gimpanelUrl().isEmpty() || config.authToken().isEmpty())
@@ -91,6 +110,12 @@ public class GIMPanelTrackerPlugin extends Plugin
     protected void shutDown() throws Exception
     {
         log.info("GIMPanel Tracker stopped!");
+        overlayManager.remove(metricsOverlay);
+        // Let queued collector work, and XP still coalescing, reach the data manager before it stops
+        skillCollector.flushPending();
+        collectorWorker.shutdown();
+        eventTimings.logSummary();
+        eventTimings.reset();
         dataManager.shutdown();
         stateTracker.shutdown();
     }
@@ -98,89 +123,163 @@ public class GIMPanelTrackerPlugin extends Plugin
     @Subscribe
     public void onStatChanged(StatChanged event)
     {
-        if (!config.enableSkillTracking()) {
-            log.debug("StatChanged skipped - skill tracking disabled");
-            return;
-        }
+        long start = System.nanoTime();
+        try
+        {
+            // Kept current whatever is tracked - the periodic sync reads it
+            playerState.onStatChanged(event);
+
+            if (!config.enableSkillTracking()) {
+                log.debug("StatChanged skipped - skill tracking disabled");
+                return;
+            }
         
-        log.info("StatChanged event: {} XP: {} Level: {}", event.getSkill(), event.getXp(), event.getLevel());
-        skillCollector.onStatChanged(event);
+            log.debug("StatChanged event: {} XP: {} Level: {}", event.getSkill(), event.getXp(), event.getLevel());
+            skillCollector.onStatChanged(event);
+        }
+        finally
+        {
+            eventTimings.record("client.StatChanged", start);
+        }
     }
 
     @Subscribe
     public void onChatMessage(ChatMessage event)
     {
-        log.debug("ChatMessage event: {}", event.getMessage());
-        
-        if (config.enableDropTracking())
+        long start = System.nanoTime();
+        try
         {
-            dropCollector.onChatMessage(event);
-        }
+            log.debug("ChatMessage event: {}", event.getMessage());
         
-        if (config.enableCollectionLogTracking())
-        {
-            collectionLogCollector.onChatMessage(event);
-        }
+            if (config.enableDropTracking())
+            {
+                dropCollector.onChatMessage(event);
+            }
         
-        if (config.enableCombatAchievementTracking())
+            if (config.enableCollectionLogTracking())
+            {
+                collectionLogCollector.onChatMessage(event);
+            }
+        
+            if (config.enableCombatAchievementTracking())
+            {
+                combatAchievementCollector.onChatMessage(event);
+            }
+        }
+        finally
         {
-            combatAchievementCollector.onChatMessage(event);
+            eventTimings.record("client.ChatMessage", start);
         }
     }
 
     @Subscribe
     public void onGameTick(GameTick event)
     {
-        // OPTIMIZATION: Only process if player is logged in
-        if (client.getGameState() != GameState.LOGGED_IN || client.getLocalPlayer() == null)
+        long start = System.nanoTime();
+        try
         {
-            return;
-        }
+            // OPTIMIZATION: Only process if player is logged in
+            if (client.getGameState() != GameState.LOGGED_IN || client.getLocalPlayer() == null)
+            {
+                return;
+            }
         
-        // Disable game tick logging but keep essential processing
-        // locationCollector.onGameTick(event);  // Commented out - not needed right now
-        // resourceCollector.onGameTick(event);  // Commented out - not needed right now
-        stateTracker.onGameTick(event);  // Keep for login/logout detection
+            // Disable game tick logging but keep essential processing
+            // locationCollector.onGameTick(event);  // Commented out - not needed right now
+            // resourceCollector.onGameTick(event);  // Commented out - not needed right now
+            playerState.onGameTick();  // Location, combat level and run energy for the periodic sync
+            stateTracker.onGameTick(event);  // Keep for login/logout detection
+            skillCollector.onGameTick(event);  // Flushes XP coalesced over the last tick(s)
+        }
+        finally
+        {
+            eventTimings.record("client.GameTick", start);
+        }
     }
 
     @Subscribe
     public void onVarbitChanged(VarbitChanged event)
     {
-        if (config.enableQuestTracking())
+        long start = System.nanoTime();
+        try
         {
-            questCollector.onVarbitChanged(event);
-        }
+            if (config.enableQuestTracking())
+            {
+                questCollector.onVarbitChanged(event);
+            }
         
-        if (config.enableAchievementTracking())
-        {
-            achievementDiaryCollector.onVarbitChanged(event);
-        }
+            if (config.enableAchievementTracking())
+            {
+                achievementDiaryCollector.onVarbitChanged(event);
+            }
         
-        if (config.enableCombatAchievementTracking())
+            if (config.enableCombatAchievementTracking())
+            {
+                combatAchievementCollector.onVarbitChanged(event);
+            }
+        }
+        finally
         {
-            combatAchievementCollector.onVarbitChanged(event);
+            eventTimings.record("client.VarbitChanged", start);
         }
     }
 
     @Subscribe
     public void onGameStateChanged(GameStateChanged event)
     {
-        stateTracker.onGameStateChanged(event);
+        long start = System.nanoTime();
+        try
+        {
+            GameState state = event.getGameState();
+            if (state == GameState.LOGIN_SCREEN || state == GameState.HOPPING)
+            {
+                // No more ticks until the next login - send the coalesced XP and level-ups now
+                skillCollector.flushPending();
+            }
+            playerState.onGameStateChanged(event);
+            stateTracker.onGameStateChanged(event);
+        }
+        finally
+        {
+            eventTimings.record("client.GameStateChanged", start);
+        }
+    }
+
+    @Subscribe
+    public void onWorldChanged(WorldChanged event)
+    {
+        long start = System.nanoTime();
+        try
+        {
+            playerState.onWorldChanged();
+        }
+        finally
+        {
+            eventTimings.record("client.WorldChanged", start);
+        }
     }
 
     @Subscribe
     public void onItemContainerChanged(ItemContainerChanged event)
     {
-        log.debug("ItemContainerChanged event: containerId={}", event.getContainerId());
+        long start = System.nanoTime();
+        try
+        {
+            log.debug("ItemContainerChanged event: containerId={}", event.getContainerId());
         
-        if (config.shareInventory())
+            if (config.shareInventory())
+            {
+                inventoryCollector.onItemContainerChanged(event);
+            }
+        
+            // Always process stash and group storage (they have their own config checks)
+            stashCollector.onItemContainerChanged(event);
+            groupStorageCollector.onItemContainerChanged(event);
+        }
+        finally
         {
-            inventoryCollector.onItemContainerChanged(event);
+            eventTimings.record("client.ItemContainerChanged", start);
         }
-        
-        // Always process stash and group storage (they have their own config checks)
-        stashCollector.onItemContainerChanged(event);
-        groupStorageCollector.onItemContainerChanged(event);
     }
 
     @Provides
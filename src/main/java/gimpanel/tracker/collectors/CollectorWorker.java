@@ -0,0 +1,128 @@
+package gimpanel.tracker.collectors;
+
+import gimpanel.tracker.util.EventTimings;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background thread that collectors hand their captured snapshots to, so enrichment,
+ * diffing and payload building stay off the client thread.
+ *
+ * Tasks run one at a time in submission order, which lets each collector keep its
+ * state unsynchronized as long as only worker tasks touch it.
+ */
+@Slf4j
+@Singleton
+public class CollectorWorker
+{
+    // Roughly a minute of container and XP events; anything past that means the worker is stuck
+    private static final int MAX_PENDING = 1024;
+
+    private final EventTimings timings;
+    private final Executor fixedExecutor;
+    private ThreadPoolExecutor executor;
+
+    @Inject
+    public CollectorWorker(EventTimings timings)
+    {
+        this(timings, null);
+    }
+
+    /**
+     * Runs tasks on the given executor instead of a worker thread, for benchmarks.
+     */
+    CollectorWorker(EventTimings timings, Executor executor)
+    {
+        this.timings = timings;
+        this.fixedExecutor = executor;
+    }
+
+    /**
+     * Queues work for the worker thread. Returns {@code false} when the task was dropped
+     * because the worker is too far behind, so the caller can release what it captured.
+     */
+    public boolean execute(String timingName, Runnable task)
+    {
+        Runnable timed = () -> {
+            long start = System.nanoTime();
+            try
+            {
+                task.run();
+            }
+            catch (Exception e)
+            {
+                log.error("Collector task {} failed", timingName, e);
+            }
+            finally
+            {
+                timings.record(timingName, start);
+            }
+        };
+
+        try
+        {
+            executor().execute(timed);
+            return true;
+        }
+        catch (RejectedExecutionException e)
+        {
+            log.warn("Collector worker has {} tasks pending, dropping {}", MAX_PENDING, timingName);
+            return false;
+        }
+    }
+
+    /**
+     * Finishes queued work and stops the thread. The next {@link #execute} starts a new one.
+     */
+    public void shutdown()
+    {
+        ThreadPoolExecutor stopping;
+        synchronized (this)
+        {
+            stopping = executor;
+            executor = null;
+        }
+        if (stopping == null)
+        {
+            return;
+        }
+
+        stopping.shutdown();
+        try
+        {
+            if (!stopping.awaitTermination(2, TimeUnit.SECONDS))
+            {
+                log.warn("Collector worker did not finish within 2 seconds, {} tasks dropped", stopping.shutdownNow().size());
+            }
+        }
+        catch (InterruptedException e)
+        {
+            stopping.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized Executor executor()
+    {
+        if (fixedExecutor != null)
+        {
+            return fixedExecutor;
+        }
+        if (executor == null)
+        {
+            executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(MAX_PENDING), runnable -> {
+                Thread thread = new Thread(runnable, "gimpanel-collector");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+}
@@ -0,0 +1,103 @@
+package gimpanel.tracker.collectors;
+
+import gimpanel.tracker.models.InventoryDeltaData;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Remembers the last container contents that were sent for each container ID, so
+ * later updates only need to carry the slots that changed.
+ *
+ * Only touched from the collector worker, except {@link #requestResync()}.
+ */
+public class ContainerDeltaTracker
+{
+    private static final int EMPTY = ContainerSnapshot.EMPTY;
+
+    private final Map<Integer, SentState> sentStates = new HashMap<>();
+    // Bumped on every resync request; states recorded before it need a new base snapshot
+    private final AtomicInteger resyncGeneration = new AtomicInteger();
+
+    /**
+     * Returns the slot changes since the last recorded state of the container, or
+     * {@code null} when the receiver needs a full base snapshot instead.
+     */
+    public List<InventoryDeltaData.SlotDelta> diff(ContainerSnapshot snapshot)
+    {
+        SentState previous = sentStates.get(snapshot.getContainerId());
+        if (previous == null || previous.generation != resyncGeneration.get())
+        {
+            return null;
+        }
+
+        List<InventoryDeltaData.SlotDelta> changes = new ArrayList<>();
+        int slots = Math.max(previous.itemIds.length, snapshot.length());
+        for (int slot = 0; slot < slots; slot++)
+        {
+            int oldId = slot < previous.itemIds.length ? previous.itemIds[slot] : EMPTY;
+            int oldQuantity = slot < previous.quantities.length ? previous.quantities[slot] : 0;
+            int newId = slot < snapshot.length() ? snapshot.getItemId(slot) : EMPTY;
+            int newQuantity = slot < snapshot.length() ? snapshot.getQuantity(slot) : 0;
+
+            if (oldId == newId)
+            {
+                if (oldQuantity != newQuantity)
+                {
+                    changes.add(new InventoryDeltaData.SlotDelta(slot, newId, newQuantity - oldQuantity));
+                }
+                continue;
+            }
+
+            if (oldId != EMPTY)
+            {
+                changes.add(new InventoryDeltaData.SlotDelta(slot, oldId, -oldQuantity));
+            }
+            if (newId != EMPTY)
+            {
+                changes.add(new InventoryDeltaData.SlotDelta(slot, newId, newQuantity));
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Records the contents that are about to be sent and returns the version of that update.
+     */
+    public long commit(ContainerSnapshot snapshot)
+    {
+        SentState previous = sentStates.get(snapshot.getContainerId());
+        long version = previous != null ? previous.version + 1 : 1;
+
+        sentStates.put(snapshot.getContainerId(),
+            new SentState(version, resyncGeneration.get(), snapshot.copyItemIds(), snapshot.copyQuantities()));
+        return version;
+    }
+
+    /**
+     * Makes the next update for every container a full base snapshot. Safe to call from any thread.
+     */
+    public void requestResync()
+    {
+        resyncGeneration.incrementAndGet();
+    }
+
+    private static final class SentState
+    {
+        private final long version;
+        private final int generation;
+        private final int[] itemIds;
+        private final int[] quantities;
+
+        private SentState(long version, int generation, int[] itemIds, int[] quantities)
+        {
+            this.version = version;
+            this.generation = generation;
+            this.itemIds = itemIds;
+            this.quantities = quantities;
+        }
+    }
+}
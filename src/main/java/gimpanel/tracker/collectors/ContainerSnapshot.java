@@ -0,0 +1,98 @@
+package gimpanel.tracker.collectors;
+
+import net.runelite.api.Item;
+
+import java.util.Arrays;
+
+/**
+ * Raw item IDs and quantities of a container, copied on the client thread.
+ *
+ * Empty slots hold {@link #EMPTY} with quantity 0. The arrays are reused between
+ * captures, so only the first {@link #length()} slots are meaningful.
+ */
+public final class ContainerSnapshot
+{
+    public static final int EMPTY = -1;
+
+    private int containerId;
+    private String playerName;
+    private int[] itemIds = new int[0];
+    private int[] quantities = new int[0];
+    private int length;
+
+    ContainerSnapshot capture(int containerId, String playerName, Item[] items)
+    {
+        this.containerId = containerId;
+        this.playerName = playerName;
+        this.length = items.length;
+        if (itemIds.length < length)
+        {
+            itemIds = new int[length];
+            quantities = new int[length];
+        }
+
+        for (int slot = 0; slot < length; slot++)
+        {
+            Item item = items[slot];
+            boolean present = item != null && item.getId() > 0 && item.getQuantity() > 0;
+            itemIds[slot] = present ? item.getId() : EMPTY;
+            quantities[slot] = present ? item.getQuantity() : 0;
+        }
+        return this;
+    }
+
+    public int getContainerId()
+    {
+        return containerId;
+    }
+
+    public String getPlayerName()
+    {
+        return playerName;
+    }
+
+    public int length()
+    {
+        return length;
+    }
+
+    public int getItemId(int slot)
+    {
+        return itemIds[slot];
+    }
+
+    public int getQuantity(int slot)
+    {
+        return quantities[slot];
+    }
+
+    public int countNonEmpty()
+    {
+        int count = 0;
+        for (int slot = 0; slot < length; slot++)
+        {
+            if (itemIds[slot] != EMPTY)
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public boolean sameContents(ContainerSnapshot other)
+    {
+        return other != null && length == other.length
+            && Arrays.equals(itemIds, 0, length, other.itemIds, 0, length)
+            && Arrays.equals(quantities, 0, length, other.quantities, 0, length);
+    }
+
+    int[] copyItemIds()
+    {
+        return Arrays.copyOf(itemIds, length);
+    }
+
+    int[] copyQuantities()
+    {
+        return Arrays.copyOf(quantities, length);
+    }
+}
@@ -13,7 +13,6 @@ import net.runelite.api.events.ItemContainerChanged;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -25,19 +24,22 @@ public class GroupStorageCollector
     private final Client client;
     private final GIMPanelConfig config;
     private final DataManager dataManager;
+    private final CollectorWorker worker;
+    private final SnapshotPool<ContainerSnapshot> snapshots = new SnapshotPool<>(2, ContainerSnapshot::new);
     
-    // Track last known group storage state
-    private Item[] lastGroupStorageState = null;
+    // Track last known group storage state, only touched by the collector worker
+    private ContainerSnapshot lastGroupStorageState = null;
     
     // Group Ironman shared storage container ID
     private static final int GROUP_STORAGE_CONTAINER_ID = InventoryID.GROUP_STORAGE.getId();
 
     @Inject
-    public GroupStorageCollector(Client client, GIMPanelConfig config, DataManager dataManager)
+    public GroupStorageCollector(Client client, GIMPanelConfig config, DataManager dataManager, CollectorWorker worker)
     {
         this.client = client;
         this.config = config;
         this.dataManager = dataManager;
+        this.worker = worker;
     }
 
     public void onItemContainerChanged(ItemContainerChanged event)
@@ -73,18 +75,27 @@ public class GroupStorageCollector
             return;
         }
 
-        Item[] currentItems = container.getItems();
+        ContainerSnapshot snapshot = snapshots.acquire().capture(containerId, playerName, container.getItems());
+        if (!worker.execute("worker.groupStorage", () -> process(snapshot)))
+        {
+            snapshots.release(snapshot);
+        }
+    }
+
+    private void process(ContainerSnapshot currentItems)
+    {
+        String playerName = currentItems.getPlayerName();
 
         if (lastGroupStorageState == null)
         {
             // First time seeing group storage - store state and report
-            lastGroupStorageState = Arrays.copyOf(currentItems, currentItems.length);
+            lastGroupStorageState = currentItems;
             reportGroupStorageSync(playerName, currentItems, "initial_sync");
             return;
         }
 
         // Compare current vs previous state
-        if (!Arrays.equals(currentItems, lastGroupStorageState))
+        if (!currentItems.sameContents(lastGroupStorageState))
         {
             log.info("Group storage changed for {}", playerName);
             
@@ -92,14 +103,28 @@ public class GroupStorageCollector
             GroupStorageChange change = analyzeStorageChange(lastGroupStorageState, currentItems);
             
             // Update stored state
-            lastGroupStorageState = Arrays.copyOf(currentItems, currentItems.length);
+            replaceState(currentItems);
             
             // Report the change
             reportGroupStorageChange(playerName, change);
         }
+        else
+        {
+            snapshots.release(currentItems);
+        }
     }
 
-    private GroupStorageChange analyzeStorageChange(Item[] previous, Item[] current)
+    private void replaceState(ContainerSnapshot snapshot)
+    {
+        if (lastGroupStorageState != null)
+        {
+            snapshots.release(lastGroupStorageState);
+        }
+        lastGroupStorageState = snapshot;
+    }
+
+    // Package-private so the benchmarks can exercise it on its own
+    GroupStorageChange analyzeStorageChange(ContainerSnapshot previous, ContainerSnapshot current)
     {
         GroupStorageChange change = new GroupStorageChange();
         
@@ -136,16 +161,16 @@ public class GroupStorageCollector
         return change;
     }
 
-    private Map<Integer, Integer> createItemMap(Item[] items)
+    private Map<Integer, Integer> createItemMap(ContainerSnapshot items)
     {
         Map<Integer, Integer> itemMap = new HashMap<>();
         if (items != null)
         {
-            for (Item item : items)
+            for (int slot = 0; slot < items.length(); slot++)
             {
-                if (item.getId() > 0 && item.getQuantity() > 0)
+                if (items.getItemId(slot) != ContainerSnapshot.EMPTY)
                 {
-                    itemMap.put(item.getId(), item.getQuantity());
+                    itemMap.put(items.getItemId(slot), items.getQuantity(slot));
                 }
             }
         }
@@ -204,11 +229,11 @@ public class GroupStorageCollector
         }
     }
 
-    private void reportGroupStorageSync(String playerName, Item[] items, String reason)
+    private void reportGroupStorageSync(String playerName, ContainerSnapshot items, String reason)
     {
         try
         {
-            int itemCount = countNonEmptyItems(items);
+            int itemCount = items.countNonEmpty();
             
             ActivityData activityData = new ActivityData(
                 playerName,
@@ -233,21 +258,6 @@ public class GroupStorageCollector
         }
     }
 
-    private int countNonEmptyItems(Item[] items)
-    {
-        if (items == null) return 0;
-        
-        int count = 0;
-        for (Item item : items)
-        {
-            if (item.getId() > 0 && item.getQuantity() > 0)
-            {
-                count++;
-            }
-        }
-        return count;
-    }
-
     private String formatItemChanges(List<ItemChange> changes)
     {
         StringBuilder sb = new StringBuilder();
@@ -285,8 +295,15 @@ public class GroupStorageCollector
             Item[] items = container.getItems();
             if (items != null)
             {
-                lastGroupStorageState = Arrays.copyOf(items, items.length);
-                reportGroupStorageSync(playerName, items, reason);
+                ContainerSnapshot snapshot = snapshots.acquire().capture(GROUP_STORAGE_CONTAINER_ID, playerName, items);
+                boolean queued = worker.execute("worker.groupStorage", () -> {
+                    replaceState(snapshot);
+                    reportGroupStorageSync(playerName, snapshot, reason);
+                });
+                if (!queued)
+                {
+                    snapshots.release(snapshot);
+                }
             }
         }
         else
@@ -296,13 +313,13 @@ public class GroupStorageCollector
     }
 
     // Helper classes
-    private static class GroupStorageChange
+    static class GroupStorageChange
     {
         public final List<ItemChange> deposited = new ArrayList<>();
         public final List<ItemChange> withdrawn = new ArrayList<>();
     }
 
-    private static class ItemChange
+    static class ItemChange
     {
         public final int itemId;
         public final int quantity;
@@ -3,6 +3,7 @@ package gimpanel.tracker.collectors;
 import gimpanel.tracker.config.GIMPanelConfig;
 import gimpanel.tracker.managers.DataManager;
 import gimpanel.tracker.models.EnhancedInventoryData;
+import gimpanel.tracker.models.InventoryDeltaData;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Client;
 import net.runelite.api.InventoryID;
@@ -16,6 +17,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -25,16 +27,22 @@ public class InventoryCollector
     private final Client client;
     private final GIMPanelConfig config;
     private final DataManager dataManager;
+    private final CollectorWorker worker;
+    private final ContainerDeltaTracker deltaTracker = new ContainerDeltaTracker();
+    private final SnapshotPool<ContainerSnapshot> snapshots = new SnapshotPool<>(4, ContainerSnapshot::new);
+    // Filled on the client thread, read by the worker when it builds a full snapshot
+    private final Map<Integer, String> itemNames = new ConcurrentHashMap<>();
     
     private int ticksSinceLastUpdate = 0;
     private static final int UPDATE_FREQUENCY = 100; // Update every 100 ticks (~60 seconds)
 
     @Inject
-    public InventoryCollector(Client client, GIMPanelConfig config, DataManager dataManager)
+    public InventoryCollector(Client client, GIMPanelConfig config, DataManager dataManager, CollectorWorker worker)
     {
         this.client = client;
         this.config = config;
         this.dataManager = dataManager;
+        this.worker = worker;
     }
 
     public void onItemContainerChanged(ItemContainerChanged event)
@@ -71,37 +79,141 @@ public class InventoryCollector
             return;
         }
 
+        submit(containerId, playerName, container);
+    }
+
+    /**
+     * Client thread: sends the inventory, equipment and (once opened this session) the bank
+     * as full snapshots, regardless of the usual update rate, for when the backend has lost track.
+     */
+    public void syncContainers(String reason)
+    {
+        if (!config.shareInventory() || client.getLocalPlayer() == null)
+        {
+            return;
+        }
+
+        String playerName = client.getLocalPlayer().getName();
+        if (playerName == null)
+        {
+            return;
+        }
+
+        log.info("Syncing containers for {} (reason: {})", playerName, reason);
+        deltaTracker.requestResync();
+        for (InventoryID inventoryId : new InventoryID[]{InventoryID.INVENTORY, InventoryID.EQUIPMENT, InventoryID.BANK})
+        {
+            ItemContainer container = client.getItemContainer(inventoryId);
+            if (container != null)
+            {
+                submit(inventoryId.getId(), playerName, container);
+            }
+        }
+    }
+
+    private void submit(int containerId, String playerName, ItemContainer container)
+    {
         String containerName = getContainerName(containerId);
         if (containerName == null)
         {
             return; // Skip unknown containers
         }
 
+        ContainerSnapshot snapshot = capture(containerId, playerName, container.getItems());
+        if (!worker.execute("worker.inventory", () -> process(snapshot, containerName)))
+        {
+            release(snapshot);
+        }
+    }
+
+    /**
+     * Client thread: copies the container and looks up names of items not seen before,
+     * since item definitions can only be read here.
+     */
+    ContainerSnapshot capture(int containerId, String playerName, Item[] containerItems)
+    {
+        ContainerSnapshot snapshot = snapshots.acquire().capture(containerId, playerName, containerItems);
+        for (int slot = 0; slot < snapshot.length(); slot++)
+        {
+            int itemId = snapshot.getItemId(slot);
+            if (itemId != ContainerSnapshot.EMPTY && !itemNames.containsKey(itemId))
+            {
+                itemNames.put(itemId, client.getItemDefinition(itemId).getName());
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Collector worker: diffs the snapshot against what was sent and builds the payload.
+     */
+    void process(ContainerSnapshot snapshot, String containerName)
+    {
+        try
+        {
+            String playerName = snapshot.getPlayerName();
+
+            // After the first full snapshot, only the slots that changed are sent
+            List<InventoryDeltaData.SlotDelta> changes = deltaTracker.diff(snapshot);
+            if (changes != null)
+            {
+                if (changes.isEmpty())
+                {
+                    return;
+                }
+
+                long version = deltaTracker.commit(snapshot);
+                log.debug("Inventory delta v{}: {} slot changes in {} for {}", version, changes.size(), containerName, playerName);
+                dataManager.queueInventoryDeltaUpdate(new InventoryDeltaData(playerName, containerName, version, changes));
+                return;
+            }
+
+            EnhancedInventoryData inventoryData = buildSnapshot(snapshot, containerName);
+            inventoryData.setVersion(deltaTracker.commit(snapshot));
+
+            log.debug("Enhanced inventory update: {} items ({} unique), {} total value in {} for {}",
+                inventoryData.getItems().size(), inventoryData.getUniqueItems(), inventoryData.getTotalValue(), containerName, playerName);
+
+            dataManager.queueEnhancedInventoryUpdate(inventoryData);
+        }
+        finally
+        {
+            release(snapshot);
+        }
+    }
+
+    void release(ContainerSnapshot snapshot)
+    {
+        snapshots.release(snapshot);
+    }
+
+    private EnhancedInventoryData buildSnapshot(ContainerSnapshot snapshot, String containerName)
+    {
         List<EnhancedInventoryData.EnhancedInventoryItem> items = new ArrayList<>();
-        Item[] containerItems = container.getItems();
         long totalValue = 0;
         Map<String, Long> categoryValues = new HashMap<>();
         Map<String, Integer> categoryCounts = new HashMap<>();
 
-        for (int i = 0; i < containerItems.length; i++)
+        for (int i = 0; i < snapshot.length(); i++)
         {
-            Item item = containerItems[i];
-            if (item.getId() > 0 && item.getQuantity() > 0)
+            int itemId = snapshot.getItemId(i);
+            if (itemId != ContainerSnapshot.EMPTY)
             {
-                String itemName = client.getItemDefinition(item.getId()).getName();
+                int quantity = snapshot.getQuantity(i);
+                String itemName = itemNames.getOrDefault(itemId, "Unknown");
                 
                 // Calculate item value (simplified - in practice would use GE API)
-                int itemValue = getItemValue(item.getId());
-                long itemTotalValue = (long) itemValue * item.getQuantity();
+                int itemValue = getItemValue(itemId);
+                long itemTotalValue = (long) itemValue * quantity;
                 totalValue += itemTotalValue;
                 
                 // Categorize item
                 String category = categorizeItem(itemName);
                 categoryValues.merge(category, itemTotalValue, Long::sum);
-                categoryCounts.merge(category, item.getQuantity(), Integer::sum);
+                categoryCounts.merge(category, quantity, Integer::sum);
                 
                 items.add(new EnhancedInventoryData.EnhancedInventoryItem(
-                    item.getId(), itemName, item.getQuantity(), i,
+                    itemId, itemName, quantity, i,
                     itemValue, itemTotalValue, category, itemName.contains("noted")
                 ));
             }
@@ -122,16 +234,20 @@ public class InventoryCollector
         Map<String, EnhancedInventoryData.ValueRangeBreakdown> valueRanges = createValueRangeBreakdown(items);
         
         EnhancedInventoryData inventoryData = new EnhancedInventoryData(
-            playerName, containerName, items, totalValue,
+            snapshot.getPlayerName(), containerName, items, totalValue,
             items.size(), getUniqueItemCount(items)
         );
         inventoryData.setCategories(categories);
         inventoryData.setValueRanges(valueRanges);
-        
-        log.debug("Enhanced inventory update: {} items ({} unique), {} total value in {} for {}", 
-            items.size(), inventoryData.getUniqueItems(), totalValue, containerName, playerName);
-        
-        dataManager.queueEnhancedInventoryUpdate(inventoryData);
+        return inventoryData;
+    }
+
+    /**
+     * Makes the next update of every container a full snapshot, for when the backend has lost track.
+     */
+    public void requestResync()
+    {
+        deltaTracker.requestResync();
     }
 
     private String getContainerName(int containerId)
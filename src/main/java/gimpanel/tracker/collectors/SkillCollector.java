@@ -4,14 +4,18 @@ import gimpanel.tracker.config.GIMPanelConfig;
 import gimpanel.tracker.managers.DataManager;
 import gimpanel.tracker.models.SkillData;
 import gimpanel.tracker.models.EnhancedSkillData;
+import gimpanel.tracker.models.SkillBatchData;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Client;
 import net.runelite.api.Skill;
+import net.runelite.api.events.GameTick;
 import net.runelite.api.events.StatChanged;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Slf4j
@@ -21,17 +25,24 @@ public class SkillCollector
     private final Client client;
     private final GIMPanelConfig config;
     private final DataManager dataManager;
+    private final CollectorWorker worker;
+    private final SnapshotPool<StatSnapshot> snapshots = new SnapshotPool<>(32, StatSnapshot::new);
+    private final Runnable flushTask = this::flush;
+    private final Runnable drainTask = this::drain;
     
+    // Everything below is only touched by the collector worker after construction
     private final Map<Skill, Integer> previousLevels = new HashMap<>();
     private final Map<Skill, Integer> previousXp = new HashMap<>();
-    private final Map<Skill, Long> lastSkillUpdate = new HashMap<>();
+    private final Map<String, Long> lastSkillUpdate = new HashMap<>();
+    private final XpCoalescer coalescer = new XpCoalescer();
 
     @Inject
-    public SkillCollector(Client client, GIMPanelConfig config, DataManager dataManager)
+    public SkillCollector(Client client, GIMPanelConfig config, DataManager dataManager, CollectorWorker worker)
     {
         this.client = client;
         this.config = config;
         this.dataManager = dataManager;
+        this.worker = worker;
         initializePreviousStats();
     }
 
@@ -81,8 +92,20 @@ public class SkillCollector
             return;
         }
 
-        int currentLevel = client.getRealSkillLevel(skill);
-        int currentXp = client.getSkillExperience(skill);
+        StatSnapshot snapshot = snapshots.acquire().capture(playerName, skill,
+            client.getRealSkillLevel(skill), client.getSkillExperience(skill),
+            client.getTotalLevel(), client.getLocalPlayer().getCombatLevel());
+        if (!worker.execute("worker.skills", () -> process(snapshot)))
+        {
+            snapshots.release(snapshot);
+        }
+    }
+
+    private void process(StatSnapshot snapshot)
+    {
+        Skill skill = snapshot.skill;
+        int currentLevel = snapshot.level;
+        int currentXp = snapshot.xp;
         
         Integer prevLevel = previousLevels.get(skill);
         Integer prevXp = previousXp.get(skill);
@@ -94,46 +117,158 @@ public class SkillCollector
         }
 
         // Enhanced skill data with additional metrics
-        int totalLevel = client.getTotalLevel();
-        int combatLevel = client.getLocalPlayer().getCombatLevel();
-        
-        // Calculate XP per hour
-        long currentTime = System.currentTimeMillis();
-        long lastUpdate = lastSkillUpdate.getOrDefault(skill, currentTime);
-        
         EnhancedSkillData skillData = new EnhancedSkillData(
-            playerName, skill.getName(), currentLevel, currentXp,
-            totalLevel, combatLevel, 0.0, -1
+            snapshot.playerName, skill.getName(), currentLevel, currentXp,
+            snapshot.totalLevel, snapshot.combatLevel, 0.0, -1
         );
+        snapshots.release(snapshot);
         
         skillData.setXpGained(currentXp - prevXp);
         skillData.setLevelsGained(currentLevel - prevLevel);
+
+        previousLevels.put(skill, currentLevel);
+        previousXp.put(skill, currentXp);
+
+        if (skillData.getXpGained() <= 0 && skillData.getLevelsGained() <= 0)
+        {
+            return;
+        }
+
+        if (config.xpCoalesceTicks() == 0)
+        {
+            // Coalescing disabled - send every XP drop immediately
+            send(skillData);
+            return;
+        }
         
-        // Update timing data for XP per hour calculation
-        if (lastUpdate != currentTime)
+        // Merged with the rest of this tick's changes and sent from onGameTick
+        coalescer.add(skillData);
+    }
+
+    /**
+     * Client thread: sends every skill's level and XP as one batch, for when the backend has
+     * lost track. Nothing was gained, so each entry has zero XP gained.
+     */
+    public void syncAllSkills(String reason)
+    {
+        if (!config.enableSkillTracking() || client.getLocalPlayer() == null)
         {
-            skillData.updateTimingData(lastUpdate, currentTime);
+            return;
+        }
+
+        String playerName = client.getLocalPlayer().getName();
+        if (playerName == null)
+        {
+            return;
         }
+
+        int totalLevel = client.getTotalLevel();
+        int combatLevel = client.getLocalPlayer().getCombatLevel();
+        List<EnhancedSkillData> skills = new ArrayList<>();
+        for (Skill skill : Skill.values())
+        {
+            if (skill != Skill.OVERALL)
+            {
+                skills.add(new EnhancedSkillData(playerName, skill.getName(), client.getRealSkillLevel(skill),
+                    client.getSkillExperience(skill), totalLevel, combatLevel, 0.0, -1));
+            }
+        }
+
+        log.info("Syncing all skills for {} (reason: {})", playerName, reason);
+        dataManager.queueSkillBatchUpdate(new SkillBatchData(playerName, totalLevel, combatLevel, skills));
+    }
+
+    public void onGameTick(GameTick event)
+    {
+        worker.execute("worker.skills", flushTask);
+    }
+
+    /**
+     * Sends whatever is still coalescing without waiting for the window. Called on logout
+     * and before the plugin stops, when no more ticks will come to flush it.
+     */
+    public void flushPending()
+    {
+        worker.execute("worker.skills", drainTask);
+    }
+
+    private void flush()
+    {
+        send(coalescer.tick(config.xpCoalesceTicks()));
+    }
+
+    private void drain()
+    {
+        send(coalescer.drain());
+    }
+
+    private void send(List<EnhancedSkillData> changes)
+    {
+        if (changes.isEmpty())
+        {
+            return;
+        }
+
+        long currentTime = System.currentTimeMillis();
+        List<EnhancedSkillData> xpChanges = new ArrayList<>(changes.size());
+        for (EnhancedSkillData skillData : changes)
+        {
+            updateTiming(skillData, currentTime);
+
+            // Level-ups keep their own event so the backend can announce them
+            if (skillData.getLevelsGained() > 0)
+            {
+                logLevelUp(skillData);
+                dataManager.queueEnhancedSkillUpdate(skillData);
+            }
+            else
+            {
+                xpChanges.add(skillData);
+            }
+        }
+
+        if (!xpChanges.isEmpty())
+        {
+            EnhancedSkillData latest = changes.get(changes.size() - 1);
+            log.debug("XP gained in {} skills over {} ticks for {}", xpChanges.size(), config.xpCoalesceTicks(), latest.getPlayerName());
+            dataManager.queueSkillBatchUpdate(new SkillBatchData(
+                latest.getPlayerName(), latest.getTotalLevel(), latest.getCombatLevel(), xpChanges));
+        }
+    }
+
+    private void send(EnhancedSkillData skillData)
+    {
+        updateTiming(skillData, System.currentTimeMillis());
         
-        // Send updates immediately - no batching
         if (skillData.getLevelsGained() > 0)
         {
-            log.info("Level up! {} reached level {} in {} (+{} XP, {:.1f} XP/hr)", 
-                playerName, skillData.getLevel(), skillData.getSkillName(), 
-                skillData.getXpGained(), skillData.getXpPerHour());
+            logLevelUp(skillData);
             dataManager.queueEnhancedSkillUpdate(skillData);
         }
-        else if (skillData.getXpGained() > 0)
+        else
         {
             log.info("XP gained: {} +{} XP in {} ({:.1f} XP/hr)", 
-                playerName, skillData.getXpGained(), skillData.getSkillName(),
+                skillData.getPlayerName(), skillData.getXpGained(), skillData.getSkillName(),
                 skillData.getXpPerHour());
             dataManager.queueEnhancedXpUpdate(skillData);
         }
-        
-        lastSkillUpdate.put(skill, currentTime);
+    }
 
-        previousLevels.put(skill, currentLevel);
-        previousXp.put(skill, currentXp);
+    private void updateTiming(EnhancedSkillData skillData, long currentTime)
+    {
+        // Calculate XP per hour since this skill was last sent
+        long lastUpdate = lastSkillUpdate.getOrDefault(skillData.getSkillName(), currentTime);
+        if (lastUpdate != currentTime)
+        {
+            skillData.updateTimingData(lastUpdate, currentTime);
+        }
+        lastSkillUpdate.put(skillData.getSkillName(), currentTime);
+    }
+
+    private void logLevelUp(EnhancedSkillData skillData)
+    {
+        log.info("Level up! {} reached level {} in {} (+{} XP, {:.1f} XP/hr)", 
+            skillData.getPlayerName(), skillData.getLevel(), skillData.getSkillName(), 
+            skillData.getXpGained(), skillData.getXpPerHour());
     }
 }
\ No newline at end of file
@@ -0,0 +1,33 @@
+package gimpanel.tracker.collectors;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Supplier;
+
+/**
+ * Small free list of snapshot objects, acquired on the client thread and released by the worker.
+ *
+ * An empty pool hands out a new object, and a full pool lets released ones be collected.
+ */
+class SnapshotPool<T>
+{
+    private final BlockingQueue<T> free;
+    private final Supplier<T> factory;
+
+    SnapshotPool(int capacity, Supplier<T> factory)
+    {
+        this.free = new ArrayBlockingQueue<>(capacity);
+        this.factory = factory;
+    }
+
+    T acquire()
+    {
+        T snapshot = free.poll();
+        return snapshot != null ? snapshot : factory.get();
+    }
+
+    void release(T snapshot)
+    {
+        free.offer(snapshot);
+    }
+}
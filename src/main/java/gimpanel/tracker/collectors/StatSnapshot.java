@@ -0,0 +1,27 @@
+package gimpanel.tracker.collectors;
+
+import net.runelite.api.Skill;
+
+/**
+ * Skill values read on the client thread when a stat changes.
+ */
+final class StatSnapshot
+{
+    String playerName;
+    Skill skill;
+    int level;
+    int xp;
+    int totalLevel;
+    int combatLevel;
+
+    StatSnapshot capture(String playerName, Skill skill, int level, int xp, int totalLevel, int combatLevel)
+    {
+        this.playerName = playerName;
+        this.skill = skill;
+        this.level = level;
+        this.xp = xp;
+        this.totalLevel = totalLevel;
+        this.combatLevel = combatLevel;
+        return this;
+    }
+}
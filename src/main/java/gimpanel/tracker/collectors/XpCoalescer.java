@@ -0,0 +1,73 @@
+package gimpanel.tracker.collectors;
+
+import gimpanel.tracker.models.EnhancedSkillData;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Merges stat changes per skill until the coalescing window has passed.
+ *
+ * The window starts at the first change after a flush and is counted in game ticks,
+ * so everything a single action causes (Attack and Hitpoints XP from one hit)
+ * always ends up in the same flush. Not thread-safe: it is owned by
+ * {@link SkillCollector} and only touched by tasks on the {@link CollectorWorker}.
+ */
+public class XpCoalescer
+{
+    private final Map<String, EnhancedSkillData> pending = new LinkedHashMap<>();
+    private int ticksPending = 0;
+
+    /**
+     * Adds a change, merging it into any pending change for the same skill.
+     */
+    public void add(EnhancedSkillData change)
+    {
+        EnhancedSkillData existing = pending.get(change.getSkillName());
+        if (existing == null)
+        {
+            pending.put(change.getSkillName(), change);
+            return;
+        }
+
+        existing.setLevel(change.getLevel());
+        existing.setXp(change.getXp());
+        existing.setXpGained(existing.getXpGained() + change.getXpGained());
+        existing.setLevelsGained(existing.getLevelsGained() + change.getLevelsGained());
+        existing.setTotalLevel(change.getTotalLevel());
+        existing.setCombatLevel(change.getCombatLevel());
+    }
+
+    /**
+     * Called once per game tick. Returns the merged changes once they have been pending
+     * for {@code windowTicks} ticks, otherwise an empty list.
+     */
+    public List<EnhancedSkillData> tick(int windowTicks)
+    {
+        if (pending.isEmpty())
+        {
+            return Collections.emptyList();
+        }
+
+        ticksPending++;
+        if (ticksPending < windowTicks)
+        {
+            return Collections.emptyList();
+        }
+        return drain();
+    }
+
+    /**
+     * Returns and clears everything pending, regardless of the window.
+     */
+    public List<EnhancedSkillData> drain()
+    {
+        List<EnhancedSkillData> changes = new ArrayList<>(pending.values());
+        pending.clear();
+        ticksPending = 0;
+        return changes;
+    }
+}
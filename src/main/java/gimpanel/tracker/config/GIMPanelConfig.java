@@ -111,6 +111,17 @@ public interface GIMPanelConfig extends Config
         return true;
     }
 
+    @ConfigItem(
+        keyName = "xpCoalesceTicks",
+        name = "XP Update Window (ticks)",
+        description = "Combine XP drops from this many game ticks into one update (0 sends every XP drop on its own)"
+    )
+    @Range(min = 0, max = 100)
+    default int xpCoalesceTicks()
+    {
+        return 1;
+    }
+
     @ConfigItem(
         keyName = "enableQuestTracking",
         name = "Track Quests",
@@ -182,6 +193,176 @@ public interface GIMPanelConfig extends Config
         return 30;
     }
 
+    @ConfigItem(
+        keyName = "enableBatching",
+        name = "Batch Webhooks",
+        description = "Combine many events into one request when the backend supports it"
+    )
+    default boolean enableBatching()
+    {
+        return true;
+    }
+
+    @ConfigItem(
+        keyName = "batchMaxEvents",
+        name = "Batch Size (events)",
+        description = "Maximum number of events sent in one batched request"
+    )
+    @Range(min = 1, max = 500)
+    default int batchMaxEvents()
+    {
+        return 50;
+    }
+
+    @ConfigItem(
+        keyName = "batchLingerMillis",
+        name = "Batch Linger (ms)",
+        description = "How long to wait for more events before sending a partial batch"
+    )
+    @Range(min = 0, max = 5000)
+    default int batchLingerMillis()
+    {
+        return 250;
+    }
+
+    @ConfigItem(
+        keyName = "maxConcurrentRequests",
+        name = "Max Concurrent Requests",
+        description = "How many updates can be sending at once - more wait in line"
+    )
+    @Range(min = 1, max = 16)
+    default int maxConcurrentRequests()
+    {
+        return 4;
+    }
+
+    @ConfigItem(
+        keyName = "rateLimitPerSecond",
+        name = "Send Rate (per second)",
+        description = "Average number of updates sent per second across all types - extra updates wait their turn"
+    )
+    @Range(min = 1, max = 100)
+    default int rateLimitPerSecond()
+    {
+        return 10;
+    }
+
+    @ConfigItem(
+        keyName = "rateLimitBurst",
+        name = "Send Burst",
+        description = "How many updates can go out at once after a quiet period"
+    )
+    @Range(min = 1, max = 200)
+    default int rateLimitBurst()
+    {
+        return 20;
+    }
+
+    @ConfigItem(
+        keyName = "typeRateLimitPerSecond",
+        name = "Send Rate per Type (per second)",
+        description = "Average number of updates of any one type sent per second, so one busy type cannot crowd out the rest"
+    )
+    @Range(min = 1, max = 100)
+    default int typeRateLimitPerSecond()
+    {
+        return 3;
+    }
+
+    @ConfigItem(
+        keyName = "typeRateLimitBurst",
+        name = "Send Burst per Type",
+        description = "How many updates of one type can go out at once after a quiet period"
+    )
+    @Range(min = 1, max = 200)
+    default int typeRateLimitBurst()
+    {
+        return 10;
+    }
+
+    @ConfigItem(
+        keyName = "queueMemoryMegabytes",
+        name = "Waiting Updates Memory Limit (MB)",
+        description = "Maximum memory for updates waiting to be sent - beyond this, new updates go to disk or are dropped"
+    )
+    @Range(min = 1, max = 256)
+    default int queueMemoryMegabytes()
+    {
+        return 16;
+    }
+
+    @ConfigItem(
+        keyName = "enableCompression",
+        name = "Compress Updates",
+        description = "Send compressed updates when the backend supports it, to save bandwidth on metered connections"
+    )
+    default boolean enableCompression()
+    {
+        return false;
+    }
+
+    @ConfigItem(
+        keyName = "enableBinaryFormat",
+        name = "Binary Updates",
+        description = "Send updates in a compact binary format when the backend supports it. Takes precedence over compression"
+    )
+    default boolean enableBinaryFormat()
+    {
+        return false;
+    }
+
+    @ConfigItem(
+        keyName = "enableStreaming",
+        name = "Stream Updates",
+        description = "Keep one WebSocket open to the backend and stream updates over it instead of a request each. Falls back to regular requests if the backend does not support it"
+    )
+    default boolean enableStreaming()
+    {
+        return false;
+    }
+
+    @ConfigItem(
+        keyName = "enableOutbox",
+        name = "Keep Unsent Events",
+        description = "Store level-ups, drops, quests and other events on disk until the backend accepts them, so none are lost during outages or restarts"
+    )
+    default boolean enableOutbox()
+    {
+        return true;
+    }
+
+    @ConfigItem(
+        keyName = "outboxMaxMegabytes",
+        name = "Unsent Events Disk Limit (MB)",
+        description = "Maximum disk space for unsent events - the oldest are dropped beyond this"
+    )
+    @Range(min = 2, max = 256)
+    default int outboxMaxMegabytes()
+    {
+        return 16;
+    }
+
+    @ConfigItem(
+        keyName = "showMetricsOverlay",
+        name = "Show Pipeline Metrics",
+        description = "Show an overlay with send counts and latencies per update type"
+    )
+    default boolean showMetricsOverlay()
+    {
+        return false;
+    }
+
+    @ConfigItem(
+        keyName = "metricsIntervalMinutes",
+        name = "Metrics Report Interval (min)",
+        description = "How often a pipeline metrics summary is sent to the backend (0 = never)"
+    )
+    @Range(min = 0, max = 60)
+    default int metricsIntervalMinutes()
+    {
+        return 5;
+    }
+
     @ConfigItem(
         keyName = "enableStashTracking",
         name = "Track STASH Units",
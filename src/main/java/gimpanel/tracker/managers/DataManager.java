@@ -4,19 +4,19 @@ import gimpanel.tracker.collectors.InventoryCollector;
 import gimpanel.tracker.config.GIMPanelConfig;
 import gimpanel.tracker.models.*;
 import gimpanel.tracker.util.ApiClient;
+import gimpanel.tracker.util.MetricsRegistry;
+import gimpanel.tracker.util.RecentKeys;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Client;
-import net.runelite.api.coords.LocalPoint;
 import net.runelite.api.coords.WorldPoint;
 import net.runelite.api.GameState;
+import net.runelite.client.RuneLite;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import java.io.File;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.Objects;
 
 @Slf4j
 @Singleton
@@ -25,40 +25,199 @@ public class DataManager
     private final Client client;
     private final GIMPanelConfig config;
     private final ApiClient apiClient;
-    
-    private final BlockingQueue<SkillData> skillQueue = new LinkedBlockingQueue<>();
-    private final BlockingQueue<SkillData> xpQueue = new LinkedBlockingQueue<>();
-    private final BlockingQueue<gimpanel.tracker.models.EnhancedSkillData> enhancedSkillQueue = new LinkedBlockingQueue<>();
-    private final BlockingQueue<gimpanel.tracker.models.EnhancedSkillData> enhancedXpQueue = new LinkedBlockingQueue<>();
-    private final BlockingQueue<DropData> dropQueue = new LinkedBlockingQueue<>();
-    private final BlockingQueue<ActivityData> activityQueue = new LinkedBlockingQueue<>();
-    private final BlockingQueue<QuestData> questQueue = new LinkedBlockingQueue<>();
-    private final BlockingQueue<gimpanel.tracker.models.EnhancedQuestData> enhancedQuestQueue = new LinkedBlockingQueue<>();
-    private final BlockingQueue<InventoryCollector.InventoryData> inventoryQueue = new LinkedBlockingQueue<>();
-    private final BlockingQueue<gimpanel.tracker.models.EnhancedInventoryData> enhancedInventoryQueue = new LinkedBlockingQueue<>();
-    private final BlockingQueue<gimpanel.tracker.models.AchievementDiaryData> achievementDiaryQueue = new LinkedBlockingQueue<>();
-    private final BlockingQueue<gimpanel.tracker.models.CollectionLogData> collectionLogQueue = new LinkedBlockingQueue<>();
-    private final BlockingQueue<gimpanel.tracker.models.CombatAchievementData> combatAchievementQueue = new LinkedBlockingQueue<>();
+    private final MetricsRegistry metrics;
+    private final PlayerState playerState;
+    private final EventDispatcher dispatcher;
     
     private volatile ScheduledExecutorService scheduler;
     private final AtomicBoolean isRunning = new AtomicBoolean(false);
     
     private volatile ScheduledFuture<?> periodicSyncTask;
     private volatile ScheduledFuture<?> heartbeatTask;
+    private volatile ScheduledFuture<?> metricsTask;
+    private volatile ScheduledFuture<?> keepAliveTask;
     
-    // OPTIMIZATION: Add state tracking for differential updates
-    private PlayerData lastPlayerData;
-    private final Map<String, Object> lastStates = new ConcurrentHashMap<>();
-    private int skipNextNAttempts = 0;
+    // States reported lately, so a tile or resource reading already sent is not sent again at once
+    private final RecentKeys recentLocations = new RecentKeys(RECENT_STATES, LOCATION_WINDOW_SECONDS, TimeUnit.SECONDS);
+    private final RecentKeys recentResources = new RecentKeys(RECENT_STATES, RESOURCE_WINDOW_SECONDS, TimeUnit.SECONDS);
     private static final int SECONDS_BETWEEN_UPLOADS = 1; // Match group-ironmen-tracker frequency
     private static final int SECONDS_BETWEEN_INFREQUENT_DATA_CHANGES = 60;
+    // Drops worth at least this much go in the high-priority lane
+    private static final long NOTABLE_DROP_VALUE = 1_000_000;
+    private static final String OUTBOX_DIRECTORY = "gimpanel-outbox";
+    // Shorter than the idle timeout of common proxies (nginx defaults to 75 seconds)
+    private static final int KEEP_ALIVE_SECONDS = 45;
+    // State older than this when its turn comes is dropped; a fresher value follows or the periodic sync covers it
+    private static final long ACTIVITY_TTL_SECONDS = 30;
+    private static final long PLAYER_DATA_TTL_SECONDS = 60;
+    // A dropped snapshot leaves the next delta without a base, and the backend asks for a resync
+    private static final long INVENTORY_TTL_SECONDS = 120;
+    private static final String RESOURCE_ACTIVITY = "Resource Update";
+    private static final int RECENT_STATES = 256;
+    // Stepping back onto a tile within this is not reported; the periodic sync sends the location on any move
+    private static final long LOCATION_WINDOW_SECONDS = 3;
+    // Shorter than the resource collector's period, so only repeats of the same reading are held back
+    private static final long RESOURCE_WINDOW_SECONDS = 5;
+    // A backend stuck asking for the full state gets it at most this often
+    private static final long MIN_RESYNC_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(60);
+    
+    private final AtomicBoolean resyncRequested = new AtomicBoolean(false);
+    private volatile long lastResyncNanos = System.nanoTime() - MIN_RESYNC_INTERVAL_NANOS;
 
     @Inject
-    public DataManager(Client client, GIMPanelConfig config, ApiClient apiClient)
+    public DataManager(Client client, GIMPanelConfig config, ApiClient apiClient, MetricsRegistry metrics, PlayerState playerState)
     {
         this.client = client;
         this.config = config;
         this.apiClient = apiClient;
+        this.metrics = metrics;
+        this.playerState = playerState;
+        this.dispatcher = new EventDispatcher(metrics);
+        metrics.gauge("dispatchQueueDepth", dispatcher::size);
+        metrics.gauge("dispatchQueueMax", dispatcher::getMaxSize);
+        metrics.gauge("dispatchDeferred", dispatcher::deferredSize);
+        metrics.gauge("dispatchWaitingBytes", dispatcher::waitingBytes);
+        apiClient.setResyncListener(this::onResyncRequested);
+        registerHandlers();
+        registerStateKeys();
+        registerBounds();
+        registerOrdering();
+    }
+
+    private void registerHandlers()
+    {
+        dispatcher.register(EventType.SKILL, SkillData.class,
+            skillData -> send(apiClient.updateSkill(skillData), "skill update"));
+        dispatcher.register(EventType.XP, SkillData.class,
+            skillData -> send(apiClient.updateXp(skillData), "XP update"));
+        dispatcher.register(EventType.ENHANCED_SKILL, EnhancedSkillData.class,
+            skillData -> send(apiClient.updateEnhancedSkill(skillData), "enhanced skill update"));
+        dispatcher.register(EventType.ENHANCED_XP, EnhancedSkillData.class,
+            skillData -> send(apiClient.updateEnhancedXp(skillData), "enhanced XP update"));
+        dispatcher.register(EventType.SKILL_BATCH, SkillBatchData.class,
+            batchData -> send(apiClient.updateSkillBatch(batchData), "multi-skill XP update"));
+        dispatcher.register(EventType.DROP, DropData.class,
+            dropData -> send(apiClient.updateDrop(dropData), "drop report"));
+        dispatcher.register(EventType.ACTIVITY, ActivityData.class,
+            activityData -> send(apiClient.updateActivity(activityData), "activity update"));
+        dispatcher.register(EventType.PLAYER_DATA, PlayerData.class, playerData -> {
+            CompletableFuture<Boolean> result = apiClient.syncPlayerData(playerData);
+            // The fields of a sync that never arrives go out again with the next one
+            result.thenAccept(delivered -> {
+                if (delivered)
+                {
+                    playerState.acknowledge(playerData);
+                }
+            });
+            send(result, "player sync");
+        });
+        dispatcher.register(EventType.QUEST, QuestData.class,
+            questData -> send(apiClient.updateQuest(questData), "quest update"));
+        dispatcher.register(EventType.ENHANCED_QUEST, EnhancedQuestData.class,
+            questData -> send(apiClient.updateEnhancedQuest(questData), "enhanced quest update"));
+        dispatcher.register(EventType.INVENTORY, InventoryCollector.InventoryData.class,
+            // For now, just log inventory updates since the API endpoint may not exist yet
+            inventoryData -> log.debug("Inventory update processed for {}: {} items in {}",
+                inventoryData.getPlayerName(),
+                inventoryData.getItems().size(),
+                inventoryData.getContainerName()));
+        dispatcher.register(EventType.ENHANCED_INVENTORY, EnhancedInventoryData.class,
+            inventoryData -> send(apiClient.updateEnhancedInventory(inventoryData), "enhanced inventory update"));
+        dispatcher.register(EventType.INVENTORY_DELTA, InventoryDeltaData.class,
+            deltaData -> send(apiClient.updateInventoryDelta(deltaData), "inventory delta update"));
+        dispatcher.register(EventType.ACHIEVEMENT_DIARY, AchievementDiaryData.class,
+            diaryData -> send(apiClient.updateAchievementDiary(diaryData), "achievement diary update"));
+        dispatcher.register(EventType.COLLECTION_LOG, CollectionLogData.class,
+            logData -> send(apiClient.updateCollectionLog(logData), "collection log update"));
+        dispatcher.register(EventType.COMBAT_ACHIEVEMENT, CombatAchievementData.class,
+            caData -> send(apiClient.updateCombatAchievement(caData), "combat achievement update"));
+    }
+
+    /**
+     * Snapshots of state, where a newer value makes the waiting one worthless. Drops,
+     * level-ups, quests and collection log entries are events and all of them are sent.
+     */
+    private void registerStateKeys()
+    {
+        dispatcher.keyed(EventType.ACTIVITY, ActivityData.class, DataManager::activityKey,
+            ACTIVITY_TTL_SECONDS, TimeUnit.SECONDS);
+        dispatcher.keyed(EventType.PLAYER_DATA, PlayerData.class, PlayerData::getUsername,
+            PLAYER_DATA_TTL_SECONDS, TimeUnit.SECONDS);
+        dispatcher.keyed(EventType.INVENTORY, InventoryCollector.InventoryData.class,
+            inventoryData -> inventoryData.getPlayerName() + "/" + inventoryData.getContainerName(),
+            INVENTORY_TTL_SECONDS, TimeUnit.SECONDS);
+        dispatcher.keyed(EventType.ENHANCED_INVENTORY, EnhancedInventoryData.class,
+            inventoryData -> inventoryData.getPlayerName() + "/" + inventoryData.getContainerName(),
+            INVENTORY_TTL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Activities that report where the player is or what they hold, keyed per player. Others,
+     * such as group storage deposits and STASH actions, return null and are all sent.
+     */
+    static String activityKey(ActivityData activityData)
+    {
+        if (activityData.getWorldPoint() != null)
+        {
+            return activityData.getPlayerName() + "/location";
+        }
+        if (RESOURCE_ACTIVITY.equals(activityData.getCurrentActivity()))
+        {
+            return activityData.getPlayerName() + "/resources";
+        }
+        if ("GROUP_STORAGE_SYNC".equals(activityData.getCurrentActivity()))
+        {
+            return activityData.getPlayerName() + "/group-storage";
+        }
+        return null;
+    }
+
+    /**
+     * How many events of each type may wait in memory, and what gives on overflow. Events the
+     * backend cannot rebuild spill to the outbox; progress and snapshots only need the newest.
+     */
+    private void registerBounds()
+    {
+        dispatcher.bound(EventType.SKILL, 256, OverflowPolicy.SPILL);
+        dispatcher.bound(EventType.ENHANCED_SKILL, 256, OverflowPolicy.SPILL);
+        dispatcher.bound(EventType.DROP, 512, OverflowPolicy.SPILL);
+        dispatcher.bound(EventType.QUEST, 256, OverflowPolicy.SPILL);
+        dispatcher.bound(EventType.ENHANCED_QUEST, 256, OverflowPolicy.SPILL);
+        dispatcher.bound(EventType.ACHIEVEMENT_DIARY, 256, OverflowPolicy.SPILL);
+        dispatcher.bound(EventType.COMBAT_ACHIEVEMENT, 256, OverflowPolicy.SPILL);
+        dispatcher.bound(EventType.COLLECTION_LOG, 256, OverflowPolicy.SPILL);
+        // Each carries the running total, so a later one makes up for a lost one
+        dispatcher.bound(EventType.XP, 512, OverflowPolicy.DROP_OLDEST);
+        dispatcher.bound(EventType.ENHANCED_XP, 512, OverflowPolicy.DROP_OLDEST);
+        dispatcher.bound(EventType.SKILL_BATCH, 512, OverflowPolicy.DROP_OLDEST);
+        // State activities already wait once per key, so overflow comes from storage and STASH actions
+        dispatcher.bound(EventType.ACTIVITY, 64, OverflowPolicy.DROP_OLDEST);
+        dispatcher.bound(EventType.PLAYER_DATA, 4, OverflowPolicy.COALESCE);
+        // Snapshots of different containers, so the newest of one must not replace another's
+        dispatcher.bound(EventType.INVENTORY, 8, OverflowPolicy.DROP_OLDEST);
+        dispatcher.bound(EventType.ENHANCED_INVENTORY, 16, OverflowPolicy.DROP_OLDEST);
+        // A lost delta leaves a version gap, and the backend asks for a resync
+        dispatcher.bound(EventType.INVENTORY_DELTA, 256, OverflowPolicy.DROP_NEWEST);
+        dispatcher.setSpillSink(apiClient::spill);
+    }
+
+    /**
+     * Types the backend applies on top of each other, so they must arrive as they happened:
+     * a level-up after the XP progress before it, a container's deltas after its snapshot.
+     */
+    private void registerOrdering()
+    {
+        dispatcher.order(EventType.SKILL, EventType.XP);
+        dispatcher.order(EventType.ENHANCED_SKILL, EventType.ENHANCED_XP, EventType.SKILL_BATCH);
+        dispatcher.order(EventType.ENHANCED_INVENTORY, EventType.INVENTORY_DELTA);
+    }
+
+    private void send(CompletableFuture<Boolean> future, String description)
+    {
+        future.exceptionally(throwable -> {
+            log.warn("Failed to send {}: {}", description, throwable.getMessage());
+            return false;
+        });
     }
 
     public void initialize()
@@ -70,27 +229,28 @@ public class DataManager
 
         log.info("Initializing DataManager...");
         
-        // Create new scheduler with optimized thread pool
-        scheduler = Executors.newScheduledThreadPool(2); // Reduced from 3 to 2
+        // Only periodic sync and heartbeat run here - event delivery has its own dispatch thread
+        scheduler = Executors.newScheduledThreadPool(1);
         
         apiClient.configure(config.gimpanelUrl(), config.authToken());
+        apiClient.configureBatching(config.enableBatching(), config.batchMaxEvents(), config.batchLingerMillis());
+        apiClient.configureConcurrency(config.maxConcurrentRequests());
+        apiClient.configureCompression(config.enableCompression());
+        apiClient.configureBinaryFormat(config.enableBinaryFormat());
+        apiClient.configureStreaming(config.enableStreaming());
+        if (config.enableOutbox())
+        {
+            apiClient.configureOutbox(new File(RuneLite.RUNELITE_DIR, OUTBOX_DIRECTORY), config.outboxMaxMegabytes() * 1024L * 1024L);
+        }
+        
+        dispatcher.setByteBudget(config.queueMemoryMegabytes() * 1024L * 1024L);
+        dispatcher.setRateLimiter(new RateLimiter(config.rateLimitPerSecond(), config.rateLimitBurst(),
+            config.typeRateLimitPerSecond(), config.typeRateLimitBurst()));
         
         isRunning.set(true);
         
-        // Start background workers
-        startSkillProcessor();
-        startXpProcessor();
-        startEnhancedSkillProcessor();
-        startEnhancedXpProcessor();
-        startDropProcessor();
-        startActivityProcessor();
-        startQuestProcessor();
-        startEnhancedQuestProcessor();
-        startInventoryProcessor();
-        startEnhancedInventoryProcessor();
-        startAchievementDiaryProcessor();
-        startCollectionLogProcessor();
-        startCombatAchievementProcessor();
+        // Single consumer drains every event type, so the scheduler is free for sync and heartbeat
+        dispatcher.start();
         
         // OPTIMIZATION: Use more frequent updates for real-time data
         startPeriodicSync();
@@ -102,6 +262,15 @@ public class DataManager
             log.info("Heartbeat disabled in configuration");
         }
         
+        startMetricsReporting();
+        startKeepAlive();
+        
+        // Enabled mid-session - there will be no login event to warm the connection
+        if (client.getGameState() == GameState.LOGGED_IN)
+        {
+            apiClient.prewarm();
+        }
+        
         log.info("DataManager initialized successfully");
     }
 
@@ -110,6 +279,8 @@ public class DataManager
         log.info("Shutting down DataManager...");
         
         isRunning.set(false);
+        dispatcher.stop(5, TimeUnit.SECONDS);
+        apiClient.shutdown();
         
         if (periodicSyncTask != null)
         {
@@ -121,6 +292,16 @@ public class DataManager
             heartbeatTask.cancel(true);
         }
         
+        if (metricsTask != null)
+        {
+            metricsTask.cancel(true);
+        }
+        
+        if (keepAliveTask != null)
+        {
+            keepAliveTask.cancel(true);
+        }
+        
         if (scheduler != null)
         {
             scheduler.shutdown();
@@ -149,7 +330,7 @@ public class DataManager
             return;
         }
         
-        skillQueue.offer(skillData);
+        dispatcher.publish(EventType.SKILL, skillData);
     }
 
     public void queueXpUpdate(SkillData skillData)
@@ -159,7 +340,7 @@ public class DataManager
             return;
         }
         
-        xpQueue.offer(skillData);
+        dispatcher.publish(EventType.XP, skillData);
     }
 
     public void queueDropUpdate(DropData dropData)
@@ -169,7 +350,19 @@ public class DataManager
             return;
         }
         
-        dropQueue.offer(dropData);
+        dispatcher.publish(EventType.DROP, dropData, isNotableDrop(dropData) ? Lane.HIGH : Lane.NORMAL);
+    }
+
+    /**
+     * A drop worth announcing straight away: rare, or valuable enough to show off.
+     */
+    private static boolean isNotableDrop(DropData dropData)
+    {
+        String rarity = dropData.getRarity();
+        boolean rare = DropData.Rarity.RARE.getValue().equals(rarity)
+            || DropData.Rarity.VERY_RARE.getValue().equals(rarity)
+            || DropData.Rarity.ULTRA_RARE.getValue().equals(rarity);
+        return rare || dropData.getValue() >= NOTABLE_DROP_VALUE;
     }
 
     public void queueActivityUpdate(ActivityData activityData)
@@ -179,7 +372,7 @@ public class DataManager
             return;
         }
         
-        activityQueue.offer(activityData);
+        dispatcher.publish(EventType.ACTIVITY, activityData);
     }
 
     public void queueQuestUpdate(QuestData questData)
@@ -189,7 +382,7 @@ public class DataManager
             return;
         }
         
-        questQueue.offer(questData);
+        dispatcher.publish(EventType.QUEST, questData);
     }
 
     public void queueInventoryUpdate(InventoryCollector.InventoryData inventoryData)
@@ -199,7 +392,7 @@ public class DataManager
             return;
         }
         
-        inventoryQueue.offer(inventoryData);
+        dispatcher.publish(EventType.INVENTORY, inventoryData);
     }
     
     public void queueEnhancedSkillUpdate(gimpanel.tracker.models.EnhancedSkillData skillData)
@@ -209,7 +402,7 @@ public class DataManager
             return;
         }
         
-        enhancedSkillQueue.offer(skillData);
+        dispatcher.publish(EventType.ENHANCED_SKILL, skillData);
     }
     
     public void queueEnhancedXpUpdate(gimpanel.tracker.models.EnhancedSkillData skillData)
@@ -219,338 +412,77 @@ public class DataManager
             return;
         }
         
-        enhancedXpQueue.offer(skillData);
+        dispatcher.publish(EventType.ENHANCED_XP, skillData);
     }
     
-    public void queueEnhancedQuestUpdate(gimpanel.tracker.models.EnhancedQuestData questData)
+    public void queueSkillBatchUpdate(SkillBatchData batchData)
     {
         if (!isRunning.get())
         {
             return;
         }
         
-        enhancedQuestQueue.offer(questData);
+        dispatcher.publish(EventType.SKILL_BATCH, batchData);
     }
     
-    public void queueEnhancedInventoryUpdate(gimpanel.tracker.models.EnhancedInventoryData inventoryData)
+    public void queueEnhancedQuestUpdate(gimpanel.tracker.models.EnhancedQuestData questData)
     {
         if (!isRunning.get())
         {
             return;
         }
         
-        enhancedInventoryQueue.offer(inventoryData);
+        dispatcher.publish(EventType.ENHANCED_QUEST, questData);
     }
     
-    public void queueAchievementDiaryUpdate(gimpanel.tracker.models.AchievementDiaryData diaryData)
+    public void queueEnhancedInventoryUpdate(gimpanel.tracker.models.EnhancedInventoryData inventoryData)
     {
         if (!isRunning.get())
         {
             return;
         }
         
-        achievementDiaryQueue.offer(diaryData);
+        dispatcher.publish(EventType.ENHANCED_INVENTORY, inventoryData);
     }
     
-    public void queueCollectionLogUpdate(gimpanel.tracker.models.CollectionLogData logData)
+    public void queueInventoryDeltaUpdate(InventoryDeltaData deltaData)
     {
         if (!isRunning.get())
         {
             return;
         }
         
-        collectionLogQueue.offer(logData);
+        dispatcher.publish(EventType.INVENTORY_DELTA, deltaData);
     }
     
-    public void queueCombatAchievementUpdate(gimpanel.tracker.models.CombatAchievementData caData)
+    public void queueAchievementDiaryUpdate(gimpanel.tracker.models.AchievementDiaryData diaryData)
     {
         if (!isRunning.get())
         {
             return;
         }
         
-        combatAchievementQueue.offer(caData);
-    }
-
-    private void startSkillProcessor()
-    {
-        if (scheduler == null || scheduler.isShutdown())
-        {
-            log.warn("Cannot start skill processor - scheduler is not available");
-            return;
-        }
-        
-        scheduler.submit(() -> {
-            while (isRunning.get())
-            {
-                try
-                {
-                    SkillData skillData = skillQueue.poll(1, TimeUnit.SECONDS);
-                    if (skillData != null)
-                    {
-                        apiClient.updateSkill(skillData).exceptionally(throwable -> {
-                            log.warn("Failed to send skill update: {}", throwable.getMessage());
-                            return false;
-                        });
-                    }
-                }
-                catch (InterruptedException e)
-                {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
-                catch (Exception e)
-                {
-                    log.error("Error processing skill update: {}", e.getMessage());
-                }
-            }
-        });
-    }
-
-    private void startXpProcessor()
-    {
-        if (scheduler == null || scheduler.isShutdown())
-        {
-            log.warn("Cannot start XP processor - scheduler is not available");
-            return;
-        }
-        
-        scheduler.submit(() -> {
-            while (isRunning.get())
-            {
-                try
-                {
-                    SkillData skillData = xpQueue.poll(1, TimeUnit.SECONDS);
-                    if (skillData != null)
-                    {
-                        apiClient.updateXp(skillData).exceptionally(throwable -> {
-                            log.warn("Failed to send XP update: {}", throwable.getMessage());
-                            return false;
-                        });
-                    }
-                }
-                catch (InterruptedException e)
-                {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
-                catch (Exception e)
-                {
-                    log.error("Error processing XP update: {}", e.getMessage());
-                }
-            }
-        });
-    }
-
-    private void startDropProcessor()
-    {
-        if (scheduler == null || scheduler.isShutdown())
-        {
-            log.warn("Cannot start drop processor - scheduler is not available");
-            return;
-        }
-        
-        scheduler.submit(() -> {
-            while (isRunning.get())
-            {
-                try
-                {
-                    DropData dropData = dropQueue.poll(1, TimeUnit.SECONDS);
-                    if (dropData != null)
-                    {
-                        apiClient.updateDrop(dropData).exceptionally(throwable -> {
-                            log.warn("Failed to send drop report: {}", throwable.getMessage());
-                            return false;
-                        });
-                    }
-                }
-                catch (InterruptedException e)
-                {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
-                catch (Exception e)
-                {
-                    log.error("Error processing drop update: {}", e.getMessage());
-                }
-            }
-        });
-    }
-
-    private void startActivityProcessor()
-    {
-        if (scheduler == null || scheduler.isShutdown())
-        {
-            log.warn("Cannot start activity processor - scheduler is not available");
-            return;
-        }
-        
-        scheduler.submit(() -> {
-            while (isRunning.get())
-            {
-                try
-                {
-                    ActivityData activityData = activityQueue.poll(1, TimeUnit.SECONDS);
-                    if (activityData != null)
-                    {
-                        apiClient.updateActivity(activityData).exceptionally(throwable -> {
-                            log.warn("Failed to send activity update: {}", throwable.getMessage());
-                            return false;
-                        });
-                    }
-                }
-                catch (InterruptedException e)
-                {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
-                catch (Exception e)
-                {
-                    log.error("Error processing activity update: {}", e.getMessage());
-                }
-            }
-        });
-    }
-
-    private void startQuestProcessor()
-    {
-        if (scheduler == null || scheduler.isShutdown())
-        {
-            log.warn("Cannot start quest processor - scheduler is not available");
-            return;
-        }
-        
-        scheduler.submit(() -> {
-            while (isRunning.get())
-            {
-                try
-                {
-                    QuestData questData = questQueue.poll(1, TimeUnit.SECONDS);
-                    if (questData != null)
-                    {
-                        apiClient.updateQuest(questData).exceptionally(throwable -> {
-                            log.warn("Failed to send quest update: {}", throwable.getMessage());
-                            return false;
-                        });
-                    }
-                }
-                catch (InterruptedException e)
-                {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
-                catch (Exception e)
-                {
-                    log.error("Error processing quest update: {}", e.getMessage());
-                }
-            }
-        });
-    }
-
-    private void startInventoryProcessor()
-    {
-        if (scheduler == null || scheduler.isShutdown())
-        {
-            log.warn("Cannot start inventory processor - scheduler is not available");
-            return;
-        }
-        
-        scheduler.submit(() -> {
-            while (isRunning.get())
-            {
-                try
-                {
-                    InventoryCollector.InventoryData inventoryData = inventoryQueue.poll(1, TimeUnit.SECONDS);
-                    if (inventoryData != null)
-                    {
-                        // For now, just log inventory updates since the API endpoint may not exist yet
-                        log.debug("Inventory update processed for {}: {} items in {}", 
-                            inventoryData.getPlayerName(), 
-                            inventoryData.getItems().size(), 
-                            inventoryData.getContainerName());
-                    }
-                }
-                catch (InterruptedException e)
-                {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
-                catch (Exception e)
-                {
-                    log.error("Error processing inventory update: {}", e.getMessage());
-                }
-            }
-        });
+        dispatcher.publish(EventType.ACHIEVEMENT_DIARY, diaryData);
     }
     
-    private void startEnhancedSkillProcessor()
+    public void queueCollectionLogUpdate(gimpanel.tracker.models.CollectionLogData logData)
     {
-        if (scheduler == null || scheduler.isShutdown())
+        if (!isRunning.get())
         {
-            log.warn("Cannot start enhanced skill processor - scheduler is not available");
             return;
         }
         
-        scheduler.submit(() -> {
-            while (isRunning.get())
-            {
-                try
-                {
-                    gimpanel.tracker.models.EnhancedSkillData skillData = enhancedSkillQueue.poll(1, TimeUnit.SECONDS);
-                    if (skillData != null)
-                    {
-                        apiClient.updateEnhancedSkill(skillData).exceptionally(throwable -> {
-                            log.warn("Failed to send enhanced skill update: {}", throwable.getMessage());
-                            return false;
-                        });
-                    }
-                }
-                catch (InterruptedException e)
-                {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
-                catch (Exception e)
-                {
-                    log.error("Error processing enhanced skill update: {}", e.getMessage());
-                }
-            }
-        });
+        dispatcher.publish(EventType.COLLECTION_LOG, logData);
     }
     
-    private void startEnhancedXpProcessor()
+    public void queueCombatAchievementUpdate(gimpanel.tracker.models.CombatAchievementData caData)
     {
-        if (scheduler == null || scheduler.isShutdown())
+        if (!isRunning.get())
         {
-            log.warn("Cannot start enhanced XP processor - scheduler is not available");
             return;
         }
         
-        scheduler.submit(() -> {
-            while (isRunning.get())
-            {
-                try
-                {
-                    gimpanel.tracker.models.EnhancedSkillData skillData = enhancedXpQueue.poll(1, TimeUnit.SECONDS);
-                    if (skillData != null)
-                    {
-                        apiClient.updateEnhancedXp(skillData).exceptionally(throwable -> {
-                            log.warn("Failed to send enhanced XP update: {}", throwable.getMessage());
-                            return false;
-                        });
-                    }
-                }
-                catch (InterruptedException e)
-                {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
-                catch (Exception e)
-                {
-                    log.error("Error processing enhanced XP update: {}", e.getMessage());
-                }
-            }
-        });
+        dispatcher.publish(EventType.COMBAT_ACHIEVEMENT, caData);
     }
 
     private void startPeriodicSync()
@@ -566,37 +498,22 @@ public class DataManager
         periodicSyncTask = scheduler.scheduleAtFixedRate(() -> {
             try
             {
-                if (client.getLocalPlayer() == null || client.getGameState() != GameState.LOGGED_IN)
-                {
-                    return;
-                }
-
-                // OPTIMIZATION: Skip if too many failed attempts
-                if (skipNextNAttempts-- > 0) return;
-
-                String playerName = client.getLocalPlayer().getName();
-                if (playerName == null)
+                // Kept current on the client thread - while nothing changed this is all the sync does
+                if (!playerState.needsSync())
                 {
                     return;
                 }
 
-                // OPTIMIZATION: Create differential player data
-                PlayerData currentPlayerData = createCurrentPlayerData();
-                if (currentPlayerData != null && hasSignificantChanges(currentPlayerData))
+                PlayerData currentPlayerData = playerState.takeSnapshot();
+                if (currentPlayerData != null)
                 {
-                    apiClient.syncPlayerData(currentPlayerData).exceptionally(throwable -> {
-                        log.warn("Failed to sync player data: {}", throwable.getMessage());
-                        skipNextNAttempts = 10; // Skip next 10 attempts on failure
-                        return false;
-                    });
-                    
-                    lastPlayerData = currentPlayerData;
+                    // Paced with everything else; failed sends are kept by the outbox
+                    dispatcher.publish(EventType.PLAYER_DATA, currentPlayerData);
                 }
             }
             catch (Exception e)
             {
                 log.error("Error during periodic sync: {}", e.getMessage());
-                skipNextNAttempts = 5; // Skip next 5 attempts on error
             }
         }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
     }
@@ -626,6 +543,20 @@ public class DataManager
                     return;
                 }
 
+                // A heartbeat is only worth anything live - don't hold them up during an outage
+                if (!apiClient.isBackendAvailable())
+                {
+                    log.debug("Heartbeat skipped - backend unavailable");
+                    return;
+                }
+
+                // The open stream and its pings already tell the backend we are online
+                if (apiClient.isStreaming())
+                {
+                    log.debug("Heartbeat skipped - streaming");
+                    return;
+                }
+
                 String playerName = client.getLocalPlayer().getName();
                 if (playerName != null)
                 {
@@ -647,72 +578,89 @@ public class DataManager
         }, 5, 5, TimeUnit.SECONDS); // Initial delay 5 seconds, then every 5 seconds
     }
 
-    private PlayerData createCurrentPlayerData()
+    /**
+     * The backend lost track of this player. The next periodic sync is sent in full, and the
+     * collectors send fresh snapshots once the client thread picks up the request.
+     */
+    private void onResyncRequested()
     {
-        if (client.getLocalPlayer() == null)
+        long now = System.nanoTime();
+        if (now - lastResyncNanos < MIN_RESYNC_INTERVAL_NANOS)
         {
-            return null;
+            log.debug("Resync skipped - one was sent less than a minute ago");
+            return;
         }
+        lastResyncNanos = now;
+        playerState.markAllDirty();
+        resyncRequested.set(true);
+    }
 
-        String playerName = client.getLocalPlayer().getName();
-        if (playerName == null)
-        {
-            return null;
-        }
+    /**
+     * Claims a pending resync request. Called from the client thread, which the collectors
+     * need to read the game state.
+     */
+    public boolean takeResyncRequest()
+    {
+        return isRunning.get() && resyncRequested.getAndSet(false);
+    }
 
-        PlayerData playerData = new PlayerData();
-        playerData.setUsername(playerName);
-        playerData.setDisplayName(playerName);
-        playerData.setTotalLevel(client.getTotalLevel());
-        playerData.setCombatLevel(client.getLocalPlayer().getCombatLevel());
-        
-        // Calculate total XP
-        long totalXp = 0;
-        for (int i = 0; i < 23; i++) // All skills except overall
+    /**
+     * Opens the backend connection at login, so the first events do not wait on a handshake.
+     */
+    public void prewarmConnection()
+    {
+        if (!isRunning.get())
         {
-            totalXp += client.getSkillExperience(net.runelite.api.Skill.values()[i]);
+            return;
         }
-        playerData.setTotalXp(totalXp);
-        
-        playerData.setOnline(true);
-        playerData.setCurrentWorld(String.valueOf(client.getWorld()));
         
-        // Fix location handling with proper instance support
-        WorldPoint location = client.getLocalPlayer().getWorldLocation();
-        if (location != null) {
-            // Handle instances properly like other plugins
-            LocalPoint localPoint = client.getLocalPlayer().getLocalLocation();
-            location = WorldPoint.fromLocalInstance(client, localPoint);
-        }
-        playerData.setLocation(location);
-        playerData.setLastSeen(System.currentTimeMillis());
-
-        // Set resource state
-        PlayerData.ResourceState resources = new PlayerData.ResourceState();
-        resources.setHealth(client.getBoostedSkillLevel(net.runelite.api.Skill.HITPOINTS));
-        resources.setMaxHealth(client.getRealSkillLevel(net.runelite.api.Skill.HITPOINTS));
-        resources.setPrayer(client.getBoostedSkillLevel(net.runelite.api.Skill.PRAYER));
-        resources.setMaxPrayer(client.getRealSkillLevel(net.runelite.api.Skill.PRAYER));
-        resources.setEnergy(client.getEnergy());
-        resources.setMaxEnergy(100);
-        resources.setSpecialAttack(client.getVar(net.runelite.api.VarPlayer.SPECIAL_ATTACK_PERCENT) / 10);
-        playerData.setResources(resources);
+        apiClient.prewarm();
+    }
 
-        return playerData;
+    private void startKeepAlive()
+    {
+        keepAliveTask = scheduler.scheduleWithFixedDelay(() -> {
+            try
+            {
+                if (client.getGameState() == GameState.LOGGED_IN)
+                {
+                    apiClient.keepAlive(KEEP_ALIVE_SECONDS);
+                }
+            }
+            catch (Exception e)
+            {
+                log.debug("Error during connection keep-alive: {}", e.getMessage());
+            }
+        }, KEEP_ALIVE_SECONDS, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
     }
 
-    // OPTIMIZATION: Add differential update checking
-    private boolean hasSignificantChanges(PlayerData currentData)
+    private void startMetricsReporting()
     {
-        if (lastPlayerData == null) return true;
+        int intervalMinutes = config.metricsIntervalMinutes();
+        if (intervalMinutes <= 0)
+        {
+            return;
+        }
         
-        // Check for significant changes that warrant an update
-        return !Objects.equals(currentData.getLocation(), lastPlayerData.getLocation()) ||
-               currentData.getTotalLevel() != lastPlayerData.getTotalLevel() ||
-               currentData.getCombatLevel() != lastPlayerData.getCombatLevel() ||
-               Math.abs(currentData.getTotalXp() - lastPlayerData.getTotalXp()) > 1000 ||
-               !Objects.equals(currentData.getCurrentWorld(), lastPlayerData.getCurrentWorld()) ||
-               !Objects.equals(currentData.getCurrentActivity(), lastPlayerData.getCurrentActivity());
+        metricsTask = scheduler.scheduleAtFixedRate(() -> {
+            try
+            {
+                String playerName = client.getLocalPlayer() != null ? client.getLocalPlayer().getName() : null;
+                if (playerName == null)
+                {
+                    return;
+                }
+                
+                apiClient.sendMetrics(metrics.snapshot(playerName)).exceptionally(throwable -> {
+                    log.debug("Failed to send metrics summary: {}", throwable.getMessage());
+                    return false;
+                });
+            }
+            catch (Exception e)
+            {
+                log.error("Error during metrics summary: {}", e.getMessage());
+            }
+        }, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
     }
 
     // OPTIMIZATION: Add state-based update methods similar to group-ironmen-tracker
@@ -720,11 +668,8 @@ public class DataManager
     {
         if (!isRunning.get()) return;
         
-        String stateKey = "location_" + location.getX() + "_" + location.getY() + "_" + location.getPlane();
-        if (!lastStates.containsKey(stateKey))
+        if (recentLocations.offer(locationKey(location)))
         {
-            lastStates.put(stateKey, System.currentTimeMillis());
-            
             ActivityData activityData = new ActivityData(
                 client.getLocalPlayer().getName(), 
                 activity, 
@@ -741,15 +686,12 @@ public class DataManager
     {
         if (!isRunning.get()) return;
         
-        String stateKey = "resources_" + health + "_" + prayer + "_" + energy + "_" + special;
-        if (!lastStates.containsKey(stateKey))
+        if (recentResources.offer(resourceKey(health, prayer, energy, special)))
         {
-            lastStates.put(stateKey, System.currentTimeMillis());
-            
             // Create resource update activity
             ActivityData activityData = new ActivityData(
                 client.getLocalPlayer().getName(),
-                "Resource Update",
+                RESOURCE_ACTIVITY,
                 "Health: " + health + "/" + maxHealth + ", Prayer: " + prayer + "/" + maxPrayer
             );
             
@@ -757,6 +699,27 @@ public class DataManager
         }
     }
 
+    /**
+     * Plane, x and y in one long. World coordinates, instanced ones included, fit in 24 bits.
+     */
+    static long locationKey(WorldPoint location)
+    {
+        return ((long) location.getPlane() << 48)
+            | ((long) (location.getX() & 0xFFFFFF) << 24)
+            | (location.getY() & 0xFFFFFF);
+    }
+
+    /**
+     * The four resource readings in 16 bits each. Run energy goes up to 10000.
+     */
+    static long resourceKey(int health, int prayer, int energy, int special)
+    {
+        return ((long) (health & 0xFFFF) << 48)
+            | ((long) (prayer & 0xFFFF) << 32)
+            | ((long) (energy & 0xFFFF) << 16)
+            | (special & 0xFFFF);
+    }
+
     private String getLocationName(WorldPoint location)
     {
         // Simplified location naming - can be expanded
@@ -771,179 +734,4 @@ public class DataManager
             default: return "Region " + regionId;
         }
     }
-    
-    private void startEnhancedQuestProcessor()
-    {
-        if (scheduler == null || scheduler.isShutdown())
-        {
-            log.warn("Cannot start enhanced quest processor - scheduler is not available");
-            return;
-        }
-        
-        scheduler.submit(() -> {
-            while (isRunning.get())
-            {
-                try
-                {
-                    gimpanel.tracker.models.EnhancedQuestData questData = enhancedQuestQueue.poll(1, TimeUnit.SECONDS);
-                    if (questData != null)
-                    {
-                        apiClient.updateEnhancedQuest(questData).exceptionally(throwable -> {
-                            log.warn("Failed to send enhanced quest update: {}", throwable.getMessage());
-                            return false;
-                        });
-                    }
-                }
-                catch (InterruptedException e)
-                {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
-                catch (Exception e)
-                {
-                    log.error("Error processing enhanced quest update: {}", e.getMessage());
-                }
-            }
-        });
-    }
-    
-    private void startEnhancedInventoryProcessor()
-    {
-        if (scheduler == null || scheduler.isShutdown())
-        {
-            log.warn("Cannot start enhanced inventory processor - scheduler is not available");
-            return;
-        }
-        
-        scheduler.submit(() -> {
-            while (isRunning.get())
-            {
-                try
-                {
-                    gimpanel.tracker.models.EnhancedInventoryData inventoryData = enhancedInventoryQueue.poll(1, TimeUnit.SECONDS);
-                    if (inventoryData != null)
-                    {
-                        apiClient.updateEnhancedInventory(inventoryData).exceptionally(throwable -> {
-                            log.warn("Failed to send enhanced inventory update: {}", throwable.getMessage());
-                            return false;
-                        });
-                    }
-                }
-                catch (InterruptedException e)
-                {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
-                catch (Exception e)
-                {
-                    log.error("Error processing enhanced inventory update: {}", e.getMessage());
-                }
-            }
-        });
-    }
-    
-    private void startAchievementDiaryProcessor()
-    {
-        if (scheduler == null || scheduler.isShutdown())
-        {
-            log.warn("Cannot start achievement diary processor - scheduler is not available");
-            return;
-        }
-        
-        scheduler.submit(() -> {
-            while (isRunning.get())
-            {
-                try
-                {
-                    gimpanel.tracker.models.AchievementDiaryData diaryData = achievementDiaryQueue.poll(1, TimeUnit.SECONDS);
-                    if (diaryData != null)
-                    {
-                        apiClient.updateAchievementDiary(diaryData).exceptionally(throwable -> {
-                            log.warn("Failed to send achievement diary update: {}", throwable.getMessage());
-                            return false;
-                        });
-                    }
-                }
-                catch (InterruptedException e)
-                {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
-                catch (Exception e)
-                {
-                    log.error("Error processing achievement diary update: {}", e.getMessage());
-                }
-            }
-        });
-    }
-    
-    private void startCollectionLogProcessor()
-    {
-        if (scheduler == null || scheduler.isShutdown())
-        {
-            log.warn("Cannot start collection log processor - scheduler is not available");
-            return;
-        }
-        
-        scheduler.submit(() -> {
-            while (isRunning.get())
-            {
-                try
-                {
-                    gimpanel.tracker.models.CollectionLogData logData = collectionLogQueue.poll(1, TimeUnit.SECONDS);
-                    if (logData != null)
-                    {
-                        apiClient.updateCollectionLog(logData).exceptionally(throwable -> {
-                            log.warn("Failed to send collection log update: {}", throwable.getMessage());
-                            return false;
-                        });
-                    }
-                }
-                catch (InterruptedException e)
-                {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
-                catch (Exception e)
-                {
-                    log.error("Error processing collection log update: {}", e.getMessage());
-                }
-            }
-        });
-    }
-    
-    private void startCombatAchievementProcessor()
-    {
-        if (scheduler == null || scheduler.isShutdown())
-        {
-            log.warn("Cannot start combat achievement processor - scheduler is not available");
-            return;
-        }
-        
-        scheduler.submit(() -> {
-            while (isRunning.get())
-            {
-                try
-                {
-                    gimpanel.tracker.models.CombatAchievementData caData = combatAchievementQueue.poll(1, TimeUnit.SECONDS);
-                    if (caData != null)
-                    {
-                        apiClient.updateCombatAchievement(caData).exceptionally(throwable -> {
-                            log.warn("Failed to send combat achievement update: {}", throwable.getMessage());
-                            return false;
-                        });
-                    }
-                }
-                catch (InterruptedException e)
-                {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
-                catch (Exception e)
-                {
-                    log.error("Error processing combat achievement update: {}", e.getMessage());
-                }
-            }
-        });
-    }
 }
\ No newline at end of file
@@ -0,0 +1,701 @@
+package gimpanel.tracker.managers;
+
+import gimpanel.tracker.util.MetricsRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Single dispatch engine for all tracker events.
+ *
+ * Producers publish typed events into a bounded ring per {@link Lane}, and a single
+ * consumer thread drains them, routing each event to the handler registered for
+ * its type. Throughput does not depend on how many event types exist.
+ *
+ * Lanes are served by smooth weighted round robin, each lane in arrival order. A
+ * lane whose oldest event has waited longer than {@link #STARVATION_NANOS} goes
+ * next regardless of weight, so a flood of high-priority events cannot stall the rest.
+ *
+ * Sends are paced by a {@link RateLimiter}. An event whose bucket is empty waits in a
+ * per-type backlog, in order, until a token frees up. Once the backlog is as large as a
+ * ring, the consumer stops taking from the rings, so a sustained overload fills them
+ * and publishers see drops.
+ *
+ * Types can be bounded to a number of waiting events, and all waiting events together to
+ * an estimated number of bytes. A publish that would go over either applies the type's
+ * {@link OverflowPolicy}. Events dropped to make room stay in their ring as cancelled
+ * entries until the consumer passes over them.
+ *
+ * State types, where only the newest value matters, are keyed: a new event whose key
+ * already has one waiting replaces its payload in place, so each key has at most one
+ * event waiting. A keyed event that is older than the type's time-to-live when its turn
+ * comes is dropped rather than sent stale.
+ *
+ * Types whose events build on each other, such as a snapshot and the deltas against it,
+ * can be ordered together. Events of an ordered group are sent in the order they were
+ * published whatever their lanes: an event whose turn comes first takes the group's
+ * earlier events with it, ahead of itself.
+ */
+@Slf4j
+public class EventDispatcher
+{
+    private static final int DEFAULT_CAPACITY = 4096;
+    private static final long DEFAULT_BYTE_BUDGET = 16L * 1024 * 1024;
+    private static final long MAX_POLL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    static final long STARVATION_NANOS = TimeUnit.SECONDS.toNanos(2);
+    private static final Lane[] LANES = Lane.values();
+    // Waiting events are released in lane order, so a BULK backlog never goes before a NORMAL one
+    private static final EventType[] RELEASE_ORDER = Arrays.stream(EventType.values())
+        .sorted(Comparator.comparing(EventType::getLane))
+        .toArray(EventType[]::new);
+
+    private final Map<Lane, BlockingQueue<DispatchEvent>> rings = new EnumMap<>(Lane.class);
+    // One permit per event across all rings, so the consumer can wait on all of them at once
+    private final Semaphore available = new Semaphore(0);
+    // Smooth weighted round robin credit per lane, only touched by the consumer thread
+    private final int[] credit = new int[LANES.length];
+    private final MetricsRegistry metrics;
+    private final LongAccumulator maxSize = new LongAccumulator(Math::max, 0);
+    private final Map<EventType, Consumer<Object>> handlers = new EnumMap<>(EventType.class);
+    // Waiting events of each type, oldest first, guarded by the TypeQueue itself
+    private final Map<EventType, TypeQueue> waiting = new EnumMap<>(EventType.class);
+    private final AtomicLong waitingBytes = new AtomicLong();
+    private volatile long byteBudget = DEFAULT_BYTE_BUDGET;
+    private volatile Predicate<Runnable> spillSink = task -> false;
+    private final int maxDeferred;
+    // Only touched by the consumer thread
+    private final Map<EventType, ArrayDeque<DispatchEvent>> deferred = new EnumMap<>(EventType.class);
+    private int deferredCount;
+    private volatile int deferredSize;
+    private volatile RateLimiter limiter = RateLimiter.unlimited();
+    private final AtomicBoolean isRunning = new AtomicBoolean(false);
+    private volatile Thread consumer;
+
+    public EventDispatcher()
+    {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public EventDispatcher(MetricsRegistry metrics)
+    {
+        this(DEFAULT_CAPACITY, metrics);
+    }
+
+    public EventDispatcher(int capacity)
+    {
+        this(capacity, new MetricsRegistry());
+    }
+
+    public EventDispatcher(int capacity, MetricsRegistry metrics)
+    {
+        for (Lane lane : LANES)
+        {
+            rings.put(lane, new ArrayBlockingQueue<>(capacity));
+        }
+        this.maxDeferred = capacity;
+        this.metrics = metrics;
+        for (EventType type : EventType.values())
+        {
+            deferred.put(type, new ArrayDeque<>());
+            waiting.put(type, new TypeQueue());
+        }
+    }
+
+    /**
+     * Registers the handler for an event type. Must be called before {@link #start()}.
+     */
+    public <T> void register(EventType type, Class<T> payloadType, Consumer<T> handler)
+    {
+        handlers.put(type, payload -> handler.accept(payloadType.cast(payload)));
+    }
+
+    /**
+     * Marks a state type: a new event replaces the waiting one with the same key, and one
+     * that waited longer than {@code ttl} is dropped. Events the key function returns null
+     * for are queued as usual. Must be called before {@link #start()}.
+     */
+    public <T> void keyed(EventType type, Class<T> payloadType, Function<T, String> keyOf, long ttl, TimeUnit unit)
+    {
+        TypeQueue queue = waiting.get(type);
+        queue.keyOf = payload -> keyOf.apply(payloadType.cast(payload));
+        queue.ttlNanos = unit.toNanos(ttl);
+    }
+
+    /**
+     * Keeps events of these types in the order they were published, across lanes and the
+     * rate limiter. Earlier events sent ahead of a later one go without tokens of their own.
+     * Must be called before {@link #start()}.
+     */
+    public void order(EventType... types)
+    {
+        OrderGroup group = new OrderGroup();
+        for (EventType type : types)
+        {
+            TypeQueue queue = waiting.get(type);
+            queue.group = group;
+            queue.lock = group;
+        }
+    }
+
+    /**
+     * Caps how many events of a type may wait at once, and what happens to the one that
+     * would go over. Must be called before {@link #start()}.
+     */
+    public void bound(EventType type, int maxWaiting, OverflowPolicy policy)
+    {
+        TypeQueue queue = waiting.get(type);
+        queue.maxWaiting = Math.max(1, maxWaiting);
+        queue.policy = policy;
+    }
+
+    /**
+     * Caps the estimated memory of all waiting events. A type without its own bound drops
+     * new events once this is reached.
+     */
+    public void setByteBudget(long bytes)
+    {
+        this.byteBudget = bytes;
+    }
+
+    /**
+     * Where events of {@link OverflowPolicy#SPILL} types go on overflow. The sink gets a task
+     * that runs the event's handler, and returns false if it cannot take it, in which case
+     * the event is dropped.
+     */
+    public void setSpillSink(Predicate<Runnable> sink)
+    {
+        this.spillSink = sink;
+    }
+
+    public void setRateLimiter(RateLimiter limiter)
+    {
+        this.limiter = limiter;
+    }
+
+    public void start()
+    {
+        if (!isRunning.compareAndSet(false, true))
+        {
+            return;
+        }
+
+        Thread thread = new Thread(this::drain, "gimpanel-dispatch");
+        thread.setDaemon(true);
+        consumer = thread;
+        thread.start();
+    }
+
+    /**
+     * Stops accepting events and waits for the consumer to finish what is already in the rings.
+     * Events still held back by the rate limiter are sent straight away.
+     */
+    public void stop(long timeout, TimeUnit unit)
+    {
+        if (!isRunning.compareAndSet(true, false))
+        {
+            return;
+        }
+
+        Thread thread = consumer;
+        consumer = null;
+        if (thread == null)
+        {
+            return;
+        }
+
+        try
+        {
+            thread.join(unit.toMillis(timeout));
+            if (thread.isAlive())
+            {
+                thread.interrupt();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            thread.interrupt();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Publishes an event in its type's lane. Never blocks the caller; returns false if the event was dropped.
+     */
+    public boolean publish(EventType type, Object payload)
+    {
+        return publish(type, payload, type.getLane());
+    }
+
+    /**
+     * Publishes an event in the given lane. Never blocks the caller; returns false if the event was dropped.
+     */
+    public boolean publish(EventType type, Object payload, Lane lane)
+    {
+        if (!isRunning.get() || payload == null)
+        {
+            return false;
+        }
+
+        MetricsRegistry.TypeMetrics typeMetrics = metrics.type(type.getWebhookType());
+        TypeQueue queue = waiting.get(type);
+        String key = queue.keyOf != null ? queue.keyOf.apply(payload) : null;
+        DispatchEvent event = new DispatchEvent(type, payload, lane, System.nanoTime(), PayloadSizes.estimate(payload), key);
+        synchronized (queue.lock)
+        {
+            DispatchEvent pending = key != null ? queue.latest.get(key) : null;
+            if (pending != null)
+            {
+                replace(queue, pending, event);
+                typeMetrics.coalesced();
+                return true;
+            }
+
+            if (isFull(queue, event.bytes))
+            {
+                switch (overflow(queue, event, typeMetrics))
+                {
+                    case ACCEPTED:
+                        break;
+                    case ABSORBED:
+                        return true;
+                    default:
+                        typeMetrics.dropped();
+                        log.debug("{} queue over its bound - dropping new event", type);
+                        return false;
+                }
+            }
+
+            if (!rings.get(lane).offer(event))
+            {
+                typeMetrics.dropped();
+                log.warn("Dispatch ring full - dropping {} event", type);
+                return false;
+            }
+            queue.events.addLast(event);
+            typeMetrics.waiting(1);
+            queue.bytes += event.bytes;
+            waitingBytes.addAndGet(event.bytes);
+            if (key != null)
+            {
+                queue.latest.put(key, event);
+            }
+            if (queue.group != null)
+            {
+                queue.group.sequence.addLast(event);
+            }
+        }
+        available.release();
+        typeMetrics.queued();
+        maxSize.accumulate(size());
+        return true;
+    }
+
+    public int size()
+    {
+        int size = 0;
+        for (BlockingQueue<DispatchEvent> ring : rings.values())
+        {
+            size += ring.size();
+        }
+        return size;
+    }
+
+    /**
+     * Estimated memory of all events waiting to be sent.
+     */
+    public long waitingBytes()
+    {
+        return waitingBytes.get();
+    }
+
+    /**
+     * Events taken from the rings but waiting for the rate limiter.
+     */
+    public int deferredSize()
+    {
+        return deferredSize;
+    }
+
+    /**
+     * Most events the rings have held at once since this dispatcher was created.
+     */
+    public long getMaxSize()
+    {
+        return maxSize.get();
+    }
+
+    private boolean isFull(TypeQueue queue, int bytes)
+    {
+        return queue.events.size() >= queue.maxWaiting || waitingBytes.get() + bytes > byteBudget;
+    }
+
+    /**
+     * Applies the type's policy to an event that does not fit. Called holding the type's lock.
+     */
+    private Overflow overflow(TypeQueue queue, DispatchEvent event, MetricsRegistry.TypeMetrics typeMetrics)
+    {
+        switch (queue.policy)
+        {
+            case DROP_OLDEST:
+                // Only drop this type's events if that makes room. A budget used up by other
+                // types refuses the new event and leaves this type's backlog alone
+                if (waitingBytes.get() + event.bytes - byteBudget > queue.bytes)
+                {
+                    return Overflow.REFUSED;
+                }
+                while (isFull(queue, event.bytes) && !queue.events.isEmpty())
+                {
+                    release(queue, queue.events.pollFirst());
+                    typeMetrics.dropped();
+                }
+                return isFull(queue, event.bytes) ? Overflow.REFUSED : Overflow.ACCEPTED;
+            case COALESCE:
+                DispatchEvent newest = queue.events.peekLast();
+                if (newest == null)
+                {
+                    return Overflow.REFUSED;
+                }
+                // It now holds the new event's state, so it answers to the new key
+                if (newest.key != null)
+                {
+                    queue.latest.remove(newest.key);
+                }
+                newest.key = event.key;
+                if (newest.key != null)
+                {
+                    queue.latest.put(newest.key, newest);
+                }
+                replace(queue, newest, event);
+                typeMetrics.coalesced();
+                return Overflow.ABSORBED;
+            case SPILL:
+                Consumer<Object> handler = handlers.get(event.type);
+                Object payload = event.payload;
+                if (handler == null || !spillSink.test(() -> handler.accept(payload)))
+                {
+                    return Overflow.REFUSED;
+                }
+                typeMetrics.spilled();
+                return Overflow.ABSORBED;
+            default:
+                return Overflow.REFUSED;
+        }
+    }
+
+    /**
+     * Puts a newer event's payload in place of a waiting one, keeping its place in line.
+     * Called holding the type's lock.
+     */
+    private void replace(TypeQueue queue, DispatchEvent waitingEvent, DispatchEvent newer)
+    {
+        queue.bytes += newer.bytes - waitingEvent.bytes;
+        waitingBytes.addAndGet(newer.bytes - waitingEvent.bytes);
+        waitingEvent.payload = newer.payload;
+        waitingEvent.bytes = newer.bytes;
+        waitingEvent.publishedNanos = newer.publishedNanos;
+    }
+
+    /**
+     * Marks an event taken out of its type's queue as done and releases its memory. Called
+     * holding the type's lock.
+     */
+    private void release(TypeQueue queue, DispatchEvent event)
+    {
+        event.cancelled = true;
+        metrics.type(event.type.getWebhookType()).waiting(-1);
+        queue.bytes -= event.bytes;
+        waitingBytes.addAndGet(-event.bytes);
+        if (event.key != null && queue.latest.get(event.key) == event)
+        {
+            queue.latest.remove(event.key);
+        }
+        if (queue.group != null)
+        {
+            queue.group.sequence.remove(event);
+        }
+    }
+
+    /**
+     * Takes a waiting event out of its type's queue just before it is handled. Returns its
+     * payload, or null if it was dropped to make room for newer events.
+     */
+    private Object claim(DispatchEvent event)
+    {
+        TypeQueue queue = waiting.get(event.type);
+        synchronized (queue.lock)
+        {
+            if (event.cancelled)
+            {
+                return null;
+            }
+            // Almost always the head, since a type's events are taken in the order they came
+            queue.events.remove(event);
+            release(queue, event);
+            return event.payload;
+        }
+    }
+
+    private void drain()
+    {
+        while (isRunning.get() || available.availablePermits() > 0 || deferredCount > 0)
+        {
+            try
+            {
+                long waitNanos = Math.min(releaseDeferred(), MAX_POLL_NANOS);
+                if (deferredCount >= maxDeferred)
+                {
+                    // Backlog full - leave new events in the rings until tokens free up
+                    TimeUnit.NANOSECONDS.sleep(waitNanos);
+                    continue;
+                }
+
+                if (available.tryAcquire(waitNanos, TimeUnit.NANOSECONDS))
+                {
+                    accept(nextEvent());
+                }
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+    }
+
+    /**
+     * Takes the next event by lane: a starving lane first, otherwise weighted round robin
+     * over the lanes that have events. Only called with a permit in hand, so one is there.
+     */
+    private DispatchEvent nextEvent()
+    {
+        long now = System.nanoTime();
+        BlockingQueue<DispatchEvent> starving = null;
+        long oldest = Long.MAX_VALUE;
+        for (Lane lane : LANES)
+        {
+            DispatchEvent head = rings.get(lane).peek();
+            if (head != null && now - head.enqueuedNanos > STARVATION_NANOS && head.enqueuedNanos < oldest)
+            {
+                starving = rings.get(lane);
+                oldest = head.enqueuedNanos;
+            }
+        }
+        if (starving != null)
+        {
+            return starving.poll();
+        }
+
+        int total = 0;
+        int best = -1;
+        for (Lane lane : LANES)
+        {
+            if (rings.get(lane).isEmpty())
+            {
+                continue;
+            }
+            int index = lane.ordinal();
+            credit[index] += lane.getWeight();
+            total += lane.getWeight();
+            if (best < 0 || credit[index] > credit[best])
+            {
+                best = index;
+            }
+        }
+        credit[best] -= total;
+        return rings.get(LANES[best]).poll();
+    }
+
+    private void accept(DispatchEvent event)
+    {
+        if (event.cancelled)
+        {
+            // Dropped to make room while it sat in the ring
+            return;
+        }
+
+        // High-priority events skip the rate limiter and anything waiting for it
+        if (event.lane == Lane.HIGH)
+        {
+            dispatch(event);
+            return;
+        }
+
+        ArrayDeque<DispatchEvent> backlog = deferred.get(event.type);
+        // Nothing of this type may overtake events already waiting
+        if (backlog.isEmpty() && acquire(event.type))
+        {
+            dispatch(event);
+            return;
+        }
+
+        backlog.addLast(event);
+        deferredCount++;
+        deferredSize = deferredCount;
+    }
+
+    /**
+     * Sends whatever waiting events have tokens now, and returns how long until the next
+     * one could go.
+     */
+    private long releaseDeferred()
+    {
+        long waitNanos = Long.MAX_VALUE;
+        if (deferredCount == 0)
+        {
+            return waitNanos;
+        }
+
+        for (EventType type : RELEASE_ORDER)
+        {
+            ArrayDeque<DispatchEvent> backlog = deferred.get(type);
+            while (!backlog.isEmpty() && (backlog.peekFirst().cancelled || acquire(type)))
+            {
+                deferredCount--;
+                dispatch(backlog.pollFirst());
+            }
+            if (!backlog.isEmpty())
+            {
+                waitNanos = Math.min(waitNanos, Math.max(1, limiter.nanosUntilAvailable(type)));
+            }
+        }
+        deferredSize = deferredCount;
+        return waitNanos;
+    }
+
+    private boolean acquire(EventType type)
+    {
+        // Shutting down - send everything rather than lose it
+        return !isRunning.get() || limiter.tryAcquire(type);
+    }
+
+    private void dispatch(DispatchEvent event)
+    {
+        OrderGroup group = waiting.get(event.type).group;
+        if (group != null)
+        {
+            DispatchEvent earlier;
+            while ((earlier = group.ahead(event)) != null)
+            {
+                deliver(earlier);
+            }
+        }
+        deliver(event);
+    }
+
+    private void deliver(DispatchEvent event)
+    {
+        Object payload = claim(event);
+        if (payload == null)
+        {
+            return;
+        }
+        MetricsRegistry.TypeMetrics typeMetrics = metrics.type(event.type.getWebhookType());
+        long ttlNanos = waiting.get(event.type).ttlNanos;
+        if (ttlNanos > 0 && System.nanoTime() - event.publishedNanos > ttlNanos)
+        {
+            typeMetrics.dropped();
+            log.debug("Dropping stale {} event for {}", event.type, event.key);
+            return;
+        }
+        typeMetrics.dequeued(event.enqueuedNanos);
+
+        Consumer<Object> handler = handlers.get(event.type);
+        if (handler == null)
+        {
+            log.debug("No handler registered for {} event", event.type);
+            return;
+        }
+
+        try
+        {
+            handler.accept(payload);
+        }
+        catch (Exception e)
+        {
+            log.error("Error processing {} event: {}", event.type, e.getMessage());
+        }
+    }
+
+    private enum Overflow
+    {
+        // Room was made - queue the event
+        ACCEPTED,
+        // Handled without queueing it: coalesced or spilled
+        ABSORBED,
+        REFUSED
+    }
+
+    private static final class TypeQueue
+    {
+        // The queue itself, or the group's lock for ordered types
+        private Object lock = this;
+        private OrderGroup group;
+        private final ArrayDeque<DispatchEvent> events = new ArrayDeque<>();
+        // Estimated memory of this type's waiting events
+        private long bytes;
+        private int maxWaiting = Integer.MAX_VALUE;
+        private OverflowPolicy policy = OverflowPolicy.DROP_NEWEST;
+        // Set for state types, with the waiting event of each key
+        private Function<Object, String> keyOf;
+        private long ttlNanos;
+        private final Map<String, DispatchEvent> latest = new HashMap<>();
+    }
+
+    /**
+     * Waiting events of ordered types, in the order they were published. Also the lock of
+     * each of those types' queues, so the order and the queues always agree.
+     */
+    private static final class OrderGroup
+    {
+        private final ArrayDeque<DispatchEvent> sequence = new ArrayDeque<>();
+
+        /**
+         * The oldest waiting event of the group, if it was published before the given one.
+         */
+        private synchronized DispatchEvent ahead(DispatchEvent event)
+        {
+            DispatchEvent first = sequence.peekFirst();
+            return event.cancelled || first == event ? null : first;
+        }
+    }
+
+    private static final class DispatchEvent
+    {
+        private final EventType type;
+        private final Lane lane;
+        private final long enqueuedNanos;
+        // Replaced by a coalescing publish, all under the type's lock
+        private Object payload;
+        private int bytes;
+        private long publishedNanos;
+        private String key;
+        // Set under the type's lock once the event is handled or dropped
+        private volatile boolean cancelled;
+
+        private DispatchEvent(EventType type, Object payload, Lane lane, long enqueuedNanos, int bytes, String key)
+        {
+            this.type = type;
+            this.payload = payload;
+            this.lane = lane;
+            this.enqueuedNanos = enqueuedNanos;
+            this.publishedNanos = enqueuedNanos;
+            this.bytes = bytes;
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package gimpanel.tracker.managers;
+
+/**
+ * Every kind of update that collectors can hand to the {@link DataManager}.
+ * Each type maps to the webhook type the backend receives, and has the
+ * delivery lane its events use unless the publisher picks another.
+ */
+public enum EventType
+{
+    SKILL("LEVEL", Lane.HIGH),
+    XP("XP_GAIN", Lane.NORMAL),
+    ENHANCED_SKILL("ENHANCED_LEVEL", Lane.HIGH),
+    ENHANCED_XP("ENHANCED_XP_GAIN", Lane.NORMAL),
+    SKILL_BATCH("SKILL_BATCH", Lane.NORMAL),
+    DROP("LOOT", Lane.NORMAL),
+    ACTIVITY("PLAYER_SYNC", Lane.NORMAL),
+    // Full player snapshot from the periodic sync
+    PLAYER_DATA("PLAYER_SYNC", Lane.NORMAL),
+    QUEST("QUEST", Lane.NORMAL),
+    ENHANCED_QUEST("ENHANCED_QUEST", Lane.NORMAL),
+    INVENTORY("INVENTORY", Lane.BULK),
+    ENHANCED_INVENTORY("ENHANCED_INVENTORY", Lane.BULK),
+    INVENTORY_DELTA("INVENTORY_DELTA", Lane.NORMAL),
+    ACHIEVEMENT_DIARY("ACHIEVEMENT_DIARY", Lane.NORMAL),
+    COLLECTION_LOG("COLLECTION_LOG", Lane.HIGH),
+    COMBAT_ACHIEVEMENT("COMBAT_ACHIEVEMENT", Lane.NORMAL);
+
+    private final String webhookType;
+    private final Lane lane;
+
+    EventType(String webhookType, Lane lane)
+    {
+        this.webhookType = webhookType;
+        this.lane = lane;
+    }
+
+    public String getWebhookType()
+    {
+        return webhookType;
+    }
+
+    public Lane getLane()
+    {
+        return lane;
+    }
+}
@@ -0,0 +1,28 @@
+package gimpanel.tracker.managers;
+
+/**
+ * Delivery priority of an event.
+ *
+ * The dispatcher serves lanes by weighted round robin, so while every lane is busy HIGH
+ * gets 8 of every 12 sends, NORMAL 3 and BULK 1. Events in the HIGH lane also skip the
+ * rate limiter. They are the rare ones the group watches for, so they are sent the
+ * moment they are taken off the lane.
+ */
+public enum Lane
+{
+    HIGH(8),
+    NORMAL(3),
+    BULK(1);
+
+    private final int weight;
+
+    Lane(int weight)
+    {
+        this.weight = weight;
+    }
+
+    public int getWeight()
+    {
+        return weight;
+    }
+}
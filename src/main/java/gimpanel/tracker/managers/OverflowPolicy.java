@@ -0,0 +1,17 @@
+package gimpanel.tracker.managers;
+
+/**
+ * What the dispatcher does with a new event when its type already has as many events
+ * waiting as it is allowed, or the dispatcher's memory budget is used up.
+ */
+public enum OverflowPolicy
+{
+    // Keep what is waiting and drop the new event
+    DROP_NEWEST,
+    // Drop the oldest waiting events of the type to make room
+    DROP_OLDEST,
+    // Put the new payload in place of the newest waiting one, for types where only the latest matters
+    COALESCE,
+    // Write the new event to the outbox, to be sent when the backend catches up
+    SPILL
+}
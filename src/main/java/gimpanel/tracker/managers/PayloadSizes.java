@@ -0,0 +1,55 @@
+package gimpanel.tracker.managers;
+
+import gimpanel.tracker.collectors.InventoryCollector;
+import gimpanel.tracker.models.EnhancedInventoryData;
+import gimpanel.tracker.models.InventoryDeltaData;
+import gimpanel.tracker.models.SkillBatchData;
+
+import java.util.Collection;
+
+/**
+ * Rough heap size of a queued payload, for the dispatcher's memory budget.
+ *
+ * Only the payloads that grow with the game state are looked at closely; everything else
+ * is a handful of fields and strings and counted at a flat size.
+ */
+final class PayloadSizes
+{
+    // Object headers, a few strings and boxed fields
+    static final int FLAT = 512;
+    // One item entry with its name and category strings
+    private static final int INVENTORY_ITEM = 160;
+    private static final int SLOT_DELTA = 32;
+    private static final int SKILL_ENTRY = 200;
+
+    private PayloadSizes()
+    {
+    }
+
+    static int estimate(Object payload)
+    {
+        if (payload instanceof EnhancedInventoryData)
+        {
+            EnhancedInventoryData inventory = (EnhancedInventoryData) payload;
+            return FLAT + sizeOf(inventory.getItems()) * INVENTORY_ITEM;
+        }
+        if (payload instanceof InventoryCollector.InventoryData)
+        {
+            return FLAT + sizeOf(((InventoryCollector.InventoryData) payload).getItems()) * INVENTORY_ITEM;
+        }
+        if (payload instanceof InventoryDeltaData)
+        {
+            return FLAT + sizeOf(((InventoryDeltaData) payload).getChanges()) * SLOT_DELTA;
+        }
+        if (payload instanceof SkillBatchData)
+        {
+            return FLAT + sizeOf(((SkillBatchData) payload).getSkills()) * SKILL_ENTRY;
+        }
+        return FLAT;
+    }
+
+    private static int sizeOf(Collection<?> values)
+    {
+        return values != null ? values.size() : 0;
+    }
+}
@@ -0,0 +1,348 @@
+package gimpanel.tracker.managers;
+
+import gimpanel.tracker.models.PlayerData;
+import net.runelite.api.Client;
+import net.runelite.api.GameState;
+import net.runelite.api.Player;
+import net.runelite.api.Skill;
+import net.runelite.api.VarPlayer;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.api.events.GameStateChanged;
+import net.runelite.api.events.StatChanged;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The local player's state for the periodic sync, kept current from client events.
+ *
+ * Stat, tick and world events update it on the client thread, and each change that differs
+ * from the last synced value sets a dirty bit. Total XP is a running sum, adjusted by each
+ * skill's change. The sync thread only reads the dirty bits until something worth sending
+ * has changed, so an idle player costs it no allocation and it never touches the
+ * {@link Client}.
+ */
+@Singleton
+public class PlayerState
+{
+    // Resource changes are not worth a sync on their own and go out with the next one
+    private static final int SIGNIFICANT = PlayerData.ALL_FIELDS & ~PlayerData.RESOURCES;
+    // A full sync at least this often, so a backend that missed a delta catches up
+    static final long KEYFRAME_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(5);
+    // Total XP only counts as changed once it has moved this far from the last sync
+    static final long XP_THRESHOLD = 1000;
+    private static final Skill[] SKILLS = Skill.values();
+
+    private final Client client;
+
+    // Everything below is guarded by this
+    private final int[] skillXp = new int[SKILLS.length];
+    private final int[] skillLevels = new int[SKILLS.length];
+    private String playerName;
+    private int totalLevel;
+    private int combatLevel;
+    private long totalXp;
+    private long syncedXp;
+    private int world;
+    private boolean hasLocation;
+    private int x;
+    private int y;
+    private int plane;
+    private int health;
+    private int maxHealth;
+    private int prayer;
+    private int maxPrayer;
+    private int energy;
+    private int specialAttack;
+
+    // Fields sent since the last acknowledged sync, and the id of the latest sync
+    private int unacknowledged;
+    private long lastSyncId;
+
+    // Written under the lock, read without it by the sync
+    private volatile int dirty;
+    private volatile boolean tracking;
+    private volatile long lastKeyframeNanos;
+
+    @Inject
+    public PlayerState(Client client)
+    {
+        this.client = client;
+        this.lastKeyframeNanos = System.nanoTime();
+    }
+
+    public void onGameStateChanged(GameStateChanged event)
+    {
+        GameState state = event.getGameState();
+        if (state == GameState.LOGGED_IN)
+        {
+            loadSkills();
+        }
+        else if (state == GameState.LOGIN_SCREEN || state == GameState.HOPPING)
+        {
+            clear();
+        }
+    }
+
+    public void onStatChanged(StatChanged event)
+    {
+        updateSkill(event.getSkill(), event.getXp(), event.getLevel(), event.getBoostedLevel());
+    }
+
+    /**
+     * Reads what has no event of its own. Called every tick on the client thread.
+     */
+    public void onGameTick()
+    {
+        Player player = client.getLocalPlayer();
+        if (player == null || player.getName() == null)
+        {
+            return;
+        }
+
+        WorldPoint location = WorldPoint.fromLocalInstance(client, player.getLocalLocation());
+        synchronized (this)
+        {
+            updateName(player.getName());
+            updateCombatLevel(player.getCombatLevel());
+            updateWorld(client.getWorld());
+            if (location != null)
+            {
+                updateLocation(location.getX(), location.getY(), location.getPlane());
+            }
+            updateEnergy(client.getEnergy(), client.getVar(VarPlayer.SPECIAL_ATTACK_PERCENT) / 10);
+        }
+    }
+
+    public void onWorldChanged()
+    {
+        updateWorld(client.getWorld());
+    }
+
+    /**
+     * Seeds every skill at login, before the stat events for them arrive.
+     */
+    private void loadSkills()
+    {
+        synchronized (this)
+        {
+            for (Skill skill : SKILLS)
+            {
+                if (skill != Skill.OVERALL)
+                {
+                    updateSkill(skill, client.getSkillExperience(skill), client.getRealSkillLevel(skill),
+                        client.getBoostedSkillLevel(skill));
+                }
+            }
+        }
+    }
+
+    synchronized void updateSkill(Skill skill, int xp, int level, int boostedLevel)
+    {
+        if (skill == Skill.OVERALL)
+        {
+            return;
+        }
+
+        int index = skill.ordinal();
+        totalXp += xp - skillXp[index];
+        skillXp[index] = xp;
+        if (Math.abs(totalXp - syncedXp) > XP_THRESHOLD)
+        {
+            dirty |= PlayerData.TOTAL_XP;
+        }
+
+        if (level != skillLevels[index])
+        {
+            totalLevel += level - skillLevels[index];
+            skillLevels[index] = level;
+            dirty |= PlayerData.TOTAL_LEVEL;
+        }
+
+        if (skill == Skill.HITPOINTS)
+        {
+            updateResources(boostedLevel, level, prayer, maxPrayer);
+        }
+        else if (skill == Skill.PRAYER)
+        {
+            updateResources(health, maxHealth, boostedLevel, level);
+        }
+    }
+
+    synchronized void updateName(String name)
+    {
+        if (!name.equals(playerName))
+        {
+            playerName = name;
+            tracking = true;
+            // A new player for the backend - the next sync is a keyframe
+            dirty |= PlayerData.NAME;
+        }
+    }
+
+    synchronized void updateCombatLevel(int level)
+    {
+        if (level != combatLevel)
+        {
+            combatLevel = level;
+            dirty |= PlayerData.COMBAT_LEVEL;
+        }
+    }
+
+    synchronized void updateWorld(int newWorld)
+    {
+        if (newWorld != world)
+        {
+            world = newWorld;
+            dirty |= PlayerData.WORLD;
+        }
+    }
+
+    synchronized void updateLocation(int newX, int newY, int newPlane)
+    {
+        if (!hasLocation || newX != x || newY != y || newPlane != plane)
+        {
+            hasLocation = true;
+            x = newX;
+            y = newY;
+            plane = newPlane;
+            dirty |= PlayerData.LOCATION;
+        }
+    }
+
+    synchronized void updateEnergy(int newEnergy, int newSpecialAttack)
+    {
+        if (newEnergy != energy || newSpecialAttack != specialAttack)
+        {
+            energy = newEnergy;
+            specialAttack = newSpecialAttack;
+            dirty |= PlayerData.RESOURCES;
+        }
+    }
+
+    private void updateResources(int newHealth, int newMaxHealth, int newPrayer, int newMaxPrayer)
+    {
+        if (newHealth != health || newMaxHealth != maxHealth || newPrayer != prayer || newMaxPrayer != maxPrayer)
+        {
+            health = newHealth;
+            maxHealth = newMaxHealth;
+            prayer = newPrayer;
+            maxPrayer = newMaxPrayer;
+            dirty |= PlayerData.RESOURCES;
+        }
+    }
+
+    /**
+     * Whether anything worth a sync changed since the last one, or a keyframe is due. Only
+     * volatile reads, so the sync can poll it every interval for free.
+     */
+    public boolean needsSync()
+    {
+        return (dirty & SIGNIFICANT) != 0
+            || (tracking && System.nanoTime() - lastKeyframeNanos >= KEYFRAME_INTERVAL_NANOS);
+    }
+
+    /**
+     * Marks everything changed, so the next sync is a keyframe with the whole state.
+     */
+    public synchronized void markAllDirty()
+    {
+        dirty = PlayerData.ALL_FIELDS;
+    }
+
+    /**
+     * The backend has the given sync. Once the latest one is in, earlier fields need not be
+     * sent again.
+     */
+    public synchronized void acknowledge(PlayerData playerData)
+    {
+        if (playerData.getSyncId() == lastSyncId)
+        {
+            unacknowledged = 0;
+        }
+    }
+
+    /**
+     * Builds the sync payload from the cached state and clears the dirty bits. Null before
+     * the player's name is known.
+     *
+     * Every field is filled in. The changed fields are those changed since the last
+     * acknowledged sync, so a lost or replaced sync is made up for by the next one. A new
+     * player, a resync and the keyframe interval make it a keyframe instead.
+     */
+    public synchronized PlayerData takeSnapshot()
+    {
+        if (playerName == null)
+        {
+            return null;
+        }
+
+        long now = System.nanoTime();
+        boolean keyframe = (dirty & PlayerData.NAME) != 0 || now - lastKeyframeNanos >= KEYFRAME_INTERVAL_NANOS;
+        int changed = keyframe ? PlayerData.ALL_FIELDS : dirty | unacknowledged;
+        if (keyframe)
+        {
+            lastKeyframeNanos = now;
+        }
+
+        PlayerData playerData = new PlayerData();
+        playerData.setUsername(playerName);
+        playerData.setDisplayName(playerName);
+        playerData.setTotalLevel(totalLevel);
+        playerData.setCombatLevel(combatLevel);
+        playerData.setTotalXp(totalXp);
+        playerData.setOnline(true);
+        playerData.setCurrentWorld(String.valueOf(world));
+        playerData.setLocation(hasLocation ? new WorldPoint(x, y, plane) : null);
+        playerData.setLastSeen(System.currentTimeMillis());
+
+        PlayerData.ResourceState resources = new PlayerData.ResourceState();
+        resources.setHealth(health);
+        resources.setMaxHealth(maxHealth);
+        resources.setPrayer(prayer);
+        resources.setMaxPrayer(maxPrayer);
+        resources.setEnergy(energy);
+        resources.setMaxEnergy(100);
+        resources.setSpecialAttack(specialAttack);
+        playerData.setResources(resources);
+
+        playerData.setChangedFields(changed);
+        playerData.setKeyframe(keyframe);
+        playerData.setSyncId(++lastSyncId);
+        unacknowledged = changed;
+        if ((changed & PlayerData.TOTAL_XP) != 0)
+        {
+            syncedXp = totalXp;
+        }
+        dirty = 0;
+        return playerData;
+    }
+
+    /**
+     * Forgets the player on logout or world hop; the next login starts from scratch.
+     */
+    synchronized void clear()
+    {
+        Arrays.fill(skillXp, 0);
+        Arrays.fill(skillLevels, 0);
+        playerName = null;
+        totalLevel = 0;
+        combatLevel = 0;
+        totalXp = 0;
+        syncedXp = 0;
+        world = 0;
+        hasLocation = false;
+        health = 0;
+        maxHealth = 0;
+        prayer = 0;
+        maxPrayer = 0;
+        energy = 0;
+        specialAttack = 0;
+        unacknowledged = 0;
+        tracking = false;
+        lastKeyframeNanos = System.nanoTime();
+        dirty = 0;
+    }
+}
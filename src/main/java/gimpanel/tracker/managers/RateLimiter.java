@@ -0,0 +1,76 @@
+package gimpanel.tracker.managers;
+
+import gimpanel.tracker.util.TokenBucket;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Send budget for the dispatcher: a token bucket per event type plus a global one.
+ *
+ * An event goes out only when both its type's bucket and the global bucket have a token,
+ * so one chatty type cannot use up the budget of the rest, and all types together stay
+ * under the global rate.
+ */
+public class RateLimiter
+{
+    private static final RateLimiter UNLIMITED = new RateLimiter();
+
+    private final TokenBucket global;
+    private final Map<EventType, TokenBucket> perType = new EnumMap<>(EventType.class);
+
+    private RateLimiter()
+    {
+        this.global = null;
+    }
+
+    public RateLimiter(double globalPerSecond, int globalBurst, double typePerSecond, int typeBurst)
+    {
+        this(globalPerSecond, globalBurst, typePerSecond, typeBurst, System::nanoTime);
+    }
+
+    RateLimiter(double globalPerSecond, int globalBurst, double typePerSecond, int typeBurst, LongSupplier clock)
+    {
+        this.global = new TokenBucket(globalPerSecond, globalBurst, clock);
+        for (EventType type : EventType.values())
+        {
+            perType.put(type, new TokenBucket(typePerSecond, typeBurst, clock));
+        }
+    }
+
+    public static RateLimiter unlimited()
+    {
+        return UNLIMITED;
+    }
+
+    /**
+     * Takes a token for the event type, unless either bucket is empty. Only called from the
+     * dispatch thread, so checking and taking the two buckets need not be atomic.
+     */
+    public boolean tryAcquire(EventType type)
+    {
+        if (global == null)
+        {
+            return true;
+        }
+
+        TokenBucket bucket = perType.get(type);
+        if (!bucket.available() || !global.available())
+        {
+            return false;
+        }
+        bucket.tryAcquire();
+        global.tryAcquire();
+        return true;
+    }
+
+    public long nanosUntilAvailable(EventType type)
+    {
+        if (global == null)
+        {
+            return 0;
+        }
+        return Math.max(perType.get(type).nanosUntilAvailable(), global.nanosUntilAvailable());
+    }
+}
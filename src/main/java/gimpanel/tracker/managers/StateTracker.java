@@ -1,6 +1,8 @@
 package gimpanel.tracker.managers;
 
+import gimpanel.tracker.collectors.InventoryCollector;
 import gimpanel.tracker.collectors.QuestCollector;
+import gimpanel.tracker.collectors.SkillCollector;
 import gimpanel.tracker.collectors.StashCollector;
 import gimpanel.tracker.collectors.GroupStorageCollector;
 import lombok.extern.slf4j.Slf4j;
@@ -19,8 +21,11 @@ public class StateTracker
 {
     private final Client client;
     private final QuestCollector questCollector;
+    private final SkillCollector skillCollector;
+    private final InventoryCollector inventoryCollector;
     private final StashCollector stashCollector;
     private final GroupStorageCollector groupStorageCollector;
+    private final DataManager dataManager;
     
     private final AtomicBoolean isInitialized = new AtomicBoolean(false);
     private GameState previousGameState;
@@ -29,12 +34,16 @@ public class StateTracker
     private static final int INITIALIZATION_DELAY_TICKS = 10; // Wait 10 ticks after login before full initialization
 
     @Inject
-    public StateTracker(Client client, QuestCollector questCollector, StashCollector stashCollector, GroupStorageCollector groupStorageCollector)
+    public StateTracker(Client client, QuestCollector questCollector, SkillCollector skillCollector, InventoryCollector inventoryCollector,
+        StashCollector stashCollector, GroupStorageCollector groupStorageCollector, DataManager dataManager)
     {
         this.client = client;
         this.questCollector = questCollector;
+        this.skillCollector = skillCollector;
+        this.inventoryCollector = inventoryCollector;
         this.stashCollector = stashCollector;
         this.groupStorageCollector = groupStorageCollector;
+        this.dataManager = dataManager;
     }
 
     public void initialize()
@@ -99,6 +108,12 @@ public class StateTracker
                 performPostLoginInitialization();
             }
         }
+        
+        // Left pending until login has settled - the post-login sync covers the same ground
+        if (isInitializationComplete() && dataManager.takeResyncRequest())
+        {
+            performFullResync();
+        }
     }
 
     private void handleLogin()
@@ -117,6 +132,9 @@ public class StateTracker
         log.info("Player logged in: {}", playerName);
         hasLoggedIn = true;
         ticksSinceLogin = 0;
+        
+        // Handshake now, while the post-login sync is still waiting out its delay
+        dataManager.prewarmConnection();
     }
 
     private void handleLogout()
@@ -180,6 +198,27 @@ public class StateTracker
         }
     }
 
+    /**
+     * Sends a fresh snapshot of everything the backend tracks, because it asked for the full
+     * state or for events that were no longer buffered.
+     */
+    private void performFullResync()
+    {
+        log.info("Backend requested a resync - sending fresh snapshots");
+        try
+        {
+            skillCollector.syncAllSkills("resync");
+            questCollector.refreshAllQuests();
+            inventoryCollector.syncContainers("resync");
+            stashCollector.syncAllStashUnits("resync");
+            groupStorageCollector.syncGroupStorage("resync");
+        }
+        catch (Exception e)
+        {
+            log.error("Error during resync: {}", e.getMessage());
+        }
+    }
+
     public boolean isPlayerLoggedIn()
     {
         return hasLoggedIn && client.getGameState() == GameState.LOGGED_IN && client.getLocalPlayer() != null;
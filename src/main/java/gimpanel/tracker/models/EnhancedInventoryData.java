@@ -16,6 +16,7 @@ public class EnhancedInventoryData
     private int uniqueItems;
     private Map<String, CategoryBreakdown> categories;
     private Map<String, ValueRangeBreakdown> valueRanges;
+    private long version;          // Base version that later InventoryDeltaData updates build on
 
     public EnhancedInventoryData(String playerName, String containerName, List<EnhancedInventoryItem> items,
                                 long totalValue, int totalItems, int uniqueItems)
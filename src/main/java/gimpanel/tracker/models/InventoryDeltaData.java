@@ -0,0 +1,46 @@
+package gimpanel.tracker.models;
+
+import lombok.Data;
+import java.util.List;
+
+/**
+ * Slot-level changes to a container since the last update that was sent for it.
+ *
+ * Versions count up by one per update for each container, so a gap means an update
+ * was lost and the receiver needs a fresh base snapshot. Each change adds
+ * {@code quantityDelta} of {@code itemId} to a slot: a slot that swaps items gets
+ * one negative change for the old item and one positive change for the new one.
+ */
+@Data
+public class InventoryDeltaData
+{
+    private String playerName;
+    private String containerName;
+    private long version;
+    private List<SlotDelta> changes;
+    private long timestamp;
+
+    public InventoryDeltaData(String playerName, String containerName, long version, List<SlotDelta> changes)
+    {
+        this.playerName = playerName;
+        this.containerName = containerName;
+        this.version = version;
+        this.changes = changes;
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    @Data
+    public static class SlotDelta
+    {
+        private int slot;
+        private int itemId;
+        private int quantityDelta;
+
+        public SlotDelta(int slot, int itemId, int quantityDelta)
+        {
+            this.slot = slot;
+            this.itemId = itemId;
+            this.quantityDelta = quantityDelta;
+        }
+    }
+}
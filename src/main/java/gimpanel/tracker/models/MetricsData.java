@@ -0,0 +1,76 @@
+package gimpanel.tracker.models;
+
+import lombok.Data;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pipeline health summary, sent periodically as a METRICS webhook.
+ *
+ * Counters and latencies are cumulative since the plugin started; latencies are in
+ * milliseconds. Gauges are sampled when the summary is built.
+ */
+@Data
+public class MetricsData
+{
+    private String playerName;
+    private long uptimeMillis;
+    private Map<String, Long> gauges;
+    private List<TypeMetrics> types;
+    private long timestamp;
+
+    public MetricsData(String playerName, long uptimeMillis, Map<String, Long> gauges, List<TypeMetrics> types)
+    {
+        this.playerName = playerName;
+        this.uptimeMillis = uptimeMillis;
+        this.gauges = gauges;
+        this.types = types;
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    @Data
+    public static class TypeMetrics
+    {
+        private String type;
+        private long queued;
+        private long dropped;
+        // Replaced by a newer event of the same type while held back by the rate limiter or over its bound
+        private long coalesced;
+        // Over its bound and written to the outbox instead of waiting in memory
+        private long spilled;
+        // Events in the dispatcher when the summary was taken - a queue depth, not a running count
+        private long waiting;
+        private long sent;
+        private long failed;
+        // Time from DataManager queue to the handler picking the event up
+        private Latency queueLatency;
+        // Time from sendWebhook to the backend answering, including batching
+        private Latency sendLatency;
+        // A single HTTP request
+        private Latency roundTrip;
+
+        public TypeMetrics(String type)
+        {
+            this.type = type;
+        }
+    }
+
+    @Data
+    public static class Latency
+    {
+        private long count;
+        private double p50;
+        private double p90;
+        private double p99;
+        private double max;
+
+        public Latency(long count, double p50, double p90, double p99, double max)
+        {
+            this.count = count;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+            this.max = max;
+        }
+    }
+}
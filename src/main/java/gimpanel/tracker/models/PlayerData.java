@@ -6,6 +6,16 @@ import net.runelite.api.coords.WorldPoint;
 @Data
 public class PlayerData
 {
+    // Fields of a sync, as bits of changedFields
+    public static final int NAME = 1;
+    public static final int TOTAL_LEVEL = 1 << 1;
+    public static final int COMBAT_LEVEL = 1 << 2;
+    public static final int TOTAL_XP = 1 << 3;
+    public static final int WORLD = 1 << 4;
+    public static final int LOCATION = 1 << 5;
+    public static final int RESOURCES = 1 << 6;
+    public static final int ALL_FIELDS = (1 << 7) - 1;
+
     private String username;
     private String displayName;
     private int totalLevel;
@@ -17,6 +27,10 @@ public class PlayerData
     private WorldPoint location;
     private ResourceState resources;
     private long lastSeen;
+    // Every field is filled in; these say which ones a delta sync needs to send
+    private int changedFields = ALL_FIELDS;
+    private boolean keyframe = true;
+    private long syncId;
 
     @Data
     public static class ResourceState
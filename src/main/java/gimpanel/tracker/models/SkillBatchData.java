@@ -0,0 +1,26 @@
+package gimpanel.tracker.models;
+
+import lombok.Data;
+import java.util.List;
+
+/**
+ * XP gained in several skills over one coalescing window, sent as a single update.
+ */
+@Data
+public class SkillBatchData
+{
+    private String playerName;
+    private int totalLevel;
+    private int combatLevel;
+    private List<EnhancedSkillData> skills;
+    private long timestamp;
+
+    public SkillBatchData(String playerName, int totalLevel, int combatLevel, List<EnhancedSkillData> skills)
+    {
+        this.playerName = playerName;
+        this.totalLevel = totalLevel;
+        this.combatLevel = combatLevel;
+        this.skills = skills;
+        this.timestamp = System.currentTimeMillis();
+    }
+}
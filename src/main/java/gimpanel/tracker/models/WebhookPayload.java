@@ -11,6 +11,9 @@ public class WebhookPayload
     private String playerName;
     private String source;         // "gimpanel-tracker" or "dink" or "group-ironmen-tracker"
     private long timestamp;
+    private String eventId;        // Random per event, the same on every retry and replay
+    private String sessionId;      // New each time the plugin starts or is reconfigured
+    private long sequence;         // Counts up from 1 within the session
     private Map<String, Object> extra;
 
     // Common fields for compatibility
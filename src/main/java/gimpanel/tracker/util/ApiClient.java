@@ -1,68 +1,171 @@
 package gimpanel.tracker.util;
 
+import com.google.gson.TypeAdapter;
 import gimpanel.tracker.models.*;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.*;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
-import javax.net.ssl.SSLContext;
-import javax.net.ssl.TrustManager;
-import javax.net.ssl.X509TrustManager;
-import java.util.Map;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Singleton
 public class ApiClient
 {
     private final OkHttpClient httpClient;
+    private final Dispatcher httpDispatcher;
+    private final DataSerializer serializer;
+    private final MetricsRegistry metrics;
     private String baseUrl;
     private String authToken;
     private static final String USER_AGENT = "GIMPanelTracker/1.0.0";
     private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+    private static final String PAYLOAD_FIELD = "payload_json";
+    private static final String FORM_CONTENT_TYPE = "application/x-www-form-urlencoded";
+    private static final String BATCH_HEADER = "X-GIMPanel-Batch";
+    private static final String IDEMPOTENCY_HEADER = "Idempotency-Key";
+    // Backend asking for sequence numbers it never received, or for the full state
+    private static final String MISSING_HEADER = "X-GIMPanel-Missing";
+    private static final String RESYNC_HEADER = "X-GIMPanel-Resync";
+    private static final int MAX_BATCH_BYTES = 256 * 1024;
+    
+    // Backend connections stay pooled well past the heartbeat and sync intervals
+    private static final int MAX_IDLE_CONNECTIONS = 4;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+    private static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 4;
+    
+    private static final int REPLAY_CHUNK_SIZE = 25;
+    // Sends in flight are skipped by id. This only covers the moment between writing an
+    // entry and marking its send as in flight
+    private static final long REPLAY_MIN_AGE_MILLIS = 5_000;
+    
+    private final BackendCapabilities capabilities = new BackendCapabilities();
+    private final ScheduledExecutorService scheduler;
+    private final WebhookBatcher batcher;
+    private volatile boolean batchingEnabled = false;
+    private volatile boolean compressionEnabled = false;
+    private volatile boolean binaryEnabled = false;
+    
+    // Body bytes actually sent, and what the same requests would have cost form-encoded
+    private final LongAdder bodyBytesSent = new LongAdder();
+    private final LongAdder bodyBytesForm = new LongAdder();
+    
+    private volatile WebhookOutbox outbox;
+    // Events the backend cannot rebuild. Everything else is state that the next update
+    // replaces, so it is never replayed or held, where it could arrive after newer state
+    private static final Set<String> DURABLE_TYPES = new HashSet<>(Arrays.asList("LEVEL", "ENHANCED_LEVEL",
+        "LOOT", "QUEST", "ENHANCED_QUEST", "ACHIEVEMENT_DIARY", "COLLECTION_LOG", "COMBAT_ACHIEVEMENT"));
+    // Outbox entries whose send has not finished yet, so the replay leaves them alone
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    // Set while a spilled event is handled, so it is written to the outbox and not sent
+    private final ThreadLocal<Boolean> spilling = ThreadLocal.withInitial(() -> false);
+    private volatile ScheduledFuture<?> replayTask;
+    private final AtomicBoolean replaying = new AtomicBoolean(false);
+    private volatile long lastRequestNanos = System.nanoTime();
+    
+    // Consecutive failures that open the breaker, and the probe backoff range
+    private static final int BREAKER_FAILURE_THRESHOLD = 5;
+    private static final long BREAKER_BASE_BACKOFF_SECONDS = 2;
+    private static final long BREAKER_MAX_BACKOFF_SECONDS = 120;
+    // Events kept in memory while the breaker is open and there is no outbox to hold them
+    private static final int MAX_HELD_EVENTS = 1000;
+    
+    private final CircuitBreaker breaker = new CircuitBreaker(BREAKER_FAILURE_THRESHOLD,
+        BREAKER_BASE_BACKOFF_SECONDS, BREAKER_MAX_BACKOFF_SECONDS, TimeUnit.SECONDS);
+    private final ArrayDeque<OutgoingWebhook> held = new ArrayDeque<>();
+    private final LongAdder heldDropped = new LongAdder();
+    
+    // Pings keep the stream alive through proxies and detect a dead connection between events
+    private static final long STREAM_PING_SECONDS = 15;
+    
+    private volatile WebhookStream stream;
+    
+    // Retries of a request the backend did not answer, or answered with a server error
+    private static final int MAX_RETRIES = 3;
+    private static final long RETRY_BASE_MILLIS = 500;
+    
+    private volatile String sessionId = UUID.randomUUID().toString();
+    private final AtomicLong sequence = new AtomicLong();
+    
+    // Recent events the backend can ask for again, and how long the same request is ignored
+    private static final int RESEND_BUFFER_SIZE = 512;
+    private static final long REPAIR_DEBOUNCE_NANOS = TimeUnit.SECONDS.toNanos(5);
+    
+    private final ResendBuffer sent = new ResendBuffer(RESEND_BUFFER_SIZE);
+    private volatile Runnable resyncListener;
+    private String lastRepair;
+    private long lastRepairNanos;
 
-    @Inject
     public ApiClient()
     {
-        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+        this(new DataSerializer(), new MetricsRegistry(), new OkHttpClient());
+    }
+
+    @Inject
+    public ApiClient(DataSerializer serializer, MetricsRegistry metrics, OkHttpClient sharedClient)
+    {
+        this.serializer = serializer;
+        this.metrics = metrics;
+        
+        // Calls run on threads of our own, capped separately from RuneLite's dispatcher. Waiting
+        // calls sit in the dispatcher's queue, not on a blocked thread
+        this.httpDispatcher = new Dispatcher(new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
+            new SynchronousQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "gimpanel-http");
+                thread.setDaemon(true);
+                return thread;
+            }));
+        configureConcurrency(DEFAULT_MAX_CONCURRENT_REQUESTS);
+        metrics.gauge("httpInFlight", httpDispatcher::runningCallsCount);
+        metrics.gauge("httpWaiting", httpDispatcher::queuedCallsCount);
+        metrics.gauge("bodyBytesSent", bodyBytesSent::sum);
+        metrics.gauge("bodyBytesForm", bodyBytesForm::sum);
+        metrics.gauge("breakerState", () -> breaker.getState().ordinal());
+        metrics.gauge("heldEvents", this::heldCount);
+        metrics.gauge("heldDropped", heldDropped::sum);
+        
+        // Derived from RuneLite's client, so DNS and the TLS setup (including its session
+        // cache) are shared; the pool, dispatcher and timeouts are specific to the backend
+        this.httpClient = sharedClient.newBuilder()
+            .dispatcher(httpDispatcher)
+            .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+            // HTTP/2 is negotiated over TLS when the backend offers it, so concurrent sends share one connection
+            .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
             .connectTimeout(10, TimeUnit.SECONDS)
             .writeTimeout(30, TimeUnit.SECONDS)
             .readTimeout(30, TimeUnit.SECONDS)
-            .retryOnConnectionFailure(true);
-            
-        // For development: disable SSL verification for ngrok domains
-        try {
-            final TrustManager[] trustAllCerts = new TrustManager[] {
-                new X509TrustManager() {
-                    @Override
-                    public void checkClientTrusted(java.security.cert.X509Certificate[] chain, String authType) {}
-                    
-                    @Override
-                    public void checkServerTrusted(java.security.cert.X509Certificate[] chain, String authType) {}
-                    
-                    @Override
-                    public java.security.cert.X509Certificate[] getAcceptedIssuers() {
-                        return new java.security.cert.X509Certificate[]{};
-                    }
-                }
-            };
-            
-            final SSLContext sslContext = SSLContext.getInstance("SSL");
-            sslContext.init(null, trustAllCerts, new java.security.SecureRandom());
-            
-            builder.sslSocketFactory(sslContext.getSocketFactory(), (X509TrustManager) trustAllCerts[0]);
-            builder.hostnameVerifier((hostname, session) -> {
-                // Allow all hostnames for development (ngrok domains)
-                log.debug("SSL hostname verification bypassed for: {}", hostname);
-                return true;
-            });
-        } catch (Exception e) {
-            log.warn("Failed to configure SSL bypass: {}", e.getMessage());
-        }
+            .retryOnConnectionFailure(true)
+            .build();
         
-        this.httpClient = builder.build();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "gimpanel-api");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.batcher = new WebhookBatcher(scheduler, this::sendBatch);
     }
 
     public void configure(String baseUrl, String authToken)
@@ -73,6 +176,8 @@ public class ApiClient
             this.baseUrl = null;
         }
         this.authToken = authToken;
+        capabilities.reset();
+        startSession();
         log.info("ApiClient configured with URL: {}, Token: {} chars", this.baseUrl, authToken != null ? authToken.length() : 0);
         
         // For debugging: temporarily disable token to test default group
@@ -82,365 +187,1048 @@ public class ApiClient
         }
     }
 
+    /**
+     * Starts a new session id and sequence, so the backend can tell this run's events apart
+     * from replays of an earlier one.
+     */
+    private void startSession()
+    {
+        sessionId = UUID.randomUUID().toString();
+        sequence.set(0);
+        sent.clear();
+    }
+
+    /**
+     * Called, on an HTTP thread, when the backend needs the full state: it asked for it, or
+     * asked for events no longer buffered.
+     */
+    public void setResyncListener(Runnable listener)
+    {
+        this.resyncListener = listener;
+    }
+
+    public void configureBatching(boolean enabled, int maxEvents, int lingerMillis)
+    {
+        batcher.configure(maxEvents, MAX_BATCH_BYTES, lingerMillis);
+        this.batchingEnabled = enabled;
+        if (!enabled)
+        {
+            batcher.flush();
+        }
+        log.info("Webhook batching {} (max {} events, {} ms linger)", enabled ? "enabled" : "disabled", maxEvents, lingerMillis);
+    }
+
+    /**
+     * Caps how many webhook requests can be in flight at once. Further sends wait in line.
+     */
+    public void configureConcurrency(int maxConcurrentRequests)
+    {
+        int limit = Math.max(1, maxConcurrentRequests);
+        httpDispatcher.setMaxRequests(limit);
+        httpDispatcher.setMaxRequestsPerHost(limit);
+    }
+
+    /**
+     * Sends raw compressed JSON instead of the form encoding, once the backend advertises
+     * an encoding it can read. Anything it later refuses goes back to the form encoding.
+     */
+    public void configureCompression(boolean enabled)
+    {
+        this.compressionEnabled = enabled;
+        log.info("Webhook compression {}", enabled ? "enabled" : "disabled");
+    }
+
+    /**
+     * Sends the binary wire format instead of JSON once the backend advertises it, falling
+     * back like compression does if it is later refused.
+     */
+    public void configureBinaryFormat(boolean enabled)
+    {
+        this.binaryEnabled = enabled;
+        log.info("Binary webhook format {}", enabled ? "enabled" : "disabled");
+    }
+
+    /**
+     * Streams webhooks over one WebSocket instead of a POST each. Falls back to HTTP for the
+     * rest of the session if the backend refuses the upgrade.
+     */
+    public void configureStreaming(boolean enabled)
+    {
+        closeStream();
+        if (enabled && baseUrl != null && !baseUrl.isEmpty())
+        {
+            Request request = new Request.Builder()
+                .url(getWebhookUrl() + "/stream")
+                .header("User-Agent", USER_AGENT)
+                .header("ngrok-skip-browser-warning", "true")
+                .get()
+                .build();
+            
+            // Frames can be minutes apart - the pings, not a read timeout, tell when it is dead
+            OkHttpClient streamClient = httpClient.newBuilder()
+                .pingInterval(STREAM_PING_SECONDS, TimeUnit.SECONDS)
+                .readTimeout(0, TimeUnit.SECONDS)
+                .build();
+            WebhookStream opened = new WebhookStream(streamClient, request, scheduler,
+                webhook -> post(webhook, "webhook", MetricsRegistry.STREAM_FALLBACK));
+            opened.setRepairListener(this::handleRepairRequest);
+            stream = opened;
+            metrics.gauge("streamConnected", () -> opened.isConnected() ? 1 : 0);
+            metrics.gauge("streamPending", opened::pendingCount);
+        }
+        log.info("Webhook streaming {}", enabled ? "enabled" : "disabled");
+    }
+
+    /**
+     * Persists every outgoing webhook under the given directory until the backend accepts it,
+     * and periodically replays whatever is left from outages or previous sessions.
+     */
+    public void configureOutbox(File directory, long maxBytes)
+    {
+        closeOutbox();
+        try
+        {
+            WebhookOutbox opened = WebhookOutbox.open(directory, maxBytes);
+            outbox = opened;
+            metrics.gauge("outboxPending", opened::pendingCount);
+            metrics.gauge("outboxDropped", opened::getDroppedCount);
+            replayTask = scheduler.scheduleWithFixedDelay(this::replayOutbox, 5, 30, TimeUnit.SECONDS);
+            log.info("Webhook outbox opened at {} ({} pending)", directory, opened.pendingCount());
+        }
+        catch (IOException e)
+        {
+            log.warn("Failed to open webhook outbox, events will not survive outages: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Sends anything still batched and closes the outbox. Unacknowledged webhooks stay on disk.
+     */
+    public void shutdown()
+    {
+        closeStream();
+        batcher.flush();
+        closeOutbox();
+        httpClient.connectionPool().evictAll();
+    }
+
+    /**
+     * Opens a connection to the backend ahead of the first event, so that event does not
+     * pay for DNS, TCP and the TLS handshake. Any response will do; the connection is pooled.
+     */
+    public void prewarm()
+    {
+        if (baseUrl == null || baseUrl.isEmpty())
+        {
+            return;
+        }
+        
+        WebhookStream current = stream;
+        if (current != null)
+        {
+            current.connect();
+        }
+        
+        // While the breaker is open only its probe talks to the backend
+        if (!breaker.isClosed())
+        {
+            return;
+        }
+        
+        Request request = new Request.Builder()
+            .url(getWebhookUrl())
+            .header("User-Agent", USER_AGENT)
+            .header("ngrok-skip-browser-warning", "true")
+            .head()
+            .build();
+        
+        long start = System.nanoTime();
+        lastRequestNanos = start;
+        httpClient.newCall(request).enqueue(new Callback()
+        {
+            @Override
+            public void onFailure(Call call, IOException e)
+            {
+                log.debug("Backend connection pre-warm failed: {}", e.getMessage());
+            }
+
+            @Override
+            public void onResponse(Call call, Response response)
+            {
+                try (Response closed = response)
+                {
+                    metrics.type(MetricsRegistry.PREWARM).roundTrip(start);
+                    capabilities.update(closed.header(BackendCapabilities.HEADER));
+                    log.debug("Backend connection pre-warmed over {} in {} ms", closed.protocol(),
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                }
+            }
+        });
+    }
+
+    /**
+     * False while the circuit breaker is open, when new events are held rather than sent.
+     */
+    public boolean isBackendAvailable()
+    {
+        return breaker.isClosed();
+    }
+
+    /**
+     * Takes an event the dispatcher has no room for. The task runs its handler, and the
+     * webhook it sends is written to the outbox for the replay to deliver later. Returns
+     * false without an outbox, as the event would only be held in memory again.
+     */
+    public boolean spill(Runnable send)
+    {
+        if (outbox == null)
+        {
+            return false;
+        }
+
+        scheduler.execute(() -> {
+            spilling.set(true);
+            try
+            {
+                send.run();
+            }
+            finally
+            {
+                spilling.set(false);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * True while webhooks stream over an open WebSocket. Its pings already tell the backend
+     * the player is online, so there is no need for heartbeats.
+     */
+    public boolean isStreaming()
+    {
+        WebhookStream current = stream;
+        return current != null && current.isConnected();
+    }
+
+    /**
+     * Pre-warms again if nothing was sent for {@code idleSeconds}, before the backend or a
+     * proxy closes the idle connection. Not needed while streaming.
+     */
+    public void keepAlive(long idleSeconds)
+    {
+        if (!isStreaming() && System.nanoTime() - lastRequestNanos >= TimeUnit.SECONDS.toNanos(idleSeconds))
+        {
+            prewarm();
+        }
+    }
+
+    private void closeStream()
+    {
+        WebhookStream current = stream;
+        stream = null;
+        if (current != null)
+        {
+            metrics.removeGauge("streamConnected");
+            metrics.removeGauge("streamPending");
+            current.close();
+        }
+    }
+
+    private void closeOutbox()
+    {
+        if (replayTask != null)
+        {
+            replayTask.cancel(false);
+            replayTask = null;
+        }
+        
+        WebhookOutbox current = outbox;
+        outbox = null;
+        if (current != null)
+        {
+            metrics.removeGauge("outboxPending");
+            metrics.removeGauge("outboxDropped");
+            current.close();
+        }
+    }
+
     public CompletableFuture<Boolean> updateSkill(SkillData skillData)
     {
-        return sendWebhook("LEVEL", skillData.getPlayerName(), createSkillExtra(skillData));
+        return sendWebhook("LEVEL", skillData.getPlayerName(), ExtraAdapters.SKILL, skillData);
     }
 
     public CompletableFuture<Boolean> updateXp(SkillData skillData)
     {
-        return sendWebhook("XP_GAIN", skillData.getPlayerName(), createXpExtra(skillData));
+        return sendWebhook("XP_GAIN", skillData.getPlayerName(), ExtraAdapters.SKILL, skillData);
     }
     
     public CompletableFuture<Boolean> updateEnhancedSkill(gimpanel.tracker.models.EnhancedSkillData skillData)
     {
-        return sendWebhook("ENHANCED_LEVEL", skillData.getPlayerName(), createEnhancedSkillExtra(skillData));
+        return sendWebhook("ENHANCED_LEVEL", skillData.getPlayerName(), ExtraAdapters.ENHANCED_SKILL, skillData);
     }
     
     public CompletableFuture<Boolean> updateEnhancedXp(gimpanel.tracker.models.EnhancedSkillData skillData)
     {
-        return sendWebhook("ENHANCED_XP_GAIN", skillData.getPlayerName(), createEnhancedXpExtra(skillData));
+        return sendWebhook("ENHANCED_XP_GAIN", skillData.getPlayerName(), ExtraAdapters.ENHANCED_XP, skillData);
+    }
+
+    public CompletableFuture<Boolean> updateSkillBatch(SkillBatchData batchData)
+    {
+        if (capabilities.supports(BackendCapabilities.SKILL_BATCH))
+        {
+            return sendWebhook("SKILL_BATCH", batchData.getPlayerName(), ExtraAdapters.SKILL_BATCH, batchData);
+        }
+        
+        // A backend that does not know the batch gets each skill as its own XP gain
+        List<CompletableFuture<Boolean>> results = new ArrayList<>(batchData.getSkills().size());
+        for (EnhancedSkillData skillData : batchData.getSkills())
+        {
+            results.add(updateEnhancedXp(skillData));
+        }
+        return CompletableFuture.allOf(results.toArray(new CompletableFuture[0]))
+            .thenApply(ignored -> results.stream().allMatch(CompletableFuture::join));
     }
 
     public CompletableFuture<Boolean> updateDrop(DropData dropData)
     {
-        return sendWebhook("LOOT", dropData.getPlayerName(), createDropExtra(dropData));
+        return sendWebhook("LOOT", dropData.getPlayerName(), ExtraAdapters.DROP, dropData);
     }
 
     public CompletableFuture<Boolean> updateActivity(ActivityData activityData)
     {
-        return sendWebhook("PLAYER_SYNC", activityData.getPlayerName(), createActivityExtra(activityData));
+        return sendWebhook("PLAYER_SYNC", activityData.getPlayerName(), ExtraAdapters.ACTIVITY, activityData);
     }
 
     public CompletableFuture<Boolean> updateQuest(QuestData questData)
     {
-        return sendWebhook("QUEST", questData.getPlayerName(), createQuestExtra(questData));
+        return sendWebhook("QUEST", questData.getPlayerName(), ExtraAdapters.QUEST, questData);
     }
     
     public CompletableFuture<Boolean> updateEnhancedQuest(gimpanel.tracker.models.EnhancedQuestData questData)
     {
-        return sendWebhook("ENHANCED_QUEST", questData.getPlayerName(), createEnhancedQuestExtra(questData));
+        return sendWebhook("ENHANCED_QUEST", questData.getPlayerName(), ExtraAdapters.ENHANCED_QUEST, questData);
     }
 
     public CompletableFuture<Boolean> syncPlayerData(PlayerData playerData)
     {
-        return sendWebhook("PLAYER_SYNC", playerData.getUsername(), createPlayerSyncExtra(playerData));
+        // Only changed fields once the backend says it can merge them; the whole state otherwise
+        TypeAdapter<PlayerData> adapter = capabilities.supports(BackendCapabilities.SYNC_DELTA)
+            ? ExtraAdapters.PLAYER_SYNC_DELTA : ExtraAdapters.PLAYER_SYNC;
+        return sendWebhook("PLAYER_SYNC", playerData.getUsername(), adapter, playerData);
     }
 
     public CompletableFuture<Boolean> heartbeat(String playerName)
     {
-        return sendWebhook("HEARTBEAT", playerName, createHeartbeatExtra(playerName));
+        return sendWebhook("HEARTBEAT", playerName, ExtraAdapters.HEARTBEAT, System.currentTimeMillis());
+    }
+    
+    public CompletableFuture<Boolean> sendMetrics(MetricsData metricsData)
+    {
+        return sendWebhook("METRICS", metricsData.getPlayerName(), ExtraAdapters.METRICS, metricsData);
     }
     
     public CompletableFuture<Boolean> updateEnhancedInventory(gimpanel.tracker.models.EnhancedInventoryData inventoryData)
     {
-        return sendWebhook("ENHANCED_INVENTORY", inventoryData.getPlayerName(), createEnhancedInventoryExtra(inventoryData));
+        return sendWebhook("ENHANCED_INVENTORY", inventoryData.getPlayerName(), ExtraAdapters.ENHANCED_INVENTORY, inventoryData);
+    }
+    
+    public CompletableFuture<Boolean> updateInventoryDelta(InventoryDeltaData deltaData)
+    {
+        return sendWebhook("INVENTORY_DELTA", deltaData.getPlayerName(), ExtraAdapters.INVENTORY_DELTA, deltaData);
     }
     
     public CompletableFuture<Boolean> updateAchievementDiary(gimpanel.tracker.models.AchievementDiaryData diaryData)
     {
-        return sendWebhook("ACHIEVEMENT_DIARY", diaryData.getPlayerName(), createAchievementDiaryExtra(diaryData));
+        return sendWebhook("ACHIEVEMENT_DIARY", diaryData.getPlayerName(), ExtraAdapters.ACHIEVEMENT_DIARY, diaryData);
     }
     
     public CompletableFuture<Boolean> updateCollectionLog(gimpanel.tracker.models.CollectionLogData logData)
     {
-        return sendWebhook("COLLECTION_LOG", logData.getPlayerName(), createCollectionLogExtra(logData));
+        return sendWebhook("COLLECTION_LOG", logData.getPlayerName(), ExtraAdapters.COLLECTION_LOG, logData);
     }
     
     public CompletableFuture<Boolean> updateCombatAchievement(gimpanel.tracker.models.CombatAchievementData caData)
     {
-        return sendWebhook("COMBAT_ACHIEVEMENT", caData.getPlayerName(), createCombatAchievementExtra(caData));
+        return sendWebhook("COMBAT_ACHIEVEMENT", caData.getPlayerName(), ExtraAdapters.COMBAT_ACHIEVEMENT, caData);
     }
 
-    private CompletableFuture<Boolean> sendWebhook(String type, String playerName, Map<String, Object> extra)
+    private <T> CompletableFuture<Boolean> sendWebhook(String type, String playerName, TypeAdapter<T> extraAdapter, T extra)
     {
+        MetricsRegistry.TypeMetrics typeMetrics = metrics.type(type);
         if (baseUrl == null)
         {
             log.warn("ApiClient not properly configured - baseUrl is null");
+            typeMetrics.dropped();
             return CompletableFuture.completedFuture(false);
         }
         
         if (authToken == null)
         {
             log.warn("ApiClient not properly configured - authToken is null");
+            typeMetrics.dropped();
+            return CompletableFuture.completedFuture(false);
+        }
+        
+        long start = System.nanoTime();
+        boolean durable = DURABLE_TYPES.contains(type);
+        boolean backendDown = !breaker.isClosed() && !isStreaming();
+        if (backendDown && !durable)
+        {
+            // State is dropped before it takes a sequence number, so it leaves no gap for the
+            // backend to ask about. The next update after recovery carries it anyway
+            log.debug("Dropping {} webhook for {} while the backend is unavailable", type, playerName);
+            typeMetrics.completed(false, start);
             return CompletableFuture.completedFuture(false);
         }
 
         try
         {
             WebhookPayload payload = new WebhookPayload(type, playerName);
-            payload.setExtra(extra);
             payload.setSource("gimpanel-tracker");
+            // Stamped here and serialized into the JSON, so retries and replays all carry the same ids
+            payload.setEventId(UUID.randomUUID().toString());
+            payload.setSessionId(sessionId);
+            payload.setSequence(sequence.incrementAndGet());
 
-            String json = new com.google.gson.Gson().toJson(payload);
+            // Serialized once - the outbox and the batcher both keep this exact string, with the id
+            String json = serializer.toJson(payload, extraAdapter, extra);
             
-            // Create form data with payload_json field (backend expects this format)
-            RequestBody formBody = new FormBody.Builder()
-                .add("payload_json", json)
-                .build();
+            // Write to the outbox first so the event survives a failed send or a crash
+            WebhookOutbox store = outbox;
+            long outboxId = store != null && durable ? store.append(json, payload.getEventId()) : -1;
+            OutgoingWebhook webhook = new OutgoingWebhook(json, payload.getEventId(), durable, outboxId > 0);
+            // State is never resent, as newer state may already have reached the backend
+            sent.put(payload.getSequence(), durable ? webhook : null);
             
-            // Use consolidated webhook endpoint (handles both with and without file upload)
-            String webhookUrl;
-            if (baseUrl.endsWith("/api/webhook")) {
-                webhookUrl = baseUrl; // Use main endpoint
-            } else {
-                webhookUrl = baseUrl + "/api/webhook";
+            // Spilled by the dispatcher - the outbox replay sends it once things calm down. One
+            // the outbox could not take is sent now, as nothing would release it from memory
+            if (spilling.get() && outboxId > 0)
+            {
+                log.debug("Spilled {} webhook for {} to the outbox", type, playerName);
+                // Already counted as spilled, not as a failed send
+                return CompletableFuture.completedFuture(false);
             }
             
-            log.info("Using consolidated webhook endpoint: {}", webhookUrl);
+            if (backendDown)
+            {
+                // Backend is down - keep the event for when it recovers instead of a doomed call
+                log.debug("Holding {} webhook for {} while the backend is unavailable", type, playerName);
+                holdUnlessStored(Collections.singletonList(webhook));
+                typeMetrics.completed(false, start);
+                return CompletableFuture.completedFuture(false);
+            }
             
-            Request request = new Request.Builder()
-                .url(webhookUrl)
-                .header("User-Agent", USER_AGENT)
-                .header("Content-Type", "application/x-www-form-urlencoded")
-                // Add headers that ngrok might need
-                .header("ngrok-skip-browser-warning", "true")
-                .post(formBody)
-                .build();
-
-            log.info("Sending {} webhook for {} to {}", type, playerName, webhookUrl);
-            return CompletableFuture.supplyAsync(() -> {
-                try (Response response = httpClient.newCall(request).execute())
-                {
-                    if (response.isSuccessful())
-                    {
-                        log.info("Successfully sent {} webhook for {} - HTTP {}", type, playerName, response.code());
-                        return true;
-                    }
-                    else
+            CompletableFuture<Boolean> result = dispatch(webhook, type, playerName);
+            result.whenComplete((delivered, throwable) -> typeMetrics.completed(Boolean.TRUE.equals(delivered), start));
+            if (outboxId > 0)
+            {
+                inFlight.add(outboxId);
+                result.whenComplete((delivered, throwable) -> {
+                    if (Boolean.TRUE.equals(delivered))
                     {
-                        String responseBody = "";
-                        String responseHeaders = "";
-                        try {
-                            responseBody = response.body() != null ? response.body().string() : "No body";
-                            responseHeaders = response.headers().toString();
-                        } catch (Exception e) {
-                            responseBody = "Error reading response: " + e.getMessage();
-                        }
-                        log.warn("Failed to send {} webhook for {}: HTTP {} - Headers: {} - Body: {}", 
-                            type, playerName, response.code(), responseHeaders, responseBody);
-                        return false;
+                        store.ack(outboxId);
                     }
-                }
-                catch (Exception e)
-                {
-                    log.error("Error sending {} webhook for {}: {}", type, playerName, e.getMessage());
-                    return false;
-                }
-            });
+                    inFlight.remove(outboxId);
+                });
+            }
+            return result;
         }
         catch (Exception e)
         {
             log.error("Error creating webhook payload for {}: {}", type, e.getMessage());
+            typeMetrics.completed(false, start);
             return CompletableFuture.completedFuture(false);
         }
     }
 
-    private Map<String, Object> createSkillExtra(SkillData skillData)
+    private CompletableFuture<Boolean> dispatch(OutgoingWebhook webhook, String type, String playerName)
+    {
+        // Once refused the stream only forwards to HTTP, so skip it and batch as usual
+        WebhookStream current = stream;
+        if (current != null && !current.isRefused())
+        {
+            log.debug("Streaming {} webhook for {}", type, playerName);
+            return current.send(webhook);
+        }
+        
+        // Coalesce into one POST once the backend has told us it accepts arrays
+        if (batchingEnabled && capabilities.supports(BackendCapabilities.BATCH))
+        {
+            log.debug("Queueing {} webhook for {} into batch", type, playerName);
+            return batcher.submit(webhook);
+        }
+        
+        log.info("Sending {} webhook for {} to {}", type, playerName, getWebhookUrl());
+        return post(webhook, type + " webhook for " + playerName, type);
+    }
+
+    /**
+     * Acts on the backend saying it lost events: resends the missing durable events from the
+     * buffer, and asks for fresh snapshots when state is among them, any are gone, or it
+     * wants the full state.
+     */
+    private void handleRepairRequest(String missing, String resync)
+    {
+        boolean full = "full".equalsIgnoreCase(resync);
+        String repair = full ? "full" : missing;
+        if (repair == null || repair.isEmpty())
+        {
+            return;
+        }
+        
+        // Every response repeats the request until the gap is filled - act on it once
+        synchronized (sent)
+        {
+            long now = System.nanoTime();
+            if (repair.equals(lastRepair) && now - lastRepairNanos < REPAIR_DEBOUNCE_NANOS)
+            {
+                return;
+            }
+            lastRepair = repair;
+            lastRepairNanos = now;
+        }
+        
+        List<OutgoingWebhook> webhooks = full ? null : sent.collect(missing);
+        boolean stateMissing = webhooks != null && webhooks.contains(null);
+        if (webhooks == null || stateMissing)
+        {
+            Runnable listener = resyncListener;
+            log.info("Backend needs a full resync ({})", full ? "requested"
+                : "events " + missing + (stateMissing ? " include state" : " no longer buffered"));
+            if (listener != null)
+            {
+                listener.run();
+            }
+            if (webhooks == null)
+            {
+                return;
+            }
+        }
+        
+        log.info("Backend is missing events {} - resending {}", missing, webhooks.size());
+        WebhookStream current = stream;
+        for (OutgoingWebhook webhook : webhooks)
+        {
+            if (webhook == null)
+            {
+                continue;
+            }
+
+            if (current != null && !current.isRefused())
+            {
+                current.send(webhook);
+            }
+            else
+            {
+                post(webhook, "resent webhook", MetricsRegistry.REPLAY);
+            }
+        }
+    }
+
+    private void replayOutbox()
     {
-        return Map.of(
-            "skill", skillData.getSkillName(),
-            "level", skillData.getLevel(),
-            "xp", skillData.getXp(),
-            "xpGained", skillData.getXpGained()
-            // Note: totalLevel and totalXp are not available in SkillData model
-        );
+        WebhookOutbox store = outbox;
+        if (store == null || baseUrl == null || authToken == null || !breaker.isClosed() || !replaying.compareAndSet(false, true))
+        {
+            return;
+        }
+        
+        List<WebhookOutbox.Entry> entries = store.readPending(REPLAY_CHUNK_SIZE, REPLAY_MIN_AGE_MILLIS, inFlight::contains);
+        if (entries.isEmpty())
+        {
+            replaying.set(false);
+            return;
+        }
+        
+        log.info("Replaying {} webhooks from outbox", entries.size());
+        replayNext(store, entries, 0);
     }
 
-    private Map<String, Object> createXpExtra(SkillData skillData)
+    /**
+     * Replays entries one at a time so they reach the backend in their original order.
+     */
+    private void replayNext(WebhookOutbox store, List<WebhookOutbox.Entry> entries, int index)
     {
-        return Map.of(
-            "skill", skillData.getSkillName(),
-            "level", skillData.getLevel(),
-            "xp", skillData.getXp(),
-            "xpGained", skillData.getXpGained()
-        );
+        if (index >= entries.size())
+        {
+            replaying.set(false);
+            // This chunk went through - keep going until the outbox is drained
+            scheduler.execute(this::replayOutbox);
+            return;
+        }
+        
+        WebhookOutbox.Entry entry = entries.get(index);
+        String eventId = entry.getEventId() != null ? entry.getEventId() : serializer.eventId(entry.getJson());
+        send(entry.getJson(), 0, eventId, "replayed webhook #" + entry.getId(), MetricsRegistry.REPLAY).whenComplete((result, throwable) -> {
+            if (result == SendResult.DELIVERED || result == SendResult.REJECTED)
+            {
+                if (result == SendResult.REJECTED)
+                {
+                    log.warn("Backend rejected replayed webhook #{} - discarding it", entry.getId());
+                }
+                store.ack(entry.getId());
+                replayNext(store, entries, index + 1);
+            }
+            else
+            {
+                // Backend still unavailable - try again on the next run
+                replaying.set(false);
+            }
+        });
     }
 
-    private Map<String, Object> createDropExtra(DropData dropData)
+    private CompletableFuture<List<Boolean>> sendBatch(List<OutgoingWebhook> webhooks)
     {
-        return Map.of(
-            "itemName", dropData.getItemName(),
-            "itemId", dropData.getItemId(),
-            "quantity", dropData.getQuantity(),
-            "source", dropData.getSource(),
-            "rarity", dropData.getRarity(),
-            "value", dropData.getValue(),
-            "location", dropData.getLocation()
-            // Note: items array is not available in DropData model
-        );
+        if (baseUrl == null || authToken == null)
+        {
+            return CompletableFuture.completedFuture(Collections.nCopies(webhooks.size(), false));
+        }
+        
+        // Webhooks are already serialized - join them into one JSON array without re-encoding
+        String json = webhooks.stream().map(OutgoingWebhook::getJson).collect(Collectors.joining(",", "[", "]"));
+        String idempotencyKey = OutgoingWebhook.idempotencyKey(webhooks);
+        String description = "batch of " + webhooks.size() + " webhooks";
+        
+        log.info("Sending {} to {}", description, getWebhookUrl());
+        return send(json, webhooks.size(), idempotencyKey, description, MetricsRegistry.BATCH).thenCompose(status -> {
+            if (status == SendResult.SHORT_CIRCUITED)
+            {
+                holdUnlessStored(webhooks);
+                return CompletableFuture.completedFuture(Collections.nCopies(webhooks.size(), false));
+            }
+            if (status == SendResult.BATCH_REJECTED)
+            {
+                // Backend advertised batching but refused the array - fall back to single sends
+                log.warn("Backend rejected webhook batch - falling back to single sends");
+                capabilities.revoke(BackendCapabilities.BATCH);
+                return sendIndividually(webhooks);
+            }
+            // One request, so all of them share its result
+            return CompletableFuture.completedFuture(Collections.nCopies(webhooks.size(), status == SendResult.DELIVERED));
+        });
     }
 
-    private Map<String, Object> createActivityExtra(ActivityData activityData)
+    /**
+     * Sends each webhook on its own, completing with each one's result.
+     */
+    private CompletableFuture<List<Boolean>> sendIndividually(List<OutgoingWebhook> webhooks)
     {
-        return Map.of(
-            "currentActivity", activityData.getCurrentActivity(), // Use correct method name
-            "location", activityData.getLocation(),
-            "worldId", activityData.getWorldId(),
-            "region", activityData.getRegion()
-        );
+        List<CompletableFuture<Boolean>> results = new ArrayList<>(webhooks.size());
+        for (OutgoingWebhook webhook : webhooks)
+        {
+            results.add(post(webhook, "webhook", MetricsRegistry.BATCH));
+        }
+        
+        return CompletableFuture.allOf(results.toArray(new CompletableFuture[0]))
+            .thenApply(ignored -> results.stream().map(CompletableFuture::join).collect(Collectors.toList()));
     }
 
-    private Map<String, Object> createQuestExtra(QuestData questData)
+    private CompletableFuture<Boolean> post(OutgoingWebhook webhook, String description, String metricsType)
     {
-        return Map.of(
-            "questName", questData.getQuestName(),
-            "status", questData.getStatus()
-        );
+        return send(webhook.getJson(), 0, webhook.getEventId(), description, metricsType).thenApply(status -> {
+            if (status == SendResult.SHORT_CIRCUITED)
+            {
+                holdUnlessStored(Collections.singletonList(webhook));
+            }
+            return status == SendResult.DELIVERED;
+        });
     }
 
-    private Map<String, Object> createPlayerSyncExtra(PlayerData playerData)
+    /**
+     * Keeps durable webhooks the breaker stopped for a later send. Those in the outbox are
+     * replayed from there, and state is dropped, as the next update after recovery carries it.
+     */
+    private void holdUnlessStored(List<OutgoingWebhook> webhooks)
     {
-        return Map.of(
-            "totalLevel", playerData.getTotalLevel(),
-            "combatLevel", playerData.getCombatLevel(),
-            "totalXp", playerData.getTotalXp(),
-            "isOnline", playerData.isOnline(),
-            "currentWorld", playerData.getCurrentWorld(),
-            "currentActivity", playerData.getCurrentActivity(),
-            "location", playerData.getLocation() != null ? 
-                Map.of("x", playerData.getLocation().getX(), 
-                       "y", playerData.getLocation().getY(), 
-                       "plane", playerData.getLocation().getPlane()) : null,
-            "resources", playerData.getResources() != null ? 
-                Map.of("health", playerData.getResources().getHealth(),
-                       "maxHealth", playerData.getResources().getMaxHealth(),
-                       "prayer", playerData.getResources().getPrayer(),
-                       "maxPrayer", playerData.getResources().getMaxPrayer(),
-                       "energy", playerData.getResources().getEnergy(),
-                       "specialAttack", playerData.getResources().getSpecialAttack()) : null
-        );
+        for (OutgoingWebhook webhook : webhooks)
+        {
+            if (webhook.isDurable() && !webhook.isStored())
+            {
+                hold(webhook);
+            }
+        }
     }
 
-    private Map<String, Object> createHeartbeatExtra(String playerName)
+    private void hold(OutgoingWebhook webhook)
     {
-        return Map.of(
-            "timestamp", System.currentTimeMillis(),
-            "status", "online"
-        );
+        synchronized (held)
+        {
+            if (held.size() >= MAX_HELD_EVENTS)
+            {
+                held.pollFirst();
+                heldDropped.increment();
+            }
+            held.addLast(webhook);
+        }
     }
-    
-    private Map<String, Object> createEnhancedSkillExtra(gimpanel.tracker.models.EnhancedSkillData skillData)
-    {
-        return Map.of(
-            "skill", skillData.getSkillName(),
-            "level", skillData.getLevel(),
-            "xp", skillData.getXp(),
-            "xpGained", skillData.getXpGained(),
-            "totalLevel", skillData.getTotalLevel(),
-            "combatLevel", skillData.getCombatLevel(),
-            "xpPerHour", skillData.getXpPerHour(),
-            "efficiency", skillData.getEfficiency(),
-            "rank", skillData.getRank()
-        );
+
+    private long heldCount()
+    {
+        synchronized (held)
+        {
+            return held.size();
+        }
     }
-    
-    private Map<String, Object> createEnhancedXpExtra(gimpanel.tracker.models.EnhancedSkillData skillData)
-    {
-        return Map.of(
-            "skill", skillData.getSkillName(),
-            "level", skillData.getLevel(),
-            "xp", skillData.getXp(),
-            "xpGained", skillData.getXpGained(),
-            "totalLevel", skillData.getTotalLevel(),
-            "combatLevel", skillData.getCombatLevel(),
-            "xpPerHour", skillData.getXpPerHour(),
-            "efficiency", skillData.getEfficiency(),
-            "timeSinceLastUpdate", skillData.getTimeSinceLastUpdate()
-        );
+
+    /**
+     * Sends everything held during an outage, oldest first, once the backend is back.
+     */
+    private void releaseHeld()
+    {
+        List<OutgoingWebhook> webhooks;
+        synchronized (held)
+        {
+            webhooks = new ArrayList<>(held);
+            held.clear();
+        }
+        if (!webhooks.isEmpty())
+        {
+            log.info("Sending {} webhooks held while the backend was unavailable", webhooks.size());
+            for (OutgoingWebhook webhook : webhooks)
+            {
+                post(webhook, "held webhook", MetricsRegistry.REPLAY);
+            }
+        }
+        
+        if (outbox != null)
+        {
+            scheduler.execute(this::replayOutbox);
+        }
     }
-    
-    private Map<String, Object> createEnhancedQuestExtra(gimpanel.tracker.models.EnhancedQuestData questData)
-    {
-        return Map.of(
-            "questName", questData.getQuestName(),
-            "status", questData.getStatus(),
-            "questPoints", questData.getQuestPoints(),
-            "progress", questData.getProgress(),
-            "requirements", questData.getRequirements() != null ? questData.getRequirements() : Map.of(),
-            "rewards", questData.getRewards() != null ? questData.getRewards() : Map.of(),
-            "difficulty", questData.getDifficulty() != null ? questData.getDifficulty() : "Unknown",
-            "series", questData.getSeries() != null ? questData.getSeries() : "None"
-        );
+
+    /**
+     * Checks with a single HEAD request whether the backend is back, once the breaker's
+     * backoff has passed. Any answer short of a server error closes the breaker.
+     */
+    private void probe()
+    {
+        if (baseUrl == null || !breaker.tryStartProbe())
+        {
+            return;
+        }
+        
+        Request request = new Request.Builder()
+            .url(getWebhookUrl())
+            .header("User-Agent", USER_AGENT)
+            .header("ngrok-skip-browser-warning", "true")
+            .head()
+            .build();
+        
+        log.debug("Probing backend after outage");
+        try
+        {
+            httpClient.newCall(request).enqueue(new Callback()
+            {
+                @Override
+                public void onFailure(Call call, IOException e)
+                {
+                    log.debug("Backend probe failed: {}", e.getMessage());
+                    recordFailure();
+                }
+
+                @Override
+                public void onResponse(Call call, Response response)
+                {
+                    try (Response closed = response)
+                    {
+                        capabilities.update(closed.header(BackendCapabilities.HEADER));
+                        recordOutcome(closed.code());
+                    }
+                }
+            });
+        }
+        catch (Exception e)
+        {
+            log.debug("Backend probe failed: {}", e.getMessage());
+            recordFailure();
+        }
     }
-    
-    private Map<String, Object> createEnhancedInventoryExtra(gimpanel.tracker.models.EnhancedInventoryData inventoryData)
-    {
-        return Map.of(
-            "containerName", inventoryData.getContainerName(),
-            "totalValue", inventoryData.getTotalValue(),
-            "totalItems", inventoryData.getTotalItems(),
-            "uniqueItems", inventoryData.getUniqueItems(),
-            "items", inventoryData.getItems().stream().map(item -> Map.of(
-                "itemId", item.getItemId(),
-                "itemName", item.getItemName(),
-                "quantity", item.getQuantity(),
-                "itemValue", item.getItemValue(),
-                "totalValue", item.getTotalValue(),
-                "category", item.getCategory(),
-                "noted", item.isNoted()
-            )).collect(java.util.stream.Collectors.toList()),
-            "categories", inventoryData.getCategories() != null ? 
-                inventoryData.getCategories().entrySet().stream().collect(
-                    java.util.stream.Collectors.toMap(
-                        Map.Entry::getKey,
-                        entry -> Map.of(
-                            "category", entry.getValue().getCategory(),
-                            "count", entry.getValue().getCount(),
-                            "value", entry.getValue().getValue()
-                        )
-                    )
-                ) : Map.of(),
-            "valueRanges", inventoryData.getValueRanges() != null ?
-                inventoryData.getValueRanges().entrySet().stream().collect(
-                    java.util.stream.Collectors.toMap(
-                        Map.Entry::getKey,
-                        entry -> Map.of(
-                            "range", entry.getValue().getRange(),
-                            "count", entry.getValue().getCount(),
-                            "value", entry.getValue().getValue()
-                        )
-                    )
-                ) : Map.of()
-        );
+
+    private void recordOutcome(int code)
+    {
+        if (isBackendFailure(code))
+        {
+            recordFailure();
+        }
+        else if (breaker.onSuccess())
+        {
+            log.info("Backend is reachable again - resuming sends");
+            releaseHeld();
+        }
     }
-    
-    private Map<String, Object> createAchievementDiaryExtra(gimpanel.tracker.models.AchievementDiaryData diaryData)
-    {
-        return Map.of(
-            "area", diaryData.getArea(),
-            "difficulty", diaryData.getDifficulty(),
-            "completed", diaryData.isCompleted(),
-            "completedTasks", diaryData.getCompletedTasks(),
-            "totalTasks", diaryData.getTotalTasks(),
-            "completionPercentage", diaryData.getCompletionPercentage(),
-            "rewards", diaryData.getRewards() != null ? diaryData.getRewards() : java.util.List.of(),
-            "taskProgress", diaryData.getTaskProgress() != null ? diaryData.getTaskProgress() : Map.of()
-        );
+
+    private void recordFailure()
+    {
+        if (breaker.onFailure())
+        {
+            long waitNanos = breaker.nanosUntilProbe();
+            log.warn("Backend unavailable - holding events, next check in {} s", TimeUnit.NANOSECONDS.toSeconds(waitNanos));
+            scheduler.schedule(this::probe, waitNanos, TimeUnit.NANOSECONDS);
+        }
     }
-    
-    private Map<String, Object> createCollectionLogExtra(gimpanel.tracker.models.CollectionLogData logData)
+
+    /**
+     * An answer that says the backend itself is struggling, as opposed to refusing this request.
+     */
+    private static boolean isBackendFailure(int code)
     {
-        return Map.of(
-            "itemName", logData.getItemName(),
-            "category", logData.getCategory(),
-            "collectedItems", logData.getCollectedItems(),
-            "totalCollectionItems", logData.getTotalCollectionItems(),
-            "completionPercentage", logData.getCompletionPercentage(),
-            "categoryProgress", logData.getCategoryProgress() != null ? logData.getCategoryProgress() : Map.of()
-        );
+        return code >= 500 || code == 408 || code == 429;
     }
-    
-    private Map<String, Object> createCombatAchievementExtra(gimpanel.tracker.models.CombatAchievementData caData)
-    {
-        return Map.of(
-            "achievementName", caData.getAchievementName(),
-            "tier", caData.getTier(),
-            "category", caData.getCategory(),
-            "completed", caData.isCompleted(),
-            "points", caData.getPoints(),
-            "description", caData.getDescription() != null ? caData.getDescription() : "",
-            "tierProgress", caData.getTierProgress() != null ? caData.getTierProgress() : Map.of()
-        );
+
+    /**
+     * Sends one request in the best encoding the backend accepts, retrying once in the form
+     * encoding if it refuses a compressed body. Every attempt carries the same idempotency key.
+     */
+    private CompletableFuture<SendResult> send(String json, int batchSize, String idempotencyKey, String description,
+                                               String metricsType)
+    {
+        String encoding = negotiateEncoding();
+        CompletableFuture<SendResult> result = executeWithRetry(buildRequest(json, batchSize, encoding, idempotencyKey),
+            description, metricsType, 0);
+        if (encoding == null)
+        {
+            return result;
+        }
+        
+        return result.thenCompose(status -> {
+            if (status == SendResult.ENCODING_REJECTED)
+            {
+                log.warn("Backend rejected {} body - falling back to form encoding", encoding);
+                capabilities.revoke(encoding);
+                return executeWithRetry(buildRequest(json, batchSize, null, idempotencyKey), description, metricsType, 0);
+            }
+            return CompletableFuture.completedFuture(status);
+        });
+    }
+
+    /**
+     * Encoding to use, or null for the form encoding. Binary goes first when enabled; among
+     * compressions the dictionary wins, since it does far better on small payloads.
+     */
+    private String negotiateEncoding()
+    {
+        if (binaryEnabled && capabilities.supports(BackendCapabilities.BINARY))
+        {
+            return BackendCapabilities.BINARY;
+        }
+        if (!compressionEnabled)
+        {
+            return null;
+        }
+        if (capabilities.supports(BackendCapabilities.DEFLATE_DICT))
+        {
+            return BackendCapabilities.DEFLATE_DICT;
+        }
+        if (capabilities.supports(BackendCapabilities.GZIP))
+        {
+            return BackendCapabilities.GZIP;
+        }
+        return null;
+    }
+
+    private Request buildRequest(String json, int batchSize, String encoding, String idempotencyKey)
+    {
+        Request.Builder builder = new Request.Builder()
+            .url(getWebhookUrl())
+            .header("User-Agent", USER_AGENT)
+            // Add headers that ngrok might need
+            .header("ngrok-skip-browser-warning", "true");
+        
+        // Form data with payload_json field (backend expects this format), encoded straight into the request sink
+        FormEncodedJsonBody formBody = new FormEncodedJsonBody(PAYLOAD_FIELD, json);
+        bodyBytesForm.add(formBody.contentLength());
+        if (encoding == null)
+        {
+            bodyBytesSent.add(formBody.contentLength());
+            builder.header("Content-Type", FORM_CONTENT_TYPE)
+                .post(formBody);
+        }
+        else if (BackendCapabilities.BINARY.equals(encoding))
+        {
+            // The JSON is what the outbox and batcher keep, so it is re-encoded here
+            BinaryPayloadBody body = new BinaryPayloadBody(serializer.toBinary(json));
+            bodyBytesSent.add(body.contentLength());
+            builder.header("Content-Type", BinaryPayloadBody.CONTENT_TYPE)
+                .post(body);
+        }
+        else
+        {
+            CompressedJsonBody body = BackendCapabilities.DEFLATE_DICT.equals(encoding)
+                ? CompressedJsonBody.withDictionary(json)
+                : CompressedJsonBody.gzip(json);
+            bodyBytesSent.add(body.contentLength());
+            builder.header("Content-Encoding", body.getEncoding())
+                .post(body);
+            if (BackendCapabilities.DEFLATE_DICT.equals(encoding))
+            {
+                builder.header(CompressedJsonBody.DICTIONARY_HEADER, CompressedJsonBody.dictionaryId());
+            }
+        }
+        
+        if (batchSize > 0)
+        {
+            builder.header(BATCH_HEADER, String.valueOf(batchSize));
+        }
+        if (idempotencyKey != null)
+        {
+            builder.header(IDEMPOTENCY_HEADER, idempotencyKey);
+        }
+        return builder.build();
+    }
+
+    private String getWebhookUrl()
+    {
+        // Use consolidated webhook endpoint (handles both with and without file upload)
+        if (baseUrl.endsWith("/api/webhook")) {
+            return baseUrl; // Use main endpoint
+        }
+        return baseUrl + "/api/webhook";
+    }
+
+    /**
+     * Sends a request, retrying after a jittered, doubling delay while the backend is
+     * unavailable. Every attempt has the same body and Idempotency-Key, so the backend can
+     * drop a retry of a request that did arrive. Once the breaker opens, the retry comes back
+     * short-circuited and its events are held like any other.
+     */
+    private CompletableFuture<SendResult> executeWithRetry(Request request, String description, String metricsType, int attempt)
+    {
+        return execute(request, description, metricsType).thenCompose(status -> {
+            if (status != SendResult.UNAVAILABLE || attempt >= MAX_RETRIES)
+            {
+                return CompletableFuture.completedFuture(status);
+            }
+            
+            long nominal = RETRY_BASE_MILLIS << attempt;
+            long delay = nominal / 2 + ThreadLocalRandom.current().nextLong(nominal / 2 + 1);
+            log.debug("Retrying {} in {} ms", description, delay);
+            
+            CompletableFuture<SendResult> retried = new CompletableFuture<>();
+            scheduler.schedule(() -> executeWithRetry(request, description, metricsType, attempt + 1)
+                .whenComplete((result, throwable) -> retried.complete(result != null ? result : SendResult.FAILED)),
+                delay, TimeUnit.MILLISECONDS);
+            return retried;
+        });
+    }
+
+    /**
+     * Sends one request, recording its round trip under {@code metricsType}.
+     */
+    private CompletableFuture<SendResult> execute(Request request, String description, String metricsType)
+    {
+        if (!breaker.isClosed())
+        {
+            return CompletableFuture.completedFuture(SendResult.SHORT_CIRCUITED);
+        }
+        
+        CompletableFuture<SendResult> result = new CompletableFuture<>();
+        long start = System.nanoTime();
+        lastRequestNanos = start;
+        
+        Callback callback = new Callback()
+        {
+            @Override
+            public void onFailure(Call call, IOException e)
+            {
+                log.error("Error sending {}: {}", description, e.getMessage());
+                recordFailure();
+                result.complete(SendResult.UNAVAILABLE);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response)
+            {
+                try (Response closed = response)
+                {
+                    metrics.type(metricsType).roundTrip(start);
+                    recordOutcome(closed.code());
+                    result.complete(handleResponse(request, closed, description));
+                }
+                catch (Exception e)
+                {
+                    log.error("Error handling response to {}: {}", description, e.getMessage());
+                    result.complete(SendResult.FAILED);
+                }
+            }
+        };
+        
+        try
+        {
+            httpClient.newCall(request).enqueue(callback);
+        }
+        catch (Exception e)
+        {
+            log.error("Error sending {}: {}", description, e.getMessage());
+            result.complete(SendResult.FAILED);
+        }
+        return result;
+    }
+
+    private SendResult handleResponse(Request request, Response response, String description)
+    {
+        capabilities.update(response.header(BackendCapabilities.HEADER));
+        handleRepairRequest(response.header(MISSING_HEADER), response.header(RESYNC_HEADER));
+        
+        if (response.isSuccessful())
+        {
+            log.info("Successfully sent {} - HTTP {}", description, response.code());
+            return SendResult.DELIVERED;
+        }
+        
+        String responseBody = "";
+        String responseHeaders = "";
+        try {
+            responseBody = response.body() != null ? response.body().string() : "No body";
+            responseHeaders = response.headers().toString();
+        } catch (Exception e) {
+            responseBody = "Error reading response: " + e.getMessage();
+        }
+        log.warn("Failed to send {}: HTTP {} - Headers: {} - Body: {}", 
+            description, response.code(), responseHeaders, responseBody);
+        
+        int code = response.code();
+        if (code == 415 && !FORM_CONTENT_TYPE.equals(request.header("Content-Type")))
+        {
+            return SendResult.ENCODING_REJECTED;
+        }
+        boolean isBatch = request.header(BATCH_HEADER) != null;
+        if (isBatch && (code == 400 || code == 404 || code == 415))
+        {
+            return SendResult.BATCH_REJECTED;
+        }
+        if (isPermanentRejection(code))
+        {
+            return SendResult.REJECTED;
+        }
+        if (isBackendFailure(code))
+        {
+            return SendResult.UNAVAILABLE;
+        }
+        return SendResult.FAILED;
+    }
+
+    /**
+     * A client error that retrying the same payload will never fix. Auth failures and
+     * throttling are excluded - they clear up once the config or the backend does.
+     */
+    private static boolean isPermanentRejection(int code)
+    {
+        return code >= 400 && code < 500 && code != 401 && code != 403 && code != 408 && code != 429;
+    }
+
+    private enum SendResult
+    {
+        DELIVERED,
+        FAILED,
+        // No answer, or a server error - worth retrying
+        UNAVAILABLE,
+        // Payload the backend will never accept
+        REJECTED,
+        // Batch request the backend does not understand
+        BATCH_REJECTED,
+        // Compressed or binary body the backend cannot decode
+        ENCODING_REJECTED,
+        // Not sent because the circuit breaker is open
+        SHORT_CIRCUITED
     }
 }
\ No newline at end of file
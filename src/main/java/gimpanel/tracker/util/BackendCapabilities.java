@@ -0,0 +1,70 @@
+package gimpanel.tracker.util;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Optional transport features the backend advertises on its webhook responses,
+ * e.g. {@code X-GIMPanel-Capabilities: batch}. Anything not advertised falls
+ * back to the plain one-request-per-event form encoding.
+ */
+public class BackendCapabilities
+{
+    public static final String HEADER = "X-GIMPanel-Capabilities";
+    public static final String BATCH = "batch";
+    public static final String GZIP = CompressedJsonBody.GZIP;
+    public static final String DEFLATE_DICT = CompressedJsonBody.DEFLATE_DICT;
+    public static final String BINARY = "binary";
+    public static final String SYNC_DELTA = "sync-delta";
+    public static final String SKILL_BATCH = "skill-batch";
+
+    private volatile Set<String> advertised = Collections.emptySet();
+    // Rejected features stay off even though the backend keeps advertising them
+    private final Set<String> revoked = new HashSet<>();
+
+    public synchronized void update(String headerValue)
+    {
+        if (headerValue == null)
+        {
+            return;
+        }
+
+        Set<String> features = new HashSet<>();
+        for (String feature : headerValue.split(","))
+        {
+            String trimmed = feature.trim().toLowerCase(Locale.ROOT);
+            if (!trimmed.isEmpty())
+            {
+                features.add(trimmed);
+            }
+        }
+        features.removeAll(revoked);
+        advertised = Collections.unmodifiableSet(features);
+    }
+
+    public boolean supports(String feature)
+    {
+        return advertised.contains(feature);
+    }
+
+    /**
+     * Stops using a feature the backend advertised but then rejected, until {@link #reset()}.
+     */
+    public synchronized void revoke(String feature)
+    {
+        revoked.add(feature);
+        Set<String> features = new HashSet<>(advertised);
+        if (features.remove(feature))
+        {
+            advertised = Collections.unmodifiableSet(features);
+        }
+    }
+
+    public synchronized void reset()
+    {
+        advertised = Collections.emptySet();
+        revoked.clear();
+    }
+}
@@ -0,0 +1,418 @@
+package gimpanel.tracker.util;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * JsonWriter that emits the compact binary wire format instead of text, so the same
+ * adapters write either encoding.
+ *
+ * A body starts with {@link #MAGIC} and {@link #VERSION}, then holds one value. Each value
+ * is a tag byte followed by its payload: integers are zigzag varints, doubles 8 bytes
+ * big-endian, strings a varint byte length and UTF-8. Objects and arrays run until
+ * {@link #END}. Object keys listed in {@link #KEYS} are sent as their index, and a
+ * {@code type} value listed in {@link #TYPES} as its code; anything else is sent inline.
+ * Both tables are append-only, since the backend decodes by position.
+ */
+public class BinaryJsonWriter extends JsonWriter
+{
+    public static final int MAGIC = 0xB7;
+    public static final int VERSION = 1;
+
+    static final int NULL = 0;
+    static final int FALSE = 1;
+    static final int TRUE = 2;
+    static final int INT = 3;
+    static final int DOUBLE = 4;
+    static final int STRING = 5;
+    static final int BEGIN_OBJECT = 6;
+    static final int BEGIN_ARRAY = 7;
+    static final int END = 8;
+    static final int KEY = 9;
+    static final int KEY_STRING = 10;
+    static final int TYPE = 11;
+
+    static final List<String> KEYS = Collections.unmodifiableList(Arrays.asList(
+        // Envelope
+        "type", "playerName", "source", "timestamp", "extra", "text", "content", "embeds",
+        // Skills
+        "skill", "level", "xp", "xpGained", "rank", "timeSinceLastUpdate", "totalLevel", "combatLevel",
+        "skills", "xpPerHour", "efficiency", "totalXp",
+        // Drops and items
+        "itemName", "itemId", "quantity", "rarity", "value", "location",
+        "containerName", "totalValue", "totalItems", "uniqueItems", "version", "items", "slot",
+        "itemValue", "category", "noted", "categories", "count", "valueRanges", "range", "changes",
+        // Activity and player sync
+        "currentActivity", "worldId", "region", "isOnline", "currentWorld", "x", "y", "plane",
+        "resources", "health", "maxHealth", "prayer", "maxPrayer", "energy", "specialAttack",
+        // Quests, diaries, collection log, combat achievements
+        "questName", "status", "questPoints", "progress", "requirements", "rewards",
+        "difficulty", "series", "area", "completed", "completedTasks", "totalTasks", "completionPercentage",
+        "taskProgress", "collectedItems", "totalCollectionItems", "categoryProgress",
+        "achievementName", "tier", "points", "description", "tierProgress",
+        // Metrics
+        "uptimeMillis", "gauges", "types", "queued", "dropped", "sent", "failed",
+        "queueLatency", "sendLatency", "roundTrip", "p50", "p90", "p99", "max",
+        // Embeds
+        "title", "color", "thumbnail", "url", "fields", "name", "inline", "footer",
+        // Metrics, continued
+        "coalesced",
+        // Envelope, continued
+        "eventId", "sessionId", "sequence",
+        // Metrics, continued
+        "spilled",
+        // Player sync, continued
+        "keyframe",
+        // Metrics, continued
+        "waiting"
+    ));
+
+    static final List<String> TYPES = Collections.unmodifiableList(Arrays.asList(
+        "LEVEL", "XP_GAIN", "ENHANCED_LEVEL", "ENHANCED_XP_GAIN", "SKILL_BATCH", "LOOT",
+        "PLAYER_SYNC", "QUEST", "ENHANCED_QUEST", "HEARTBEAT", "METRICS", "ENHANCED_INVENTORY",
+        "INVENTORY_DELTA", "ACHIEVEMENT_DIARY", "COLLECTION_LOG", "COMBAT_ACHIEVEMENT"
+    ));
+
+    private static final Map<String, Integer> KEY_INDEX = index(KEYS);
+    private static final Map<String, Integer> TYPE_INDEX = index(TYPES);
+
+    // Everything goes to our own buffer; JsonWriter just needs somewhere to point
+    private static final Writer UNUSED = new Writer()
+    {
+        @Override
+        public void write(char[] buffer, int offset, int length)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void flush()
+        {
+        }
+
+        @Override
+        public void close()
+        {
+        }
+    };
+
+    private byte[] buffer;
+    private int size;
+    private String pendingName;
+
+    public BinaryJsonWriter()
+    {
+        this(256);
+    }
+
+    public BinaryJsonWriter(int initialCapacity)
+    {
+        super(UNUSED);
+        // Same as DataSerializer's JSON, where null fields are left out
+        setSerializeNulls(false);
+        buffer = new byte[Math.max(16, initialCapacity)];
+        writeByte(MAGIC);
+        writeByte(VERSION);
+    }
+
+    public byte[] toByteArray()
+    {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    /**
+     * Copies one JSON value from the reader, so text that is already serialized can be
+     * re-encoded without going back to the models.
+     */
+    public BinaryJsonWriter copy(JsonReader in) throws IOException
+    {
+        switch (in.peek())
+        {
+            case BEGIN_OBJECT:
+                in.beginObject();
+                beginObject();
+                while (in.hasNext())
+                {
+                    name(in.nextName());
+                    copy(in);
+                }
+                in.endObject();
+                return endObject();
+            case BEGIN_ARRAY:
+                in.beginArray();
+                beginArray();
+                while (in.hasNext())
+                {
+                    copy(in);
+                }
+                in.endArray();
+                return endArray();
+            case STRING:
+                return value(in.nextString());
+            case NUMBER:
+                return number(in.nextString());
+            case BOOLEAN:
+                return value(in.nextBoolean());
+            case NULL:
+                in.nextNull();
+                return nullValue();
+            default:
+                throw new IllegalStateException("Unexpected " + in.peek() + " while copying JSON");
+        }
+    }
+
+    @Override
+    public BinaryJsonWriter beginObject()
+    {
+        writePendingName();
+        writeByte(BEGIN_OBJECT);
+        return this;
+    }
+
+    @Override
+    public BinaryJsonWriter endObject()
+    {
+        writeByte(END);
+        return this;
+    }
+
+    @Override
+    public BinaryJsonWriter beginArray()
+    {
+        writePendingName();
+        writeByte(BEGIN_ARRAY);
+        return this;
+    }
+
+    @Override
+    public BinaryJsonWriter endArray()
+    {
+        writeByte(END);
+        return this;
+    }
+
+    @Override
+    public BinaryJsonWriter name(String name)
+    {
+        if (name == null)
+        {
+            throw new NullPointerException("name == null");
+        }
+        // Held back until a value follows, so a skipped null drops its key too
+        pendingName = name;
+        return this;
+    }
+
+    @Override
+    public BinaryJsonWriter value(String value)
+    {
+        if (value == null)
+        {
+            return nullValue();
+        }
+
+        Integer code = "type".equals(pendingName) ? TYPE_INDEX.get(value) : null;
+        writePendingName();
+        if (code != null)
+        {
+            writeByte(TYPE);
+            writeVarint(code);
+        }
+        else
+        {
+            writeString(STRING, value);
+        }
+        return this;
+    }
+
+    @Override
+    public BinaryJsonWriter jsonValue(String value) throws IOException
+    {
+        if (value == null)
+        {
+            return nullValue();
+        }
+        return copy(new JsonReader(new StringReader(value)));
+    }
+
+    @Override
+    public BinaryJsonWriter nullValue()
+    {
+        if (pendingName != null && !getSerializeNulls())
+        {
+            pendingName = null;
+            return this;
+        }
+        writePendingName();
+        writeByte(NULL);
+        return this;
+    }
+
+    @Override
+    public BinaryJsonWriter value(boolean value)
+    {
+        writePendingName();
+        writeByte(value ? TRUE : FALSE);
+        return this;
+    }
+
+    @Override
+    public BinaryJsonWriter value(Boolean value)
+    {
+        return value == null ? nullValue() : value(value.booleanValue());
+    }
+
+    @Override
+    public BinaryJsonWriter value(float value)
+    {
+        return value((double) value);
+    }
+
+    @Override
+    public BinaryJsonWriter value(double value)
+    {
+        writePendingName();
+        writeByte(DOUBLE);
+        long bits = Double.doubleToLongBits(value);
+        for (int shift = 56; shift >= 0; shift -= 8)
+        {
+            writeByte((int) (bits >>> shift));
+        }
+        return this;
+    }
+
+    @Override
+    public BinaryJsonWriter value(long value)
+    {
+        writePendingName();
+        writeByte(INT);
+        // Zigzag, so small negative numbers stay short too
+        writeVarint((value << 1) ^ (value >> 63));
+        return this;
+    }
+
+    @Override
+    public BinaryJsonWriter value(Number value)
+    {
+        if (value == null)
+        {
+            return nullValue();
+        }
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte
+            || value instanceof AtomicInteger || value instanceof AtomicLong
+            || value instanceof BigInteger && ((BigInteger) value).bitLength() < Long.SIZE)
+        {
+            return value(value.longValue());
+        }
+        if (value instanceof Double || value instanceof Float)
+        {
+            return value(value.doubleValue());
+        }
+        // Gson's lazily parsed numbers and BigDecimal: keep integers exact
+        return number(value.toString());
+    }
+
+    @Override
+    public void flush()
+    {
+    }
+
+    @Override
+    public void close()
+    {
+    }
+
+    private BinaryJsonWriter number(String text)
+    {
+        if (text.indexOf('.') < 0 && text.indexOf('e') < 0 && text.indexOf('E') < 0)
+        {
+            try
+            {
+                return value(Long.parseLong(text));
+            }
+            catch (NumberFormatException e)
+            {
+                // Too large for a long - send it as a double like JSON readers would
+            }
+        }
+        return value(Double.parseDouble(text));
+    }
+
+    private void writePendingName()
+    {
+        if (pendingName == null)
+        {
+            return;
+        }
+
+        Integer key = KEY_INDEX.get(pendingName);
+        if (key != null)
+        {
+            writeByte(KEY);
+            writeVarint(key);
+        }
+        else
+        {
+            writeString(KEY_STRING, pendingName);
+        }
+        pendingName = null;
+    }
+
+    private void writeString(int tag, String value)
+    {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeByte(tag);
+        writeVarint(bytes.length);
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, size, bytes.length);
+        size += bytes.length;
+    }
+
+    private void writeVarint(long value)
+    {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0)
+        {
+            buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[size++] = (byte) value;
+    }
+
+    private void writeByte(int value)
+    {
+        ensureCapacity(1);
+        buffer[size++] = (byte) value;
+    }
+
+    private void ensureCapacity(int extra)
+    {
+        if (size + extra > buffer.length)
+        {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+        }
+    }
+
+    private static Map<String, Integer> index(List<String> values)
+    {
+        Map<String, Integer> index = new HashMap<>(values.size() * 2);
+        for (int i = 0; i < values.size(); i++)
+        {
+            index.put(values.get(i), i);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,41 @@
+package gimpanel.tracker.util;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+import java.io.IOException;
+
+/**
+ * Request body holding a payload in the binary wire format written by {@link BinaryJsonWriter}.
+ */
+public class BinaryPayloadBody extends RequestBody
+{
+    public static final String CONTENT_TYPE = "application/x-gimpanel-binary";
+    private static final MediaType BINARY = MediaType.parse(CONTENT_TYPE);
+
+    private final byte[] bytes;
+
+    public BinaryPayloadBody(byte[] bytes)
+    {
+        this.bytes = bytes;
+    }
+
+    @Override
+    public MediaType contentType()
+    {
+        return BINARY;
+    }
+
+    @Override
+    public long contentLength()
+    {
+        return bytes.length;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException
+    {
+        sink.write(bytes);
+    }
+}
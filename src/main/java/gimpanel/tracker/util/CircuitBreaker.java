@@ -0,0 +1,137 @@
+package gimpanel.tracker.util;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker for the backend connection.
+ *
+ * CLOSED lets requests through and counts consecutive failures; reaching the threshold
+ * opens it. OPEN lets nothing through until a backoff has passed, then allows a single
+ * probe (HALF_OPEN). A successful probe closes the breaker; a failed one opens it again
+ * with double the backoff, up to a cap. Each backoff is jittered between half and all of
+ * its nominal length, so many clients do not probe a restarting backend in lockstep.
+ */
+public class CircuitBreaker
+{
+    public enum State
+    {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long baseBackoffNanos;
+    private final long maxBackoffNanos;
+    private final LongSupplier clock;
+    private final DoubleSupplier random;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    // Times the breaker has opened since it was last closed
+    private int openCount;
+    private long probeAt;
+
+    public CircuitBreaker(int failureThreshold, long baseBackoff, long maxBackoff, TimeUnit unit)
+    {
+        this(failureThreshold, baseBackoff, maxBackoff, unit, System::nanoTime, () -> ThreadLocalRandom.current().nextDouble());
+    }
+
+    CircuitBreaker(int failureThreshold, long baseBackoff, long maxBackoff, TimeUnit unit,
+                   LongSupplier clock, DoubleSupplier random)
+    {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.baseBackoffNanos = unit.toNanos(baseBackoff);
+        this.maxBackoffNanos = unit.toNanos(maxBackoff);
+        this.clock = clock;
+        this.random = random;
+    }
+
+    public synchronized State getState()
+    {
+        return state;
+    }
+
+    /**
+     * Whether ordinary requests may be sent.
+     */
+    public synchronized boolean isClosed()
+    {
+        return state == State.CLOSED;
+    }
+
+    /**
+     * Claims the single probe once the backoff has passed. Returns false if it is not time
+     * yet, or another probe is already out.
+     */
+    public synchronized boolean tryStartProbe()
+    {
+        if (state != State.OPEN || clock.getAsLong() < probeAt)
+        {
+            return false;
+        }
+        state = State.HALF_OPEN;
+        return true;
+    }
+
+    public synchronized long nanosUntilProbe()
+    {
+        return state == State.OPEN ? Math.max(0, probeAt - clock.getAsLong()) : 0;
+    }
+
+    /**
+     * Records a request the backend answered. Returns true if this closed the breaker.
+     */
+    public synchronized boolean onSuccess()
+    {
+        consecutiveFailures = 0;
+        if (state == State.HALF_OPEN)
+        {
+            state = State.CLOSED;
+            openCount = 0;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Records a request the backend did not answer, or answered with a server error.
+     * Returns true if this opened the breaker.
+     */
+    public synchronized boolean onFailure()
+    {
+        switch (state)
+        {
+            case CLOSED:
+                if (++consecutiveFailures < failureThreshold)
+                {
+                    return false;
+                }
+                open();
+                return true;
+            case HALF_OPEN:
+                // The probe failed - wait longer before the next one
+                open();
+                return true;
+            default:
+                // A request sent before the breaker opened - already accounted for
+                return false;
+        }
+    }
+
+    private void open()
+    {
+        state = State.OPEN;
+        consecutiveFailures = 0;
+        long nominal = maxBackoffNanos;
+        if (openCount < 30)
+        {
+            nominal = Math.min(maxBackoffNanos, baseBackoffNanos << openCount);
+        }
+        openCount++;
+        probeAt = clock.getAsLong() + nominal / 2 + (long) (random.getAsDouble() * (nominal / 2));
+    }
+}
@@ -0,0 +1,151 @@
+package gimpanel.tracker.util;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Adler32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Raw JSON body, compressed once up front so retries and the content length reuse the same bytes.
+ *
+ * {@link #GZIP} is a plain gzip stream. {@link #DEFLATE_DICT} is a zlib stream primed with
+ * {@code webhook.dict}, a set of typical payload fragments, so even a small update can refer
+ * back to keys and values it never contained. The zlib header carries the dictionary's
+ * Adler-32 checksum, which is also sent in {@link #DICTIONARY_HEADER}.
+ */
+public class CompressedJsonBody extends RequestBody
+{
+    public static final String GZIP = "gzip";
+    public static final String DEFLATE_DICT = "deflate-dict";
+    public static final String DICTIONARY_HEADER = "X-GIMPanel-Dictionary";
+
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+    private static final byte[] DICTIONARY = loadDictionary();
+    private static final String DICTIONARY_ID = Long.toHexString(checksum(DICTIONARY));
+
+    private final String encoding;
+    private final byte[] compressed;
+
+    private CompressedJsonBody(String encoding, byte[] compressed)
+    {
+        this.encoding = encoding;
+        this.compressed = compressed;
+    }
+
+    public static CompressedJsonBody gzip(String json)
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, json.length() / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out))
+        {
+            gzip.write(json.getBytes(StandardCharsets.UTF_8));
+        }
+        catch (IOException e)
+        {
+            // Writing to memory never fails
+            throw new UncheckedIOException(e);
+        }
+        return new CompressedJsonBody(GZIP, out.toByteArray());
+    }
+
+    public static CompressedJsonBody withDictionary(String json)
+    {
+        byte[] input = json.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try
+        {
+            deflater.setDictionary(DICTIONARY);
+            deflater.setInput(input);
+            deflater.finish();
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, input.length / 4));
+            byte[] buffer = new byte[1024];
+            while (!deflater.finished())
+            {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return new CompressedJsonBody(DEFLATE_DICT, out.toByteArray());
+        }
+        finally
+        {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Content-Encoding value for the request.
+     */
+    public String getEncoding()
+    {
+        return encoding;
+    }
+
+    /**
+     * Adler-32 of the bundled dictionary in hex, identifying which one a backend must hold.
+     */
+    public static String dictionaryId()
+    {
+        return DICTIONARY_ID;
+    }
+
+    static byte[] dictionary()
+    {
+        return DICTIONARY.clone();
+    }
+
+    @Override
+    public MediaType contentType()
+    {
+        return JSON;
+    }
+
+    @Override
+    public long contentLength()
+    {
+        return compressed.length;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException
+    {
+        sink.write(compressed);
+    }
+
+    private static byte[] loadDictionary()
+    {
+        try (InputStream in = CompressedJsonBody.class.getResourceAsStream("webhook.dict"))
+        {
+            if (in == null)
+            {
+                throw new IllegalStateException("webhook.dict missing from the plugin jar");
+            }
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1)
+            {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long checksum(byte[] bytes)
+    {
+        Adler32 adler = new Adler32();
+        adler.update(bytes, 0, bytes.length);
+        return adler.getValue();
+    }
+}
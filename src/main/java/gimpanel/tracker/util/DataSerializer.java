@@ -2,9 +2,16 @@ package gimpanel.tracker.util;
 
 import com.google.gson.*;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import gimpanel.tracker.models.WebhookPayload;
 import net.runelite.api.coords.WorldPoint;
 
 import javax.inject.Singleton;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.lang.reflect.Type;
 import java.util.List;
 import java.util.Map;
@@ -13,6 +20,9 @@ import java.util.Map;
 public class DataSerializer
 {
     private final Gson gson;
+    // Resolved once so the send path never goes back through Gson's adapter lookup
+    private final TypeAdapter<WebhookPayload> payloadAdapter;
+    private final TypeAdapter<List<WebhookPayload.WebhookEmbed>> embedsAdapter;
 
     public DataSerializer()
     {
@@ -20,8 +30,9 @@ public class DataSerializer
             .registerTypeAdapter(WorldPoint.class, new WorldPointSerializer())
             .registerTypeAdapter(WorldPoint.class, new WorldPointDeserializer())
             .setDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ")
-            .setPrettyPrinting()
             .create();
+        this.payloadAdapter = gson.getAdapter(WebhookPayload.class);
+        this.embedsAdapter = gson.getAdapter(new TypeToken<List<WebhookPayload.WebhookEmbed>>(){});
     }
 
     public String toJson(Object object)
@@ -29,6 +40,135 @@ public class DataSerializer
         return gson.toJson(object);
     }
 
+    /**
+     * Serializes a webhook payload as compact JSON.
+     */
+    public String toJson(WebhookPayload payload)
+    {
+        StringWriter buffer = new StringWriter(256);
+        try
+        {
+            // Gson's writer settings, so null fields are left out like gson.toJson does
+            JsonWriter out = gson.newJsonWriter(buffer);
+            payloadAdapter.write(out, payload);
+            out.flush();
+        }
+        catch (IOException e)
+        {
+            // StringWriter never throws
+            throw new JsonIOException(e);
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * Serializes a webhook payload whose extra object is written by the given adapter
+     * straight from the model. Any extra already set on the payload is ignored.
+     */
+    public <T> String toJson(WebhookPayload payload, TypeAdapter<T> extraAdapter, T extra)
+    {
+        StringWriter buffer = new StringWriter(256);
+        try
+        {
+            JsonWriter out = gson.newJsonWriter(buffer);
+            writePayload(out, payload, extraAdapter, extra);
+            out.flush();
+        }
+        catch (IOException e)
+        {
+            // StringWriter never throws
+            throw new JsonIOException(e);
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * Encodes a webhook payload in the binary wire format, straight from the model.
+     */
+    public <T> byte[] toBinary(WebhookPayload payload, TypeAdapter<T> extraAdapter, T extra)
+    {
+        BinaryJsonWriter out = new BinaryJsonWriter();
+        try
+        {
+            writePayload(out, payload, extraAdapter, extra);
+        }
+        catch (IOException e)
+        {
+            // The binary writer only writes to memory
+            throw new JsonIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Re-encodes already serialized JSON - a payload or a batch array - in the binary wire format.
+     */
+    public byte[] toBinary(String json)
+    {
+        // Most of a JSON payload's size is keys and punctuation the binary format drops
+        BinaryJsonWriter out = new BinaryJsonWriter(json.length() / 2);
+        try
+        {
+            out.copy(new JsonReader(new StringReader(json)));
+        }
+        catch (IOException e)
+        {
+            throw new JsonIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Reads the event id back out of a serialized payload, for outbox records written before
+     * the id was stored next to them. Stops at the field. Null if there is none.
+     */
+    public String eventId(String json)
+    {
+        try (JsonReader in = new JsonReader(new StringReader(json)))
+        {
+            in.beginObject();
+            while (in.hasNext())
+            {
+                if ("eventId".equals(in.nextName()) && in.peek() == JsonToken.STRING)
+                {
+                    return in.nextString();
+                }
+                in.skipValue();
+            }
+            return null;
+        }
+        catch (IOException | IllegalStateException e)
+        {
+            return null;
+        }
+    }
+
+    private <T> void writePayload(JsonWriter out, WebhookPayload payload, TypeAdapter<T> extraAdapter, T extra) throws IOException
+    {
+        // Same field order as the reflective adapter, so the output is unchanged
+        out.beginObject();
+        out.name("type").value(payload.getType());
+        out.name("playerName").value(payload.getPlayerName());
+        out.name("source").value(payload.getSource());
+        out.name("timestamp").value(payload.getTimestamp());
+        out.name("eventId").value(payload.getEventId());
+        out.name("sessionId").value(payload.getSessionId());
+        out.name("sequence").value(payload.getSequence());
+        if (extra != null)
+        {
+            out.name("extra");
+            extraAdapter.write(out, extra);
+        }
+        out.name("text").value(payload.getText());
+        out.name("content").value(payload.getContent());
+        if (payload.getEmbeds() != null)
+        {
+            out.name("embeds");
+            embedsAdapter.write(out, payload.getEmbeds());
+        }
+        out.endObject();
+    }
+
     public <T> T fromJson(String json, Class<T> classOfT)
     {
         return gson.fromJson(json, classOfT);
@@ -0,0 +1,110 @@
+package gimpanel.tracker.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Singleton;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Wall-clock time spent per event type, split into work done on the client thread
+ * ({@code client.*}) and work done on the collector worker ({@code worker.*}).
+ *
+ * Recording is lock-free so it can sit inside {@code @Subscribe} handlers.
+ */
+@Slf4j
+@Singleton
+public class EventTimings
+{
+    private final ConcurrentMap<String, Timing> timings = new ConcurrentHashMap<>();
+
+    /**
+     * Records the time since {@code startNanos}, taken from {@link System#nanoTime()}.
+     */
+    public void record(String name, long startNanos)
+    {
+        long elapsed = System.nanoTime() - startNanos;
+        Timing timing = timings.get(name);
+        if (timing == null)
+        {
+            timing = timings.computeIfAbsent(name, key -> new Timing());
+        }
+        timing.count.increment();
+        timing.totalNanos.add(elapsed);
+        timing.maxNanos.accumulate(elapsed);
+    }
+
+    /**
+     * Current totals, sorted by name so client and worker entries group together.
+     */
+    public Map<String, Stats> snapshot()
+    {
+        Map<String, Stats> snapshot = new TreeMap<>();
+        for (Map.Entry<String, Timing> entry : timings.entrySet())
+        {
+            Timing timing = entry.getValue();
+            snapshot.put(entry.getKey(), new Stats(timing.count.sum(), timing.totalNanos.sum(), timing.maxNanos.get()));
+        }
+        return snapshot;
+    }
+
+    public void logSummary()
+    {
+        for (Map.Entry<String, Stats> entry : snapshot().entrySet())
+        {
+            Stats stats = entry.getValue();
+            log.info("Event timing {}: {} events, avg {} us, max {} us", entry.getKey(), stats.getCount(),
+                String.format("%.1f", stats.getAverageMicros()), stats.getMaxNanos() / 1000);
+        }
+    }
+
+    public void reset()
+    {
+        timings.clear();
+    }
+
+    private static final class Timing
+    {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    }
+
+    public static final class Stats
+    {
+        private final long count;
+        private final long totalNanos;
+        private final long maxNanos;
+
+        Stats(long count, long totalNanos, long maxNanos)
+        {
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+        }
+
+        public long getCount()
+        {
+            return count;
+        }
+
+        public long getTotalNanos()
+        {
+            return totalNanos;
+        }
+
+        public long getMaxNanos()
+        {
+            return maxNanos;
+        }
+
+        public double getAverageMicros()
+        {
+            return count > 0 ? totalNanos / 1000.0 / count : 0;
+        }
+    }
+}
@@ -0,0 +1,520 @@
+package gimpanel.tracker.util;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import gimpanel.tracker.models.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hand-written adapters that write the {@code extra} object of each webhook straight
+ * from the model, without building intermediate maps for Gson to walk.
+ *
+ * The field names and nesting match what the backend has always received.
+ */
+public final class ExtraAdapters
+{
+    public static final TypeAdapter<SkillData> SKILL = new WriteOnlyAdapter<SkillData>()
+    {
+        @Override
+        public void write(JsonWriter out, SkillData skill) throws IOException
+        {
+            out.beginObject();
+            out.name("skill").value(skill.getSkillName());
+            out.name("level").value(skill.getLevel());
+            out.name("xp").value(skill.getXp());
+            out.name("xpGained").value(skill.getXpGained());
+            out.endObject();
+        }
+    };
+
+    public static final TypeAdapter<EnhancedSkillData> ENHANCED_SKILL = new WriteOnlyAdapter<EnhancedSkillData>()
+    {
+        @Override
+        public void write(JsonWriter out, EnhancedSkillData skill) throws IOException
+        {
+            out.beginObject();
+            writeEnhancedSkillFields(out, skill);
+            out.name("rank").value(skill.getRank());
+            out.endObject();
+        }
+    };
+
+    public static final TypeAdapter<EnhancedSkillData> ENHANCED_XP = new WriteOnlyAdapter<EnhancedSkillData>()
+    {
+        @Override
+        public void write(JsonWriter out, EnhancedSkillData skill) throws IOException
+        {
+            out.beginObject();
+            writeEnhancedSkillFields(out, skill);
+            out.name("timeSinceLastUpdate").value(skill.getTimeSinceLastUpdate());
+            out.endObject();
+        }
+    };
+
+    public static final TypeAdapter<SkillBatchData> SKILL_BATCH = new WriteOnlyAdapter<SkillBatchData>()
+    {
+        @Override
+        public void write(JsonWriter out, SkillBatchData batch) throws IOException
+        {
+            out.beginObject();
+            out.name("totalLevel").value(batch.getTotalLevel());
+            out.name("combatLevel").value(batch.getCombatLevel());
+            out.name("skills").beginArray();
+            for (EnhancedSkillData skill : batch.getSkills())
+            {
+                out.beginObject();
+                out.name("skill").value(skill.getSkillName());
+                out.name("level").value(skill.getLevel());
+                out.name("xp").value(skill.getXp());
+                out.name("xpGained").value(skill.getXpGained());
+                out.name("xpPerHour").value(skill.getXpPerHour());
+                out.endObject();
+            }
+            out.endArray();
+            out.endObject();
+        }
+    };
+
+    public static final TypeAdapter<DropData> DROP = new WriteOnlyAdapter<DropData>()
+    {
+        @Override
+        public void write(JsonWriter out, DropData drop) throws IOException
+        {
+            out.beginObject();
+            out.name("itemName").value(drop.getItemName());
+            out.name("itemId").value(drop.getItemId());
+            out.name("quantity").value(drop.getQuantity());
+            out.name("source").value(drop.getSource());
+            out.name("rarity").value(drop.getRarity());
+            out.name("value").value(drop.getValue());
+            out.name("location").value(drop.getLocation());
+            out.endObject();
+        }
+    };
+
+    public static final TypeAdapter<ActivityData> ACTIVITY = new WriteOnlyAdapter<ActivityData>()
+    {
+        @Override
+        public void write(JsonWriter out, ActivityData activity) throws IOException
+        {
+            out.beginObject();
+            out.name("currentActivity").value(activity.getCurrentActivity());
+            out.name("location").value(activity.getLocation());
+            out.name("worldId").value(activity.getWorldId());
+            out.name("region").value(activity.getRegion());
+            out.endObject();
+        }
+    };
+
+    public static final TypeAdapter<QuestData> QUEST = new WriteOnlyAdapter<QuestData>()
+    {
+        @Override
+        public void write(JsonWriter out, QuestData quest) throws IOException
+        {
+            out.beginObject();
+            out.name("questName").value(quest.getQuestName());
+            out.name("status").value(quest.getStatus());
+            out.endObject();
+        }
+    };
+
+    public static final TypeAdapter<EnhancedQuestData> ENHANCED_QUEST = new WriteOnlyAdapter<EnhancedQuestData>()
+    {
+        @Override
+        public void write(JsonWriter out, EnhancedQuestData quest) throws IOException
+        {
+            out.beginObject();
+            out.name("questName").value(quest.getQuestName());
+            out.name("status").value(quest.getStatus());
+            out.name("questPoints").value(quest.getQuestPoints());
+            out.name("progress").value(quest.getProgress());
+            out.name("requirements");
+            writeMap(out, quest.getRequirements());
+            out.name("rewards");
+            writeMap(out, quest.getRewards());
+            out.name("difficulty").value(quest.getDifficulty() != null ? quest.getDifficulty() : "Unknown");
+            out.name("series").value(quest.getSeries() != null ? quest.getSeries() : "None");
+            out.endObject();
+        }
+    };
+
+    public static final TypeAdapter<PlayerData> PLAYER_SYNC = new WriteOnlyAdapter<PlayerData>()
+    {
+        @Override
+        public void write(JsonWriter out, PlayerData player) throws IOException
+        {
+            out.beginObject();
+            writePlayerSyncFields(out, player, PlayerData.ALL_FIELDS);
+            out.endObject();
+        }
+    };
+
+    /**
+     * Player sync for backends that take deltas: only the fields changed since the last
+     * acknowledged sync, unless {@code keyframe} is true and it carries them all. The backend
+     * applies a delta's fields over what it has; {@code location} and {@code resources} are
+     * replaced as a whole.
+     */
+    public static final TypeAdapter<PlayerData> PLAYER_SYNC_DELTA = new WriteOnlyAdapter<PlayerData>()
+    {
+        @Override
+        public void write(JsonWriter out, PlayerData player) throws IOException
+        {
+            out.beginObject();
+            out.name("keyframe").value(player.isKeyframe());
+            writePlayerSyncFields(out, player, player.isKeyframe() ? PlayerData.ALL_FIELDS : player.getChangedFields());
+            out.endObject();
+        }
+    };
+
+    /**
+     * Heartbeats carry no model, only the time they were sent.
+     */
+    public static final TypeAdapter<Long> HEARTBEAT = new WriteOnlyAdapter<Long>()
+    {
+        @Override
+        public void write(JsonWriter out, Long timestamp) throws IOException
+        {
+            out.beginObject();
+            out.name("timestamp").value(timestamp);
+            out.name("status").value("online");
+            out.endObject();
+        }
+    };
+
+    public static final TypeAdapter<EnhancedInventoryData> ENHANCED_INVENTORY = new WriteOnlyAdapter<EnhancedInventoryData>()
+    {
+        @Override
+        public void write(JsonWriter out, EnhancedInventoryData inventory) throws IOException
+        {
+            out.beginObject();
+            out.name("containerName").value(inventory.getContainerName());
+            out.name("totalValue").value(inventory.getTotalValue());
+            out.name("totalItems").value(inventory.getTotalItems());
+            out.name("uniqueItems").value(inventory.getUniqueItems());
+            if (inventory.getVersion() > 0)
+            {
+                out.name("version").value(inventory.getVersion());
+            }
+
+            out.name("items").beginArray();
+            if (inventory.getItems() != null)
+            {
+                for (EnhancedInventoryData.EnhancedInventoryItem item : inventory.getItems())
+                {
+                    out.beginObject();
+                    out.name("itemId").value(item.getItemId());
+                    out.name("slot").value(item.getSlot());
+                    out.name("itemName").value(item.getItemName());
+                    out.name("quantity").value(item.getQuantity());
+                    out.name("itemValue").value(item.getItemValue());
+                    out.name("totalValue").value(item.getTotalValue());
+                    out.name("category").value(item.getCategory());
+                    out.name("noted").value(item.isNoted());
+                    out.endObject();
+                }
+            }
+            out.endArray();
+
+            out.name("categories").beginObject();
+            if (inventory.getCategories() != null)
+            {
+                for (Map.Entry<String, EnhancedInventoryData.CategoryBreakdown> entry : inventory.getCategories().entrySet())
+                {
+                    EnhancedInventoryData.CategoryBreakdown breakdown = entry.getValue();
+                    out.name(entry.getKey()).beginObject();
+                    out.name("category").value(breakdown.getCategory());
+                    out.name("count").value(breakdown.getCount());
+                    out.name("value").value(breakdown.getValue());
+                    out.endObject();
+                }
+            }
+            out.endObject();
+
+            out.name("valueRanges").beginObject();
+            if (inventory.getValueRanges() != null)
+            {
+                for (Map.Entry<String, EnhancedInventoryData.ValueRangeBreakdown> entry : inventory.getValueRanges().entrySet())
+                {
+                    EnhancedInventoryData.ValueRangeBreakdown breakdown = entry.getValue();
+                    out.name(entry.getKey()).beginObject();
+                    out.name("range").value(breakdown.getRange());
+                    out.name("count").value(breakdown.getCount());
+                    out.name("value").value(breakdown.getValue());
+                    out.endObject();
+                }
+            }
+            out.endObject();
+            out.endObject();
+        }
+    };
+
+    public static final TypeAdapter<InventoryDeltaData> INVENTORY_DELTA = new WriteOnlyAdapter<InventoryDeltaData>()
+    {
+        @Override
+        public void write(JsonWriter out, InventoryDeltaData delta) throws IOException
+        {
+            out.beginObject();
+            out.name("containerName").value(delta.getContainerName());
+            out.name("version").value(delta.getVersion());
+            out.name("changes").beginArray();
+            for (InventoryDeltaData.SlotDelta change : delta.getChanges())
+            {
+                // Positional [slot, itemId, quantityDelta] - a bank resort can touch hundreds of slots
+                out.beginArray();
+                out.value(change.getSlot());
+                out.value(change.getItemId());
+                out.value(change.getQuantityDelta());
+                out.endArray();
+            }
+            out.endArray();
+            out.endObject();
+        }
+    };
+
+    public static final TypeAdapter<AchievementDiaryData> ACHIEVEMENT_DIARY = new WriteOnlyAdapter<AchievementDiaryData>()
+    {
+        @Override
+        public void write(JsonWriter out, AchievementDiaryData diary) throws IOException
+        {
+            out.beginObject();
+            out.name("area").value(diary.getArea());
+            out.name("difficulty").value(diary.getDifficulty());
+            out.name("completed").value(diary.isCompleted());
+            out.name("completedTasks").value(diary.getCompletedTasks());
+            out.name("totalTasks").value(diary.getTotalTasks());
+            out.name("completionPercentage").value(diary.getCompletionPercentage());
+            out.name("rewards");
+            writeList(out, diary.getRewards());
+            out.name("taskProgress");
+            writeMap(out, diary.getTaskProgress());
+            out.endObject();
+        }
+    };
+
+    public static final TypeAdapter<CollectionLogData> COLLECTION_LOG = new WriteOnlyAdapter<CollectionLogData>()
+    {
+        @Override
+        public void write(JsonWriter out, CollectionLogData log) throws IOException
+        {
+            out.beginObject();
+            out.name("itemName").value(log.getItemName());
+            out.name("category").value(log.getCategory());
+            out.name("collectedItems").value(log.getCollectedItems());
+            out.name("totalCollectionItems").value(log.getTotalCollectionItems());
+            out.name("completionPercentage").value(log.getCompletionPercentage());
+            out.name("categoryProgress");
+            writeMap(out, log.getCategoryProgress());
+            out.endObject();
+        }
+    };
+
+    public static final TypeAdapter<CombatAchievementData> COMBAT_ACHIEVEMENT = new WriteOnlyAdapter<CombatAchievementData>()
+    {
+        @Override
+        public void write(JsonWriter out, CombatAchievementData achievement) throws IOException
+        {
+            out.beginObject();
+            out.name("achievementName").value(achievement.getAchievementName());
+            out.name("tier").value(achievement.getTier());
+            out.name("category").value(achievement.getCategory());
+            out.name("completed").value(achievement.isCompleted());
+            out.name("points").value(achievement.getPoints());
+            out.name("description").value(achievement.getDescription() != null ? achievement.getDescription() : "");
+            out.name("tierProgress");
+            writeMap(out, achievement.getTierProgress());
+            out.endObject();
+        }
+    };
+
+    public static final TypeAdapter<MetricsData> METRICS = new WriteOnlyAdapter<MetricsData>()
+    {
+        @Override
+        public void write(JsonWriter out, MetricsData metrics) throws IOException
+        {
+            out.beginObject();
+            out.name("uptimeMillis").value(metrics.getUptimeMillis());
+            out.name("gauges");
+            writeMap(out, metrics.getGauges());
+            out.name("types").beginArray();
+            for (MetricsData.TypeMetrics type : metrics.getTypes())
+            {
+                out.beginObject();
+                out.name("type").value(type.getType());
+                out.name("queued").value(type.getQueued());
+                out.name("dropped").value(type.getDropped());
+                out.name("coalesced").value(type.getCoalesced());
+                out.name("spilled").value(type.getSpilled());
+                out.name("waiting").value(type.getWaiting());
+                out.name("sent").value(type.getSent());
+                out.name("failed").value(type.getFailed());
+                writeLatency(out, "queueLatency", type.getQueueLatency());
+                writeLatency(out, "sendLatency", type.getSendLatency());
+                writeLatency(out, "roundTrip", type.getRoundTrip());
+                out.endObject();
+            }
+            out.endArray();
+            out.endObject();
+        }
+    };
+
+    private ExtraAdapters()
+    {
+    }
+
+    /**
+     * Writes the given fields in the order the backend has always received them. Online
+     * status and activity only go out with the whole state.
+     */
+    private static void writePlayerSyncFields(JsonWriter out, PlayerData player, int fields) throws IOException
+    {
+        if ((fields & PlayerData.TOTAL_LEVEL) != 0)
+        {
+            out.name("totalLevel").value(player.getTotalLevel());
+        }
+        if ((fields & PlayerData.COMBAT_LEVEL) != 0)
+        {
+            out.name("combatLevel").value(player.getCombatLevel());
+        }
+        if ((fields & PlayerData.TOTAL_XP) != 0)
+        {
+            out.name("totalXp").value(player.getTotalXp());
+        }
+        if ((fields & PlayerData.NAME) != 0)
+        {
+            out.name("isOnline").value(player.isOnline());
+        }
+        if ((fields & PlayerData.WORLD) != 0)
+        {
+            out.name("currentWorld").value(player.getCurrentWorld());
+        }
+        if ((fields & PlayerData.NAME) != 0)
+        {
+            out.name("currentActivity").value(player.getCurrentActivity());
+        }
+
+        if ((fields & PlayerData.LOCATION) != 0 && player.getLocation() != null)
+        {
+            out.name("location").beginObject();
+            out.name("x").value(player.getLocation().getX());
+            out.name("y").value(player.getLocation().getY());
+            out.name("plane").value(player.getLocation().getPlane());
+            out.endObject();
+        }
+
+        PlayerData.ResourceState resources = player.getResources();
+        if ((fields & PlayerData.RESOURCES) != 0 && resources != null)
+        {
+            out.name("resources").beginObject();
+            out.name("health").value(resources.getHealth());
+            out.name("maxHealth").value(resources.getMaxHealth());
+            out.name("prayer").value(resources.getPrayer());
+            out.name("maxPrayer").value(resources.getMaxPrayer());
+            out.name("energy").value(resources.getEnergy());
+            out.name("specialAttack").value(resources.getSpecialAttack());
+            out.endObject();
+        }
+    }
+
+    private static void writeEnhancedSkillFields(JsonWriter out, EnhancedSkillData skill) throws IOException
+    {
+        out.name("skill").value(skill.getSkillName());
+        out.name("level").value(skill.getLevel());
+        out.name("xp").value(skill.getXp());
+        out.name("xpGained").value(skill.getXpGained());
+        out.name("totalLevel").value(skill.getTotalLevel());
+        out.name("combatLevel").value(skill.getCombatLevel());
+        out.name("xpPerHour").value(skill.getXpPerHour());
+        out.name("efficiency").value(skill.getEfficiency());
+    }
+
+    private static void writeLatency(JsonWriter out, String name, MetricsData.Latency latency) throws IOException
+    {
+        out.name(name).beginObject();
+        out.name("count").value(latency.getCount());
+        out.name("p50").value(latency.getP50());
+        out.name("p90").value(latency.getP90());
+        out.name("p99").value(latency.getP99());
+        out.name("max").value(latency.getMax());
+        out.endObject();
+    }
+
+    /**
+     * Writes a free-form model map, or an empty object when it is missing.
+     */
+    private static void writeMap(JsonWriter out, Map<String, ?> map) throws IOException
+    {
+        out.beginObject();
+        if (map != null)
+        {
+            for (Map.Entry<String, ?> entry : map.entrySet())
+            {
+                out.name(entry.getKey());
+                writeValue(out, entry.getValue());
+            }
+        }
+        out.endObject();
+    }
+
+    /**
+     * Writes a free-form model list, or an empty array when it is missing.
+     */
+    private static void writeList(JsonWriter out, List<?> list) throws IOException
+    {
+        out.beginArray();
+        if (list != null)
+        {
+            for (Object value : list)
+            {
+                writeValue(out, value);
+            }
+        }
+        out.endArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void writeValue(JsonWriter out, Object value) throws IOException
+    {
+        if (value == null)
+        {
+            out.nullValue();
+        }
+        else if (value instanceof String)
+        {
+            out.value((String) value);
+        }
+        else if (value instanceof Number)
+        {
+            out.value((Number) value);
+        }
+        else if (value instanceof Boolean)
+        {
+            out.value((Boolean) value);
+        }
+        else if (value instanceof Map)
+        {
+            writeMap(out, (Map<String, ?>) value);
+        }
+        else if (value instanceof List)
+        {
+            writeList(out, (List<?>) value);
+        }
+        else
+        {
+            out.value(value.toString());
+        }
+    }
+
+    private abstract static class WriteOnlyAdapter<T> extends TypeAdapter<T>
+    {
+        @Override
+        public T read(JsonReader in)
+        {
+            throw new UnsupportedOperationException("Webhook extras are write-only");
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package gimpanel.tracker.util;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+import java.io.IOException;
+
+/**
+ * Form body with a single JSON field, percent-encoded straight into the request sink.
+ *
+ * Produces the same bytes as {@code FormBody} with one field, spaces included as
+ * {@code %20}, without building an encoded copy of the JSON on the heap first.
+ */
+public class FormEncodedJsonBody extends RequestBody
+{
+    private static final MediaType FORM = MediaType.parse("application/x-www-form-urlencoded");
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private final String field;
+    private final String json;
+    private long contentLength = -1;
+
+    public FormEncodedJsonBody(String field, String json)
+    {
+        this.field = field;
+        this.json = json;
+    }
+
+    @Override
+    public MediaType contentType()
+    {
+        return FORM;
+    }
+
+    @Override
+    public long contentLength()
+    {
+        if (contentLength < 0)
+        {
+            long length = field.length() + 1;
+            for (int i = 0; i < json.length(); i++)
+            {
+                char c = json.charAt(i);
+                if (c < 0x80)
+                {
+                    length += isUnreserved(c) ? 1 : 3;
+                }
+                else if (c < 0x800)
+                {
+                    length += 2 * 3;
+                }
+                else if (Character.isHighSurrogate(c) && i + 1 < json.length() && Character.isLowSurrogate(json.charAt(i + 1)))
+                {
+                    length += 4 * 3;
+                    i++;
+                }
+                else if (Character.isSurrogate(c))
+                {
+                    length += 3;
+                }
+                else
+                {
+                    length += 3 * 3;
+                }
+            }
+            contentLength = length;
+        }
+        return contentLength;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException
+    {
+        sink.writeUtf8(field);
+        sink.writeByte('=');
+
+        for (int i = 0; i < json.length(); i++)
+        {
+            char c = json.charAt(i);
+            if (c < 0x80)
+            {
+                if (isUnreserved(c))
+                {
+                    sink.writeByte(c);
+                }
+                else
+                {
+                    writeEscaped(sink, c);
+                }
+            }
+            else if (c < 0x800)
+            {
+                writeEscaped(sink, 0xC0 | (c >> 6));
+                writeEscaped(sink, 0x80 | (c & 0x3F));
+            }
+            else if (Character.isHighSurrogate(c) && i + 1 < json.length() && Character.isLowSurrogate(json.charAt(i + 1)))
+            {
+                int codePoint = Character.toCodePoint(c, json.charAt(++i));
+                writeEscaped(sink, 0xF0 | (codePoint >> 18));
+                writeEscaped(sink, 0x80 | ((codePoint >> 12) & 0x3F));
+                writeEscaped(sink, 0x80 | ((codePoint >> 6) & 0x3F));
+                writeEscaped(sink, 0x80 | (codePoint & 0x3F));
+            }
+            else if (Character.isSurrogate(c))
+            {
+                // Lone surrogates become '?', matching String.getBytes(UTF_8)
+                writeEscaped(sink, '?');
+            }
+            else
+            {
+                writeEscaped(sink, 0xE0 | (c >> 12));
+                writeEscaped(sink, 0x80 | ((c >> 6) & 0x3F));
+                writeEscaped(sink, 0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    private static boolean isUnreserved(char c)
+    {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+            || c == '-' || c == '_' || c == '.' || c == '*';
+    }
+
+    private static void writeEscaped(BufferedSink sink, int b) throws IOException
+    {
+        sink.writeByte('%');
+        sink.writeByte(HEX[(b >> 4) & 0xF]);
+        sink.writeByte(HEX[b & 0xF]);
+    }
+}
@@ -0,0 +1,162 @@
+package gimpanel.tracker.util;
+
+import gimpanel.tracker.models.MetricsData;
+
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Counters and latency histograms for the webhook pipeline, keyed by webhook type.
+ *
+ * Everything on the recording path is a {@link LongAdder} or an atomic array slot,
+ * so the dispatch thread and HTTP callbacks never contend on a lock. Gauges are
+ * read on demand when a summary is built.
+ */
+@Singleton
+public class MetricsRegistry
+{
+    // Round trips of requests that are not a single webhook of a known type
+    public static final String BATCH = "BATCH";
+    public static final String REPLAY = "REPLAY";
+    public static final String PREWARM = "PREWARM";
+    public static final String STREAM_FALLBACK = "STREAM_FALLBACK";
+
+    private final ConcurrentMap<String, TypeMetrics> types = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+    private final long startedAt = System.currentTimeMillis();
+
+    public TypeMetrics type(String webhookType)
+    {
+        TypeMetrics metrics = types.get(webhookType);
+        return metrics != null ? metrics : types.computeIfAbsent(webhookType, key -> new TypeMetrics());
+    }
+
+    /**
+     * Registers a value to sample with every summary, replacing any earlier gauge of the same name.
+     */
+    public void gauge(String name, LongSupplier supplier)
+    {
+        gauges.put(name, supplier);
+    }
+
+    public void removeGauge(String name)
+    {
+        gauges.remove(name);
+    }
+
+    public MetricsData snapshot(String playerName)
+    {
+        Map<String, Long> gaugeValues = new TreeMap<>();
+        for (Map.Entry<String, LongSupplier> gauge : gauges.entrySet())
+        {
+            gaugeValues.put(gauge.getKey(), gauge.getValue().getAsLong());
+        }
+
+        List<MetricsData.TypeMetrics> typeValues = new ArrayList<>(types.size());
+        for (Map.Entry<String, TypeMetrics> entry : new TreeMap<>(types).entrySet())
+        {
+            TypeMetrics metrics = entry.getValue();
+            MetricsData.TypeMetrics values = new MetricsData.TypeMetrics(entry.getKey());
+            values.setQueued(metrics.queued.sum());
+            values.setDropped(metrics.dropped.sum());
+            values.setCoalesced(metrics.coalesced.sum());
+            values.setSpilled(metrics.spilled.sum());
+            values.setWaiting(metrics.waiting.sum());
+            values.setSent(metrics.sent.sum());
+            values.setFailed(metrics.failed.sum());
+            values.setQueueLatency(latency(metrics.queueLatency));
+            values.setSendLatency(latency(metrics.sendLatency));
+            values.setRoundTrip(latency(metrics.roundTrip));
+            typeValues.add(values);
+        }
+
+        return new MetricsData(playerName, System.currentTimeMillis() - startedAt, gaugeValues, typeValues);
+    }
+
+    private static MetricsData.Latency latency(LatencyHistogram histogram)
+    {
+        return new MetricsData.Latency(histogram.getCount(),
+            millis(histogram.valueAtPercentile(50)),
+            millis(histogram.valueAtPercentile(90)),
+            millis(histogram.valueAtPercentile(99)),
+            millis(histogram.getMax()));
+    }
+
+    private static double millis(long micros)
+    {
+        return micros / 1000.0;
+    }
+
+    /**
+     * Metrics for one webhook type. Latencies are recorded in microseconds.
+     */
+    public static final class TypeMetrics
+    {
+        private final LongAdder queued = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+        private final LongAdder coalesced = new LongAdder();
+        private final LongAdder spilled = new LongAdder();
+        private final LongAdder waiting = new LongAdder();
+        private final LongAdder sent = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LatencyHistogram queueLatency = new LatencyHistogram();
+        private final LatencyHistogram sendLatency = new LatencyHistogram();
+        private final LatencyHistogram roundTrip = new LatencyHistogram();
+
+        public void queued()
+        {
+            queued.increment();
+        }
+
+        public void dropped()
+        {
+            dropped.increment();
+        }
+
+        public void coalesced()
+        {
+            coalesced.increment();
+        }
+
+        public void spilled()
+        {
+            spilled.increment();
+        }
+
+        /**
+         * An event joined or left the dispatcher's waiting events.
+         */
+        public void waiting(int change)
+        {
+            waiting.add(change);
+        }
+
+        public void completed(boolean delivered, long startNanos)
+        {
+            (delivered ? sent : failed).increment();
+            sendLatency.record(micros(startNanos));
+        }
+
+        public void dequeued(long enqueuedNanos)
+        {
+            queueLatency.record(micros(enqueuedNanos));
+        }
+
+        public void roundTrip(long startNanos)
+        {
+            roundTrip.record(micros(startNanos));
+        }
+
+        private static long micros(long startNanos)
+        {
+            return (System.nanoTime() - startNanos) / 1000;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package gimpanel.tracker.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A serialized webhook on its way to the backend, together with what the send path needs
+ * to know about it once the JSON is written: its event id, whether the backend could
+ * rebuild it, and whether the outbox already has a copy.
+ */
+public final class OutgoingWebhook
+{
+    private final String json;
+    private final String eventId;
+    private final boolean durable;
+    private final boolean stored;
+
+    OutgoingWebhook(String json, String eventId, boolean durable, boolean stored)
+    {
+        this.json = json;
+        this.eventId = eventId;
+        this.durable = durable;
+        this.stored = stored;
+    }
+
+    /**
+     * Key that identifies a batch on every retry: a name-based UUID of its event ids. Null if
+     * any of them has no event id.
+     */
+    static String idempotencyKey(List<OutgoingWebhook> webhooks)
+    {
+        StringBuilder eventIds = new StringBuilder();
+        for (OutgoingWebhook webhook : webhooks)
+        {
+            if (webhook.eventId == null)
+            {
+                return null;
+            }
+            eventIds.append(webhook.eventId).append(',');
+        }
+        return UUID.nameUUIDFromBytes(eventIds.toString().getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    public String getJson()
+    {
+        return json;
+    }
+
+    /**
+     * The event id serialized into the JSON, kept here so sends never read it back out.
+     */
+    public String getEventId()
+    {
+        return eventId;
+    }
+
+    /**
+     * An event the backend cannot rebuild, rather than state the next update replaces.
+     */
+    public boolean isDurable()
+    {
+        return durable;
+    }
+
+    /**
+     * Written to the outbox, whose replay delivers it if this send does not.
+     */
+    public boolean isStored()
+    {
+        return stored;
+    }
+}
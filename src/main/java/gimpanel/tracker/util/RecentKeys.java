@@ -0,0 +1,95 @@
+package gimpanel.tracker.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fixed-size memory of recently reported states, keyed by values packed into a {@code long},
+ * so a state seen again within a time window is not reported twice.
+ *
+ * The table is four-way set associative: a key's hash picks a set of four slots, and when
+ * the set is full the slot reported longest ago is reused. Memory stays the same however
+ * many states pass through, and a key that fell out of the window or the table is simply
+ * reported again.
+ */
+public class RecentKeys
+{
+    private static final int WAYS = 4;
+
+    private final long[] keys;
+    private final long[] reportedNanos;
+    private final boolean[] used;
+    private final int setMask;
+    private final long windowNanos;
+
+    /**
+     * @param capacity number of keys remembered, rounded up to a power of two
+     */
+    public RecentKeys(int capacity, long window, TimeUnit unit)
+    {
+        int wanted = Math.max(1, (capacity + WAYS - 1) / WAYS);
+        int sets = Integer.highestOneBit(wanted);
+        if (sets < wanted)
+        {
+            sets <<= 1;
+        }
+        this.keys = new long[sets * WAYS];
+        this.reportedNanos = new long[sets * WAYS];
+        this.used = new boolean[sets * WAYS];
+        this.setMask = sets - 1;
+        this.windowNanos = unit.toNanos(window);
+    }
+
+    public boolean offer(long key)
+    {
+        return offer(key, System.nanoTime());
+    }
+
+    /**
+     * Records the key as reported now, unless it already was within the window. Returns true
+     * if the caller should report it.
+     */
+    public synchronized boolean offer(long key, long nowNanos)
+    {
+        int first = (hash(key) & setMask) * WAYS;
+        int victim = first;
+        for (int slot = first; slot < first + WAYS; slot++)
+        {
+            // Slots are filled in order and never emptied, so nothing lies past a free one
+            if (!used[slot])
+            {
+                victim = slot;
+                break;
+            }
+            if (keys[slot] == key)
+            {
+                if (nowNanos - reportedNanos[slot] < windowNanos)
+                {
+                    return false;
+                }
+                victim = slot;
+                break;
+            }
+            if (reportedNanos[slot] - reportedNanos[victim] < 0)
+            {
+                victim = slot;
+            }
+        }
+
+        keys[victim] = key;
+        reportedNanos[victim] = nowNanos;
+        used[victim] = true;
+        return true;
+    }
+
+    public int capacity()
+    {
+        return keys.length;
+    }
+
+    private static int hash(long key)
+    {
+        // Packed coordinates differ mostly in their low bits of each field - spread them over the set index
+        long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+}
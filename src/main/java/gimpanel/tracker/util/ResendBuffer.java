@@ -0,0 +1,87 @@
+package gimpanel.tracker.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The most recent webhooks of the session, by sequence number, kept so the backend can ask
+ * for ones it never received. State is put without its webhook: only its sequence number is
+ * remembered, so asking for it can be answered with a resync rather than stale state.
+ *
+ * Sequence numbers count up without gaps, so this is a ring indexed by sequence number:
+ * each slot remembers which sequence it holds, and a newer one simply overwrites it.
+ */
+public class ResendBuffer
+{
+    // Most events a single backend request may ask for; a longer gap is repaired by a full resync
+    static final int MAX_RANGE = 1024;
+
+    private final long[] sequences;
+    private final OutgoingWebhook[] webhooks;
+
+    public ResendBuffer(int capacity)
+    {
+        this.sequences = new long[capacity];
+        this.webhooks = new OutgoingWebhook[capacity];
+    }
+
+    public synchronized void put(long sequence, OutgoingWebhook webhook)
+    {
+        int slot = (int) (sequence % sequences.length);
+        sequences[slot] = sequence;
+        webhooks[slot] = webhook;
+    }
+
+    /**
+     * Forgets everything, when a new session starts counting from 1 again.
+     */
+    public synchronized void clear()
+    {
+        for (int slot = 0; slot < sequences.length; slot++)
+        {
+            sequences[slot] = 0;
+            webhooks[slot] = null;
+        }
+    }
+
+    /**
+     * Webhooks for the backend's list of missing sequence numbers, such as {@code 12-40,57},
+     * in the order asked for, with null for state put without its webhook. Null if the list
+     * cannot be read, is too long, or any of them is no longer held - the caller then needs
+     * a full resync instead.
+     */
+    public synchronized List<OutgoingWebhook> collect(String ranges)
+    {
+        List<OutgoingWebhook> found = new ArrayList<>();
+        try
+        {
+            for (String range : ranges.split(","))
+            {
+                String trimmed = range.trim();
+                int dash = trimmed.indexOf('-', 1);
+                long from = Long.parseLong(dash < 0 ? trimmed : trimmed.substring(0, dash).trim());
+                long to = dash < 0 ? from : Long.parseLong(trimmed.substring(dash + 1).trim());
+                if (from < 1 || to < from || to - from >= MAX_RANGE - found.size())
+                {
+                    return null;
+                }
+
+                for (long sequence = from; sequence <= to; sequence++)
+                {
+                    int slot = (int) (sequence % sequences.length);
+                    if (sequences[slot] != sequence)
+                    {
+                        return null;
+                    }
+                    found.add(webhooks[slot]);
+                }
+            }
+        }
+        catch (NumberFormatException e)
+        {
+            return null;
+        }
+        return found.isEmpty() ? null : Collections.unmodifiableList(found);
+    }
+}
@@ -0,0 +1,75 @@
+package gimpanel.tracker.util;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket holding up to {@code burst} tokens, refilled continuously at
+ * {@code perSecond} tokens a second. Each send takes one token.
+ */
+public class TokenBucket
+{
+    private final double capacity;
+    private final double tokensPerNano;
+    private final LongSupplier clock;
+
+    private double tokens;
+    private long refilledAt;
+
+    public TokenBucket(double perSecond, int burst)
+    {
+        this(perSecond, burst, System::nanoTime);
+    }
+
+    public TokenBucket(double perSecond, int burst, LongSupplier clock)
+    {
+        if (perSecond <= 0 || burst < 1)
+        {
+            throw new IllegalArgumentException("Rate and burst must be positive");
+        }
+        this.capacity = burst;
+        this.tokensPerNano = perSecond / 1_000_000_000.0;
+        this.clock = clock;
+        // Start full, so the first burst after login goes straight out
+        this.tokens = burst;
+        this.refilledAt = clock.getAsLong();
+    }
+
+    public synchronized boolean tryAcquire()
+    {
+        refill();
+        if (tokens >= 1)
+        {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Whether a token is available right now, without taking it.
+     */
+    public synchronized boolean available()
+    {
+        refill();
+        return tokens >= 1;
+    }
+
+    /**
+     * How long until the next token is available, or 0 if one already is.
+     */
+    public synchronized long nanosUntilAvailable()
+    {
+        refill();
+        return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / tokensPerNano);
+    }
+
+    private void refill()
+    {
+        long now = clock.getAsLong();
+        if (now > refilledAt)
+        {
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+        }
+    }
+}
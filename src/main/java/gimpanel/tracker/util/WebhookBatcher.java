@@ -0,0 +1,164 @@
+package gimpanel.tracker.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces serialized webhooks into batches.
+ *
+ * A batch is flushed as soon as it reaches the event or byte limit, or once the
+ * oldest pending payload has waited for the linger time. Every caller gets a
+ * future that completes with whether its own payload was delivered.
+ */
+@Slf4j
+public class WebhookBatcher
+{
+    public interface BatchSender
+    {
+        /**
+         * Sends the webhooks and completes with whether each was delivered, in the same order.
+         */
+        CompletableFuture<List<Boolean>> send(List<OutgoingWebhook> webhooks);
+    }
+
+    private final ScheduledExecutorService scheduler;
+    private final BatchSender sender;
+
+    private final Object lock = new Object();
+    private List<PendingPayload> pending = new ArrayList<>();
+    private int pendingBytes = 0;
+    private ScheduledFuture<?> lingerTask;
+
+    private volatile int maxEvents = 50;
+    private volatile int maxBytes = 256 * 1024;
+    private volatile long lingerMillis = 250;
+
+    public WebhookBatcher(ScheduledExecutorService scheduler, BatchSender sender)
+    {
+        this.scheduler = scheduler;
+        this.sender = sender;
+    }
+
+    public void configure(int maxEvents, int maxBytes, long lingerMillis)
+    {
+        this.maxEvents = Math.max(1, maxEvents);
+        this.maxBytes = Math.max(1, maxBytes);
+        this.lingerMillis = Math.max(0, lingerMillis);
+    }
+
+    public CompletableFuture<Boolean> submit(OutgoingWebhook webhook)
+    {
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+        List<PendingPayload> ready = null;
+
+        synchronized (lock)
+        {
+            pending.add(new PendingPayload(webhook, future));
+            pendingBytes += webhook.getJson().length();
+
+            if (pending.size() >= maxEvents || pendingBytes >= maxBytes)
+            {
+                ready = takePending();
+            }
+            else if (lingerTask == null)
+            {
+                lingerTask = scheduler.schedule(this::flush, lingerMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        if (ready != null)
+        {
+            send(ready);
+        }
+        return future;
+    }
+
+    /**
+     * Sends whatever is pending right away.
+     */
+    public void flush()
+    {
+        List<PendingPayload> ready;
+        synchronized (lock)
+        {
+            ready = takePending();
+        }
+
+        if (!ready.isEmpty())
+        {
+            send(ready);
+        }
+    }
+
+    public int pendingCount()
+    {
+        synchronized (lock)
+        {
+            return pending.size();
+        }
+    }
+
+    private List<PendingPayload> takePending()
+    {
+        if (lingerTask != null)
+        {
+            lingerTask.cancel(false);
+            lingerTask = null;
+        }
+
+        List<PendingPayload> ready = pending;
+        pending = new ArrayList<>();
+        pendingBytes = 0;
+        return ready;
+    }
+
+    private void send(List<PendingPayload> batch)
+    {
+        List<OutgoingWebhook> webhooks = new ArrayList<>(batch.size());
+        for (PendingPayload entry : batch)
+        {
+            webhooks.add(entry.webhook);
+        }
+
+        log.debug("Flushing webhook batch of {} events", webhooks.size());
+        CompletableFuture<List<Boolean>> result;
+        try
+        {
+            result = sender.send(webhooks);
+        }
+        catch (Exception e)
+        {
+            log.error("Error sending webhook batch: {}", e.getMessage());
+            result = CompletableFuture.completedFuture(Collections.emptyList());
+        }
+
+        result.whenComplete((delivered, throwable) -> {
+            for (int i = 0; i < batch.size(); i++)
+            {
+                // A missing result counts as not delivered
+                boolean success = throwable == null && delivered != null && i < delivered.size()
+                    && Boolean.TRUE.equals(delivered.get(i));
+                batch.get(i).future.complete(success);
+            }
+        });
+    }
+
+    private static final class PendingPayload
+    {
+        private final OutgoingWebhook webhook;
+        private final CompletableFuture<Boolean> future;
+
+        private PendingPayload(OutgoingWebhook webhook, CompletableFuture<Boolean> future)
+        {
+            this.webhook = webhook;
+            this.future = future;
+        }
+    }
+}
@@ -0,0 +1,524 @@
+package gimpanel.tracker.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.LongPredicate;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, memory-mapped log of outgoing webhook payloads.
+ *
+ * Every payload is written here before it is sent and acknowledged once the
+ * backend has accepted it. Whatever is still unacknowledged - because the
+ * backend was down or the client exited - is replayed in order later.
+ *
+ * The log is split into fixed-size segment files. A segment is deleted once
+ * every record in it is acknowledged, and when the disk budget is exhausted the
+ * oldest segment is dropped. Each record carries a CRC so a record torn by a
+ * crash is detected and cut off on the next start.
+ *
+ * Only the contiguous acknowledged prefix is persisted. Records acknowledged out
+ * of order are tracked in memory, so after a crash the few sends that were in
+ * flight around a gap may be replayed a second time.
+ *
+ * Record layout: length (int), crc32 (int), id (long), timestamp (long), UTF-8 payload.
+ * The payload is the event id, a newline and the JSON. Records written before event ids
+ * were stored hold only the JSON, which always starts with a bracket.
+ */
+@Slf4j
+public class WebhookOutbox implements Closeable
+{
+    static final int SEGMENT_SIZE = 1024 * 1024;
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 8;
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String ACK_FILE = "outbox.ack";
+
+    private final File directory;
+    private final int maxSegments;
+
+    // First record id -> segment file, oldest first
+    private final TreeMap<Long, File> segments = new TreeMap<>();
+    // Acknowledged ids beyond the contiguous acknowledged prefix
+    private final TreeSet<Long> ackedAhead = new TreeSet<>();
+
+    private RandomAccessFile activeFile;
+    private MappedByteBuffer active;
+    private RandomAccessFile ackFile;
+    private MappedByteBuffer ackBuffer;
+    private ByteBuffer readBuffer;
+
+    private long nextId = 1;
+    private long ackedUpTo = 0;
+    private long recoveredUpTo = 0;
+    private long dropped = 0;
+    private boolean closed = false;
+
+    private WebhookOutbox(File directory, int maxSegments)
+    {
+        this.directory = directory;
+        this.maxSegments = maxSegments;
+    }
+
+    /**
+     * Opens (or creates) the outbox in the given directory, recovering any records left by a previous session.
+     */
+    public static WebhookOutbox open(File directory, long maxBytes) throws IOException
+    {
+        if (!directory.isDirectory() && !directory.mkdirs())
+        {
+            throw new IOException("Could not create outbox directory " + directory);
+        }
+
+        int maxSegments = (int) Math.max(2, maxBytes / SEGMENT_SIZE);
+        WebhookOutbox outbox = new WebhookOutbox(directory, maxSegments);
+        outbox.recover();
+        return outbox;
+    }
+
+    public long append(String json)
+    {
+        return append(json, null);
+    }
+
+    /**
+     * Persists a payload with its event id, if it has one, and returns its id, or -1 if it
+     * cannot be stored.
+     */
+    public synchronized long append(String json, String eventId)
+    {
+        if (closed)
+        {
+            return -1;
+        }
+
+        byte[] payload = (eventId != null ? eventId + '\n' + json : json).getBytes(StandardCharsets.UTF_8);
+        int recordSize = HEADER_SIZE + payload.length;
+        if (recordSize > SEGMENT_SIZE)
+        {
+            log.warn("Payload of {} bytes is too large for the outbox - sending without persistence", payload.length);
+            return -1;
+        }
+
+        try
+        {
+            if (active == null || active.remaining() < recordSize)
+            {
+                rollSegment();
+            }
+
+            long id = nextId++;
+            long timestamp = System.currentTimeMillis();
+            int start = active.position();
+
+            active.putInt(0); // length is written last so a torn record never looks complete
+            active.putInt((int) checksum(id, timestamp, payload));
+            active.putLong(id);
+            active.putLong(timestamp);
+            active.put(payload);
+            active.putInt(start, payload.length);
+            return id;
+        }
+        catch (IOException e)
+        {
+            log.error("Failed to write webhook to outbox: {}", e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Marks a record as delivered. Segments whose records are all delivered are deleted.
+     */
+    public synchronized void ack(long id)
+    {
+        if (closed || id <= ackedUpTo)
+        {
+            return;
+        }
+
+        if (id != ackedUpTo + 1)
+        {
+            ackedAhead.add(id);
+            return;
+        }
+
+        ackedUpTo = id;
+        while (ackedAhead.remove(ackedUpTo + 1))
+        {
+            ackedUpTo++;
+        }
+        persistAckedUpTo();
+        deleteAcknowledgedSegments();
+    }
+
+    public List<Entry> readPending(int max, long minAgeMillis)
+    {
+        return readPending(max, minAgeMillis, id -> false);
+    }
+
+    /**
+     * Reads up to {@code max} unacknowledged records in id order, leaving out those whose
+     * send is still in flight. Records appended in this session are only returned once they
+     * are older than {@code minAgeMillis}.
+     */
+    public synchronized List<Entry> readPending(int max, long minAgeMillis, LongPredicate inFlight)
+    {
+        List<Entry> pending = new ArrayList<>();
+        long cutoff = System.currentTimeMillis() - minAgeMillis;
+
+        for (Map.Entry<Long, File> segment : segments.entrySet())
+        {
+            Long nextFirstId = segments.higherKey(segment.getKey());
+            if (nextFirstId != null && nextFirstId - 1 <= ackedUpTo)
+            {
+                continue; // Fully acknowledged, waiting to be deleted
+            }
+
+            try
+            {
+                ByteBuffer buffer = readSegment(segment.getValue());
+                scan(buffer, (id, timestamp, payload) -> {
+                    if (pending.size() >= max || id <= ackedUpTo || ackedAhead.contains(id) || inFlight.test(id))
+                    {
+                        return;
+                    }
+                    if (id <= recoveredUpTo || timestamp <= cutoff)
+                    {
+                        pending.add(Entry.of(id, timestamp, payload));
+                    }
+                });
+            }
+            catch (IOException e)
+            {
+                log.error("Failed to read outbox segment {}: {}", segment.getValue().getName(), e.getMessage());
+            }
+
+            if (pending.size() >= max)
+            {
+                break;
+            }
+        }
+        return pending;
+    }
+
+    public synchronized long pendingCount()
+    {
+        return (nextId - 1) - ackedUpTo - ackedAhead.size();
+    }
+
+    public synchronized long getDroppedCount()
+    {
+        return dropped;
+    }
+
+    @Override
+    public synchronized void close()
+    {
+        closed = true;
+        if (active != null)
+        {
+            active.force();
+        }
+        if (ackBuffer != null)
+        {
+            ackBuffer.force();
+        }
+        closeQuietly(activeFile);
+        closeQuietly(ackFile);
+        active = null;
+        activeFile = null;
+        ackBuffer = null;
+        ackFile = null;
+    }
+
+    private void recover() throws IOException
+    {
+        ackFile = new RandomAccessFile(new File(directory, ACK_FILE), "rw");
+        ackBuffer = ackFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, 8);
+        ackedUpTo = ackBuffer.getLong(0);
+
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(SEGMENT_SUFFIX));
+        if (files != null)
+        {
+            for (File file : files)
+            {
+                try
+                {
+                    String name = file.getName();
+                    segments.put(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())), file);
+                }
+                catch (NumberFormatException e)
+                {
+                    log.warn("Ignoring unexpected file in outbox: {}", file.getName());
+                }
+            }
+        }
+
+        long lastId = ackedUpTo;
+        for (File file : segments.values())
+        {
+            long[] maxId = {0};
+            scan(readSegment(file), (id, timestamp, payload) -> maxId[0] = Math.max(maxId[0], id));
+            lastId = Math.max(lastId, maxId[0]);
+        }
+        nextId = lastId + 1;
+        recoveredUpTo = lastId;
+
+        deleteAcknowledgedSegments();
+        if (!segments.isEmpty())
+        {
+            openActive(segments.lastEntry().getValue());
+        }
+
+        if (recoveredUpTo > ackedUpTo)
+        {
+            log.info("Recovered {} unsent webhooks from outbox", recoveredUpTo - ackedUpTo);
+        }
+    }
+
+    private void openActive(File file) throws IOException
+    {
+        closeQuietly(activeFile);
+        activeFile = new RandomAccessFile(file, "rw");
+        active = activeFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_SIZE);
+
+        int end = scan(active.duplicate(), (id, timestamp, payload) -> { });
+        // Zero everything after the last intact record so a torn tail can never be read back
+        boolean torn = false;
+        for (int i = end; i < SEGMENT_SIZE; i++)
+        {
+            if (active.get(i) != 0)
+            {
+                active.put(i, (byte) 0);
+                torn = true;
+            }
+        }
+        if (torn)
+        {
+            log.warn("Truncated torn record at offset {} in outbox segment {}", end, file.getName());
+        }
+        active.position(end);
+    }
+
+    private void rollSegment() throws IOException
+    {
+        if (active != null)
+        {
+            active.force();
+        }
+
+        while (segments.size() >= maxSegments)
+        {
+            dropOldestSegment();
+        }
+
+        File file = new File(directory, String.format("%020d%s", nextId, SEGMENT_SUFFIX));
+        segments.put(nextId, file);
+        openActive(file);
+    }
+
+    private void dropOldestSegment()
+    {
+        Map.Entry<Long, File> oldest = segments.pollFirstEntry();
+        long lastIdInSegment = segments.isEmpty() ? nextId - 1 : segments.firstKey() - 1;
+        if (lastIdInSegment > ackedUpTo)
+        {
+            long lost = lastIdInSegment - ackedUpTo - ackedAhead.headSet(lastIdInSegment, true).size();
+            dropped += lost;
+            log.warn("Outbox disk budget exhausted - dropping {} unsent webhooks", lost);
+            ackedAhead.headSet(lastIdInSegment, true).clear();
+            ackedUpTo = lastIdInSegment;
+            persistAckedUpTo();
+        }
+        deleteFile(oldest.getValue());
+    }
+
+    private void deleteAcknowledgedSegments()
+    {
+        Iterator<Map.Entry<Long, File>> iterator = segments.entrySet().iterator();
+        while (iterator.hasNext())
+        {
+            Map.Entry<Long, File> segment = iterator.next();
+            Long nextFirstId = segments.higherKey(segment.getKey());
+            // Never delete the segment currently being written to
+            if (nextFirstId == null || nextFirstId - 1 > ackedUpTo)
+            {
+                return;
+            }
+            deleteFile(segment.getValue());
+            iterator.remove();
+        }
+    }
+
+    private void deleteFile(File file)
+    {
+        // A segment can still be mapped on some platforms; it will be cleaned up on the next start
+        if (!file.delete())
+        {
+            log.debug("Could not delete outbox segment {} yet", file.getName());
+        }
+    }
+
+    private void persistAckedUpTo()
+    {
+        if (ackBuffer != null)
+        {
+            ackBuffer.putLong(0, ackedUpTo);
+        }
+    }
+
+    private ByteBuffer readSegment(File file) throws IOException
+    {
+        if (activeFile != null && active != null && file.equals(segments.lastEntry().getValue()))
+        {
+            ByteBuffer view = active.duplicate();
+            view.position(0);
+            return view;
+        }
+
+        if (readBuffer == null)
+        {
+            readBuffer = ByteBuffer.allocate(SEGMENT_SIZE);
+        }
+        readBuffer.clear();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"))
+        {
+            FileChannel channel = raf.getChannel();
+            while (readBuffer.hasRemaining() && channel.read(readBuffer) > 0)
+            {
+                // Keep reading until the segment is fully loaded
+            }
+        }
+        readBuffer.flip();
+        return readBuffer;
+    }
+
+    /**
+     * Visits every intact record and returns the offset just past the last one.
+     */
+    private static int scan(ByteBuffer buffer, RecordVisitor visitor)
+    {
+        int position = 0;
+        int limit = buffer.limit();
+        while (position + HEADER_SIZE <= limit)
+        {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + HEADER_SIZE + length > limit)
+            {
+                break;
+            }
+
+            int crc = buffer.getInt(position + 4);
+            long id = buffer.getLong(position + 8);
+            long timestamp = buffer.getLong(position + 16);
+            byte[] payload = new byte[length];
+            for (int i = 0; i < length; i++)
+            {
+                payload[i] = buffer.get(position + HEADER_SIZE + i);
+            }
+
+            if ((int) checksum(id, timestamp, payload) != crc)
+            {
+                break;
+            }
+
+            visitor.visit(id, timestamp, new String(payload, StandardCharsets.UTF_8));
+            position += HEADER_SIZE + length;
+        }
+        return position;
+    }
+
+    private static long checksum(long id, long timestamp, byte[] payload)
+    {
+        CRC32 crc = new CRC32();
+        ByteBuffer header = ByteBuffer.allocate(16);
+        header.putLong(id).putLong(timestamp);
+        crc.update(header.array());
+        crc.update(payload);
+        return crc.getValue();
+    }
+
+    private static void closeQuietly(Closeable closeable)
+    {
+        if (closeable == null)
+        {
+            return;
+        }
+        try
+        {
+            closeable.close();
+        }
+        catch (IOException e)
+        {
+            log.debug("Error closing outbox file: {}", e.getMessage());
+        }
+    }
+
+    private interface RecordVisitor
+    {
+        void visit(long id, long timestamp, String payload);
+    }
+
+    public static final class Entry
+    {
+        private final long id;
+        private final long timestamp;
+        private final String eventId;
+        private final String json;
+
+        Entry(long id, long timestamp, String eventId, String json)
+        {
+            this.id = id;
+            this.timestamp = timestamp;
+            this.eventId = eventId;
+            this.json = json;
+        }
+
+        private static Entry of(long id, long timestamp, String payload)
+        {
+            char first = payload.isEmpty() ? '{' : payload.charAt(0);
+            int newline = payload.indexOf('\n');
+            if (first == '{' || first == '[' || newline < 0)
+            {
+                return new Entry(id, timestamp, null, payload);
+            }
+            return new Entry(id, timestamp, payload.substring(0, newline), payload.substring(newline + 1));
+        }
+
+        public long getId()
+        {
+            return id;
+        }
+
+        public long getTimestamp()
+        {
+            return timestamp;
+        }
+
+        /**
+         * Null for records written before event ids were stored.
+         */
+        public String getEventId()
+        {
+            return eventId;
+        }
+
+        public String getJson()
+        {
+            return json;
+        }
+    }
+}
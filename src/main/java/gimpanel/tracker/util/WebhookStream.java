@@ -0,0 +1,389 @@
+package gimpanel.tracker.util;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * One long-lived WebSocket to the backend that webhooks stream over as text frames.
+ *
+ * Each frame wraps the serialized webhook with a sequence number, {@code {"seq":N,"event":...}},
+ * and the backend acknowledges with {@code {"ack":N}}, covering every frame up to N. Frames
+ * stay pending until acknowledged, so after a dropped connection they are sent again on the
+ * next one. The reconnect carries the stream's session id and the last acknowledged sequence
+ * number, so the backend can resume the session and skip frames it already has.
+ *
+ * If the backend answers the upgrade with a client error that means it does not stream
+ * (400, 401, 403, 404, 405 or 426), the stream stays refused for the session and hands
+ * every webhook to the HTTP sender. Any other answer, such as 408, 429 or a 5xx, is a
+ * failed connect and is retried with backoff like a dropped connection.
+ */
+@Slf4j
+public class WebhookStream
+{
+    public static final String SESSION_HEADER = "X-GIMPanel-Stream-Session";
+    public static final String RESUME_HEADER = "X-GIMPanel-Stream-Resume";
+
+    private static final int NORMAL_CLOSURE = 1000;
+    // Frames kept for resending while disconnected; the oldest is given up beyond this
+    private static final int MAX_PENDING_FRAMES = 1000;
+
+    private final WebSocket.Factory factory;
+    private final Request request;
+    private final ScheduledExecutorService scheduler;
+    private final Function<OutgoingWebhook, CompletableFuture<Boolean>> fallback;
+    private final CircuitBreaker reconnect;
+    private final String sessionId = UUID.randomUUID().toString();
+
+    private volatile BiConsumer<String, String> repairListener = (missing, resync) -> { };
+
+    private final ArrayDeque<Frame> pending = new ArrayDeque<>();
+    private WebSocket socket;
+    private boolean connected;
+    private boolean refused;
+    private boolean closed;
+    private long lastSequence;
+    private long lastAcked;
+
+    /**
+     * @param fallback sends a webhook over HTTP, used for everything once the upgrade is refused
+     */
+    public WebhookStream(WebSocket.Factory factory, Request request, ScheduledExecutorService scheduler,
+                         Function<OutgoingWebhook, CompletableFuture<Boolean>> fallback)
+    {
+        this(factory, request, scheduler, fallback, 1, 30, TimeUnit.SECONDS);
+    }
+
+    WebhookStream(WebSocket.Factory factory, Request request, ScheduledExecutorService scheduler,
+                  Function<OutgoingWebhook, CompletableFuture<Boolean>> fallback, long baseBackoff, long maxBackoff, TimeUnit unit)
+    {
+        this.factory = factory;
+        this.request = request;
+        this.scheduler = scheduler;
+        this.fallback = fallback;
+        // Opens on the first failure; its jittered, doubling backoff paces the reconnects
+        this.reconnect = new CircuitBreaker(1, baseBackoff, maxBackoff, unit);
+    }
+
+    /**
+     * Receives the backend's {@code {"missing":"12-40"}} and {@code {"resync":"full"}}
+     * messages, as the {@code missing} and {@code resync} values.
+     */
+    public void setRepairListener(BiConsumer<String, String> listener)
+    {
+        this.repairListener = listener;
+    }
+
+    /**
+     * Opens the connection, unless it is already open or being opened.
+     */
+    public synchronized void connect()
+    {
+        if (socket != null || refused || closed)
+        {
+            return;
+        }
+
+        socket = factory.newWebSocket(request.newBuilder()
+            .header(SESSION_HEADER, sessionId)
+            .header(RESUME_HEADER, String.valueOf(lastAcked))
+            .build(), new Listener());
+    }
+
+    /**
+     * Streams one webhook. Completes with true once the backend acknowledges it, or with the
+     * result of the HTTP send if the stream was refused or closed before that.
+     */
+    public CompletableFuture<Boolean> send(OutgoingWebhook webhook)
+    {
+        Frame dropped = null;
+        Frame frame = null;
+        synchronized (this)
+        {
+            if (!refused && !closed)
+            {
+                frame = new Frame(++lastSequence, webhook);
+                pending.addLast(frame);
+                if (pending.size() > MAX_PENDING_FRAMES)
+                {
+                    dropped = pending.pollFirst();
+                }
+
+                if (connected)
+                {
+                    socket.send(frame.text());
+                }
+                else if (reconnect.isClosed())
+                {
+                    connect();
+                }
+            }
+        }
+
+        if (frame == null)
+        {
+            return fallback.apply(webhook);
+        }
+        if (dropped != null)
+        {
+            log.warn("Stream disconnected too long - giving up on webhook #{}", dropped.sequence);
+            dropped.result.complete(false);
+        }
+        return frame.result;
+    }
+
+    /**
+     * Whether the connection is open. Its pings stand in for the HTTP heartbeat.
+     */
+    public synchronized boolean isConnected()
+    {
+        return connected;
+    }
+
+    public synchronized boolean isRefused()
+    {
+        return refused;
+    }
+
+    public synchronized int pendingCount()
+    {
+        return pending.size();
+    }
+
+    /**
+     * Closes the connection for good. Anything still unacknowledged goes over HTTP instead.
+     */
+    public void close()
+    {
+        List<Frame> unacked;
+        synchronized (this)
+        {
+            if (closed)
+            {
+                return;
+            }
+            closed = true;
+            connected = false;
+            if (socket != null)
+            {
+                socket.close(NORMAL_CLOSURE, "Session ended");
+                socket = null;
+            }
+            unacked = drainPending();
+        }
+        sendOverHttp(unacked);
+    }
+
+    private void onOpen(WebSocket webSocket)
+    {
+        synchronized (this)
+        {
+            if (webSocket != socket)
+            {
+                return;
+            }
+
+            connected = true;
+            reconnect.onSuccess();
+            if (!pending.isEmpty())
+            {
+                log.info("Stream reconnected - resending {} unacknowledged webhooks", pending.size());
+            }
+            for (Frame frame : pending)
+            {
+                webSocket.send(frame.text());
+            }
+        }
+        log.info("Streaming webhooks over WebSocket (session {})", sessionId);
+    }
+
+    private void onMessage(WebSocket webSocket, String text)
+    {
+        long ack;
+        try
+        {
+            JsonObject message = JsonParser.parseString(text).getAsJsonObject();
+            if (message.has("missing") || message.has("resync"))
+            {
+                repairListener.accept(stringField(message, "missing"), stringField(message, "resync"));
+            }
+
+            JsonElement ackField = message.get("ack");
+            if (ackField == null)
+            {
+                return;
+            }
+            ack = ackField.getAsLong();
+        }
+        catch (RuntimeException e)
+        {
+            log.debug("Ignoring unreadable stream message: {}", e.getMessage());
+            return;
+        }
+
+        List<Frame> acked = new ArrayList<>();
+        synchronized (this)
+        {
+            if (webSocket != socket)
+            {
+                return;
+            }
+            lastAcked = Math.max(lastAcked, ack);
+            while (!pending.isEmpty() && pending.peekFirst().sequence <= ack)
+            {
+                acked.add(pending.pollFirst());
+            }
+        }
+        // Completed outside the lock - completions ack the outbox and record metrics
+        for (Frame frame : acked)
+        {
+            frame.result.complete(true);
+        }
+    }
+
+    private void onDisconnected(WebSocket webSocket, Response response, String reason)
+    {
+        List<Frame> unacked = Collections.emptyList();
+        synchronized (this)
+        {
+            if (webSocket != socket)
+            {
+                return;
+            }
+
+            boolean wasConnected = connected;
+            socket = null;
+            connected = false;
+
+            if (!wasConnected && response != null && refusesStreaming(response.code()))
+            {
+                // An HTTP answer instead of the upgrade - this backend does not stream
+                log.warn("Backend refused the WebSocket upgrade (HTTP {}) - sending webhooks over HTTP", response.code());
+                refused = true;
+                unacked = drainPending();
+            }
+            else
+            {
+                reconnect.onFailure();
+                long waitNanos = reconnect.nanosUntilProbe();
+                log.warn("Stream disconnected ({}) - reconnecting in {} ms", reason, TimeUnit.NANOSECONDS.toMillis(waitNanos));
+                scheduler.schedule(this::retry, waitNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        sendOverHttp(unacked);
+    }
+
+    /**
+     * Whether an HTTP answer to the upgrade means the backend will never stream, rather
+     * than that it could not right now.
+     */
+    private static boolean refusesStreaming(int code)
+    {
+        switch (code)
+        {
+            case 400:
+            case 401:
+            case 403:
+            case 404:
+            case 405:
+            case 426:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static String stringField(JsonObject message, String name)
+    {
+        JsonElement field = message.get(name);
+        return field != null && field.isJsonPrimitive() ? field.getAsString() : null;
+    }
+
+    private void retry()
+    {
+        if (reconnect.tryStartProbe())
+        {
+            connect();
+        }
+    }
+
+    private List<Frame> drainPending()
+    {
+        List<Frame> frames = new ArrayList<>(pending);
+        pending.clear();
+        return frames;
+    }
+
+    private void sendOverHttp(List<Frame> frames)
+    {
+        for (Frame frame : frames)
+        {
+            fallback.apply(frame.webhook).whenComplete((delivered, throwable) ->
+                frame.result.complete(Boolean.TRUE.equals(delivered)));
+        }
+    }
+
+    private static final class Frame
+    {
+        private final long sequence;
+        private final OutgoingWebhook webhook;
+        private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+        private Frame(long sequence, OutgoingWebhook webhook)
+        {
+            this.sequence = sequence;
+            this.webhook = webhook;
+        }
+
+        private String text()
+        {
+            // The webhook is already serialized - wrap it without re-encoding
+            return "{\"seq\":" + sequence + ",\"event\":" + webhook.getJson() + "}";
+        }
+    }
+
+    private final class Listener extends WebSocketListener
+    {
+        @Override
+        public void onOpen(WebSocket webSocket, Response response)
+        {
+            WebhookStream.this.onOpen(webSocket);
+        }
+
+        @Override
+        public void onMessage(WebSocket webSocket, String text)
+        {
+            WebhookStream.this.onMessage(webSocket, text);
+        }
+
+        @Override
+        public void onClosing(WebSocket webSocket, int code, String reason)
+        {
+            // The backend is going away - finish the close handshake and come back
+            webSocket.close(NORMAL_CLOSURE, null);
+            onDisconnected(webSocket, null, "closed by backend: " + code);
+        }
+
+        @Override
+        public void onFailure(WebSocket webSocket, Throwable t, Response response)
+        {
+            onDisconnected(webSocket, response, t.getMessage());
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package gimpanel.tracker.collectors;
+
+import gimpanel.tracker.util.EventTimings;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for CollectorWorker
+ */
+public class CollectorWorkerTest
+{
+    private final EventTimings timings = new EventTimings();
+    private final CollectorWorker worker = new CollectorWorker(timings);
+
+    @After
+    public void tearDown()
+    {
+        worker.shutdown();
+    }
+
+    @Test
+    public void testTasksRunInOrderOffCallerThread() throws Exception {
+        // Test that snapshots are processed in the order they were captured, on the worker thread
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        List<String> threads = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < 100; i++)
+        {
+            int task = i;
+            assertTrue("Task should be accepted", worker.execute("worker.test", () -> {
+                order.add(task);
+                threads.add(Thread.currentThread().getName());
+            }));
+        }
+        worker.shutdown();
+
+        assertEquals("All tasks should run", 100, order.size());
+        for (int i = 0; i < 100; i++)
+        {
+            assertEquals("Tasks should run in submission order", i, (int) order.get(i));
+        }
+        assertEquals("Tasks should run on the collector thread", "gimpanel-collector", threads.get(0));
+        assertEquals("Worker time should be recorded per task", 100, timings.snapshot().get("worker.test").getCount());
+    }
+
+    @Test
+    public void testFullQueueRejectsInsteadOfBlocking() throws Exception {
+        // Test that a stuck worker makes the client thread drop work rather than wait
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        worker.execute("worker.test", () -> {
+            started.countDown();
+            awaitQuietly(release);
+        });
+        assertTrue("Blocking task should start", started.await(5, TimeUnit.SECONDS));
+
+        int accepted = 0;
+        while (worker.execute("worker.test", () -> { }))
+        {
+            accepted++;
+            assertTrue("Queue should be bounded", accepted <= 1024);
+        }
+        release.countDown();
+
+        assertEquals("Queue should accept up to its bound", 1024, accepted);
+    }
+
+    @Test
+    public void testFailingTaskDoesNotStopWorker() throws Exception {
+        // Test that an exception in one collector task does not kill the thread for later ones
+        CountDownLatch ran = new CountDownLatch(1);
+        worker.execute("worker.test", () -> {
+            throw new IllegalStateException("boom");
+        });
+        worker.execute("worker.test", ran::countDown);
+
+        assertTrue("Task after a failure should still run", ran.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testRestartsAfterShutdown() throws Exception {
+        // Test that the plugin can be stopped and started again with the same singleton
+        worker.execute("worker.test", () -> { });
+        worker.shutdown();
+
+        CountDownLatch ran = new CountDownLatch(1);
+        assertTrue("Task should be accepted after shutdown", worker.execute("worker.test", ran::countDown));
+        assertTrue("Restarted worker should run tasks", ran.await(5, TimeUnit.SECONDS));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch)
+    {
+        try
+        {
+            latch.await(10, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
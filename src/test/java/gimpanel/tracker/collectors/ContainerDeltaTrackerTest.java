@@ -0,0 +1,246 @@
+package gimpanel.tracker.collectors;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import gimpanel.tracker.models.EnhancedInventoryData;
+import gimpanel.tracker.models.InventoryDeltaData;
+import gimpanel.tracker.models.WebhookPayload;
+import gimpanel.tracker.util.DataSerializer;
+import gimpanel.tracker.util.ExtraAdapters;
+import net.runelite.api.Item;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for ContainerDeltaTracker
+ */
+public class ContainerDeltaTrackerTest
+{
+    private static final int BANK = 95;
+
+    private final ContainerDeltaTracker tracker = new ContainerDeltaTracker();
+    private final DataSerializer serializer = new DataSerializer();
+    private final BackendReplica backend = new BackendReplica();
+
+    @Test
+    public void testFirstSightNeedsSnapshot() {
+        // Test that a container that was never sent gets a full base snapshot
+        assertNull("Unknown container should need a snapshot", tracker.diff(snapshot(bank(10))));
+        assertEquals("First version should be 1", 1, tracker.commit(snapshot(bank(10))));
+        assertTrue("Unchanged container should have no changes", tracker.diff(snapshot(bank(10))).isEmpty());
+    }
+
+    @Test
+    public void testSlotChangesAreMinimal() {
+        // Test that a single quantity change is one slot delta
+        Item[] items = bank(800);
+        tracker.commit(snapshot(items));
+
+        Item[] changed = items.clone();
+        changed[400] = new Item(items[400].getId(), items[400].getQuantity() + 7);
+        List<InventoryDeltaData.SlotDelta> changes = tracker.diff(snapshot(changed));
+
+        assertEquals("Only one slot should change", 1, changes.size());
+        assertEquals("Delta should carry the slot", 400, changes.get(0).getSlot());
+        assertEquals("Delta should carry the quantity difference", 7, changes.get(0).getQuantityDelta());
+    }
+
+    @Test
+    public void testBackendRebuildsStateFromDeltas() {
+        // Test that the backend stand-in ends up with exactly the container contents
+        Random random = new Random(42);
+        Item[] items = bank(800);
+        send(items);
+
+        for (int round = 0; round < 200; round++)
+        {
+            items = mutate(items, random);
+            send(items);
+            assertEquals("Backend state should match after round " + round, contents(items), backend.contents());
+        }
+        assertEquals("Every update after the base should be a delta", 200, backend.deltasApplied);
+    }
+
+    @Test
+    public void testResyncSendsNewBaseWithNextVersion() {
+        // Test that a resync request turns the next update into a snapshot that keeps versions increasing
+        Item[] items = bank(50);
+        send(items);
+        items = mutate(items, new Random(7));
+        send(items);
+
+        tracker.requestResync();
+        assertNull("Resync should force a snapshot", tracker.diff(snapshot(items)));
+        send(items);
+
+        assertEquals("Resync snapshot should follow the last delta", 3, backend.version);
+        assertEquals("Backend state should match after resync", contents(items), backend.contents());
+    }
+
+    /**
+     * Sends the container the way InventoryCollector does, through the real wire format.
+     */
+    private void send(Item[] items)
+    {
+        ContainerSnapshot snapshot = snapshot(items);
+        List<InventoryDeltaData.SlotDelta> changes = tracker.diff(snapshot);
+        if (changes == null)
+        {
+            List<EnhancedInventoryData.EnhancedInventoryItem> baseItems = new ArrayList<>();
+            for (int slot = 0; slot < items.length; slot++)
+            {
+                if (items[slot].getId() > 0 && items[slot].getQuantity() > 0)
+                {
+                    baseItems.add(new EnhancedInventoryData.EnhancedInventoryItem(items[slot].getId(), "Item", items[slot].getQuantity(),
+                        slot, 1, items[slot].getQuantity(), "Miscellaneous", false));
+                }
+            }
+            EnhancedInventoryData data = new EnhancedInventoryData("Player", "bank", baseItems, 0, baseItems.size(), baseItems.size());
+            data.setVersion(tracker.commit(snapshot));
+            backend.receive(serializer.toJson(new WebhookPayload("ENHANCED_INVENTORY", "Player"), ExtraAdapters.ENHANCED_INVENTORY, data));
+        }
+        else if (!changes.isEmpty())
+        {
+            InventoryDeltaData data = new InventoryDeltaData("Player", "bank", tracker.commit(snapshot), changes);
+            backend.receive(serializer.toJson(new WebhookPayload("INVENTORY_DELTA", "Player"), ExtraAdapters.INVENTORY_DELTA, data));
+        }
+    }
+
+    private static ContainerSnapshot snapshot(Item[] items)
+    {
+        return new ContainerSnapshot().capture(BANK, "Player", items);
+    }
+
+    private static Item[] bank(int slots)
+    {
+        Item[] items = new Item[slots];
+        for (int slot = 0; slot < slots; slot++)
+        {
+            items[slot] = new Item(1000 + slot, 1 + slot % 100);
+        }
+        return items;
+    }
+
+    private static Item[] mutate(Item[] items, Random random)
+    {
+        // Occasionally grow or shrink the container, like a bank tab being filled or emptied
+        int length = items.length;
+        if (random.nextInt(10) == 0)
+        {
+            length = Math.max(1, length + random.nextInt(21) - 10);
+        }
+
+        Item[] mutated = new Item[length];
+        for (int slot = 0; slot < length; slot++)
+        {
+            mutated[slot] = slot < items.length ? items[slot] : new Item(-1, 0);
+        }
+
+        for (int i = random.nextInt(5); i >= 0; i--)
+        {
+            int slot = random.nextInt(length);
+            switch (random.nextInt(3))
+            {
+                case 0: // quantity change
+                    int quantity = Math.max(1, mutated[slot].getQuantity() + random.nextInt(20) - 10);
+                    mutated[slot] = new Item(mutated[slot].getId() > 0 ? mutated[slot].getId() : 995, quantity);
+                    break;
+                case 1: // a different item in the slot
+                    mutated[slot] = new Item(2000 + random.nextInt(500), 1 + random.nextInt(50));
+                    break;
+                default: // withdrawn
+                    mutated[slot] = new Item(-1, 0);
+                    break;
+            }
+        }
+        return mutated;
+    }
+
+    private static Map<Integer, String> contents(Item[] items)
+    {
+        Map<Integer, String> contents = new HashMap<>();
+        for (int slot = 0; slot < items.length; slot++)
+        {
+            if (items[slot].getId() > 0 && items[slot].getQuantity() > 0)
+            {
+                contents.put(slot, items[slot].getId() + "x" + items[slot].getQuantity());
+            }
+        }
+        return contents;
+    }
+
+    /**
+     * What the backend needs to do: apply base snapshots and contiguous deltas from the JSON payloads.
+     */
+    private static class BackendReplica
+    {
+        private final Map<Integer, int[]> slots = new HashMap<>();
+        private long version = 0;
+        private int deltasApplied = 0;
+
+        void receive(String json)
+        {
+            JsonObject payload = JsonParser.parseString(json).getAsJsonObject();
+            JsonObject extra = payload.getAsJsonObject("extra");
+            long incoming = extra.get("version").getAsLong();
+
+            if ("ENHANCED_INVENTORY".equals(payload.get("type").getAsString()))
+            {
+                slots.clear();
+                for (JsonElement element : extra.getAsJsonArray("items"))
+                {
+                    JsonObject item = element.getAsJsonObject();
+                    slots.put(item.get("slot").getAsInt(), new int[]{item.get("itemId").getAsInt(), item.get("quantity").getAsInt()});
+                }
+                version = incoming;
+                return;
+            }
+
+            assertEquals("Delta should build on the previous version", version + 1, incoming);
+            for (JsonElement element : extra.getAsJsonArray("changes"))
+            {
+                JsonArray change = element.getAsJsonArray();
+                int slot = change.get(0).getAsInt();
+                int itemId = change.get(1).getAsInt();
+                int delta = change.get(2).getAsInt();
+
+                int[] current = slots.get(slot);
+                if (current == null)
+                {
+                    assertTrue("Empty slot can only be filled", delta > 0);
+                    slots.put(slot, new int[]{itemId, delta});
+                    continue;
+                }
+
+                assertEquals("Delta should target the item in the slot", current[0], itemId);
+                current[1] += delta;
+                assertTrue("Quantity should never go negative", current[1] >= 0);
+                if (current[1] == 0)
+                {
+                    slots.remove(slot);
+                }
+            }
+            version = incoming;
+            deltasApplied++;
+        }
+
+        Map<Integer, String> contents()
+        {
+            Map<Integer, String> contents = new HashMap<>();
+            for (Map.Entry<Integer, int[]> entry : slots.entrySet())
+            {
+                contents.put(entry.getKey(), entry.getValue()[0] + "x" + entry.getValue()[1]);
+            }
+            return contents;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package gimpanel.tracker.collectors;
+
+import gimpanel.tracker.config.GIMPanelConfig;
+import gimpanel.tracker.managers.DataManager;
+import gimpanel.tracker.managers.PlayerState;
+import gimpanel.tracker.models.EnhancedSkillData;
+import gimpanel.tracker.models.SkillBatchData;
+import gimpanel.tracker.util.ApiClient;
+import gimpanel.tracker.util.EventTimings;
+import gimpanel.tracker.util.MetricsRegistry;
+import net.runelite.api.Client;
+import net.runelite.api.Player;
+import net.runelite.api.Skill;
+import net.runelite.api.events.GameTick;
+import net.runelite.api.events.StatChanged;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for SkillCollector
+ */
+public class SkillCollectorTest
+{
+    private final Map<Skill, int[]> stats = new EnumMap<>(Skill.class);
+    private final Client client = client();
+    private final RecordingDataManager dataManager = new RecordingDataManager(client);
+    // Runs worker tasks inline, so everything happens in call order
+    private final SkillCollector collector = new SkillCollector(client, new CoalescingConfig(),
+        dataManager, new CollectorWorker(new EventTimings(), Runnable::run));
+
+    @Test
+    public void testFlushPendingSendsCoalescedLevelUp() {
+        // Test that a level-up still inside the coalescing window is sent when no more ticks will come
+        statChanged(Skill.MINING, 101_400, 50);
+        statChanged(Skill.MINING, 101_600, 51);
+        collector.onGameTick(new GameTick());
+        assertTrue("Nothing should be sent inside the window", dataManager.levelUps.isEmpty());
+
+        collector.flushPending();
+        assertEquals("Level-up should be sent on flush", 1, dataManager.levelUps.size());
+        assertEquals("Level-up should carry the latest XP", 101_600, dataManager.levelUps.get(0).getXp());
+
+        collector.flushPending();
+        for (int i = 0; i < 5; i++)
+        {
+            collector.onGameTick(new GameTick());
+        }
+        assertEquals("Flushed changes should not be sent again", 1, dataManager.levelUps.size());
+        assertTrue("No XP batch should follow", dataManager.batches.isEmpty());
+    }
+
+    private void statChanged(Skill skill, int xp, int level)
+    {
+        stats.put(skill, new int[]{xp, level});
+        collector.onStatChanged(new StatChanged(skill, xp, level, level));
+    }
+
+    private Client client()
+    {
+        Player player = stub(Player.class, (method, args) -> method.equals("getName") ? "Player" : null);
+        // Mining starts at level 50; the first stat change only sets the baseline
+        stats.put(Skill.MINING, new int[]{101_000, 50});
+        return stub(Client.class, (method, args) -> {
+            switch (method)
+            {
+                case "getLocalPlayer":
+                    return player;
+                case "getSkillExperience":
+                    return stats.getOrDefault((Skill) args[0], new int[2])[0];
+                case "getRealSkillLevel":
+                    return stats.getOrDefault((Skill) args[0], new int[2])[1];
+                default:
+                    return null;
+            }
+        });
+    }
+
+    private interface Answer
+    {
+        Object answer(String method, Object[] args);
+    }
+
+    /**
+     * Interface stand-in whose unanswered methods return the zero value of their type.
+     */
+    private static <T> T stub(Class<T> type, Answer answer)
+    {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (self, method, args) -> {
+            Object value = answer.answer(method.getName(), args);
+            Class<?> returnType = method.getReturnType();
+            if (value != null || !returnType.isPrimitive())
+            {
+                return value;
+            }
+            if (returnType == boolean.class)
+            {
+                return false;
+            }
+            return returnType == long.class ? (Object) 0L : (Object) 0;
+        }));
+    }
+
+    private static class CoalescingConfig implements GIMPanelConfig
+    {
+        @Override
+        public int xpCoalesceTicks()
+        {
+            return 3;
+        }
+    }
+
+    private static class RecordingDataManager extends DataManager
+    {
+        private final List<EnhancedSkillData> levelUps = new ArrayList<>();
+        private final List<SkillBatchData> batches = new ArrayList<>();
+
+        private RecordingDataManager(Client client)
+        {
+            super(client, new CoalescingConfig(), new ApiClient(), new MetricsRegistry(), new PlayerState(client));
+        }
+
+        @Override
+        public void queueEnhancedSkillUpdate(EnhancedSkillData skillData)
+        {
+            levelUps.add(skillData);
+        }
+
+        @Override
+        public void queueSkillBatchUpdate(SkillBatchData batchData)
+        {
+            batches.add(batchData);
+        }
+    }
+}
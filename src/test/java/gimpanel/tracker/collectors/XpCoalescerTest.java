@@ -0,0 +1,71 @@
+package gimpanel.tracker.collectors;
+
+import gimpanel.tracker.models.EnhancedSkillData;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for XpCoalescer
+ */
+public class XpCoalescerTest
+{
+    private final XpCoalescer coalescer = new XpCoalescer();
+
+    @Test
+    public void testSameTickChangesFlushTogether() {
+        // Test that Attack and Hitpoints XP from one hit go out in a single flush
+        coalescer.add(change("Attack", 60, 273742, 40, 0));
+        coalescer.add(change("Hitpoints", 60, 273000, 13, 0));
+
+        List<EnhancedSkillData> flushed = coalescer.tick(1);
+        assertEquals("Both skills should flush on the next tick", 2, flushed.size());
+        assertTrue("Nothing should remain pending", coalescer.tick(1).isEmpty());
+    }
+
+    @Test
+    public void testRepeatedChangesMergePerSkill() {
+        // Test that several XP drops in one skill are summed into one change
+        coalescer.add(change("Woodcutting", 50, 101400, 25, 0));
+        coalescer.add(change("Woodcutting", 51, 111500, 25, 1));
+        coalescer.add(change("Woodcutting", 51, 111525, 25, 0));
+
+        List<EnhancedSkillData> flushed = coalescer.tick(1);
+        assertEquals("Changes should merge into one skill", 1, flushed.size());
+        assertEquals("XP gained should be summed", 75, flushed.get(0).getXpGained());
+        assertEquals("Latest XP should win", 111525, flushed.get(0).getXp());
+        assertEquals("Level-up should be kept for the flush", 1, flushed.get(0).getLevelsGained());
+    }
+
+    @Test
+    public void testWindowSpansConfiguredTicks() {
+        // Test that a longer window holds changes until enough ticks have passed
+        coalescer.add(change("Fishing", 70, 737627, 50, 0));
+        assertTrue("First tick should not flush", coalescer.tick(3).isEmpty());
+        coalescer.add(change("Cooking", 70, 737627, 120, 0));
+        assertTrue("Second tick should not flush", coalescer.tick(3).isEmpty());
+
+        assertEquals("Third tick should flush both skills", 2, coalescer.tick(3).size());
+    }
+
+    @Test
+    public void testIdleTicksDoNotStartWindow() {
+        // Test that ticks without pending changes don't count toward the next window
+        for (int i = 0; i < 10; i++)
+        {
+            assertTrue("Idle ticks should flush nothing", coalescer.tick(3).isEmpty());
+        }
+        coalescer.add(change("Mining", 40, 37224, 35, 0));
+        assertTrue("Window should start at the first change", coalescer.tick(3).isEmpty());
+    }
+
+    private static EnhancedSkillData change(String skill, int level, long xp, long xpGained, int levelsGained)
+    {
+        EnhancedSkillData data = new EnhancedSkillData("Player", skill, level, xp, 1500, 90, 0.0, -1);
+        data.setXpGained(xpGained);
+        data.setLevelsGained(levelsGained);
+        return data;
+    }
+}
@@ -0,0 +1,595 @@
+package gimpanel.tracker.managers;
+
+import gimpanel.tracker.models.EnhancedInventoryData;
+import gimpanel.tracker.models.MetricsData;
+import gimpanel.tracker.util.LatencyHistogram;
+import gimpanel.tracker.util.MetricsRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for EventDispatcher
+ */
+public class EventDispatcherTest
+{
+    private EventDispatcher dispatcher;
+
+    @Before
+    public void setUp() {
+        dispatcher = new EventDispatcher();
+    }
+
+    @After
+    public void tearDown() {
+        dispatcher.stop(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testEveryEventTypeIsDelivered() throws InterruptedException {
+        // Test that no event type starves regardless of how many are registered
+        Set<EventType> delivered = ConcurrentHashMap.newKeySet();
+        CountDownLatch latch = new CountDownLatch(EventType.values().length);
+        for (EventType type : EventType.values())
+        {
+            dispatcher.register(type, String.class, payload -> {
+                delivered.add(type);
+                latch.countDown();
+            });
+        }
+        dispatcher.start();
+
+        for (EventType type : EventType.values())
+        {
+            assertTrue("Event should be accepted", dispatcher.publish(type, type.name()));
+        }
+
+        assertTrue("All events should be dispatched", latch.await(5, TimeUnit.SECONDS));
+        assertEquals("Every type should reach its handler", EnumSet.allOf(EventType.class), delivered);
+    }
+
+    @Test
+    public void testPublishBeforeStartIsRejected() {
+        // Test that events are not accepted while the dispatcher is stopped
+        assertFalse("Event should be rejected before start", dispatcher.publish(EventType.DROP, "drop"));
+    }
+
+    @Test
+    public void testStopDrainsPendingEvents() throws InterruptedException {
+        // Test that events already in the ring are handled before the consumer exits
+        CountDownLatch latch = new CountDownLatch(100);
+        dispatcher.register(EventType.XP, Integer.class, payload -> latch.countDown());
+        dispatcher.start();
+
+        for (int i = 0; i < 100; i++)
+        {
+            dispatcher.publish(EventType.XP, i);
+        }
+        dispatcher.stop(5, TimeUnit.SECONDS);
+
+        assertEquals("All pending events should be drained", 0, latch.getCount());
+    }
+
+    @Test
+    public void testHandlerFailureDoesNotStopDispatch() throws InterruptedException {
+        // Test that a throwing handler does not kill the consumer thread
+        CountDownLatch latch = new CountDownLatch(1);
+        dispatcher.register(EventType.QUEST, String.class, payload -> {
+            throw new IllegalStateException("boom");
+        });
+        dispatcher.register(EventType.DROP, String.class, payload -> latch.countDown());
+        dispatcher.start();
+
+        dispatcher.publish(EventType.QUEST, "quest");
+        dispatcher.publish(EventType.DROP, "drop");
+
+        assertTrue("Later events should still be dispatched", latch.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testQueueMetricsPerType() throws InterruptedException {
+        // Test that queued, dropped and queue latency are counted under the webhook type
+        MetricsRegistry metrics = new MetricsRegistry();
+        EventDispatcher small = new EventDispatcher(2, metrics);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch handled = new CountDownLatch(3);
+        small.register(EventType.DROP, String.class, payload -> {
+            try
+            {
+                release.await(5, TimeUnit.SECONDS);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+            handled.countDown();
+        });
+        small.start();
+
+        // The first event is taken by the consumer, the next two fill the ring, the last is dropped
+        assertTrue("First event should be accepted", small.publish(EventType.DROP, "first"));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (small.size() > 0 && System.currentTimeMillis() < deadline)
+        {
+            Thread.yield();
+        }
+        small.publish(EventType.DROP, "second");
+        small.publish(EventType.DROP, "third");
+        assertFalse("Event beyond capacity should be dropped", small.publish(EventType.DROP, "fourth"));
+
+        release.countDown();
+        assertTrue("Accepted events should be handled", handled.await(5, TimeUnit.SECONDS));
+        small.stop(1, TimeUnit.SECONDS);
+
+        MetricsData.TypeMetrics loot = metrics.snapshot("Player").getTypes().get(0);
+        assertEquals("Metrics should use the webhook type", "LOOT", loot.getType());
+        assertEquals("Accepted events should be counted", 3, loot.getQueued());
+        assertEquals("Dropped event should be counted", 1, loot.getDropped());
+        assertEquals("Every handled event should have a queue latency", 3, loot.getQueueLatency().getCount());
+        assertEquals("Ring high-water mark should be tracked", 2, small.getMaxSize());
+    }
+
+    @Test
+    public void testRateLimitSpreadsBurstInOrder() throws InterruptedException {
+        // Test that a burst beyond the bucket is held back and sent in order at the refill rate
+        List<Integer> delivered = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch latch = new CountDownLatch(6);
+        dispatcher.register(EventType.ENHANCED_XP, Integer.class, payload -> {
+            delivered.add(payload);
+            latch.countDown();
+        });
+        dispatcher.setRateLimiter(new RateLimiter(1000, 1000, 20, 2));
+        dispatcher.start();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 6; i++)
+        {
+            assertTrue("Event should be accepted", dispatcher.publish(EventType.ENHANCED_XP, i));
+        }
+
+        assertTrue("All events should eventually be sent", latch.await(5, TimeUnit.SECONDS));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("Four events past the burst should take about 200 ms, took " + elapsedMillis, elapsedMillis >= 150);
+        assertEquals("Events should keep their order", Arrays.asList(0, 1, 2, 3, 4, 5), delivered);
+    }
+
+    @Test
+    public void testStopSendsEventsHeldByRateLimit() {
+        // Test that events still waiting for tokens are not lost on shutdown
+        List<Integer> delivered = Collections.synchronizedList(new ArrayList<>());
+        dispatcher.register(EventType.DROP, Integer.class, delivered::add);
+        dispatcher.setRateLimiter(new RateLimiter(1000, 1000, 0.1, 1));
+        dispatcher.start();
+
+        for (int i = 0; i < 10; i++)
+        {
+            dispatcher.publish(EventType.DROP, i);
+        }
+        dispatcher.stop(5, TimeUnit.SECONDS);
+
+        assertEquals("Every event should be sent on stop", 10, delivered.size());
+    }
+
+    @Test
+    public void testHighLaneLatencyUnderSaturatedBulkLane() throws InterruptedException {
+        // Test that high-priority p99 stays near one bulk send while the bulk lane is saturated
+        LatencyHistogram highLatency = new LatencyHistogram();
+        AtomicInteger bulkHandled = new AtomicInteger();
+        CountDownLatch highDone = new CountDownLatch(200);
+        dispatcher.register(EventType.ENHANCED_INVENTORY, Integer.class, payload -> {
+            bulkHandled.incrementAndGet();
+            sleepMillis(2);
+        });
+        dispatcher.register(EventType.COLLECTION_LOG, Long.class, publishedAt -> {
+            highLatency.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - publishedAt));
+            highDone.countDown();
+        });
+        dispatcher.start();
+
+        // Far more bulk work than the test runs for, so the lane never empties
+        for (int i = 0; i < 4000; i++)
+        {
+            dispatcher.publish(EventType.ENHANCED_INVENTORY, i);
+        }
+        for (int i = 0; i < 200; i++)
+        {
+            dispatcher.publish(EventType.COLLECTION_LOG, System.nanoTime());
+            sleepMillis(3);
+        }
+
+        assertTrue("High-priority events should all be handled", highDone.await(10, TimeUnit.SECONDS));
+        long p99Millis = TimeUnit.MICROSECONDS.toMillis(highLatency.valueAtPercentile(99));
+        assertTrue("High-priority p99 should be within a few bulk sends, was " + p99Millis + " ms", p99Millis < 20);
+        assertTrue("Bulk lane should keep making progress", bulkHandled.get() > 100);
+        assertTrue("Bulk lane should still be saturated", dispatcher.size() > 0);
+    }
+
+    @Test
+    public void testLanesShareByWeight() throws InterruptedException {
+        // Test that a busy high lane still lets the bulk lane through at its weight
+        List<EventType> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(19);
+        dispatcher.register(EventType.DROP, String.class, payload -> {
+            blocked.countDown();
+            awaitQuietly(release);
+            done.countDown();
+        });
+        dispatcher.register(EventType.COLLECTION_LOG, Integer.class, payload -> {
+            order.add(EventType.COLLECTION_LOG);
+            done.countDown();
+        });
+        dispatcher.register(EventType.ENHANCED_INVENTORY, Integer.class, payload -> {
+            order.add(EventType.ENHANCED_INVENTORY);
+            done.countDown();
+        });
+        dispatcher.start();
+
+        // Hold the consumer so both lanes fill before it picks
+        dispatcher.publish(EventType.DROP, "blocker");
+        assertTrue("Consumer should pick up the blocker", blocked.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 16; i++)
+        {
+            dispatcher.publish(EventType.COLLECTION_LOG, i);
+        }
+        dispatcher.publish(EventType.ENHANCED_INVENTORY, 0);
+        dispatcher.publish(EventType.ENHANCED_INVENTORY, 1);
+        release.countDown();
+
+        assertTrue("All events should be handled", done.await(5, TimeUnit.SECONDS));
+        int firstBulk = order.indexOf(EventType.ENHANCED_INVENTORY);
+        assertTrue("Bulk should get a turn within one weighted round, was at " + firstBulk, firstBulk >= 0 && firstBulk < 9);
+        assertEquals("High lane should get most early turns", EventType.COLLECTION_LOG, order.get(0));
+    }
+
+    @Test
+    public void testDropOldestKeepsNewestWaitingEvents() throws InterruptedException {
+        // Test that a bounded type drops its oldest waiting events to make room for new ones
+        MetricsRegistry metrics = new MetricsRegistry();
+        EventDispatcher bounded = new EventDispatcher(64, metrics);
+        List<Integer> delivered = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(3);
+        bounded.register(EventType.XP, Integer.class, payload -> {
+            if (payload < 0)
+            {
+                blocked.countDown();
+                awaitQuietly(release);
+                return;
+            }
+            delivered.add(payload);
+            done.countDown();
+        });
+        bounded.bound(EventType.XP, 3, OverflowPolicy.DROP_OLDEST);
+        bounded.start();
+
+        bounded.publish(EventType.XP, -1);
+        assertTrue("Consumer should pick up the blocker", blocked.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 10; i++)
+        {
+            assertTrue("New event should always be accepted", bounded.publish(EventType.XP, i));
+        }
+        assertEquals("Queue depth should be reported per type", 3, metrics.snapshot("Player").getTypes().get(0).getWaiting());
+        release.countDown();
+
+        assertTrue("Waiting events should be handled", done.await(5, TimeUnit.SECONDS));
+        bounded.stop(1, TimeUnit.SECONDS);
+        assertEquals("Only the newest events should be sent", Arrays.asList(7, 8, 9), delivered);
+        assertEquals("Queue depth should fall back to zero", 0, metrics.snapshot("Player").getTypes().get(0).getWaiting());
+        assertEquals("Dropped events should be counted", 7, metrics.snapshot("Player").getTypes().get(0).getDropped());
+        assertEquals("No memory should stay accounted", 0, bounded.waitingBytes());
+    }
+
+    @Test
+    public void testDropOldestLeavesBacklogWhenBudgetIsUsedByOthers() throws InterruptedException {
+        // Test that a budget filled by another type refuses the new event instead of emptying this type's queue
+        MetricsRegistry metrics = new MetricsRegistry();
+        EventDispatcher bounded = new EventDispatcher(64, metrics);
+        List<String> delivered = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        bounded.register(EventType.DROP, String.class, payload -> {
+            if (payload.equals("blocker"))
+            {
+                blocked.countDown();
+                awaitQuietly(release);
+                return;
+            }
+            delivered.add(payload);
+        });
+        bounded.register(EventType.ENHANCED_INVENTORY, EnhancedInventoryData.class,
+            inventory -> delivered.add(inventory.getContainerName()));
+        bounded.bound(EventType.ENHANCED_INVENTORY, 10, OverflowPolicy.DROP_OLDEST);
+        bounded.setByteBudget(PayloadSizes.FLAT * 4);
+        bounded.start();
+
+        bounded.publish(EventType.DROP, "blocker");
+        assertTrue("Consumer should pick up the blocker", blocked.await(5, TimeUnit.SECONDS));
+        bounded.publish(EventType.ENHANCED_INVENTORY, inventory("inventory", 0));
+        for (int i = 0; i < 3; i++)
+        {
+            bounded.publish(EventType.DROP, "drop" + i);
+        }
+        // Larger than everything of its type waiting, so dropping those would not make room
+        assertFalse("New event should be refused while other types hold the budget",
+            bounded.publish(EventType.ENHANCED_INVENTORY, inventory("bank", 5)));
+        assertEquals("Budget should still be full", PayloadSizes.FLAT * 4, bounded.waitingBytes());
+        release.countDown();
+        bounded.stop(5, TimeUnit.SECONDS);
+
+        assertTrue("Waiting event of the type should still be sent", delivered.contains("inventory"));
+        assertFalse("Refused event should not be sent", delivered.contains("bank"));
+        assertEquals("Only the refused event should be counted as dropped", 1,
+            metrics.snapshot("Player").getTypes().stream().mapToLong(MetricsData.TypeMetrics::getDropped).sum());
+    }
+
+    @Test
+    public void testCoalescePolicyReplacesNewestWaitingEvent() throws InterruptedException {
+        // Test that an overflowing coalesced type updates its newest waiting event in place
+        MetricsRegistry metrics = new MetricsRegistry();
+        EventDispatcher bounded = new EventDispatcher(64, metrics);
+        List<String> delivered = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(2);
+        bounded.register(EventType.ACTIVITY, String.class, payload -> {
+            if (payload.equals("blocker"))
+            {
+                blocked.countDown();
+                awaitQuietly(release);
+                return;
+            }
+            delivered.add(payload);
+            done.countDown();
+        });
+        bounded.bound(EventType.ACTIVITY, 2, OverflowPolicy.COALESCE);
+        bounded.start();
+
+        bounded.publish(EventType.ACTIVITY, "blocker");
+        assertTrue("Consumer should pick up the blocker", blocked.await(5, TimeUnit.SECONDS));
+        for (String activity : Arrays.asList("a", "b", "c", "d"))
+        {
+            bounded.publish(EventType.ACTIVITY, activity);
+        }
+        release.countDown();
+
+        assertTrue("Waiting events should be handled", done.await(5, TimeUnit.SECONDS));
+        bounded.stop(1, TimeUnit.SECONDS);
+        assertEquals("Overflow should replace the newest waiting event", Arrays.asList("a", "d"), delivered);
+        assertEquals("Replaced events should be counted", 2, metrics.snapshot("Player").getTypes().get(0).getCoalesced());
+    }
+
+    @Test
+    public void testByteBudgetSpillsOverflow() throws InterruptedException {
+        // Test that events over the memory budget go to the spill sink, and are dropped when it refuses
+        MetricsRegistry metrics = new MetricsRegistry();
+        EventDispatcher bounded = new EventDispatcher(64, metrics);
+        List<String> delivered = Collections.synchronizedList(new ArrayList<>());
+        List<Runnable> spilled = new ArrayList<>();
+        AtomicInteger sinkRoom = new AtomicInteger(2);
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        bounded.register(EventType.DROP, String.class, payload -> {
+            if (payload.equals("blocker"))
+            {
+                blocked.countDown();
+                awaitQuietly(release);
+                return;
+            }
+            delivered.add(payload);
+        });
+        bounded.bound(EventType.DROP, 100, OverflowPolicy.SPILL);
+        bounded.setByteBudget(PayloadSizes.FLAT * 2);
+        bounded.setSpillSink(task -> sinkRoom.getAndDecrement() > 0 && spilled.add(task));
+        bounded.start();
+
+        bounded.publish(EventType.DROP, "blocker");
+        assertTrue("Consumer should pick up the blocker", blocked.await(5, TimeUnit.SECONDS));
+        List<Boolean> accepted = new ArrayList<>();
+        for (int i = 0; i < 5; i++)
+        {
+            accepted.add(bounded.publish(EventType.DROP, "drop" + i));
+        }
+        assertEquals("Only the last event should be refused", Arrays.asList(true, true, true, true, false), accepted);
+        assertEquals("Budget should be full", PayloadSizes.FLAT * 2, bounded.waitingBytes());
+        release.countDown();
+        bounded.stop(5, TimeUnit.SECONDS);
+
+        spilled.forEach(Runnable::run);
+        assertEquals("Waiting events first, then the spilled ones", Arrays.asList("drop0", "drop1", "drop2", "drop3"), delivered);
+        MetricsData.TypeMetrics type = metrics.snapshot("Player").getTypes().get(0);
+        assertEquals("Spilled events should be counted", 2, type.getSpilled());
+        assertEquals("Refused event should be counted as dropped", 1, type.getDropped());
+    }
+
+    @Test
+    public void testKeyedTypeKeepsLatestValuePerKey() throws InterruptedException {
+        // Test that state events replace the waiting value of their key, while unkeyed ones all queue
+        MetricsRegistry metrics = new MetricsRegistry();
+        EventDispatcher keyed = new EventDispatcher(64, metrics);
+        List<String> delivered = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(4);
+        keyed.register(EventType.ACTIVITY, String.class, payload -> {
+            if (payload.equals("blocker"))
+            {
+                blocked.countDown();
+                awaitQuietly(release);
+                return;
+            }
+            delivered.add(payload);
+            done.countDown();
+        });
+        // "key:value" payloads are state, anything else is an event
+        keyed.keyed(EventType.ACTIVITY, String.class,
+            payload -> payload.contains(":") ? payload.substring(0, payload.indexOf(':')) : null, 1, TimeUnit.MINUTES);
+        keyed.start();
+
+        keyed.publish(EventType.ACTIVITY, "blocker");
+        assertTrue("Consumer should pick up the blocker", blocked.await(5, TimeUnit.SECONDS));
+        for (String payload : Arrays.asList("location:1", "deposit", "resources:1", "location:2", "deposit", "location:3", "resources:2"))
+        {
+            assertTrue("Every event should be accepted", keyed.publish(EventType.ACTIVITY, payload));
+        }
+        release.countDown();
+
+        assertTrue("Waiting events should be handled", done.await(5, TimeUnit.SECONDS));
+        keyed.stop(1, TimeUnit.SECONDS);
+        assertEquals("Each key should send its latest value in its original place",
+            Arrays.asList("location:3", "deposit", "resources:2", "deposit"), delivered);
+        assertEquals("Replaced values should be counted", 3, metrics.snapshot("Player").getTypes().get(0).getCoalesced());
+    }
+
+    @Test
+    public void testKeyedEventPastTimeToLiveIsDropped() throws InterruptedException {
+        // Test that state which waited longer than its time-to-live is not sent
+        MetricsRegistry metrics = new MetricsRegistry();
+        EventDispatcher keyed = new EventDispatcher(64, metrics);
+        List<String> delivered = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        keyed.register(EventType.PLAYER_DATA, String.class, payload -> {
+            if (payload.equals("blocker"))
+            {
+                blocked.countDown();
+                awaitQuietly(release);
+                return;
+            }
+            delivered.add(payload);
+        });
+        keyed.keyed(EventType.PLAYER_DATA, String.class, payload -> payload.equals("blocker") ? null : "player", 20, TimeUnit.MILLISECONDS);
+        keyed.start();
+
+        keyed.publish(EventType.PLAYER_DATA, "blocker");
+        assertTrue("Consumer should pick up the blocker", blocked.await(5, TimeUnit.SECONDS));
+        keyed.publish(EventType.PLAYER_DATA, "sync");
+        sleepMillis(50);
+        release.countDown();
+        keyed.stop(5, TimeUnit.SECONDS);
+
+        assertTrue("Stale state should not be sent", delivered.isEmpty());
+        assertEquals("Stale state should be counted as dropped", 1, metrics.snapshot("Player").getTypes().get(0).getDropped());
+        assertEquals("No memory should stay accounted", 0, keyed.waitingBytes());
+    }
+
+    @Test
+    public void testOrderedDeltasFollowTheirSnapshotUnderLoad() throws InterruptedException {
+        // Test that a container's deltas never overtake its snapshot while the bulk lane is backed up
+        Map<String, List<Integer>> received = new ConcurrentHashMap<>();
+        CountDownLatch done = new CountDownLatch(50 * 4);
+        dispatcher.register(EventType.INVENTORY, Integer.class, payload -> sleepMillis(1));
+        dispatcher.register(EventType.ENHANCED_INVENTORY, String.class, payload -> {
+            received.computeIfAbsent(payload, container -> Collections.synchronizedList(new ArrayList<>())).add(0);
+            done.countDown();
+        });
+        dispatcher.register(EventType.INVENTORY_DELTA, String.class, payload -> {
+            String container = payload.substring(0, payload.indexOf('#'));
+            received.computeIfAbsent(container, c -> Collections.synchronizedList(new ArrayList<>()))
+                .add(Integer.parseInt(payload.substring(payload.indexOf('#') + 1)));
+            done.countDown();
+        });
+        dispatcher.order(EventType.ENHANCED_INVENTORY, EventType.INVENTORY_DELTA);
+        dispatcher.setRateLimiter(new RateLimiter(100_000, 1000, 2000, 5));
+        dispatcher.start();
+
+        // Bulk work ahead of every snapshot, while the deltas ride the busier normal lane
+        for (int i = 0; i < 200; i++)
+        {
+            dispatcher.publish(EventType.INVENTORY, i);
+        }
+        for (int container = 0; container < 50; container++)
+        {
+            dispatcher.publish(EventType.ENHANCED_INVENTORY, "bank" + container);
+            for (int version = 1; version <= 3; version++)
+            {
+                dispatcher.publish(EventType.INVENTORY_DELTA, "bank" + container + "#" + version);
+            }
+        }
+
+        assertTrue("Every snapshot and delta should be sent", done.await(10, TimeUnit.SECONDS));
+        for (Map.Entry<String, List<Integer>> container : received.entrySet())
+        {
+            assertEquals("Snapshot should come before its deltas, in order, for " + container.getKey(),
+                Arrays.asList(0, 1, 2, 3), container.getValue());
+        }
+        assertEquals("Every container should be received", 50, received.size());
+    }
+
+    @Test
+    public void testHighLaneEventTakesEarlierOrderedEventsAlong() throws InterruptedException {
+        // Test that a level-up does not overtake XP progress published before it, and keeps its priority
+        List<String> delivered = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(3);
+        dispatcher.register(EventType.SKILL_BATCH, String.class, payload -> {
+            delivered.add(payload);
+            done.countDown();
+        });
+        dispatcher.register(EventType.ENHANCED_SKILL, String.class, payload -> {
+            delivered.add(payload);
+            done.countDown();
+        });
+        dispatcher.order(EventType.ENHANCED_SKILL, EventType.SKILL_BATCH);
+        // One batch per second, so the second one waits for a token
+        dispatcher.setRateLimiter(new RateLimiter(1000, 1000, 1, 1));
+        dispatcher.start();
+
+        dispatcher.publish(EventType.SKILL_BATCH, "batch1");
+        dispatcher.publish(EventType.SKILL_BATCH, "batch2");
+        sleepMillis(50);
+        long start = System.nanoTime();
+        dispatcher.publish(EventType.ENHANCED_SKILL, "level");
+
+        assertTrue("All events should be sent", done.await(5, TimeUnit.SECONDS));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertEquals("Waiting batch should go just before the level-up", Arrays.asList("batch1", "batch2", "level"), delivered);
+        assertTrue("Level-up should not wait for the batch's token, took " + elapsedMillis, elapsedMillis < 500);
+    }
+
+    private static EnhancedInventoryData inventory(String containerName, int items)
+    {
+        EnhancedInventoryData.EnhancedInventoryItem item =
+            new EnhancedInventoryData.EnhancedInventoryItem(995, "Coins", 1, 0, 1, 1, "Currency", false);
+        return new EnhancedInventoryData("Player", containerName, new ArrayList<>(Collections.nCopies(items, item)), 0, items, items);
+    }
+
+    private static void sleepMillis(long millis)
+    {
+        try
+        {
+            Thread.sleep(millis);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch)
+    {
+        try
+        {
+            latch.await(5, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
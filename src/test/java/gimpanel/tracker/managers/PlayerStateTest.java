@@ -0,0 +1,194 @@
+package gimpanel.tracker.managers;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import gimpanel.tracker.models.PlayerData;
+import gimpanel.tracker.util.ExtraAdapters;
+import net.runelite.api.Skill;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for PlayerState
+ */
+public class PlayerStateTest
+{
+    // The client is only read by the event adapters, which these tests do not use
+    private final PlayerState state = new PlayerState(null);
+
+    @Test
+    public void testIdlePlayerNeedsNoSync() {
+        // Test that unchanged values leave nothing to sync once the state was sent
+        loggedIn();
+        assertTrue("First state should need a sync", state.needsSync());
+        assertNotNull("Snapshot should be built", state.takeSnapshot());
+
+        state.updateName("Player");
+        state.updateWorld(301);
+        state.updateLocation(3222, 3218, 0);
+        state.updateCombatLevel(90);
+        state.updateSkill(Skill.ATTACK, 1_000_000, 70, 70);
+        assertFalse("Same values should not need a sync", state.needsSync());
+    }
+
+    @Test
+    public void testRunningTotalsFollowSkillChanges() {
+        // Test that total XP and level are kept from each skill's change, with small XP gains held back
+        loggedIn();
+        state.takeSnapshot();
+
+        state.updateSkill(Skill.ATTACK, 1_000_500, 70, 70);
+        assertFalse("XP under the threshold should not need a sync", state.needsSync());
+        state.updateSkill(Skill.MINING, 200_800, 61, 61);
+        assertTrue("XP over the threshold should need a sync", state.needsSync());
+
+        PlayerData data = state.takeSnapshot();
+        assertEquals("Total XP should sum every skill", 1_000_500 + 200_800 + 13_034_431, data.getTotalXp());
+        assertEquals("Total level should include the level-up", 230, data.getTotalLevel());
+    }
+
+    @Test
+    public void testSmallXpGainsAddUpAcrossMoves() {
+        // Test that XP gains under the threshold still add up when other changes are synced in between
+        loggedIn();
+        state.acknowledge(state.takeSnapshot());
+
+        state.updateSkill(Skill.ATTACK, 1_000_600, 70, 70);
+        state.updateLocation(3223, 3218, 0);
+        PlayerData moved = state.takeSnapshot();
+        assertEquals("Small XP gain should not be sent with the move", PlayerData.LOCATION, moved.getChangedFields());
+        state.acknowledge(moved);
+
+        state.updateSkill(Skill.ATTACK, 1_001_200, 70, 70);
+        assertTrue("Gains since the last XP sync should need a sync", state.needsSync());
+        state.updateLocation(3224, 3218, 0);
+        PlayerData data = state.takeSnapshot();
+        assertEquals("Total XP should be sent with the next move", PlayerData.LOCATION | PlayerData.TOTAL_XP, data.getChangedFields());
+    }
+
+    @Test
+    public void testResourcesRideAlongWithNextSync() {
+        // Test that resource changes alone do not sync, but are in the next payload
+        loggedIn();
+        state.takeSnapshot();
+
+        state.updateSkill(Skill.HITPOINTS, 13_034_431, 99, 45);
+        state.updateEnergy(5000, 100);
+        assertFalse("Resource changes alone should not need a sync", state.needsSync());
+
+        state.updateLocation(3223, 3218, 0);
+        assertTrue("A move should need a sync", state.needsSync());
+        PlayerData data = state.takeSnapshot();
+        assertEquals("Location should be the new tile", 3223, data.getLocation().getX());
+        assertEquals("Health should be the boosted level", 45, data.getResources().getHealth());
+        assertEquals("Run energy should be carried along", 5000, data.getResources().getEnergy());
+    }
+
+    @Test
+    public void testClearForgetsPlayer() {
+        // Test that after logout there is nothing to sync until the player is seen again
+        loggedIn();
+        state.markAllDirty();
+        state.clear();
+        assertFalse("Cleared state should not need a sync", state.needsSync());
+        assertNull("No snapshot without a player", state.takeSnapshot());
+    }
+
+    @Test
+    public void testDeltasRebuildFullState() {
+        // Test that a backend applying keyframes and deltas ends up with the same state a full sync carries
+        loggedIn();
+        PlayerData first = state.takeSnapshot();
+        assertTrue("First sync should be a keyframe", first.isKeyframe());
+        JsonObject backend = apply(new JsonObject(), first);
+        state.acknowledge(first);
+
+        state.updateLocation(3223, 3218, 0);
+        PlayerData moved = state.takeSnapshot();
+        assertFalse("A move should be sent as a delta", moved.isKeyframe());
+        String delta = ExtraAdapters.PLAYER_SYNC_DELTA.toJson(moved);
+        assertTrue("Delta should carry the new location", delta.contains("\"location\""));
+        assertFalse("Delta should leave out unchanged fields", delta.contains("\"totalXp\""));
+        assertTrue("Delta should be under half the full payload",
+            delta.length() * 2 < ExtraAdapters.PLAYER_SYNC.toJson(moved).length());
+        backend = apply(backend, moved);
+        state.acknowledge(moved);
+
+        state.updateSkill(Skill.MINING, 260_000, 65, 65);
+        state.updateWorld(302);
+        state.updateEnergy(4200, 50);
+        PlayerData latest = state.takeSnapshot();
+        backend = apply(backend, latest);
+
+        JsonObject full = JsonParser.parseString(ExtraAdapters.PLAYER_SYNC.toJson(latest)).getAsJsonObject();
+        full.addProperty("keyframe", false);
+        assertEquals("Rebuilt state should match the full sync", full, backend);
+    }
+
+    @Test
+    public void testUnacknowledgedFieldsAreSentAgain() {
+        // Test that fields of a sync that was not delivered go out with the next one until acknowledged
+        loggedIn();
+        state.acknowledge(state.takeSnapshot());
+
+        state.updateLocation(3223, 3218, 0);
+        PlayerData lost = state.takeSnapshot();
+        state.updateCombatLevel(91);
+        PlayerData next = state.takeSnapshot();
+        assertEquals("Lost location should be sent again", PlayerData.LOCATION | PlayerData.COMBAT_LEVEL, next.getChangedFields());
+
+        state.acknowledge(lost);
+        state.updateWorld(302);
+        assertEquals("An older acknowledgement should not clear newer fields",
+            PlayerData.LOCATION | PlayerData.COMBAT_LEVEL | PlayerData.WORLD, state.takeSnapshot().getChangedFields());
+
+        state.acknowledge(state.takeSnapshot());
+        state.updateWorld(303);
+        assertEquals("Acknowledged fields should not be sent again", PlayerData.WORLD, state.takeSnapshot().getChangedFields());
+    }
+
+    @Test
+    public void testResyncSendsKeyframe() {
+        // Test that marking everything dirty turns the next sync into a keyframe
+        loggedIn();
+        state.acknowledge(state.takeSnapshot());
+        state.markAllDirty();
+        assertTrue("Resync should need a sync", state.needsSync());
+        PlayerData data = state.takeSnapshot();
+        assertTrue("Resync should be a keyframe", data.isKeyframe());
+        assertEquals("Keyframe should carry every field", PlayerData.ALL_FIELDS, data.getChangedFields());
+    }
+
+    /**
+     * Applies a sync the way the backend would: a keyframe replaces the state, a delta
+     * replaces the fields it carries.
+     */
+    private static JsonObject apply(JsonObject backend, PlayerData data)
+    {
+        JsonObject sync = JsonParser.parseString(ExtraAdapters.PLAYER_SYNC_DELTA.toJson(data)).getAsJsonObject();
+        if (sync.get("keyframe").getAsBoolean())
+        {
+            return sync;
+        }
+        for (Map.Entry<String, JsonElement> field : sync.entrySet())
+        {
+            backend.add(field.getKey(), field.getValue());
+        }
+        return backend;
+    }
+
+    private void loggedIn()
+    {
+        state.updateName("Player");
+        state.updateWorld(301);
+        state.updateLocation(3222, 3218, 0);
+        state.updateCombatLevel(90);
+        state.updateSkill(Skill.ATTACK, 1_000_000, 70, 70);
+        state.updateSkill(Skill.MINING, 200_000, 60, 60);
+        state.updateSkill(Skill.HITPOINTS, 13_034_431, 99, 99);
+    }
+}
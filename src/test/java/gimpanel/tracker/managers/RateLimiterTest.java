@@ -0,0 +1,52 @@
+package gimpanel.tracker.managers;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for RateLimiter
+ */
+public class RateLimiterTest
+{
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    public void testTypeBucketLimitsOneType() {
+        // Test that one busy type runs out while other types still have tokens
+        RateLimiter limiter = new RateLimiter(100, 100, 1, 3, now::get);
+        for (int i = 0; i < 3; i++)
+        {
+            assertTrue("XP burst should be allowed", limiter.tryAcquire(EventType.ENHANCED_XP));
+        }
+        assertFalse("XP should be limited after its burst", limiter.tryAcquire(EventType.ENHANCED_XP));
+        assertTrue("Drops should not be affected", limiter.tryAcquire(EventType.DROP));
+    }
+
+    @Test
+    public void testGlobalBucketLimitsAllTypes() {
+        // Test that the global bucket caps the sum across types without taking type tokens on refusal
+        RateLimiter limiter = new RateLimiter(1, 2, 10, 10, now::get);
+        assertTrue("First send should be allowed", limiter.tryAcquire(EventType.DROP));
+        assertTrue("Second send should be allowed", limiter.tryAcquire(EventType.QUEST));
+        assertFalse("Third send should hit the global limit", limiter.tryAcquire(EventType.ENHANCED_XP));
+        assertEquals("Wait should be one global token", TimeUnit.SECONDS.toNanos(1),
+            limiter.nanosUntilAvailable(EventType.ENHANCED_XP), 1_000);
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertTrue("Send should be allowed once the global bucket refills", limiter.tryAcquire(EventType.ENHANCED_XP));
+    }
+
+    @Test
+    public void testUnlimitedAlwaysAllows() {
+        // Test that the default limiter never holds anything back
+        for (int i = 0; i < 1000; i++)
+        {
+            assertTrue("Unlimited should allow every send", RateLimiter.unlimited().tryAcquire(EventType.XP));
+        }
+        assertEquals("Unlimited should never wait", 0, RateLimiter.unlimited().nanosUntilAvailable(EventType.XP));
+    }
+}
@@ -0,0 +1,35 @@
+package gimpanel.tracker.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for BackendCapabilities
+ */
+public class BackendCapabilitiesTest
+{
+    private final BackendCapabilities capabilities = new BackendCapabilities();
+
+    @Test
+    public void testRevokedFeatureStaysOffWhenAdvertisedAgain() {
+        // Test that a rejected feature is not re-enabled by the next response advertising it
+        capabilities.update("batch, gzip");
+        capabilities.revoke(BackendCapabilities.BATCH);
+        capabilities.update("batch, gzip");
+
+        assertFalse("Revoked feature should stay off", capabilities.supports(BackendCapabilities.BATCH));
+        assertTrue("Other features should still be used", capabilities.supports(BackendCapabilities.GZIP));
+    }
+
+    @Test
+    public void testResetForgetsRevokedFeatures() {
+        // Test that reconfiguring gives a rejected feature another chance
+        capabilities.update("batch");
+        capabilities.revoke(BackendCapabilities.BATCH);
+        capabilities.reset();
+        capabilities.update("batch");
+
+        assertTrue("Feature should be used again after a reset", capabilities.supports(BackendCapabilities.BATCH));
+    }
+}
@@ -0,0 +1,104 @@
+package gimpanel.tracker.util;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.TypeAdapter;
+import gimpanel.tracker.models.DropData;
+import gimpanel.tracker.models.EnhancedInventoryData;
+import gimpanel.tracker.models.EnhancedSkillData;
+import gimpanel.tracker.models.InventoryDeltaData;
+import gimpanel.tracker.models.WebhookPayload;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for BinaryJsonWriter
+ */
+public class BinaryJsonWriterTest
+{
+    private final DataSerializer serializer = new DataSerializer();
+
+    @Test
+    public void testAdapterPayloadsDecodeToSameJson() {
+        // Test that every sample model decodes to exactly the JSON tree the text encoding writes
+        EnhancedSkillData skill = new EnhancedSkillData("Zezima", "Slayer", 87, 4_100_000, 1_240, 88, 52_000.5, 600);
+        skill.setXpGained(-3);
+        assertRoundTrip("ENHANCED_XP_GAIN", ExtraAdapters.ENHANCED_XP, skill);
+
+        DropData drop = new DropData("Zezima", "Dragon bones", 536, 1, "Green dragon");
+        drop.setValue(2500);
+        assertRoundTrip("LOOT", ExtraAdapters.DROP, drop);
+
+        EnhancedInventoryData.EnhancedInventoryItem item =
+            new EnhancedInventoryData.EnhancedInventoryItem(995, "Coins", Integer.MAX_VALUE, 0, 1, Integer.MAX_VALUE, "Currency", false);
+        EnhancedInventoryData inventory = new EnhancedInventoryData("Zezima", "Bank", Arrays.asList(item), Integer.MAX_VALUE, Integer.MAX_VALUE, 1);
+        assertRoundTrip("ENHANCED_INVENTORY", ExtraAdapters.ENHANCED_INVENTORY, inventory);
+
+        InventoryDeltaData delta = new InventoryDeltaData("Zezima", "Inventory", 42, Arrays.asList(
+            new InventoryDeltaData.SlotDelta(3, 385, -1), new InventoryDeltaData.SlotDelta(4, 2434, 1)));
+        assertRoundTrip("INVENTORY_DELTA", ExtraAdapters.INVENTORY_DELTA, delta);
+    }
+
+    @Test
+    public void testTranscodedJsonMatchesDirectEncoding() {
+        // Test that re-encoding serialized JSON gives the same bytes as encoding the model, and handles batches
+        DropData drop = new DropData("Zezima", "Dragon bones", 536, 1, "Green dragon");
+        WebhookPayload payload = new WebhookPayload("LOOT", "Zezima");
+        String json = serializer.toJson(payload, ExtraAdapters.DROP, drop);
+
+        assertArrayEquals("Transcoded bytes should match direct encoding",
+            serializer.toBinary(payload, ExtraAdapters.DROP, drop), serializer.toBinary(json));
+
+        String batch = "[" + json + "," + json + "]";
+        assertEquals("Batch array should decode to the same JSON", JsonParser.parseString(batch),
+            BinaryPayloadDecoder.decode(serializer.toBinary(batch)));
+    }
+
+    @Test
+    public void testUnknownKeysAndTypesAreSentInline() {
+        // Test that map extras with keys and types outside the tables still round-trip
+        WebhookPayload payload = new WebhookPayload("KILL_COUNT", "Zezima");
+        payload.setExtra(Map.of("boss", "Vorkath", "killCount", 250, "type", "LOOT"));
+        String json = serializer.toJson(payload);
+
+        assertEquals("Map payload should decode to the same JSON", JsonParser.parseString(json),
+            BinaryPayloadDecoder.decode(serializer.toBinary(json)));
+    }
+
+    @Test
+    public void testBinaryIsSmallerThanJson() {
+        // Test that a small skill update is well under half its JSON size
+        EnhancedSkillData skill = new EnhancedSkillData("Zezima", "Slayer", 87, 4_100_000, 1_240, 88, 0, 600);
+        WebhookPayload payload = new WebhookPayload("ENHANCED_XP_GAIN", "Zezima");
+        payload.setSource("gimpanel-tracker");
+
+        int json = serializer.toJson(payload, ExtraAdapters.ENHANCED_XP, skill).getBytes(StandardCharsets.UTF_8).length;
+        int binary = serializer.toBinary(payload, ExtraAdapters.ENHANCED_XP, skill).length;
+        assertTrue("Binary should be under half of JSON (" + json + " -> " + binary + ")", binary * 2 < json);
+    }
+
+    @Test
+    public void testTablesHaveNoDuplicates() {
+        // Test that each key and type has a single code, since the backend decodes by position
+        assertEquals("Keys should be unique", BinaryJsonWriter.KEYS.size(), new HashSet<>(BinaryJsonWriter.KEYS).size());
+        assertEquals("Types should be unique", BinaryJsonWriter.TYPES.size(), new HashSet<>(BinaryJsonWriter.TYPES).size());
+    }
+
+    private <T> void assertRoundTrip(String type, TypeAdapter<T> adapter, T extra)
+    {
+        WebhookPayload payload = new WebhookPayload(type, "Zezima");
+        payload.setSource("gimpanel-tracker");
+        payload.setEventId("3f2b8c1e-5d4a-4b7e-9c21-0a6f1e2d3c4b");
+        payload.setSessionId("9d1e7a42-6b3c-4f85-a0d9-2c7b5e8f1a36");
+        payload.setSequence(Long.MAX_VALUE);
+        JsonElement expected = JsonParser.parseString(serializer.toJson(payload, adapter, extra));
+        assertEquals(type + " should decode to the same JSON", expected,
+            BinaryPayloadDecoder.decode(serializer.toBinary(payload, adapter, extra)));
+    }
+}
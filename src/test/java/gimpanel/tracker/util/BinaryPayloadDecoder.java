@@ -0,0 +1,127 @@
+package gimpanel.tracker.util;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reference decoder for the binary wire format, turning a body back into the JSON tree the
+ * text encoding would have produced. Backends can check their own decoder against it.
+ */
+public class BinaryPayloadDecoder
+{
+    private final byte[] bytes;
+    private int position;
+
+    private BinaryPayloadDecoder(byte[] bytes)
+    {
+        this.bytes = bytes;
+    }
+
+    public static JsonElement decode(byte[] bytes)
+    {
+        BinaryPayloadDecoder decoder = new BinaryPayloadDecoder(bytes);
+        if (decoder.readByte() != BinaryJsonWriter.MAGIC || decoder.readByte() != BinaryJsonWriter.VERSION)
+        {
+            throw new IllegalArgumentException("Not a version " + BinaryJsonWriter.VERSION + " binary payload");
+        }
+
+        JsonElement value = decoder.readValue(decoder.readByte());
+        if (decoder.position != bytes.length)
+        {
+            throw new IllegalArgumentException((bytes.length - decoder.position) + " trailing bytes");
+        }
+        return value;
+    }
+
+    private JsonElement readValue(int tag)
+    {
+        switch (tag)
+        {
+            case BinaryJsonWriter.NULL:
+                return JsonNull.INSTANCE;
+            case BinaryJsonWriter.FALSE:
+                return new JsonPrimitive(false);
+            case BinaryJsonWriter.TRUE:
+                return new JsonPrimitive(true);
+            case BinaryJsonWriter.INT:
+                long zigzag = readVarint();
+                return new JsonPrimitive((zigzag >>> 1) ^ -(zigzag & 1));
+            case BinaryJsonWriter.DOUBLE:
+                long bits = 0;
+                for (int i = 0; i < 8; i++)
+                {
+                    bits = (bits << 8) | readByte();
+                }
+                return new JsonPrimitive(Double.longBitsToDouble(bits));
+            case BinaryJsonWriter.STRING:
+                return new JsonPrimitive(readString());
+            case BinaryJsonWriter.TYPE:
+                return new JsonPrimitive(BinaryJsonWriter.TYPES.get((int) readVarint()));
+            case BinaryJsonWriter.BEGIN_ARRAY:
+                JsonArray array = new JsonArray();
+                for (int next = readByte(); next != BinaryJsonWriter.END; next = readByte())
+                {
+                    array.add(readValue(next));
+                }
+                return array;
+            case BinaryJsonWriter.BEGIN_OBJECT:
+                JsonObject object = new JsonObject();
+                for (int next = readByte(); next != BinaryJsonWriter.END; next = readByte())
+                {
+                    String key;
+                    if (next == BinaryJsonWriter.KEY)
+                    {
+                        key = BinaryJsonWriter.KEYS.get((int) readVarint());
+                    }
+                    else if (next == BinaryJsonWriter.KEY_STRING)
+                    {
+                        key = readString();
+                    }
+                    else
+                    {
+                        throw new IllegalArgumentException("Expected a key at " + (position - 1) + ", got tag " + next);
+                    }
+                    object.add(key, readValue(readByte()));
+                }
+                return object;
+            default:
+                throw new IllegalArgumentException("Unknown tag " + tag + " at " + (position - 1));
+        }
+    }
+
+    private String readString()
+    {
+        int length = (int) readVarint();
+        String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    private long readVarint()
+    {
+        long value = 0;
+        for (int shift = 0; ; shift += 7)
+        {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+            {
+                return value;
+            }
+        }
+    }
+
+    private int readByte()
+    {
+        if (position >= bytes.length)
+        {
+            throw new IllegalArgumentException("Truncated payload");
+        }
+        return bytes[position++] & 0xFF;
+    }
+}
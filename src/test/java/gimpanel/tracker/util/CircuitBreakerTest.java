@@ -0,0 +1,85 @@
+package gimpanel.tracker.util;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for CircuitBreaker
+ */
+public class CircuitBreakerTest
+{
+    private final AtomicLong now = new AtomicLong();
+    private double jitter = 1.0;
+
+    private CircuitBreaker breaker()
+    {
+        return new CircuitBreaker(3, 1, 8, TimeUnit.SECONDS, now::get, () -> jitter);
+    }
+
+    @Test
+    public void testOpensAfterConsecutiveFailures() {
+        // Test that only an unbroken run of failures reaching the threshold opens the breaker
+        CircuitBreaker breaker = breaker();
+        assertFalse("First failure should not open", breaker.onFailure());
+        assertFalse("Second failure should not open", breaker.onFailure());
+        breaker.onSuccess();
+        assertFalse("A success should reset the count", breaker.onFailure());
+        assertFalse("Second failure after reset should not open", breaker.onFailure());
+        assertTrue("Third consecutive failure should open", breaker.onFailure());
+        assertFalse("Requests should be refused while open", breaker.isClosed());
+    }
+
+    @Test
+    public void testSingleProbeAfterBackoff() {
+        // Test that exactly one probe is allowed once the backoff passes, and its success closes the breaker
+        CircuitBreaker breaker = breaker();
+        openBreaker(breaker);
+
+        assertFalse("No probe before the backoff", breaker.tryStartProbe());
+        now.addAndGet(breaker.nanosUntilProbe());
+        assertTrue("Probe should be allowed after the backoff", breaker.tryStartProbe());
+        assertFalse("Only one probe should be out at a time", breaker.tryStartProbe());
+        assertEquals("Breaker should be half-open during the probe", CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        assertTrue("Successful probe should close the breaker", breaker.onSuccess());
+        assertTrue("Requests should flow again", breaker.isClosed());
+    }
+
+    @Test
+    public void testFailedProbesDoubleBackoffUpToCap() {
+        // Test that each failed probe doubles the wait until the cap
+        CircuitBreaker breaker = breaker();
+        openBreaker(breaker);
+
+        long[] expectedSeconds = {1, 2, 4, 8, 8};
+        for (long expected : expectedSeconds)
+        {
+            long wait = breaker.nanosUntilProbe();
+            assertEquals("Backoff should be " + expected + " s", TimeUnit.SECONDS.toNanos(expected), wait);
+            now.addAndGet(wait);
+            assertTrue("Probe should be allowed", breaker.tryStartProbe());
+            assertTrue("Failed probe should reopen", breaker.onFailure());
+        }
+    }
+
+    @Test
+    public void testJitterKeepsAtLeastHalfTheBackoff() {
+        // Test that jitter spreads the probe between half and all of the nominal backoff
+        jitter = 0.0;
+        CircuitBreaker breaker = breaker();
+        openBreaker(breaker);
+        assertEquals("Lowest jitter should wait half the backoff", TimeUnit.MILLISECONDS.toNanos(500), breaker.nanosUntilProbe());
+    }
+
+    private static void openBreaker(CircuitBreaker breaker)
+    {
+        while (!breaker.onFailure())
+        {
+            // Keep failing until the threshold is reached
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package gimpanel.tracker.util;
+
+import gimpanel.tracker.models.EnhancedInventoryData;
+import gimpanel.tracker.models.EnhancedSkillData;
+import gimpanel.tracker.models.WebhookPayload;
+import okio.Buffer;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for CompressedJsonBody
+ */
+public class CompressedJsonBodyTest
+{
+    private final DataSerializer serializer = new DataSerializer();
+
+    @Test
+    public void testGzipBodyDecodesToOriginalJson() throws Exception {
+        // Test that a gzip body is a standard gzip stream of the exact JSON
+        String json = inventoryJson();
+        CompressedJsonBody body = CompressedJsonBody.gzip(json);
+
+        assertEquals("Encoding should be gzip", "gzip", body.getEncoding());
+        assertEquals("Decoded body should match the JSON", json, gunzip(written(body)));
+    }
+
+    @Test
+    public void testDictionaryBodyDecodesToOriginalJson() throws Exception {
+        // Test that a dictionary body inflates with the bundled dictionary and names it in its header
+        String json = skillJson();
+        CompressedJsonBody body = CompressedJsonBody.withDictionary(json);
+        byte[] bytes = written(body);
+
+        Inflater inflater = new Inflater();
+        inflater.setInput(bytes);
+        byte[] out = new byte[json.length() * 4];
+        assertEquals("Nothing should inflate before the dictionary is set", 0, inflater.inflate(out));
+        assertTrue("Stream should ask for a dictionary", inflater.needsDictionary());
+        assertEquals("Stream should name the bundled dictionary", CompressedJsonBody.dictionaryId(),
+            Long.toHexString(inflater.getAdler() & 0xffffffffL));
+
+        inflater.setDictionary(CompressedJsonBody.dictionary());
+        int length = inflater.inflate(out);
+        assertTrue("Stream should be complete", inflater.finished());
+        inflater.end();
+        assertEquals("Decoded body should match the JSON", json, new String(out, 0, length, StandardCharsets.UTF_8));
+        assertEquals("Content length should match written bytes", bytes.length, body.contentLength());
+    }
+
+    @Test
+    public void testCompressionRatioAgainstFormEncoding() throws Exception {
+        // Test that a full inventory shrinks well over 5x compared to the form encoding, with either encoding
+        String json = inventoryJson();
+        long form = new FormEncodedJsonBody("payload_json", json).contentLength();
+        long gzip = CompressedJsonBody.gzip(json).contentLength();
+        long dictionary = CompressedJsonBody.withDictionary(json).contentLength();
+
+        assertTrue("Gzip body should be over 5x smaller (" + form + " -> " + gzip + ")", gzip * 5 < form);
+        assertTrue("Dictionary body should be over 10x smaller (" + form + " -> " + dictionary + ")", dictionary * 10 < form);
+    }
+
+    @Test
+    public void testDictionaryHelpsSmallPayloads() throws Exception {
+        // Test that the dictionary still pays off on a single skill update, where gzip alone barely halves it
+        String json = skillJson();
+        long form = new FormEncodedJsonBody("payload_json", json).contentLength();
+        long gzip = CompressedJsonBody.gzip(json).contentLength();
+        long dictionary = CompressedJsonBody.withDictionary(json).contentLength();
+
+        assertTrue("Dictionary body should be over 4x smaller (" + form + " -> " + dictionary + ")", dictionary * 4 < form);
+        assertTrue("Dictionary body should be under half of gzip (" + gzip + " -> " + dictionary + ")", dictionary * 2 < gzip);
+    }
+
+    private String inventoryJson()
+    {
+        String[] names = {"Shark", "Prayer potion(4)", "Super restore(4)", "Saradomin brew(4)", "Ranging potion(4)"};
+        int[] ids = {385, 2434, 3024, 6685, 2444};
+        List<EnhancedInventoryData.EnhancedInventoryItem> items = new ArrayList<>();
+        for (int slot = 0; slot < 28; slot++)
+        {
+            int kind = slot % names.length;
+            items.add(new EnhancedInventoryData.EnhancedInventoryItem(ids[kind], names[kind], 1, slot,
+                800 + kind * 150, 800 + kind * 150, "Consumable", false));
+        }
+        EnhancedInventoryData inventory = new EnhancedInventoryData("Zezima", "Inventory", items, 28000, 28, 5);
+
+        WebhookPayload payload = new WebhookPayload("ENHANCED_INVENTORY", "Zezima");
+        payload.setSource("gimpanel-tracker");
+        return serializer.toJson(payload, ExtraAdapters.ENHANCED_INVENTORY, inventory);
+    }
+
+    private String skillJson()
+    {
+        EnhancedSkillData skill = new EnhancedSkillData("Zezima", "Slayer", 87, 4_100_000, 1_240, 88, 0, 600);
+        WebhookPayload payload = new WebhookPayload("ENHANCED_XP_GAIN", "Zezima");
+        payload.setSource("gimpanel-tracker");
+        return serializer.toJson(payload, ExtraAdapters.ENHANCED_XP, skill);
+    }
+
+    private static byte[] written(CompressedJsonBody body) throws Exception
+    {
+        Buffer buffer = new Buffer();
+        body.writeTo(buffer);
+        return buffer.readByteArray();
+    }
+
+    private static String gunzip(byte[] bytes) throws Exception
+    {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes)))
+        {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = in.read(buffer)) != -1)
+            {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package gimpanel.tracker.util;
+
+import gimpanel.tracker.models.DropData;
+import gimpanel.tracker.models.WebhookPayload;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for DataSerializer
+ */
+public class DataSerializerTest
+{
+    private final DataSerializer serializer = new DataSerializer();
+
+    @Test
+    public void testEventIdIsReadBack() {
+        // Test that a payload's own event id is read back, wherever the field sits
+        String json = loot("3f2b8c1e-5d4a-4b7e-9c21-0a6f1e2d3c4b", 7);
+        assertEquals("Should read the event id", "3f2b8c1e-5d4a-4b7e-9c21-0a6f1e2d3c4b", serializer.eventId(json));
+        assertEquals("Field order should not matter", "abc",
+            serializer.eventId("{\"extra\":{\"eventId\":1},\"eventId\":\"abc\"}"));
+        assertNull("Payload without an event id should have none", serializer.eventId("{\"type\":\"LOOT\"}"));
+    }
+
+    @Test
+    public void testEnvelopeCarriesSessionAndSequence() {
+        // Test that the serialized payload carries the session id and sequence number
+        String json = loot("3f2b8c1e-5d4a-4b7e-9c21-0a6f1e2d3c4b", 42);
+        assertTrue("JSON should contain the session id", json.contains("\"sessionId\":\"session\""));
+        assertTrue("JSON should contain the sequence number", json.contains("\"sequence\":42"));
+    }
+
+    private String loot(String eventId, long sequence)
+    {
+        WebhookPayload payload = new WebhookPayload("LOOT", "Zezima");
+        payload.setEventId(eventId);
+        payload.setSessionId("session");
+        payload.setSequence(sequence);
+        return serializer.toJson(payload, ExtraAdapters.DROP, new DropData("Zezima", "Dragon bones", 536, 1, "Green dragon"));
+    }
+}
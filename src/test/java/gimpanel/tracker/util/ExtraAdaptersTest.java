@@ -0,0 +1,113 @@
+package gimpanel.tracker.util;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import gimpanel.tracker.models.DropData;
+import gimpanel.tracker.models.EnhancedInventoryData;
+import gimpanel.tracker.models.EnhancedSkillData;
+import gimpanel.tracker.models.WebhookPayload;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for ExtraAdapters
+ */
+public class ExtraAdaptersTest
+{
+    private final DataSerializer serializer = new DataSerializer();
+
+    @Test
+    public void testDropMatchesMapPayload() {
+        // Test that the adapter writes the same payload the map-based extra produced
+        DropData drop = new DropData("Player", "Dragon bones", 536, 1, "Green dragon");
+        drop.setRarity("common");
+        drop.setValue(2500);
+        drop.setLocation("Wilderness");
+
+        Map<String, Object> extra = Map.of(
+            "itemName", "Dragon bones",
+            "itemId", 536,
+            "quantity", 1,
+            "source", "Green dragon",
+            "rarity", "common",
+            "value", 2500L,
+            "location", "Wilderness");
+
+        assertEquals("Drop payload should be unchanged", mapPayload("LOOT", extra),
+            adapterPayload("LOOT", ExtraAdapters.DROP, drop));
+    }
+
+    @Test
+    public void testEnhancedXpWritesTimingInsteadOfRank() {
+        // Test that the two enhanced skill shapes keep their own fields
+        EnhancedSkillData skill = new EnhancedSkillData("Player", "Attack", 70, 737627, 1500, 90, 0, 12345);
+
+        JsonObject level = adapterPayload("ENHANCED_LEVEL", ExtraAdapters.ENHANCED_SKILL, skill).getAsJsonObject("extra");
+        JsonObject xp = adapterPayload("ENHANCED_XP_GAIN", ExtraAdapters.ENHANCED_XP, skill).getAsJsonObject("extra");
+
+        assertEquals("Level payload should carry the rank", 12345, level.get("rank").getAsInt());
+        assertFalse("Level payload should not carry timing", level.has("timeSinceLastUpdate"));
+        assertTrue("XP payload should carry timing", xp.has("timeSinceLastUpdate"));
+        assertFalse("XP payload should not carry the rank", xp.has("rank"));
+    }
+
+    @Test
+    public void testEnhancedInventoryMatchesMapPayload() {
+        // Test that nested items and breakdowns are written like the map-based extra
+        EnhancedInventoryData.EnhancedInventoryItem item =
+            new EnhancedInventoryData.EnhancedInventoryItem(995, "Coins", 1000, 0, 1, 1000, "Currency", false);
+        EnhancedInventoryData inventory = new EnhancedInventoryData("Player", "Inventory",
+            Collections.singletonList(item), 1000, 1000, 1);
+        inventory.setCategories(Map.of("Currency", new EnhancedInventoryData.CategoryBreakdown("Currency", 1, 1000)));
+
+        Map<String, Object> extra = Map.of(
+            "containerName", "Inventory",
+            "totalValue", 1000L,
+            "totalItems", 1000,
+            "uniqueItems", 1,
+            "items", List.of(Map.of(
+                "itemId", 995,
+                "slot", 0,
+                "itemName", "Coins",
+                "quantity", 1000,
+                "itemValue", 1,
+                "totalValue", 1000L,
+                "category", "Currency",
+                "noted", false)),
+            "categories", Map.of("Currency", Map.of("category", "Currency", "count", 1, "value", 1000L)),
+            "valueRanges", Map.of());
+
+        assertEquals("Inventory payload should be unchanged", mapPayload("ENHANCED_INVENTORY", extra),
+            adapterPayload("ENHANCED_INVENTORY", ExtraAdapters.ENHANCED_INVENTORY, inventory));
+    }
+
+    @Test
+    public void testMissingValuesAreOmitted() {
+        // Test that null model fields are skipped instead of failing the whole webhook
+        DropData drop = new DropData("Player", "Bones", 526, 1, null);
+
+        JsonObject extra = adapterPayload("LOOT", ExtraAdapters.DROP, drop).getAsJsonObject("extra");
+        assertFalse("Missing source should be omitted", extra.has("source"));
+        assertEquals("Present fields should still be written", "Bones", extra.get("itemName").getAsString());
+    }
+
+    private JsonObject mapPayload(String type, Map<String, Object> extra)
+    {
+        WebhookPayload payload = new WebhookPayload(type, "Player");
+        payload.setTimestamp(1L);
+        payload.setExtra(extra);
+        return JsonParser.parseString(serializer.toJson(payload)).getAsJsonObject();
+    }
+
+    private <T> JsonObject adapterPayload(String type, com.google.gson.TypeAdapter<T> adapter, T extra)
+    {
+        WebhookPayload payload = new WebhookPayload(type, "Player");
+        payload.setTimestamp(1L);
+        return JsonParser.parseString(serializer.toJson(payload, adapter, extra)).getAsJsonObject();
+    }
+}
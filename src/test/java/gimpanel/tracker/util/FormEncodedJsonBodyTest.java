@@ -0,0 +1,69 @@
+package gimpanel.tracker.util;
+
+import okhttp3.FormBody;
+import okio.Buffer;
+import org.junit.Test;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for FormEncodedJsonBody
+ */
+public class FormEncodedJsonBodyTest
+{
+    @Test
+    public void testBodyDecodesToOriginalJson() throws Exception {
+        // Test that the streamed body is a valid form field holding the exact JSON
+        String json = "{\"type\":\"LOOT\",\"extra\":{\"itemName\":\"Dragon bones & ashes\",\"note\":\"50% off\"}}";
+        Buffer buffer = new Buffer();
+        new FormEncodedJsonBody("payload_json", json).writeTo(buffer);
+
+        String body = buffer.readUtf8();
+        assertTrue("Body should start with the field name", body.startsWith("payload_json="));
+        assertEquals("Decoded field should match the JSON", json,
+            URLDecoder.decode(body.substring("payload_json=".length()), StandardCharsets.UTF_8.name()));
+    }
+
+    @Test
+    public void testNonAsciiCharactersAreEncodedAsUtf8() throws Exception {
+        // Test that multi-byte characters, including surrogate pairs, survive encoding
+        String json = "{\"playerName\":\"Zézima ☃ 🐉\"}";
+        Buffer buffer = new Buffer();
+        new FormEncodedJsonBody("payload_json", json).writeTo(buffer);
+
+        String body = buffer.readUtf8();
+        assertEquals("Decoded field should match the JSON", json,
+            URLDecoder.decode(body.substring("payload_json=".length()), StandardCharsets.UTF_8.name()));
+    }
+
+    @Test
+    public void testContentLengthMatchesWrittenBytes() throws Exception {
+        // Test that the declared length is exact so OkHttp can send a fixed-length body
+        String[] samples = {"{}", "{\"a\":\"b c\"}", "{\"name\":\"Zézima 🐉\"}", "{\"bad\":\"\uD800\"}"};
+        for (String json : samples)
+        {
+            FormEncodedJsonBody body = new FormEncodedJsonBody("payload_json", json);
+            Buffer buffer = new Buffer();
+            body.writeTo(buffer);
+            assertEquals("Content length should match for " + json, buffer.size(), body.contentLength());
+        }
+    }
+
+    @Test
+    public void testBytesMatchFormBody() throws Exception {
+        // Test that the body is byte for byte what OkHttp's FormBody writes for the same field
+        String[] samples = {"{\"note\":\"Dragon bones & ashes, 50% off!\"}", "{\"a\":\"b c+d~e*f\"}",
+            "{\"name\":\"Zézima ☃ 🐉\"}", "{\"bad\":\"\uD800\"}"};
+        for (String json : samples)
+        {
+            Buffer expected = new Buffer();
+            new FormBody.Builder().add("payload_json", json).build().writeTo(expected);
+            Buffer actual = new Buffer();
+            new FormEncodedJsonBody("payload_json", json).writeTo(actual);
+            assertEquals("Body should match FormBody for " + json, expected.readUtf8(), actual.readUtf8());
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package gimpanel.tracker.util;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for LatencyHistogram
+ */
+public class LatencyHistogramTest
+{
+    @Test
+    public void testBucketsStayWithinRelativeError() {
+        // Test that every value maps to a bucket whose upper bound is within 12.5% of it
+        Random random = new Random(3);
+        for (int i = 0; i < 100_000; i++)
+        {
+            long value = random.nextInt(64) < 8 ? random.nextInt(16) : (long) Math.abs(random.nextGaussian() * Math.pow(10, random.nextInt(12)));
+            long reported = LatencyHistogram.highestValueIn(LatencyHistogram.bucketOf(value));
+            assertTrue("Reported value should not be below " + value, reported >= value);
+            assertTrue("Reported value " + reported + " should be within 12.5% of " + value, reported - value <= value / 8);
+        }
+        assertEquals("Largest value should fit in the last bucket", Long.MAX_VALUE,
+            LatencyHistogram.highestValueIn(LatencyHistogram.bucketOf(Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void testPercentiles() {
+        // Test percentiles over a known uniform distribution of 1..10000
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int value = 1; value <= 10_000; value++)
+        {
+            histogram.record(value);
+        }
+
+        assertEquals("Count should include every value", 10_000, histogram.getCount());
+        assertEquals("Max should be exact", 10_000, histogram.getMax());
+        assertEquals("p50 should be near 5000", 5000, histogram.valueAtPercentile(50), 5000 / 8.0);
+        assertEquals("p99 should be near 9900", 9900, histogram.valueAtPercentile(99), 9900 / 8.0);
+        assertEquals("p100 should be capped at max", 10_000, histogram.valueAtPercentile(100));
+    }
+
+    @Test
+    public void testEmptyAndNegative() {
+        // Test that an empty histogram reports zero and negative durations are clamped
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals("Empty histogram should report 0", 0, histogram.valueAtPercentile(99));
+
+        histogram.record(-5);
+        assertEquals("Negative value should be recorded as 0", 0, histogram.valueAtPercentile(50));
+        assertEquals("Negative value should still be counted", 1, histogram.getCount());
+    }
+}
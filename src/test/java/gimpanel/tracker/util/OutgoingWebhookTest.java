@@ -0,0 +1,35 @@
+package gimpanel.tracker.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for OutgoingWebhook
+ */
+public class OutgoingWebhookTest
+{
+    @Test
+    public void testBatchKeyFollowsItsEvents() {
+        // Test that a batch key is the same for the same events and differs when they change
+        OutgoingWebhook first = webhook("3f2b8c1e-5d4a-4b7e-9c21-0a6f1e2d3c4b");
+        OutgoingWebhook second = webhook("9d1e7a42-6b3c-4f85-a0d9-2c7b5e8f1a36");
+
+        String key = OutgoingWebhook.idempotencyKey(Arrays.asList(first, second));
+        assertNotNull("Batch should have a key", key);
+        assertEquals("Same batch should get the same key", key,
+            OutgoingWebhook.idempotencyKey(Arrays.asList(webhook(first.getEventId()), webhook(second.getEventId()))));
+        assertNotEquals("Different events should get a different key", key,
+            OutgoingWebhook.idempotencyKey(Collections.singletonList(first)));
+        assertNull("Batch with an entry lacking an event id should have no key",
+            OutgoingWebhook.idempotencyKey(Arrays.asList(first, webhook(null))));
+    }
+
+    private static OutgoingWebhook webhook(String eventId)
+    {
+        return new OutgoingWebhook("{\"type\":\"LOOT\"}", eventId, true, false);
+    }
+}
@@ -0,0 +1,55 @@
+package gimpanel.tracker.util;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for RecentKeys
+ */
+public class RecentKeysTest
+{
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void testRepeatWithinWindowIsSuppressed() {
+        // Test that a key is reported once per window, and again once the window has passed
+        RecentKeys recent = new RecentKeys(16, 3, TimeUnit.SECONDS);
+        assertTrue("First sighting should be reported", recent.offer(42L, 0));
+        assertFalse("Repeat within the window should be suppressed", recent.offer(42L, 2 * SECOND));
+        assertTrue("Other keys should not be affected", recent.offer(43L, 2 * SECOND));
+        assertTrue("Revisit after the window should be reported", recent.offer(42L, 3 * SECOND));
+        assertFalse("Window should restart from the new report", recent.offer(42L, 5 * SECOND));
+    }
+
+    @Test
+    public void testMemoryStaysFixed() {
+        // Test that far more keys than fit keep the table at its size and still suppress recent ones
+        RecentKeys recent = new RecentKeys(64, 3, TimeUnit.SECONDS);
+        assertEquals("Capacity should be fixed up front", 64, recent.capacity());
+
+        for (long key = 0; key < 100_000; key++)
+        {
+            recent.offer(key, key);
+        }
+        assertEquals("Capacity should not grow", 64, recent.capacity());
+        assertFalse("Most recent key should still be remembered", recent.offer(99_999L, 100_000));
+    }
+
+    @Test
+    public void testFullSetReusesLeastRecentlyReported() {
+        // Test that a full set gives up the key reported longest ago, not a recent one
+        RecentKeys recent = new RecentKeys(4, 1, TimeUnit.MINUTES);
+        for (long key = 1; key <= 4; key++)
+        {
+            recent.offer(key, key * SECOND);
+        }
+
+        assertTrue("New key should take a slot", recent.offer(5L, 10 * SECOND));
+        assertTrue("Oldest key should have been forgotten", recent.offer(1L, 11 * SECOND));
+        assertFalse("Newest keys should be remembered", recent.offer(4L, 12 * SECOND));
+        assertFalse("New key should be remembered", recent.offer(5L, 12 * SECOND));
+    }
+}
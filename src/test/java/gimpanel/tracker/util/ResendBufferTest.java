@@ -0,0 +1,71 @@
+package gimpanel.tracker.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for ResendBuffer
+ */
+public class ResendBufferTest
+{
+    @Test
+    public void testCollectsRequestedRanges() {
+        // Test that ranges and single sequence numbers are returned in the order asked for
+        ResendBuffer buffer = filled(8, 10);
+        assertEquals("Should return the range then the single event", Arrays.asList("e4", "e5", "e6", "e9"),
+            jsons(buffer.collect("4-6, 9")));
+        assertEquals("Single event should be returned", Arrays.asList("e10"), jsons(buffer.collect("10")));
+    }
+
+    @Test
+    public void testEvictedOrUnsentEventsNeedResync() {
+        // Test that asking for anything no longer or not yet held returns null
+        ResendBuffer buffer = filled(8, 10);
+        assertNull("Overwritten events should not be returned", buffer.collect("1-5"));
+        assertNull("Events not yet sent should not be returned", buffer.collect("10-11"));
+
+        buffer.clear();
+        assertNull("Cleared buffer should hold nothing", buffer.collect("9"));
+    }
+
+    @Test
+    public void testStateIsRememberedWithoutItsWebhook() {
+        // Test that state keeps its sequence number, so asking for it is told apart from an evicted event
+        ResendBuffer buffer = filled(8, 10);
+        buffer.put(11, null);
+        buffer.put(12, new OutgoingWebhook("e12", null, true, false));
+        assertEquals("State should come back as null between the durable events", Arrays.asList("e10", null, "e12"),
+            jsons(buffer.collect("10-12")));
+    }
+
+    @Test
+    public void testMalformedRequestsNeedResync() {
+        // Test that unreadable, reversed or oversized requests are refused
+        ResendBuffer buffer = filled(8, 10);
+        assertNull("Garbage should be refused", buffer.collect("soon"));
+        assertNull("Reversed range should be refused", buffer.collect("6-4"));
+        assertNull("Negative sequence should be refused", buffer.collect("-3"));
+        assertNull("Empty request should be refused", buffer.collect(""));
+        assertNull("Range beyond the cap should be refused", buffer.collect("1-" + (ResendBuffer.MAX_RANGE + 1)));
+    }
+
+    private static ResendBuffer filled(int capacity, int count)
+    {
+        ResendBuffer buffer = new ResendBuffer(capacity);
+        for (long sequence = 1; sequence <= count; sequence++)
+        {
+            buffer.put(sequence, new OutgoingWebhook("e" + sequence, null, true, false));
+        }
+        return buffer;
+    }
+
+    private static List<String> jsons(List<OutgoingWebhook> webhooks)
+    {
+        return webhooks.stream().map(webhook -> webhook != null ? webhook.getJson() : null).collect(Collectors.toList());
+    }
+}
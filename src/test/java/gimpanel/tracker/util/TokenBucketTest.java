@@ -0,0 +1,59 @@
+package gimpanel.tracker.util;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for TokenBucket
+ */
+public class TokenBucketTest
+{
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    public void testBurstThenRefill() {
+        // Test that a full bucket allows its burst, then one token per refill interval
+        TokenBucket bucket = new TokenBucket(2, 5, now::get);
+        for (int i = 0; i < 5; i++)
+        {
+            assertTrue("Burst token " + i + " should be available", bucket.tryAcquire());
+        }
+        assertFalse("Bucket should be empty after the burst", bucket.tryAcquire());
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(499));
+        assertFalse("No token before half a second at 2/s", bucket.tryAcquire());
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        assertTrue("A token should refill after half a second", bucket.tryAcquire());
+    }
+
+    @Test
+    public void testRefillIsCappedAtBurst() {
+        // Test that a long idle period does not bank more than the burst
+        TokenBucket bucket = new TokenBucket(10, 3, now::get);
+        now.addAndGet(TimeUnit.MINUTES.toNanos(10));
+
+        int acquired = 0;
+        while (bucket.tryAcquire())
+        {
+            acquired++;
+        }
+        assertEquals("Only the burst should be available", 3, acquired);
+    }
+
+    @Test
+    public void testNanosUntilAvailable() {
+        // Test that the wait estimate matches when the next token arrives
+        TokenBucket bucket = new TokenBucket(4, 1, now::get);
+        assertEquals("A full bucket needs no wait", 0, bucket.nanosUntilAvailable());
+
+        bucket.tryAcquire();
+        long wait = bucket.nanosUntilAvailable();
+        assertEquals("Wait should be a quarter second", TimeUnit.MILLISECONDS.toNanos(250), wait, 1_000);
+        now.addAndGet(wait);
+        assertTrue("Token should be available after the wait", bucket.available());
+    }
+}
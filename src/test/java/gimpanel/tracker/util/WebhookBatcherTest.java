@@ -0,0 +1,110 @@
+package gimpanel.tracker.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for WebhookBatcher
+ */
+public class WebhookBatcherTest
+{
+    private ScheduledExecutorService scheduler;
+    private List<List<OutgoingWebhook>> batches;
+    private WebhookBatcher batcher;
+
+    @Before
+    public void setUp() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        batches = Collections.synchronizedList(new ArrayList<>());
+        batcher = new WebhookBatcher(scheduler, payloads -> {
+            batches.add(payloads);
+            return CompletableFuture.completedFuture(Collections.nCopies(payloads.size(), true));
+        });
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void testFlushesWhenEventLimitReached() throws Exception {
+        // Test that a full batch goes out immediately as one request
+        batcher.configure(3, 1024, 60_000);
+        batcher.submit(webhook("{\"a\":1}"));
+        batcher.submit(webhook("{\"a\":2}"));
+        CompletableFuture<Boolean> last = batcher.submit(webhook("{\"a\":3}"));
+
+        assertTrue("Batch result should be delivered", last.get(1, TimeUnit.SECONDS));
+        assertEquals("Three events should coalesce into one batch", 1, batches.size());
+        assertEquals("Batch should contain every event", 3, batches.get(0).size());
+    }
+
+    @Test
+    public void testFlushesWhenByteLimitReached() throws Exception {
+        // Test that a large payload flushes the batch before the event limit
+        batcher.configure(100, 10, 60_000);
+        CompletableFuture<Boolean> result = batcher.submit(webhook("{\"item\":\"Dragon bones\"}"));
+
+        assertTrue("Oversized batch should be sent", result.get(1, TimeUnit.SECONDS));
+        assertEquals("One batch should be sent", 1, batches.size());
+    }
+
+    @Test
+    public void testFlushesAfterLinger() throws Exception {
+        // Test that a partial batch is sent once the linger time expires
+        batcher.configure(100, 1024, 50);
+        CompletableFuture<Boolean> first = batcher.submit(webhook("{\"a\":1}"));
+        CompletableFuture<Boolean> second = batcher.submit(webhook("{\"a\":2}"));
+
+        assertTrue("Lingering batch should be sent", first.get(1, TimeUnit.SECONDS));
+        assertTrue("Every future should complete", second.get(1, TimeUnit.SECONDS));
+        assertEquals("Lingering events should share one batch", 1, batches.size());
+        assertEquals("Nothing should remain pending", 0, batcher.pendingCount());
+    }
+
+    @Test
+    public void testFailedBatchFailsEveryEvent() throws Exception {
+        // Test that every caller sees the failure of the batch it was part of
+        WebhookBatcher failing = new WebhookBatcher(scheduler,
+            payloads -> CompletableFuture.completedFuture(Collections.nCopies(payloads.size(), false)));
+        failing.configure(2, 1024, 60_000);
+        CompletableFuture<Boolean> first = failing.submit(webhook("{}"));
+        CompletableFuture<Boolean> second = failing.submit(webhook("{}"));
+
+        assertFalse("First event should report failure", first.get(1, TimeUnit.SECONDS));
+        assertFalse("Second event should report failure", second.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testEachEventGetsItsOwnResult() throws Exception {
+        // Test that one failed payload does not report the delivered ones in its batch as failed
+        WebhookBatcher partial = new WebhookBatcher(scheduler,
+            payloads -> CompletableFuture.completedFuture(Arrays.asList(true, false, true)));
+        partial.configure(3, 1024, 60_000);
+        CompletableFuture<Boolean> first = partial.submit(webhook("{\"a\":1}"));
+        CompletableFuture<Boolean> second = partial.submit(webhook("{\"a\":2}"));
+        CompletableFuture<Boolean> third = partial.submit(webhook("{\"a\":3}"));
+
+        assertTrue("Delivered event should report success", first.get(1, TimeUnit.SECONDS));
+        assertFalse("Failed event should report failure", second.get(1, TimeUnit.SECONDS));
+        assertTrue("Later delivered event should report success", third.get(1, TimeUnit.SECONDS));
+    }
+
+    private static OutgoingWebhook webhook(String json)
+    {
+        return new OutgoingWebhook(json, null, false, false);
+    }
+}
@@ -0,0 +1,150 @@
+package gimpanel.tracker.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for WebhookOutbox
+ */
+public class WebhookOutboxTest
+{
+    private File directory;
+    private WebhookOutbox outbox;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("gimpanel-outbox").toFile();
+        outbox = WebhookOutbox.open(directory, 4L * WebhookOutbox.SEGMENT_SIZE);
+    }
+
+    @After
+    public void tearDown() {
+        outbox.close();
+        File[] files = directory.listFiles();
+        if (files != null)
+        {
+            for (File file : files)
+            {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void testUnacknowledgedEntriesSurviveRestart() throws Exception {
+        // Test that pending webhooks are replayed in order after reopening
+        long first = outbox.append("{\"type\":\"LOOT\"}");
+        outbox.append("{\"type\":\"LEVEL\"}");
+        outbox.append("{\"type\":\"QUEST\"}");
+        outbox.ack(first);
+        outbox.close();
+
+        outbox = WebhookOutbox.open(directory, 4L * WebhookOutbox.SEGMENT_SIZE);
+        List<WebhookOutbox.Entry> pending = outbox.readPending(10, Long.MAX_VALUE);
+
+        assertEquals("Acknowledged entry should not be replayed", 2, pending.size());
+        assertEquals("Payload should round-trip", "{\"type\":\"LEVEL\"}", pending.get(0).getJson());
+        assertEquals("Replay should keep append order", "{\"type\":\"QUEST\"}", pending.get(1).getJson());
+    }
+
+    @Test
+    public void testEventIdIsStoredWithEntry() throws Exception {
+        // Test that an entry keeps its event id across a restart, and one written without it has none
+        outbox.append("{\"type\":\"LOOT\"}", "3f2b8c1e-5d4a-4b7e-9c21-0a6f1e2d3c4b");
+        outbox.append("{\"type\":\"LEVEL\"}");
+        outbox.close();
+
+        outbox = WebhookOutbox.open(directory, 4L * WebhookOutbox.SEGMENT_SIZE);
+        List<WebhookOutbox.Entry> pending = outbox.readPending(10, Long.MAX_VALUE);
+        assertEquals("Event id should round-trip", "3f2b8c1e-5d4a-4b7e-9c21-0a6f1e2d3c4b", pending.get(0).getEventId());
+        assertEquals("Payload should not include the event id", "{\"type\":\"LOOT\"}", pending.get(0).getJson());
+        assertNull("Entry without an event id should have none", pending.get(1).getEventId());
+        assertEquals("Entry without an event id should keep its payload", "{\"type\":\"LEVEL\"}", pending.get(1).getJson());
+    }
+
+    @Test
+    public void testNewEntriesAreNotReplayedWhileInFlight() {
+        // Test that entries from this session wait for the minimum age
+        outbox.append("{\"type\":\"XP_GAIN\"}");
+        assertTrue("Fresh entry should not be replayed yet", outbox.readPending(10, 60_000).isEmpty());
+        assertEquals("Fresh entry should be replayable once old enough", 1, outbox.readPending(10, 0).size());
+    }
+
+    @Test
+    public void testEntriesInFlightAreSkipped() {
+        // Test that a send still running is not replayed, however long it has taken
+        long first = outbox.append("{\"type\":\"LOOT\"}");
+        outbox.append("{\"type\":\"LEVEL\"}");
+
+        List<WebhookOutbox.Entry> pending = outbox.readPending(10, 0, id -> id == first);
+        assertEquals("Only the entry not in flight should be replayed", 1, pending.size());
+        assertEquals("Entry not in flight should be returned", "{\"type\":\"LEVEL\"}", pending.get(0).getJson());
+    }
+
+    @Test
+    public void testTornTailIsTruncated() throws Exception {
+        // Test that a partially written record after a crash is cut off on recovery
+        outbox.append("{\"type\":\"LOOT\"}");
+        outbox.close();
+
+        File segment = directory.listFiles((dir, name) -> name.endsWith(".seg"))[0];
+        try (RandomAccessFile raf = new RandomAccessFile(segment, "rw"))
+        {
+            long tornOffset = 4 + 4 + 8 + 8 + "{\"type\":\"LOOT\"}".length();
+            raf.seek(tornOffset);
+            raf.writeInt(500); // length of a record that was never finished
+            raf.writeInt(0xDEADBEEF);
+        }
+
+        outbox = WebhookOutbox.open(directory, 4L * WebhookOutbox.SEGMENT_SIZE);
+        outbox.append("{\"type\":\"LEVEL\"}");
+        List<WebhookOutbox.Entry> pending = outbox.readPending(10, 0);
+
+        assertEquals("Intact and new records should remain", 2, pending.size());
+        assertEquals("New record should follow the intact one", "{\"type\":\"LEVEL\"}", pending.get(1).getJson());
+    }
+
+    @Test
+    public void testAcknowledgedSegmentsAreDeleted() {
+        // Test that disk use shrinks once everything in a segment is delivered
+        String payload = new String(new char[100_000]).replace('\0', 'x');
+        long last = 0;
+        for (int i = 0; i < 20; i++)
+        {
+            last = outbox.append(payload);
+        }
+        for (long id = 1; id <= last; id++)
+        {
+            outbox.ack(id);
+        }
+
+        assertEquals("Nothing should be pending", 0, outbox.pendingCount());
+        assertEquals("Only the active segment should remain", 1,
+            directory.listFiles((dir, name) -> name.endsWith(".seg")).length);
+    }
+
+    @Test
+    public void testDiskBudgetDropsOldestEntries() {
+        // Test that the outbox never grows past its budget while the backend is down
+        String payload = new String(new char[100_000]).replace('\0', 'x');
+        for (int i = 0; i < 100; i++)
+        {
+            outbox.append(payload);
+        }
+
+        assertTrue("Segment count should stay within budget",
+            directory.listFiles((dir, name) -> name.endsWith(".seg")).length <= 4);
+        assertTrue("Dropped entries should be counted", outbox.getDroppedCount() > 0);
+        assertEquals("Pending and dropped should account for every entry", 100,
+            outbox.pendingCount() + outbox.getDroppedCount());
+    }
+}
@@ -0,0 +1,265 @@
+package gimpanel.tracker.util;
+
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import okio.ByteString;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for WebhookStream
+ */
+public class WebhookStreamTest
+{
+    private static final String LOOT = "{\"type\":\"LOOT\"}";
+    private static final String LEVEL = "{\"type\":\"LEVEL\"}";
+    private static final String QUEST = "{\"type\":\"QUEST\"}";
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final LocalBackend backend = new LocalBackend();
+    private final List<String> sentOverHttp = new CopyOnWriteArrayList<>();
+    private final WebhookStream stream = new WebhookStream(backend, new Request.Builder().url("http://localhost/api/webhook/stream").build(),
+        scheduler, webhook -> {
+            sentOverHttp.add(webhook.getJson());
+            return CompletableFuture.completedFuture(true);
+        }, 1, 5, TimeUnit.MILLISECONDS);
+
+    @After
+    public void tearDown()
+    {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void testFramesCompleteWhenAcknowledged() throws Exception {
+        // Test that a webhook sent before the connection opens goes out as a frame once it does
+        CompletableFuture<Boolean> result = stream.send(webhook(LOOT));
+        LocalSocket socket = backend.accept();
+        assertFalse("Should not complete before the backend acknowledges it", result.isDone());
+
+        socket.open();
+        assertTrue("Stream should report connected", stream.isConnected());
+        assertEquals("Frame should wrap the payload with its sequence number",
+            Collections.singletonList("{\"seq\":1,\"event\":" + LOOT + "}"), socket.frames);
+
+        socket.reply("{\"ack\":1}");
+        assertTrue("Acknowledged webhook should complete as delivered", result.get(1, TimeUnit.SECONDS));
+        assertEquals("Nothing should be pending", 0, stream.pendingCount());
+        assertTrue("Nothing should go over HTTP", sentOverHttp.isEmpty());
+    }
+
+    @Test
+    public void testReconnectResumesUnacknowledgedFrames() throws Exception {
+        // Test that frames the backend never acknowledged are sent again, in order, after a reconnect
+        stream.connect();
+        LocalSocket first = backend.accept();
+        first.open();
+        CompletableFuture<Boolean> loot = stream.send(webhook(LOOT));
+        CompletableFuture<Boolean> level = stream.send(webhook(LEVEL));
+        CompletableFuture<Boolean> quest = stream.send(webhook(QUEST));
+        first.reply("{\"ack\":1}");
+
+        first.fail(null);
+        assertFalse("Stream should report disconnected", stream.isConnected());
+        LocalSocket second = backend.accept();
+        assertEquals("Reconnect should keep the session",
+            first.request.header(WebhookStream.SESSION_HEADER), second.request.header(WebhookStream.SESSION_HEADER));
+        assertEquals("Reconnect should resume after the last acknowledged frame",
+            "1", second.request.header(WebhookStream.RESUME_HEADER));
+
+        second.open();
+        assertEquals("Only unacknowledged frames should be resent, in order", Arrays.asList(
+            "{\"seq\":2,\"event\":" + LEVEL + "}", "{\"seq\":3,\"event\":" + QUEST + "}"), second.frames);
+
+        second.reply("{\"ack\":3}");
+        assertTrue("First webhook should be delivered", loot.get(1, TimeUnit.SECONDS));
+        assertTrue("Resent webhooks should be delivered", level.get(1, TimeUnit.SECONDS) && quest.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testRefusedUpgradeFallsBackToHttp() throws Exception {
+        // Test that a plain HTTP answer to the upgrade moves pending and later webhooks to HTTP
+        CompletableFuture<Boolean> loot = stream.send(webhook(LOOT));
+        LocalSocket socket = backend.accept();
+        socket.fail(new Response.Builder().request(socket.request).protocol(Protocol.HTTP_1_1).code(404).message("Not Found").build());
+
+        assertTrue("Stream should be refused", stream.isRefused());
+        assertTrue("Pending webhook should complete from the HTTP send", loot.get(1, TimeUnit.SECONDS));
+
+        stream.send(webhook(LEVEL));
+        assertEquals("Both webhooks should go over HTTP", Arrays.asList(LOOT, LEVEL), sentOverHttp);
+        assertEquals("Stream should not try to connect again", 1, backend.sockets.size());
+    }
+
+    @Test
+    public void testUnavailableUpgradeIsRetried() throws Exception {
+        // Test that a 503 answer to the upgrade is a failed connect that is retried, not a refusal
+        CompletableFuture<Boolean> loot = stream.send(webhook(LOOT));
+        LocalSocket first = backend.accept();
+        first.fail(new Response.Builder().request(first.request).protocol(Protocol.HTTP_1_1).code(503).message("Service Unavailable").build());
+
+        assertFalse("Stream should not be refused", stream.isRefused());
+        LocalSocket second = backend.accept();
+        second.open();
+        assertEquals("Pending webhook should go out on the reconnect",
+            Collections.singletonList("{\"seq\":1,\"event\":" + LOOT + "}"), second.frames);
+
+        second.reply("{\"ack\":1}");
+        assertTrue("Webhook should be delivered over the stream", loot.get(1, TimeUnit.SECONDS));
+        assertTrue("Nothing should go over HTTP", sentOverHttp.isEmpty());
+    }
+
+    @Test
+    public void testCloseSendsUnacknowledgedOverHttp() throws Exception {
+        // Test that ending the session hands unacknowledged webhooks to HTTP instead of losing them
+        stream.connect();
+        LocalSocket socket = backend.accept();
+        socket.open();
+        stream.send(webhook(LOOT));
+        CompletableFuture<Boolean> level = stream.send(webhook(LEVEL));
+        socket.reply("{\"ack\":1}");
+
+        stream.close();
+        assertTrue("Socket should be closed", socket.closed);
+        assertTrue("Unacknowledged webhook should complete from the HTTP send", level.get(1, TimeUnit.SECONDS));
+        assertEquals("Only the unacknowledged webhook should go over HTTP", Collections.singletonList(LEVEL), sentOverHttp);
+    }
+
+    @Test
+    public void testRepairRequestsReachListener() throws Exception {
+        // Test that the backend's missing and resync messages are passed on, alongside acks
+        List<String> requests = new CopyOnWriteArrayList<>();
+        stream.setRepairListener((missing, resync) -> requests.add(missing + "/" + resync));
+        CompletableFuture<Boolean> loot = stream.send(webhook(LOOT));
+        LocalSocket socket = backend.accept();
+        socket.open();
+
+        socket.reply("{\"ack\":1,\"missing\":\"3-5\"}");
+        socket.reply("{\"resync\":\"full\"}");
+        assertEquals("Both requests should reach the listener", Arrays.asList("3-5/null", "null/full"), requests);
+        assertTrue("Ack in the same message should still count", loot.get(1, TimeUnit.SECONDS));
+    }
+
+    private static OutgoingWebhook webhook(String json)
+    {
+        return new OutgoingWebhook(json, null, true, false);
+    }
+
+    /**
+     * Stands in for the backend's WebSocket endpoint, handing each connection attempt to the test.
+     */
+    private static class LocalBackend implements WebSocket.Factory
+    {
+        private final List<LocalSocket> sockets = new CopyOnWriteArrayList<>();
+        private int accepted;
+
+        @Override
+        public WebSocket newWebSocket(Request request, WebSocketListener listener)
+        {
+            LocalSocket socket = new LocalSocket(request, listener);
+            sockets.add(socket);
+            return socket;
+        }
+
+        /**
+         * Waits for the next connection attempt, since reconnects happen on the scheduler.
+         */
+        private LocalSocket accept() throws InterruptedException
+        {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+            while (sockets.size() <= accepted)
+            {
+                if (System.nanoTime() > deadline)
+                {
+                    fail("Stream did not connect");
+                }
+                Thread.sleep(1);
+            }
+            return sockets.get(accepted++);
+        }
+    }
+
+    private static class LocalSocket implements WebSocket
+    {
+        private final Request request;
+        private final WebSocketListener listener;
+        private final List<String> frames = new ArrayList<>();
+        private boolean closed;
+
+        private LocalSocket(Request request, WebSocketListener listener)
+        {
+            this.request = request;
+            this.listener = listener;
+        }
+
+        private void open()
+        {
+            listener.onOpen(this, new Response.Builder().request(request).protocol(Protocol.HTTP_1_1).code(101).message("Switching Protocols").build());
+        }
+
+        private void reply(String text)
+        {
+            listener.onMessage(this, text);
+        }
+
+        private void fail(Response response)
+        {
+            listener.onFailure(this, response != null ? new ProtocolException("Expected HTTP 101") : new IOException("Connection reset"), response);
+        }
+
+        @Override
+        public Request request()
+        {
+            return request;
+        }
+
+        @Override
+        public long queueSize()
+        {
+            return 0;
+        }
+
+        @Override
+        public synchronized boolean send(String text)
+        {
+            frames.add(text);
+            return true;
+        }
+
+        @Override
+        public boolean send(ByteString bytes)
+        {
+            return false;
+        }
+
+        @Override
+        public boolean close(int code, String reason)
+        {
+            closed = true;
+            return true;
+        }
+
+        @Override
+        public void cancel()
+        {
+            closed = true;
+        }
+    }
+}